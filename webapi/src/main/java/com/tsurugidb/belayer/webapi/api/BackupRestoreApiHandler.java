@@ -16,8 +16,11 @@
 package com.tsurugidb.belayer.webapi.api;
 
 import java.util.Objects;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
@@ -28,6 +31,7 @@ import org.springframework.web.reactive.function.server.ServerResponse;
 
 import com.tsurugidb.belayer.webapi.dto.BackupRestoreRequestParam;
 import com.tsurugidb.belayer.webapi.dto.BackupRestoreStartRequestBody;
+import com.tsurugidb.belayer.webapi.dto.BackupVerifyResult;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.JobList;
 import com.tsurugidb.belayer.webapi.dto.JobResult;
@@ -135,6 +139,8 @@ public class BackupRestoreApiHandler {
 
           param.setDirPath(body.getDirPath());
           param.setZipFilePath(body.getZipFilePath());
+          param.setFormat(body.getFormat());
+          param.setVerify(body.isVerify());
           param.setJobId(jobId);
           return param;
         });
@@ -157,6 +163,24 @@ public class BackupRestoreApiHandler {
     return param;
   }
 
+  /**
+   * Verify Backup API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> verifyBackup(ServerRequest req) {
+
+    Mono<BackupVerifyResult> result = ReactiveSecurityContextHolder.getContext()
+        .map(SecurityContext::getAuthentication)
+        .flatMap(auth -> fillParams(auth, req, null))
+        .map(this::checkFileExists)
+        .flatMap(param -> backupRestoreService.verifyBackup(param.getUid(), param.getZipFilePath()));
+
+    return ServerResponse.ok().body(
+        BodyInserters.fromProducer(result, BackupVerifyResult.class));
+  }
+
   private JobResult createResult(Job job) {
     var result = new JobResult();
     result.setJobId(job.getJobId());
@@ -192,6 +216,8 @@ public class BackupRestoreApiHandler {
   /**
    * Show list of the backup job.
    *
+   * All jobs are returned when neither "cursor" nor "limit" is specified.
+   *
    * @param request Request
    * @return Response
    */
@@ -203,6 +229,18 @@ public class BackupRestoreApiHandler {
       throw new BadRequestException(msg, msg);
     }
 
+    Optional<String> cursor = request.queryParam("cursor");
+    Optional<String> limitParam = request.queryParam("limit");
+    if (cursor.isPresent() || limitParam.isPresent()) {
+      Integer limit = limitParam.map(this::parseLimit).orElse(null);
+      return ReactiveSecurityContextHolder.getContext()
+          .map(SecurityContext::getAuthentication)
+          .map(Authentication::getName)
+          .flatMap(uid -> backupRestoreService.getJobPage(type, uid, cursor.orElse(null), limit))
+          .flatMap(page -> ServerResponse.ok().body(
+              BodyInserters.fromProducer(Mono.just(page), JobList.class)));
+    }
+
     return ReactiveSecurityContextHolder.getContext()
         .map(SecurityContext::getAuthentication)
         .map(Authentication::getName)
@@ -212,6 +250,40 @@ public class BackupRestoreApiHandler {
             BodyInserters.fromProducer(Mono.just(new JobList(job)), JobList.class)));
   }
 
+  private Integer parseLimit(String limit) {
+    try {
+      return Integer.valueOf(limit);
+    } catch (NumberFormatException ex) {
+      var msg = "Invalid parameter. limit:" + limit;
+      throw new BadRequestException(msg, msg, ex);
+    }
+  }
+
+  /**
+   * Stream changes of the backup/restore jobs as server-sent events.
+   *
+   * Watches one job when the path has a job ID, otherwise all jobs of the
+   * user, filtered by "type" query parameter if specified.
+   *
+   * @param request Request
+   * @return Response
+   */
+  public Mono<ServerResponse> watchJobs(final ServerRequest request) {
+    var pathVariables = request.pathVariables();
+    String type = pathVariables.containsKey("type") ? pathVariables.get("type")
+        : request.queryParam("type").orElse(null);
+    String jobId = pathVariables.get("jobid");
+
+    return ReactiveSecurityContextHolder.getContext()
+        .map(SecurityContext::getAuthentication)
+        .map(Authentication::getName)
+        .map(uid -> backupRestoreService.watchJobs(type, uid, jobId))
+        .flatMap(jobs -> ServerResponse.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .body(BodyInserters.fromServerSentEvents(
+                jobs.map(job -> ServerSentEvent.builder(job).event("job").build()))));
+  }
+
   /**
    * Cancel specified backup/restore job.
    *
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadRequestBody;
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadStatus;
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
+import com.tsurugidb.belayer.webapi.service.ChunkedUploadService;
+
+import reactor.core.publisher.Mono;
+
+@Component
+public class ChunkedUploadApiHandler {
+
+  @Autowired
+  ChunkedUploadService chunkedUploadService;
+
+  @Autowired
+  BelayerSchedulers belayerSchedulers;
+
+  /**
+   * Start chunked upload API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> startUpload(ServerRequest req) {
+    return getUid()
+        .zipWith(req.bodyToMono(ChunkedUploadRequestBody.class))
+        // creates the part file and may compute the storage usage
+        .flatMap(tuple -> Mono.fromCallable(() -> chunkedUploadService.initiate(tuple.getT1(), tuple.getT2()))
+            .subscribeOn(belayerSchedulers.disk()))
+        .flatMap(this::toResponse);
+  }
+
+  /**
+   * Upload chunk API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> uploadChunk(ServerRequest req) {
+    String uploadId = req.pathVariable("uploadid");
+    long offset = parseOffset(req.queryParam("offset").orElse(null));
+    long contentLength = req.headers().contentLength().orElse(-1);
+
+    return getUid()
+        .flatMap(uid -> chunkedUploadService.writeChunk(uid, uploadId, offset, contentLength,
+            req.bodyToFlux(DataBuffer.class)))
+        .flatMap(this::toResponse);
+  }
+
+  /**
+   * Show chunked upload status API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> showStatus(ServerRequest req) {
+    String uploadId = req.pathVariable("uploadid");
+
+    return getUid()
+        .map(uid -> chunkedUploadService.getStatus(uid, uploadId))
+        .flatMap(this::toResponse);
+  }
+
+  /**
+   * Complete chunked upload API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> completeUpload(ServerRequest req) {
+    String uploadId = req.pathVariable("uploadid");
+
+    return getUid()
+        .zipWith(req.bodyToMono(ChunkedUploadRequestBody.class))
+        .flatMap(tuple -> chunkedUploadService.complete(tuple.getT1(), uploadId, tuple.getT2().getSha256()))
+        .flatMap(this::toResponse);
+  }
+
+  /**
+   * Abort chunked upload API
+   *
+   * @param req Request
+   * @return Response
+   */
+  public Mono<ServerResponse> abortUpload(ServerRequest req) {
+    String uploadId = req.pathVariable("uploadid");
+
+    return getUid()
+        .map(uid -> chunkedUploadService.abort(uid, uploadId))
+        .flatMap(this::toResponse);
+  }
+
+  private Mono<String> getUid() {
+    return ReactiveSecurityContextHolder.getContext()
+        .map(SecurityContext::getAuthentication)
+        .map(Authentication::getName);
+  }
+
+  private long parseOffset(String offset) {
+    if (offset == null) {
+      throw new BadRequestException("offset must be specified.", "offset must be specified.");
+    }
+    try {
+      return Long.parseLong(offset);
+    } catch (NumberFormatException ex) {
+      throw new BadRequestException("Invalid offset. offset:" + offset, "Invalid offset. offset:" + offset, ex);
+    }
+  }
+
+  private Mono<ServerResponse> toResponse(ChunkedUploadStatus status) {
+    return ServerResponse.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(status);
+  }
+}
@@ -82,16 +82,8 @@ public class DbControlApiHandler {
                                             .body(BodyInserters.fromValue(new ErrorResult("invalid mode")));
                                 }
                                 log.debug("db launch mode:" + mode);
-                                var status = dbControlService.startDatabase("start", (String) auth.getCredentials(),
-                                        mode, replicateFrom, autoFetchWal);
-
-                                if (status == null || ExecStatus.STATUS_FAILURE.equals(status.getStatus())) {
-                                    var statusString = status != null ? status.toStatusString() : "status unknown";
-                                    var errorMessage = String.format("Failed to execute command. %s", statusString);
-                                    return ServerResponse.badRequest()
-                                            .body(BodyInserters.fromValue(new ErrorResult(errorMessage)));
-                                }
-                                return ServerResponse.ok().build();
+                                return toResponse(dbControlService.startDatabase("start",
+                                        (String) auth.getCredentials(), mode, replicateFrom, autoFetchWal));
                             });
                 });
     }
@@ -106,13 +98,7 @@ public class DbControlApiHandler {
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .flatMap(auth -> {
-                    var status = dbControlService.shutdownDatabase("shutdown", (String) auth.getCredentials());
-                    if (status == null || ExecStatus.STATUS_FAILURE.equals(status.getStatus())) {
-                        var statusString = status != null ? status.toStatusString() : "status unknown";
-                        var errorMessage = String.format("Failed to execute command. %s", statusString);
-                        return ServerResponse.badRequest().body(BodyInserters.fromValue(new ErrorResult(errorMessage)));
-                    }
-                    return ServerResponse.ok().build();
+                    return toResponse(dbControlService.shutdownDatabase("shutdown", (String) auth.getCredentials()));
                 });
 
     }
@@ -148,16 +134,9 @@ public class DbControlApiHandler {
                                             .body(BodyInserters.fromValue(new ErrorResult("invalid mode")));
                                 }
 
-                                var status = dbControlService.changeDatabaseMode("change_mode",
+                                return toResponse(dbControlService.changeDatabaseMode("change_mode",
                                         (String) auth.getCredentials(), mode,
-                                        from, autoFetchWal);
-                                if (status == null || ExecStatus.STATUS_FAILURE.equals(status.getStatus())) {
-                                    var statusString = status != null ? status.toStatusString() : "status unknown";
-                                    var errorMessage = String.format("Failed to execute command. %s", statusString);
-                                    return ServerResponse.badRequest()
-                                            .body(BodyInserters.fromValue(new ErrorResult(errorMessage)));
-                                }
-                                return ServerResponse.ok().build();
+                                        from, autoFetchWal));
                             });
                 });
     }
@@ -184,16 +163,8 @@ public class DbControlApiHandler {
                                             .body(BodyInserters.fromValue(new ErrorResult("invalid from")));
                                 }
 
-                                var status = dbControlService.synchronizeTransactionLog("sync_wal",
-                                        (String) auth.getCredentials(), fromHost);
-
-                                if (status == null || ExecStatus.STATUS_FAILURE.equals(status.getStatus())) {
-                                    var statusString = status != null ? status.toStatusString() : "status unknown";
-                                    var errorMessage = String.format("Failed to execute command. %s", statusString);
-                                    return ServerResponse.badRequest()
-                                            .body(BodyInserters.fromValue(new ErrorResult(errorMessage)));
-                                }
-                                return ServerResponse.ok().build();
+                                return toResponse(dbControlService.synchronizeTransactionLog("sync_wal",
+                                        (String) auth.getCredentials(), fromHost));
                             });
                 });
     }
@@ -207,10 +178,8 @@ public class DbControlApiHandler {
     public Mono<ServerResponse> getStatus(ServerRequest req) {
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
-                .flatMap(auth -> {
-                    var status = dbControlService.getStatus("status", (String) auth.getCredentials());
-                    return ServerResponse.ok().body(BodyInserters.fromValue(status));
-                });
+                .flatMap(auth -> dbControlService.getStatus("status", (String) auth.getCredentials()))
+                .flatMap(status -> ServerResponse.ok().body(BodyInserters.fromValue(status)));
     }
 
     /**
@@ -230,6 +199,31 @@ public class DbControlApiHandler {
                 BodyInserters.fromProducer(result, TableNames.class));
     }
 
+    /**
+     * Create the response from the result of a command.
+     *
+     * The command runs when the response is subscribed, and no thread waits for
+     * it.
+     *
+     * @param result status of the command, or empty if unknown
+     * @return Response
+     */
+    private Mono<ServerResponse> toResponse(Mono<ExecStatus> result) {
+        return result
+                .flatMap(status -> {
+                    if (ExecStatus.STATUS_FAILURE.equals(status.getStatus())) {
+                        return badRequest(status.toStatusString());
+                    }
+                    return ServerResponse.ok().build();
+                })
+                .switchIfEmpty(Mono.defer(() -> badRequest("status unknown")));
+    }
+
+    private Mono<ServerResponse> badRequest(String statusString) {
+        var errorMessage = String.format("Failed to execute command. %s", statusString);
+        return ServerResponse.badRequest().body(BodyInserters.fromValue(new ErrorResult(errorMessage)));
+    }
+
     private boolean isValidMode(String mode) {
         return modeNames.contains(mode);
     }
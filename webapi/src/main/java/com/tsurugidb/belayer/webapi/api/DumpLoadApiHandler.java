@@ -16,8 +16,11 @@
 package com.tsurugidb.belayer.webapi.api;
 
 import java.util.Objects;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
@@ -207,6 +210,8 @@ public class DumpLoadApiHandler {
     /**
      * Show list of the jobs.
      *
+     * All jobs are returned when neither "cursor" nor "limit" is specified.
+     *
      * @param request Request
      * @return Response
      */
@@ -218,6 +223,18 @@ public class DumpLoadApiHandler {
             throw new BadRequestException(msg, msg);
         }
 
+        Optional<String> cursor = request.queryParam("cursor");
+        Optional<String> limitParam = request.queryParam("limit");
+        if (cursor.isPresent() || limitParam.isPresent()) {
+            Integer limit = limitParam.map(this::parseLimit).orElse(null);
+            return ReactiveSecurityContextHolder.getContext()
+                    .map(SecurityContext::getAuthentication)
+                    .map(Authentication::getName)
+                    .flatMap(uid -> dumpLoadService.getJobPage(type, uid, cursor.orElse(null), limit))
+                    .flatMap(page -> ServerResponse.ok().body(
+                            BodyInserters.fromProducer(Mono.just(page), JobList.class)));
+        }
+
         return ReactiveSecurityContextHolder.getContext()
                 .map(SecurityContext::getAuthentication)
                 .map(Authentication::getName)
@@ -228,6 +245,40 @@ public class DumpLoadApiHandler {
                                 JobList.class)));
     }
 
+    private Integer parseLimit(String limit) {
+        try {
+            return Integer.valueOf(limit);
+        } catch (NumberFormatException ex) {
+            var msg = "Invalid parameter. limit:" + limit;
+            throw new BadRequestException(msg, msg, ex);
+        }
+    }
+
+    /**
+     * Stream changes of the dump/load jobs as server-sent events.
+     *
+     * Watches one job when the path has a job ID, otherwise all jobs of the
+     * user, filtered by "type" query parameter if specified.
+     *
+     * @param request Request
+     * @return Response
+     */
+    public Mono<ServerResponse> watchJobs(final ServerRequest request) {
+        var pathVariables = request.pathVariables();
+        String type = pathVariables.containsKey("type") ? pathVariables.get("type")
+                : request.queryParam("type").orElse(null);
+        String jobId = pathVariables.get("jobid");
+
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(Authentication::getName)
+                .map(uid -> dumpLoadService.watchJobs(type, uid, jobId))
+                .flatMap(jobs -> ServerResponse.ok()
+                        .contentType(MediaType.TEXT_EVENT_STREAM)
+                        .body(BodyInserters.fromServerSentEvents(
+                                jobs.map(job -> ServerSentEvent.builder(job).event("job").build()))));
+    }
+
     /**
      * Cancel specified dump/load job.
      *
@@ -17,17 +17,26 @@ package com.tsurugidb.belayer.webapi.api;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -35,32 +44,43 @@ import javax.annotation.PostConstruct;
 import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.codec.multipart.FilePart;
-import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.http.codec.ResourceHttpMessageWriter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
+import com.tsurugidb.belayer.webapi.api.helper.MultipartIngestor;
 import com.tsurugidb.belayer.webapi.api.helper.UploadHelper;
 import com.tsurugidb.belayer.webapi.api.helper.UploadHelper.UploadParameter;
 import com.tsurugidb.belayer.webapi.dto.DeleteTarget;
 import com.tsurugidb.belayer.webapi.dto.DownloadPathList;
 import com.tsurugidb.belayer.webapi.dto.DownloadZip;
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
 import com.tsurugidb.belayer.webapi.exception.InternalServerErrorException;
 import com.tsurugidb.belayer.webapi.exception.NotFoundException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
 import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.ZipFileUtil;
+import com.tsurugidb.belayer.webapi.model.DirectoryIndex;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
+import com.tsurugidb.belayer.webapi.model.StorageUsageLedger;
 import com.tsurugidb.belayer.webapi.model.SystemTime;
+import com.tsurugidb.belayer.webapi.model.ZipStreamWriter;
 import com.tsurugidb.belayer.webapi.service.FileSystemService;
 import com.tsurugidb.belayer.webapi.service.ParquetService;
 
@@ -84,9 +104,30 @@ public class FileSystemApiHandler {
   @Value("${webapi.list.max.files}")
   private int listFileMaxSize;
 
+  @Value("${webapi.download.csv.parallelism}")
+  private int csvConvertParallelism;
+
+  private static final MediaType MEDIA_TYPE_ZIP = MediaType.parseMediaType("application/zip");
+
+  private static final ResourceHttpMessageWriter RESOURCE_WRITER = new ResourceHttpMessageWriter();
+
+  private static final ResolvableType RESOURCE_TYPE = ResolvableType.forClass(Resource.class);
+
   @Autowired
   private UploadHelper uploadHelper;
 
+  @Autowired
+  private MultipartIngestor multipartIngestor;
+
+  @Autowired
+  private DirectoryIndex directoryIndex;
+
+  @Autowired
+  private StorageUsageLedger storageUsageLedger;
+
+  @Autowired
+  private ScratchSpaceManager scratchSpaceManager;
+
   @Autowired
   private FileSystemService fileSystemService;
 
@@ -96,11 +137,17 @@ public class FileSystemApiHandler {
   @Autowired
   private SystemTime systemTime;
 
+  @Autowired
+  private BelayerSchedulers belayerSchedulers;
+
   @PostConstruct
   public void validateProperties() {
     if (zipCompressLevel < -1 || zipCompressLevel > 9) {
       throw new IllegalArgumentException("zipCompressLevel must be between 0 and 9 or -1.");
     }
+    if (csvConvertParallelism < 1) {
+      throw new IllegalArgumentException("csv convert parallelism must be 1 or more.");
+    }
   }
 
   /**
@@ -118,9 +165,21 @@ public class FileSystemApiHandler {
     return ReactiveSecurityContextHolder.getContext()
         .map(SecurityContext::getAuthentication)
         .map(auth -> this.fillParams(auth, request, param))
-        .flatMap(p -> this.extractParamFromMultipart(request, param))
-        .flatMapMany(p -> this.saveFile(param))
+        // the body size includes form fields and headers of parts
+        .flatMap(p -> storageUsageLedger.reserve(p.getUid(), request.headers().contentLength().orElse(0)))
+        // uploaded files are recorded while ingested, so release the reservation after that
+        .flatMapMany(reservation -> multipartIngestor.ingest(request, param.getUid(), new UploadPartListener(param))
+            .doFinally(signal -> reservation.release()))
+        .map(realPath -> fileSystemService.convertToDownloadPath(param.getUid(), realPath).toString())
         .collectList()
+        .map(res -> {
+          // when 0 files uploaded
+          if (res.size() == 0) {
+            throw new BadRequestException("No files to upload.",
+                "no files to upload.", null);
+          }
+          return res;
+        })
         .flatMap(res -> ServerResponse.ok()
             .contentType(MediaType.APPLICATION_JSON)
             .body(BodyInserters.fromProducer(Mono.just(new DownloadPathList(res, null)), DownloadPathList.class)));
@@ -134,63 +193,54 @@ public class FileSystemApiHandler {
     return param;
   }
 
-  private Mono<UploadParameter> extractParamFromMultipart(ServerRequest request, UploadParameter param) {
+  /**
+   * Decides where to save uploaded files from the form fields.
+   *
+   * A file which arrives before "destDir" is spilled until all parts are
+   * received, and so is an existing file which arrives before "overwrite".
+   */
+  private class UploadPartListener implements MultipartIngestor.PartListener {
 
-    return request.body(BodyExtractors.toParts())
-        .map(part -> {
-          if (part instanceof FilePart && part.name().equals("file")) {
-            var filePart = (FilePart) part;
-            param.addFilePart(filePart);
+    private final UploadParameter param;
 
-          } else if (part instanceof FormFieldPart) {
-            var name = part.name();
-            var value = ((FormFieldPart) part).value();
-            if ("overwrite".equals(name)) {
-              param.setOverwrite(Boolean.valueOf(value));
-            } else if ("destDir".equals(name)) {
-              param.setDestDirPath(value);
-            }
-          }
-          return "dumy";
-        })
-        .collectList()
-        .map(dummy -> {
-          // when 0 files uploaded
-          var list = param.getFileParts();
-          if (list.size() == 0) {
-            throw new BadRequestException("No files to upload.",
-                "no files to upload.", null);
-          }
+    private Path destDir;
 
-          var destDir = fileSystemService.createDirectory(param.getUid(), param.getDestDirPath());
-          return destDir;
-        })
-        .then(Mono.just(param));
-  }
-
-  private Flux<String> saveFile(UploadParameter param) {
-    var destDir = fileSystemService.convertToAbsolutePath(param.getUid(), param.getDestDirPath());
-    return Flux.fromIterable(param.getFileParts())
-        .flatMap(filePart -> {
-          var realFilePath = Path.of(destDir.toString(), filePart.filename());
-          Resource resource = new FileSystemResource(realFilePath);
-          if (Files.exists(realFilePath) && resource.isFile()) {
-            if (param.isOverwrite()) {
-              log.debug("overwrite file: " + realFilePath);
-            } else {
-              var msg = String.format("target file exists. file:{}, dir:{}", realFilePath.toString(),
-                  destDir.toString());
-              throw new BadRequestException(msg, msg);
-            }
-          }
+    private UploadPartListener(UploadParameter param) {
+      this.param = param;
+    }
 
-          return uploadHelper.saveFile(param.getUid(), destDir, filePart);
-        })
-        .map(realPath -> {
-          var downloadPath = fileSystemService.convertToDownloadPath(param.getUid(), realPath);
-          return downloadPath.toString();
-        });
+    @Override
+    public void onFormField(String name, String value) {
+      if ("overwrite".equals(name)) {
+        param.setOverwrite(Boolean.valueOf(value));
+      } else if ("destDir".equals(name)) {
+        param.setDestDirPath(value);
+      }
+    }
+
+    @Override
+    public Path getDestination(String fileName, boolean allReceived) {
+      if (param.getDestDirPath() == null && !allReceived) {
+        return null;
+      }
+      if (destDir == null) {
+        destDir = fileSystemService.createDirectory(param.getUid(), param.getDestDirPath());
+      }
 
+      var realFilePath = uploadHelper.resolveFilePath(destDir, fileName);
+      if (Files.isRegularFile(realFilePath)) {
+        if (param.isOverwrite()) {
+          log.debug("overwrite file: " + realFilePath);
+        } else if (!allReceived) {
+          return null;
+        } else {
+          var msg = String.format("target file exists. file:%s, dir:%s", realFilePath.toString(),
+              destDir.toString());
+          throw new BadRequestException(msg, msg);
+        }
+      }
+      return destDir;
+    }
   }
 
   /**
@@ -212,11 +262,28 @@ public class FileSystemApiHandler {
     return ReactiveSecurityContextHolder.getContext()
         .map(SecurityContext::getAuthentication)
         .map(Authentication::getName)
-        .map(uid -> getFileResource(uid, filePath, convertToCsv, filenameSuffix))
-        .flatMap(resource -> createBinaryRespose(resource, resource.getFilename()));
+        .flatMap(uid -> {
+          // stream zip when directory is specified
+          Path path = checkDownloadPath(uid, filePath);
+          if (Files.isDirectory(path)) {
+            return createZipResponse(uid, path);
+          }
+          if (!convertToCsv) {
+            return createRangeableResponse(req, getFileResource(uid, filePath, null, filenameSuffix), null);
+          }
+          // CSV is created in a temp directory and deleted after the response is written
+          Path scratchDir = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
+          try {
+            Resource resource = getFileResource(uid, filePath, scratchDir, filenameSuffix);
+            return createRangeableResponse(req, resource, scratchDir);
+          } catch (RuntimeException ex) {
+            scratchSpaceManager.release(scratchDir);
+            throw ex;
+          }
+        });
   }
 
-  private Resource getFileResource(String uid, String filePath, boolean convertToCsv, String suffix) {
+  private Path checkDownloadPath(String uid, String filePath) {
 
     Path path = Path.of(storageRootDir, uid, filePath).toAbsolutePath().normalize();
 
@@ -236,9 +303,19 @@ public class FileSystemApiHandler {
           "File or Directory not found. path:" + path, null);
     }
 
-    // create zip when directory is specified
+    return path;
+  }
+
+  /**
+   * @param csvDir directory to create CSV converted from parquet, or null not to
+   *               convert
+   */
+  private Resource getFileResource(String uid, String filePath, Path csvDir, String suffix) {
+
+    Path path = checkDownloadPath(uid, filePath);
     if (Files.isDirectory(path)) {
-      return createZipResource(uid, path);
+      throw new BadRequestException("Directory can not be included. path:" + filePath,
+          "Directory can not be included. path:" + path, null);
     }
 
     Resource resource = new FileSystemResource(path);
@@ -249,33 +326,55 @@ public class FileSystemApiHandler {
     }
 
     // convert parquet to csv if necessary
-    if (!convertToCsv) {
+    if (csvDir == null) {
       return resource;
     }
 
-    return convertToParquetToCsv(path, suffix);
+    return convertToParquetToCsv(path, csvDir, suffix);
   }
 
-  private Resource createZipResource(String uid, Path dirPath) {
+  private Mono<ServerResponse> createZipResponse(String uid, Path dirPath) {
 
     String fileName = dirPath.getName(dirPath.getNameCount() - 1).toString() + ".zip";
-    var tempDir = fileSystemService.createTempDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
-    String zipFilePath = tempDir.toString() + "/" + fileName;
     String downloadPath = fileSystemService.convertToDownloadPath(uid, dirPath.toString()).toString();
-    log.debug("dirPath:{},zipFilePath:{},downloadPath:{}", dirPath, zipFilePath, downloadPath);
-    String zipFileName = getFileList(uid, downloadPath, false, true).stream()
+    log.debug("dirPath:{},fileName:{},downloadPath:{}", dirPath, fileName, downloadPath);
+    List<String> filePaths = getFileList(uid, downloadPath, false, true, null, Integer.MAX_VALUE).getPaths().stream()
         .map(it -> {
           log.debug("filePath:" + it);
           return dirPath + it.replaceFirst(downloadPath, "").toString();
         })
-        .collect(ZipFileUtil.collectAsZipFile(dirPath, zipFilePath, zipCompressLevel));
-    return new FileSystemResource(zipFileName);
+        .collect(Collectors.toList());
+    return createZipStreamResponse(dirPath, filePaths, fileName);
+  }
+
+  private Mono<ServerResponse> createZipStreamResponse(Path basePath, List<String> filePaths, String fileName) {
+    return createZipStreamResponse(
+        () -> new ZipStreamWriter(basePath, filePaths, zipCompressLevel, ZipStreamWriter.DEFAULT_CHUNK_SIZE),
+        fileName, null);
+  }
+
+  private Mono<ServerResponse> createZipStreamResponse(Supplier<ZipStreamWriter> writerSupplier, String fileName,
+      Path scratchDir) {
+
+    // the writer blocks while waiting for CSV conversions running on the cpu
+    // scheduler, so it runs on its own scheduler not to hold the disk threads
+    Flux<DataBuffer> body = ZipStreamWriter.toFlux(writerSupplier, DefaultDataBufferFactory.sharedInstance,
+        belayerSchedulers.zip());
+    if (scratchDir != null) {
+      body = body.doFinally(signal -> scratchSpaceManager.release(scratchDir));
+    }
+
+    return ServerResponse
+        .ok().cacheControl(CacheControl.noCache())
+        .contentType(MEDIA_TYPE_ZIP)
+        .header("Content-Disposition", "attachment; filename=" + fileName)
+        .header(HttpHeaders.ACCEPT_RANGES, "none")
+        .body(BodyInserters.fromDataBuffers(body));
   }
 
-  private Resource convertToParquetToCsv(Path parquetPath, String filenameSuffix) {
+  private Resource convertToParquetToCsv(Path parquetPath, Path csvDir, String filenameSuffix) {
 
     String parquetFilePath = parquetPath.toString();
-    String currentDir = parquetPath.getParent().toString();
     String fileName = parquetPath.getFileName().toString();
 
     int extensionIndex = fileName.lastIndexOf(Constants.EXT_PARQUET);
@@ -286,22 +385,97 @@ public class FileSystemApiHandler {
     }
 
     String baseName = fileName.substring(0, extensionIndex);
-    String csvFilePath = Paths.get(currentDir, baseName + "_" + filenameSuffix + Constants.EXT_CSV).toString();
+    String csvFilePath = csvDir.resolve(baseName + "_" + filenameSuffix + Constants.EXT_CSV).toString();
 
     log.debug("paquet:{}, csv:{}", parquetFilePath, csvFilePath);
+    // CSV is usually larger than parquet, so the parquet size is the least estimate
+    scratchSpaceManager.reserve(csvDir, storageUsageLedger.sizeOf(parquetPath));
     parquetService.convertParquetToCsv(parquetFilePath, csvFilePath);
 
     return new FileSystemResource(csvFilePath);
   }
 
-  private Mono<ServerResponse> createBinaryRespose(Resource resource, String filePath) {
+  /**
+   * Create a response that supports Range, If-Range and If-None-Match.
+   *
+   * Partial content is written by ResourceHttpMessageWriter, which sends file
+   * regions with zero-copy when the server supports it.
+   */
+  private Mono<ServerResponse> createRangeableResponse(ServerRequest req, Resource resource, Path scratchDir) {
+
+    Instant lastModified;
+    String etag;
+    try {
+      var attrs = Files.readAttributes(resource.getFile().toPath(), BasicFileAttributes.class);
+      lastModified = attrs.lastModifiedTime().toInstant().truncatedTo(ChronoUnit.SECONDS);
+      etag = createETag(attrs.size(), attrs.lastModifiedTime().toMillis());
+    } catch (IOException ex) {
+      throw new InternalServerErrorException("Failed to read file attributes. file:" + resource.getFilename(), ex);
+    }
+
+    HttpHeaders headers = req.headers().asHttpHeaders();
+    List<String> ifNoneMatch = headers.getIfNoneMatch();
+    if (ifNoneMatch.contains(etag) || ifNoneMatch.contains("*")) {
+      if (scratchDir != null) {
+        scratchSpaceManager.release(scratchDir);
+      }
+      return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .lastModified(lastModified)
+          .build();
+    }
+
+    // send the whole file when the file was changed after the previous partial download
+    boolean ignoreRange = headers.getFirst(HttpHeaders.RANGE) != null
+        && !isIfRangeSatisfied(headers.getFirst(HttpHeaders.IF_RANGE), etag, lastModified);
+    log.debug("etag:{}, range:{}, ignoreRange:{}", etag, headers.getFirst(HttpHeaders.RANGE), ignoreRange);
 
     return ServerResponse
         .ok().cacheControl(CacheControl.noCache())
         .header("Content-Type", "application/octet-stream")
-        .header("Content-Disposition", "attachment; filename=" + filePath)
-        .body(BodyInserters.fromResource(resource));
+        .header("Content-Disposition", "attachment; filename=" + resource.getFilename())
+        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .eTag(etag)
+        .lastModified(lastModified)
+        .body(releaseAfterWrite(ignoreRange ? fromWholeResource(resource) : BodyInserters.fromResource(resource),
+            scratchDir));
+  }
+
+  private BodyInserter<Resource, ReactiveHttpOutputMessage> releaseAfterWrite(
+      BodyInserter<Resource, ReactiveHttpOutputMessage> inserter, Path scratchDir) {
+    if (scratchDir == null) {
+      return inserter;
+    }
+    return (message, context) -> inserter.insert(message, context)
+        .doFinally(signal -> scratchSpaceManager.release(scratchDir));
+  }
+
+  private String createETag(long size, long lastModifiedMillis) {
+    return "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModifiedMillis) + "\"";
+  }
 
+  private boolean isIfRangeSatisfied(String ifRange, String etag, Instant lastModified) {
+    if (ifRange == null) {
+      return true;
+    }
+    // weak entity tags never match
+    if (ifRange.startsWith("\"")) {
+      return ifRange.equals(etag);
+    }
+    if (ifRange.startsWith("W/")) {
+      return false;
+    }
+    try {
+      return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().equals(lastModified);
+    } catch (DateTimeParseException ex) {
+      return false;
+    }
+  }
+
+  private BodyInserter<Resource, ReactiveHttpOutputMessage> fromWholeResource(Resource resource) {
+    // write without looking at the Range header of the request
+    return (message, context) -> RESOURCE_WRITER.write(Mono.just(resource), RESOURCE_TYPE,
+        MediaType.APPLICATION_OCTET_STREAM, message, context.hints());
   }
 
   /**
@@ -322,11 +496,10 @@ public class FileSystemApiHandler {
     return ReactiveSecurityContextHolder.getContext()
       .map(SecurityContext::getAuthentication)
       .flatMap(auth -> downloadParams(auth, req))
-      .map(param -> getMultipleFileResource(param.getUid(), param.getPathList(), convertToCsv))
-      .flatMap(resource -> createBinaryRespose(resource, resource.getFilename()));
+      .flatMap(param -> createMultipleFileResponse(param.getUid(), param.getPathList(), convertToCsv));
   }
 
-  private Resource getMultipleFileResource(String uid, String[] filePathList, boolean convertToCsv) {
+  private Mono<ServerResponse> createMultipleFileResponse(String uid, String[] filePathList, boolean convertToCsv) {
 
     if (filePathList.length < 1) {
       throw new BadRequestException("One or more filePaths must be specified.", null);
@@ -350,15 +523,39 @@ public class FileSystemApiHandler {
     Path dirPath = Path.of(storageRootDir, uid, parentDir).toAbsolutePath().normalize();
     String fileName = Constants.FILE_PREFIX_MULTIPLE_DOWNLOAD_ZIP + filenameSuffix + Constants.EXT_ZIP;
 
-    Path tempDir = fileSystemService.createTempDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
-    String zipFilePath = tempDir.toString() + "/" + fileName;
+    if (!convertToCsv) {
+      List<String> filePaths = Arrays.stream(filePathList)
+          .map(filepath -> getFileResource(uid, filepath, null, filenameSuffix))
+          .map(file -> getFilePath(file))
+          .collect(Collectors.toList());
+      return createZipStreamResponse(dirPath, filePaths, fileName);
+    }
 
-    String zipFileName = Arrays.stream(filePathList)
-    .map(filepath -> getFileResource(uid, filepath, filepath.endsWith(Constants.EXT_PARQUET) ? convertToCsv : false, filenameSuffix))
-    .map(file -> getFilePath(file))
-    .collect(ZipFileUtil.collectAsZipFile(dirPath, zipFilePath, zipCompressLevel));
+    // check all files before the response is started
+    List<Path> paths = Arrays.stream(filePathList)
+        .map(filepath -> getFileResource(uid, filepath, null, filenameSuffix))
+        .map(file -> Path.of(getFilePath(file)))
+        .collect(Collectors.toList());
+
+    // CSV are created in a temp directory and deleted after the zip is written.
+    // Files are converted concurrently, and each file is zipped as soon as it
+    // and the files before it are converted. The csv scheduler limits the
+    // conversions of all requests.
+    Path scratchDir = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
+    Flux<Map.Entry<String, Path>> entries = Flux.fromIterable(paths)
+        .flatMapSequential(path -> Mono.fromCallable(() -> toZipEntry(path, scratchDir, filenameSuffix))
+            .subscribeOn(belayerSchedulers.csv()), csvConvertParallelism);
+
+    return createZipStreamResponse(
+        () -> new ZipStreamWriter(entries.toStream(), zipCompressLevel, ZipStreamWriter.DEFAULT_CHUNK_SIZE),
+        fileName, scratchDir);
+  }
 
-    return new FileSystemResource(zipFileName);
+  private Map.Entry<String, Path> toZipEntry(Path path, Path csvDir, String filenameSuffix) {
+    if (path.getFileName().toString().endsWith(Constants.EXT_PARQUET)) {
+      path = Path.of(getFilePath(convertToParquetToCsv(path, csvDir, filenameSuffix)));
+    }
+    return Map.entry(path.getFileName().toString(), path);
   }
 
   private String createTimeStamp() {
@@ -400,6 +597,8 @@ public class FileSystemApiHandler {
     String dirPath = req.pathVariable("dirpath");
     Optional<String> hide_file = req.queryParam("hide_file");
     Optional<String> hide_dir = req.queryParam("hide_dir");
+    Optional<String> cursor = req.queryParam("cursor");
+    Optional<String> limitParam = req.queryParam("limit");
 
     final boolean hideFile = Boolean.valueOf(hide_file.orElse("false"));
     final boolean hideDir = Boolean.valueOf(hide_dir.orElse("false"));
@@ -408,26 +607,32 @@ public class FileSystemApiHandler {
           "You can not specify both \"hide_file\" and \"hide_dir\". Specify one of these or do not specify either.",
           "", null);
     }
+    final String afterPath = cursor.map(this::decodeCursor).orElse(null);
+    final int limit = limitParam.map(this::parseLimit).orElse(listFileMaxSize);
 
     return ReactiveSecurityContextHolder.getContext()
         .map(SecurityContext::getAuthentication)
         .map(Authentication::getName)
-        .map(uid -> getFileList(uid, dirPath, hideFile, hideDir))
-        .flatMap(list -> {
-          List<String> result = list;
+        .map(uid -> getFileList(uid, dirPath, hideFile, hideDir, afterPath, limit))
+        .flatMap(page -> {
           String message = null;
-          if (list.size() > listFileMaxSize) {
-            result = list.subList(0, listFileMaxSize);
-            message = "List size is over limit. size=" + list.size();
+          String nextCursor = null;
+          if (page.hasMore()) {
+            nextCursor = encodeCursor(page.getLastPath());
+            if (limitParam.isEmpty()) {
+              message = "List size is over limit. Use nextCursor to get the rest.";
+            }
           }
           return ServerResponse.ok()
               .contentType(MediaType.APPLICATION_JSON)
               .body(
-                  BodyInserters.fromProducer(Mono.just(new DownloadPathList(result, message)), DownloadPathList.class));
+                  BodyInserters.fromProducer(Mono.just(new DownloadPathList(page.getPaths(), message, nextCursor)),
+                      DownloadPathList.class));
         });
   }
 
-  private List<String> getFileList(String uid, String dirPath, boolean hideFile, boolean hideDir) {
+  private DirectoryIndex.Page getFileList(String uid, String dirPath, boolean hideFile, boolean hideDir,
+      String afterPath, int limit) {
 
     Path downloadRootPath = Path.of(storageRootDir, uid).toAbsolutePath().normalize();
 
@@ -451,24 +656,41 @@ public class FileSystemApiHandler {
         throw new NotFoundException("Directory Not Found", "dir not found. dir:" + targetDir, null);
       }
 
-      return fileSystemService.getFileList(targetDir, hideFile, hideDir)
-          .stream()
-          .map(path -> {
-            String relativePath = downloadRootPath.relativize(Path.of(path)).toString();
-            if (Files.isDirectory(Path.of(path))) {
-              return relativePath + "/";
-            }
-            return relativePath;
-          })
-          .collect(Collectors.toList());
+      return directoryIndex.list(uid, downloadRootPath.relativize(targetDir).toString(), hideFile, hideDir,
+          afterPath, limit);
 
-    } catch (IOException ex) {
+    } catch (IOException | IORuntimeException ex) {
       // log.info("error occured.", ex);
       throw new InternalServerErrorException("Unreadable directory info. path:" + dirPath, ex);
     }
 
   }
 
+  private String encodeCursor(String lastPath) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(lastPath.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private String decodeCursor(String cursor) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException ex) {
+      throw new BadRequestException("Invalid cursor.", "invalid cursor. cursor:" + cursor, ex);
+    }
+  }
+
+  private int parseLimit(String limit) {
+    try {
+      int value = Integer.parseInt(limit);
+      if (value > 0 && value <= listFileMaxSize) {
+        return value;
+      }
+    } catch (NumberFormatException ex) {
+      // fall through
+    }
+    var msg = "limit must be between 1 and " + listFileMaxSize + ". limit:" + limit;
+    throw new BadRequestException(msg, msg);
+  }
+
   /**
    * Delete File API Handler
    *
@@ -562,7 +784,9 @@ public class FileSystemApiHandler {
         }
 
         if (force) {
+          long size = storageUsageLedger.sizeOf(absPath);
           FileUtils.forceDelete(absPath.toFile());
+          storageUsageLedger.add(absPath, -size);
         } else {
           Files.delete(absPath);
         }
@@ -598,7 +822,9 @@ public class FileSystemApiHandler {
           throw new NoSuchFileException("Specified path is a directory. path:" + absPath);
         }
 
+        long size = storageUsageLedger.sizeOf(absPath);
         Files.delete(absPath);
+        storageUsageLedger.add(absPath, -size);
       } catch (NoSuchFileException ex) {
         throw new NotFoundException("File not Found. path:" + filePath, "File not found. path:" + absPath.toString(),
             null);
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.tsurugidb.belayer.webapi.dto.IoThrottleSetting;
+import com.tsurugidb.belayer.webapi.model.IoThrottle;
+
+import reactor.core.publisher.Mono;
+
+@Component
+public class IoThrottleApiHandler {
+
+  @Autowired
+  IoThrottle ioThrottle;
+
+  /**
+   * Show I/O throttle setting.
+   *
+   * @param req request
+   * @return response
+   */
+  public Mono<ServerResponse> showSetting(ServerRequest req) {
+    return ServerResponse.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(ioThrottle.getSetting());
+  }
+
+  /**
+   * Update I/O throttle setting.
+   *
+   * @param req request
+   * @return response
+   */
+  public Mono<ServerResponse> updateSetting(ServerRequest req) {
+
+    return req.bodyToMono(IoThrottleSetting.class)
+        .map(ioThrottle::updateSetting)
+        .flatMap(setting -> ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(setting));
+  }
+
+}
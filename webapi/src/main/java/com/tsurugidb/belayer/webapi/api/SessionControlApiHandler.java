@@ -49,11 +49,12 @@ public class SessionControlApiHandler {
                 .map(SecurityContext::getAuthentication)
                 .flatMap(auth -> {
                     String sessionId = req.pathVariable("session_id");
-                    boolean available = sessionControlService.isAvailable(sessionId, (String)auth.getCredentials());
-
-                    String status = available ? "available" : "unavailable";
-                    return ServerResponse.ok()
-                            .body(BodyInserters.fromValue(new SessionStatus(sessionId, status, null, null)));
+                    return sessionControlService.isAvailable(sessionId, (String)auth.getCredentials())
+                            .flatMap(available -> {
+                                String status = available ? "available" : "unavailable";
+                                return ServerResponse.ok()
+                                        .body(BodyInserters.fromValue(new SessionStatus(sessionId, status, null, null)));
+                            });
                 });
     }
 
@@ -80,17 +81,19 @@ public class SessionControlApiHandler {
                         var msg = "invalid parameters.";
                         throw new BadRequestException(msg, msg);
                     }
-                    var result = sessionControlService.setVariable(param);
-                    if (result) {
-                        return ServerResponse.ok()
-                                .body(BodyInserters
-                                        .fromValue(new SessionStatus(param.getSessionId(), null, param.getVarName(),
-                                                null)));
-                    }
-                    var msg = "unable to set variable to session :" + param.getSessionId() + ". (name:"
-                            + param.getVarName()
-                            + ", value:" + param.getVarValue() + ")";
-                    throw new BadRequestException(msg, msg, null);
+                    return sessionControlService.setVariable(param)
+                            .flatMap(result -> {
+                                if (result) {
+                                    return ServerResponse.ok()
+                                            .body(BodyInserters
+                                                    .fromValue(new SessionStatus(param.getSessionId(), null,
+                                                            param.getVarName(), null)));
+                                }
+                                var msg = "unable to set variable to session :" + param.getSessionId() + ". (name:"
+                                        + param.getVarName()
+                                        + ", value:" + param.getVarValue() + ")";
+                                throw new BadRequestException(msg, msg, null);
+                            });
                 });
 
     }
@@ -118,12 +121,14 @@ public class SessionControlApiHandler {
                         throw new BadRequestException(msg, msg);
                     }
 
-                    boolean success = sessionControlService.killSession(param.getSessionId(), param.getToken());
-                    if (success) {
-                        return ServerResponse.ok().build();
-                    }
-                    return ServerResponse.status(400)
-                            .bodyValue(new ErrorResult("failed to kill session."));
+                    return sessionControlService.killSession(param.getSessionId(), param.getToken())
+                            .flatMap(success -> {
+                                if (success) {
+                                    return ServerResponse.ok().build();
+                                }
+                                return ServerResponse.status(400)
+                                        .bodyValue(new ErrorResult("failed to kill session."));
+                            });
                 });
     }
 
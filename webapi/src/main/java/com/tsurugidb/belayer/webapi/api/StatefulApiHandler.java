@@ -25,19 +25,16 @@ import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.CacheControl;
 import org.springframework.http.codec.ServerSentEvent;
-import org.springframework.http.codec.multipart.FilePart;
-import org.springframework.http.codec.multipart.FormFieldPart;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.BodyExtractors;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
 import com.tsurugidb.belayer.webapi.api.helper.LoadHelper;
+import com.tsurugidb.belayer.webapi.api.helper.MultipartIngestor;
 import com.tsurugidb.belayer.webapi.api.helper.UploadHelper;
 import com.tsurugidb.belayer.webapi.dto.ColumnMapping;
 import com.tsurugidb.belayer.webapi.dto.DumpRequestParam;
@@ -57,7 +54,9 @@ import com.tsurugidb.belayer.webapi.exception.BadRequestException;
 import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
 import com.tsurugidb.belayer.webapi.exception.InternalServerErrorException;
 import com.tsurugidb.belayer.webapi.exception.UnauthorizationException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
 import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
 import com.tsurugidb.belayer.webapi.model.SystemTime;
 import com.tsurugidb.belayer.webapi.security.UserTokenAuthentication;
 import com.tsurugidb.belayer.webapi.service.DumpLoadService;
@@ -69,12 +68,13 @@ import com.tsurugidb.belayer.webapi.service.TsubakuroService;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Component
 @Slf4j
 public class StatefulApiHandler {
 
+    private static final String UPLOAD_DIR_NAME = "upload";
+
     @Autowired
     JobIdService jobIdService;
 
@@ -88,7 +88,10 @@ public class StatefulApiHandler {
     private UploadHelper uploadHelper;
 
     @Autowired
-    ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    private MultipartIngestor multipartIngestor;
+
+    @Autowired
+    BelayerSchedulers belayerSchedulers;
 
     @Autowired
     TsubakuroService tsubakuroService;
@@ -102,6 +105,9 @@ public class StatefulApiHandler {
     @Autowired
     SystemTime systemTime;
 
+    @Autowired
+    ScratchSpaceManager scratchSpaceManager;
+
     /**
      * Start Transaction API
      *
@@ -325,7 +331,7 @@ public class StatefulApiHandler {
         String transactionId = req.pathVariable("transaction_id");
 
         var param = new LoadParameter();
-        // use transactionId as directry name
+        // use transactionId as directry name of the loaded files in the result
         param.setDestDirPath(transactionId);
         param.setJobId(transactionId);
         param.setTable(req.pathVariable("table_name"));
@@ -339,40 +345,39 @@ public class StatefulApiHandler {
                     param.setCredentials(auth.getCredentials());
                     return param;
                 })
-                .flatMap(p -> fillLoadParam(req, p))
                 .map(p -> {
-                    loadHelper.checkLoadMapping(p.getColMap());
-                    fileSystemService.createDirectory(p.getUid(), p.getDestDirPath());
                     createTempDirectory(p);
-                    UploadContext context = createUploadContext(p);
+                    UploadContext context = createUploadContext(req, p);
                     log.debug("context:" + context);
                     return context;
                 })
+                // check the transaction before receiving files
                 .map(ctx -> dumpLoadService.useTransaction(ctx))
                 .flatMapMany(ctx -> {
                     log.debug("flux:{}", ctx.getUploadFilePathFlux());
                     return ctx.getUploadFilePathFlux();
                 })
+                // each file is loaded as soon as it is received
                 .parallel()
-                .runOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
+                .runOn(belayerSchedulers.db())
                 .flatMap(dumpFilePath -> {
                     log.debug("upload path:" + dumpFilePath);
-                    return dumpLoadService.loadDumpFile(param, Path.of(dumpFilePath));
-                })
-                .map(filePath -> {
-                    fileSystemService.deleteFile(param.getUid(), filePath);
-                    return filePath;
+                    return dumpLoadService.loadDumpFile(param, Path.of(dumpFilePath))
+                            .doOnNext(filePath -> deleteUploadedFile(Path.of(dumpFilePath)));
                 })
                 .collectSortedList(Comparator.naturalOrder())
                 .map(downloadFilePathList -> setLoadResult(param, downloadFilePathList))
-                .map(res -> {
+                // delete received files also on error
+                .doFinally(signal -> {
                     if (param.getTempDir() != null) {
-                        fileSystemService.deleteDirectoryWithContent(param.getTempDir());
+                        scratchSpaceManager.release(param.getTempDir());
                     }
-                    return res;
                 })
                 .onErrorResume(th -> {
                     dumpLoadService.registerFailedResult(param, th);
+                    if (th instanceof BadRequestException) {
+                        throw (BadRequestException) th;
+                    }
                     throw new InternalServerErrorException(th.getMessage(), th);
                 });
 
@@ -380,32 +385,61 @@ public class StatefulApiHandler {
                 BodyInserters.fromProducer(result, LoadResult.class));
     }
 
-    private Mono<LoadParameter> fillLoadParam(ServerRequest req, LoadParameter param) {
+    /**
+     * Receive files into the temp directory.
+     *
+     * Form fields must be sent before files, because loading starts as soon as
+     * the first file is received.
+     */
+    private Flux<String> receiveLoadFiles(ServerRequest req, LoadParameter param) {
 
-        return req.body(BodyExtractors.toParts())
-                .map(part -> {
-                    log.debug("part:" + part);
-                    if (part.name().equals("file") && part instanceof FilePart) {
-                        param.addFilePart((FilePart) part);
-                        log.debug("add file:" + part);
-                    }
+        Path uploadDir = param.getTempDir().resolve(UPLOAD_DIR_NAME);
+        try {
+            Files.createDirectories(uploadDir);
+        } catch (IOException ex) {
+            throw new IORuntimeException("can't create temp directory.", ex);
+        }
 
-                    if (part.name().equals("col-map") && part instanceof FormFieldPart) {
-                        String value = ((FormFieldPart) part).value();
-                        log.debug("add col-map:" + value);
-                        ColumnMapping colMapping = toColMapping(value);
-                        if (colMapping != null) {
-                            param.addColMapping(colMapping);
-                        }
-                    }
-                    if (part.name().equals("format") && part instanceof FormFieldPart) {
-                        String value = ((FormFieldPart) part).value();
-                        param.setFormat(value);
+        return multipartIngestor.ingest(req, param.getUid(), new MultipartIngestor.PartListener() {
+
+            private boolean fileReceived = false;
+
+            @Override
+            public void onFormField(String name, String value) {
+                if (fileReceived && (name.equals("col-map") || name.equals("format"))) {
+                    var msg = "col-map and format must be sent before files. field:" + name;
+                    throw new BadRequestException(msg, msg);
+                }
+                if (name.equals("col-map")) {
+                    log.debug("add col-map:" + value);
+                    ColumnMapping colMapping = toColMapping(value);
+                    if (colMapping != null) {
+                        param.addColMapping(colMapping);
                     }
-                    return "dummy";
-                })
-                .collectList()
-                .then(Mono.just(param));
+                }
+                if (name.equals("format")) {
+                    param.setFormat(value);
+                }
+            }
+
+            @Override
+            public Path getDestination(String fileName, boolean allReceived) {
+                if (!fileReceived) {
+                    loadHelper.checkLoadMapping(param.getColMap());
+                    fileReceived = true;
+                }
+                log.debug("add file:" + fileName);
+                return uploadDir;
+            }
+        });
+    }
+
+    private void deleteUploadedFile(Path uploadedFile) {
+        try {
+            Files.deleteIfExists(uploadedFile);
+        } catch (IOException ex) {
+            log.warn("failed to delete uploaded file. file:" + uploadedFile, ex);
+        }
     }
 
     private ColumnMapping toColMapping(String value) {
@@ -420,24 +454,13 @@ public class StatefulApiHandler {
     }
 
     private void createTempDirectory(LoadParameter param) {
-        try {
-            Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_DUMP + param.getJobId());
-            param.setTempDir(tmpDir);
-        } catch (IOException ex) {
-            throw new IORuntimeException("can't create temp directory.", ex);
-        }
+        Path tmpDir = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DUMP + param.getJobId());
+        param.setTempDir(tmpDir);
     }
 
-    private UploadContext createUploadContext(LoadParameter param) {
+    private UploadContext createUploadContext(ServerRequest req, LoadParameter param) {
 
-        Flux<String> pathFlux = Mono.just(param)
-                .flatMapMany(p -> Flux.fromIterable(param.getFileParts()))
-                .flatMap(filePart -> {
-                    log.debug("fp:" + filePart);
-                    Path absolutePath = fileSystemService.convertToAbsolutePath(param.getUid(), param.getDestDirPath());
-                    Mono<String> path = uploadHelper.saveFile(param.getUid(), absolutePath, filePart);
-                    return path;
-                });
+        Flux<String> pathFlux = receiveLoadFiles(req, param);
 
         var ctx = new UploadContext();
         ctx.setParam(param);
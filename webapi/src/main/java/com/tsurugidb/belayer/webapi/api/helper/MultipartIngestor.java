@@ -0,0 +1,354 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.api.helper;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.FormFieldPart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.service.FileSystemService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads a multipart request part by part and writes each file as it arrives.
+ *
+ * The request body is parsed in streaming mode, so the multipart reader never
+ * buffers whole parts in memory or in its own temp area. A file is written to
+ * its destination directly when the destination is known at that time,
+ * otherwise it is spilled to a temp directory and moved after all parts are
+ * received. Memory and spill disk usage are limited per request and for all
+ * requests.
+ */
+@Slf4j
+@Component
+public class MultipartIngestor {
+
+    private static final ResolvableType PART_TYPE = ResolvableType.forClass(Part.class);
+
+    @Value("${webapi.upload.memory.per_request}")
+    private long memoryPerRequest;
+
+    @Value("${webapi.upload.memory.global}")
+    private long globalMemory;
+
+    @Value("${webapi.upload.spill.per_request}")
+    private long spillPerRequest;
+
+    @Value("${webapi.upload.spill.global}")
+    private long globalSpill;
+
+    @Autowired
+    UploadHelper uploadHelper;
+
+    @Autowired
+    FileSystemService fileSystemService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final DefaultPartHttpMessageReader reader = new DefaultPartHttpMessageReader();
+
+    // memory reserved by requests in progress
+    private final AtomicLong reservedMemory = new AtomicLong();
+
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    private final AtomicLong spilledBytes = new AtomicLong();
+
+    private final AtomicLong totalBufferedBytes = new AtomicLong();
+
+    private final AtomicLong totalSpilledBytes = new AtomicLong();
+
+    /**
+     * Callback for parts of a request.
+     */
+    public interface PartListener {
+
+        /**
+         * Handle a form field.
+         *
+         * @param name  field name
+         * @param value field value
+         */
+        void onFormField(String name, String value);
+
+        /**
+         * Return the directory to save a file.
+         *
+         * @param fileName    file name in the request
+         * @param allReceived true when all parts are received
+         * @return absolute directory path, or null to decide after all parts are
+         *         received. Must not be null when allReceived is true.
+         */
+        Path getDestination(String fileName, boolean allReceived);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (memoryPerRequest <= 0 || memoryPerRequest > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("memory per request must be between 1 and " + Integer.MAX_VALUE + ".");
+        }
+        if (globalMemory < memoryPerRequest) {
+            throw new IllegalArgumentException("global memory must be equal to or greater than memory per request.");
+        }
+        if (spillPerRequest < 0 || globalSpill < 0) {
+            throw new IllegalArgumentException("spill size must be 0 or more.");
+        }
+
+        reader.setStreaming(true);
+        // limits size of each form field and part headers
+        reader.setMaxInMemorySize((int) memoryPerRequest);
+
+        Gauge.builder("belayer.upload.memory.used", bufferedBytes, AtomicLong::get)
+                .description("bytes of uploaded files held in memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("belayer.upload.spill.used", spilledBytes, AtomicLong::get)
+                .description("bytes of uploaded files spilled to a temp directory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("belayer.upload.buffered", totalBufferedBytes, AtomicLong::get)
+                .description("bytes of uploaded files passed through memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("belayer.upload.spilled", totalSpilledBytes, AtomicLong::get)
+                .description("bytes of uploaded files spilled to a temp directory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("upload memory per request:{}, global:{}, spill per request:{}, global:{}",
+                memoryPerRequest, globalMemory, spillPerRequest, globalSpill);
+    }
+
+    /**
+     * Read parts of the request and save files.
+     *
+     * Parts are handled in the order of the request. Files named other than
+     * "file" are ignored.
+     *
+     * @param request  multipart request
+     * @param uid      User ID
+     * @param listener callback for parts
+     * @return absolute paths of saved files, in the order of completion
+     */
+    public Flux<String> ingest(ServerRequest request, String uid, PartListener listener) {
+        return Flux.using(
+                () -> new Ingestion(uid, listener),
+                ingestion -> reader.read(PART_TYPE, request.exchange().getRequest(), Collections.emptyMap())
+                        .concatMap(ingestion::handlePart)
+                        .concatWith(Flux.defer(ingestion::moveSpilledFiles)),
+                Ingestion::close);
+    }
+
+    /**
+     * State of a request.
+     */
+    private class Ingestion {
+
+        private final String uid;
+        private final PartListener listener;
+        private final AtomicLong buffered = new AtomicLong();
+        private final AtomicLong spilled = new AtomicLong();
+        private final List<SpilledFile> spilledFiles = new ArrayList<>();
+        private Path spillDir;
+
+        private Ingestion(String uid, PartListener listener) {
+            if (reservedMemory.addAndGet(memoryPerRequest) > globalMemory) {
+                reservedMemory.addAndGet(-memoryPerRequest);
+                var msg = "Too many uploads in progress. Retry later.";
+                throw new BelayerResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, msg, msg, null);
+            }
+            this.uid = uid;
+            this.listener = listener;
+        }
+
+        private Mono<String> handlePart(Part part) {
+            if (part instanceof FormFieldPart) {
+                listener.onFormField(part.name(), ((FormFieldPart) part).value());
+                return Mono.empty();
+            }
+            if (!(part instanceof FilePart) || !part.name().equals("file")) {
+                // content must be consumed before the next part
+                return part.content().doOnNext(DataBufferUtils::release).then(Mono.empty());
+            }
+
+            var filePart = (FilePart) part;
+            Path destDir = listener.getDestination(filePart.filename(), false);
+            if (destDir != null) {
+                return uploadHelper.saveFile(uid, destDir, new MeteredFilePart(filePart));
+            }
+            return spill(filePart).then(Mono.empty());
+        }
+
+        private Mono<Void> spill(FilePart filePart) {
+            if (spillDir == null) {
+                spillDir = fileSystemService.createTempDirectory(Constants.TEMP_DIR_PREFIX_UPLOAD);
+            }
+            Path spillPath = spillDir.resolve(Integer.toString(spilledFiles.size()));
+            spilledFiles.add(new SpilledFile(filePart.filename(), spillPath));
+            log.debug("spill uploaded file: {} to {}", filePart.filename(), spillPath);
+
+            return new MeteredFilePart(filePart, this::addSpilled).transferTo(spillPath);
+        }
+
+        private Flux<String> moveSpilledFiles() {
+            return Flux.fromIterable(spilledFiles)
+                    .map(file -> {
+                        Path destDir = listener.getDestination(file.fileName, true);
+                        return uploadHelper.moveFile(destDir, file.fileName, file.path);
+                    });
+        }
+
+        private void addBuffered(long bytes) {
+            bufferedBytes.addAndGet(bytes);
+            if (bytes > 0) {
+                totalBufferedBytes.addAndGet(bytes);
+            }
+            if (buffered.addAndGet(bytes) > memoryPerRequest) {
+                var msg = "Upload exceeds the memory limit per request. limit:" + memoryPerRequest;
+                throw new BelayerResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, msg, msg, null);
+            }
+        }
+
+        private void addSpilled(long bytes) {
+            spilledBytes.addAndGet(bytes);
+            totalSpilledBytes.addAndGet(bytes);
+            long requestSpilled = spilled.addAndGet(bytes);
+            if (spillPerRequest > 0 && requestSpilled > spillPerRequest) {
+                var msg = "Upload exceeds the spill limit per request. Send form fields before files. limit:"
+                        + spillPerRequest;
+                throw new BadRequestException(msg, msg);
+            }
+            if (globalSpill > 0 && spilledBytes.get() > globalSpill) {
+                var msg = "Too many uploads in progress. Retry later.";
+                throw new BelayerResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, msg,
+                        "Upload exceeds the global spill limit. limit:" + globalSpill, null);
+            }
+        }
+
+        private void close() {
+            reservedMemory.addAndGet(-memoryPerRequest);
+            // buffers not written because of an error or a cancel
+            bufferedBytes.addAndGet(-buffered.getAndSet(0));
+            spilledBytes.addAndGet(-spilled.getAndSet(0));
+            if (spillDir != null) {
+                fileSystemService.deleteDirectoryWithContent(spillDir);
+            }
+        }
+
+        /**
+         * File part that counts bytes held in memory until written.
+         */
+        private class MeteredFilePart implements FilePart {
+
+            private final FilePart delegate;
+            private final LongConsumer onWritten;
+
+            private MeteredFilePart(FilePart delegate) {
+                this(delegate, bytes -> {
+                });
+            }
+
+            private MeteredFilePart(FilePart delegate, LongConsumer onWritten) {
+                this.delegate = delegate;
+                this.onWritten = onWritten;
+            }
+
+            @Override
+            public String name() {
+                return delegate.name();
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return delegate.headers();
+            }
+
+            @Override
+            public String filename() {
+                return delegate.filename();
+            }
+
+            @Override
+            public Flux<DataBuffer> content() {
+                return delegate.content().doOnNext(buffer -> addBuffered(buffer.readableByteCount()));
+            }
+
+            @Override
+            public Mono<Void> transferTo(Path dest) {
+                return Flux.using(
+                        () -> AsynchronousFileChannel.open(dest, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                                StandardOpenOption.TRUNCATE_EXISTING),
+                        channel -> DataBufferUtils.write(content(), channel),
+                        channel -> {
+                            try {
+                                channel.close();
+                            } catch (IOException ex) {
+                                log.debug("failed to close uploaded file.", ex);
+                            }
+                        })
+                        .doOnNext(buffer -> {
+                            long bytes = buffer.readableByteCount();
+                            DataBufferUtils.release(buffer);
+                            addBuffered(-bytes);
+                            onWritten.accept(bytes);
+                        })
+                        .then();
+            }
+        }
+    }
+
+    private static class SpilledFile {
+        private final String fileName;
+        private final Path path;
+
+        private SpilledFile(String fileName, Path path) {
+            this.fileName = fileName;
+            this.path = path;
+        }
+    }
+}
@@ -15,16 +15,19 @@
  */
 package com.tsurugidb.belayer.webapi.api.helper;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+import com.tsurugidb.belayer.webapi.model.StorageUsageLedger;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
@@ -34,17 +37,15 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class UploadHelper {
 
+    @Autowired
+    StorageUsageLedger storageUsageLedger;
+
     @Data
     public static class UploadParameter {
         private String destDirPath;
         private String uid;
         private Object credentials;
         private boolean overwrite;
-        private List<FilePart> fileParts = new ArrayList<FilePart>();
-
-        public void addFilePart(FilePart filePart) {
-            fileParts.add(filePart);
-        }
     }
 
     public void checkRequestHeader(ServerRequest request) {
@@ -66,25 +67,63 @@ public class UploadHelper {
      */
     public Mono<String> saveFile(String uid, Path dirPath, FilePart filePart) {
 
-        final String filePath = filePart.filename();
+        Path fullPath = resolveFilePath(dirPath, filePart.filename());
+
+        log.debug("save file: " + fullPath);
+
+        long previousSize = storageUsageLedger.sizeOf(fullPath);
+        Mono<Void> saveFile = filePart.transferTo(fullPath)
+                .doOnSuccess(v -> storageUsageLedger.fileWritten(fullPath, previousSize));
+
+        return saveFile.then(Mono.just(fullPath.toString()));
+    }
+
+    /**
+     * Move a file received in a temp directory.
+     *
+     * @param dirPath  absolute dir path to place file.
+     * @param filePath file path in the request.
+     * @param tempFile received file.
+     * @return absolute path of a uploaded file.
+     */
+    public String moveFile(Path dirPath, String filePath, Path tempFile) {
+
+        Path fullPath = resolveFilePath(dirPath, filePath);
+
+        log.debug("move file: {} to {}", tempFile, fullPath);
+
+        long previousSize = storageUsageLedger.sizeOf(fullPath);
+        try {
+            Files.move(tempFile, fullPath, StandardCopyOption.REPLACE_EXISTING);
+            storageUsageLedger.fileWritten(fullPath, previousSize);
+        } catch (IOException ex) {
+            throw new IORuntimeException("Failed to save an uploaded file. file:" + fullPath, ex);
+        }
+        return fullPath.toString();
+    }
+
+    /**
+     * Resolve the path to save an uploaded file.
+     *
+     * @param dirPath  absolute dir path to place file.
+     * @param filePath file path in the request.
+     * @return absolute file path.
+     */
+    public Path resolveFilePath(Path dirPath, String filePath) {
+
         // get fileName without dir path.
         int index = filePath.lastIndexOf("/");
         String fileName = index > 0 ? filePath.substring(index + 1) : filePath;
 
         Path fullPath = Path.of(dirPath.toString(), fileName).toAbsolutePath().normalize();
 
-        log.debug("save file: " + fullPath);
-
         // check resource is dir
         if (Files.isDirectory(fullPath)) {
             throw new BadRequestException(
                     "Directory already exisits.",
                     "Directory already exisits. file:" + fullPath, null);
         }
-
-        Mono<Void> saveFile = filePart.transferTo(fullPath);
-
-        return saveFile.then(Mono.just(fullPath.toString()));
+        return fullPath;
     }
 
 }
@@ -34,5 +34,6 @@ public enum FunctionPermission {
     P_DB_SYNC,
     P_DB_STATUS,
     P_TABLE_LIST,
-    P_ROLE_EDIT;
+    P_ROLE_EDIT,
+    P_SYSTEM_CONFIG;
 }
@@ -54,17 +54,20 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.tsurugidb.belayer.webapi.api.AuthHandler;
 import com.tsurugidb.belayer.webapi.api.BackupRestoreApiHandler;
+import com.tsurugidb.belayer.webapi.api.ChunkedUploadApiHandler;
 import com.tsurugidb.belayer.webapi.api.DbControlApiHandler;
 import com.tsurugidb.belayer.webapi.api.DumpLoadApiHandler;
 import com.tsurugidb.belayer.webapi.api.EndpointsApiHandler;
 import com.tsurugidb.belayer.webapi.api.FileSystemApiHandler;
 import com.tsurugidb.belayer.webapi.api.HelloHandler;
+import com.tsurugidb.belayer.webapi.api.IoThrottleApiHandler;
 import com.tsurugidb.belayer.webapi.api.RoleUserMappingHandler;
 import com.tsurugidb.belayer.webapi.api.SessionControlApiHandler;
 import com.tsurugidb.belayer.webapi.api.StatefulApiHandler;
 import com.tsurugidb.belayer.webapi.dto.AuthRequest;
 import com.tsurugidb.belayer.webapi.dto.AuthResult;
 import com.tsurugidb.belayer.webapi.dto.BackupRestoreStartRequestBody;
+import com.tsurugidb.belayer.webapi.dto.BackupVerifyResult;
 import com.tsurugidb.belayer.webapi.dto.DeleteTarget;
 import com.tsurugidb.belayer.webapi.dto.DownloadPathList;
 import com.tsurugidb.belayer.webapi.dto.DownloadZip;
@@ -96,6 +99,7 @@ public class Router {
       SessionControlApiHandler sessionControlApiHandler,
       EndpointsApiHandler endpointsApiHandler,
       DbControlApiHandler dbControlHandler, RoleUserMappingHandler roleUserMappingHandler,
+      IoThrottleApiHandler ioThrottleApiHandler, ChunkedUploadApiHandler chunkedUploadApiHandler,
       HelloHandler helloHandler) {
 
     RouterFunction<ServerResponse> route = route().POST(AUTH_API.getPath(), authHandler::auth, authApiDoc()).build()
@@ -104,6 +108,26 @@ public class Router {
             .build())
         .and(route().POST(UPLOAD_API.getPath(), fileSystemApiHandler::uploadFiles, uploadApiDoc())
             .build())
+        .and(route()
+            .POST(CHUNKED_UPLOAD_START_API.getPath(), chunkedUploadApiHandler::startUpload,
+                opt -> opt.operationId("chunkedUpload").build())
+            .build())
+        .and(route()
+            .PUT(CHUNKED_UPLOAD_API.getPath(), chunkedUploadApiHandler::uploadChunk,
+                opt -> opt.operationId("chunkedUpload").build())
+            .build())
+        .and(route()
+            .GET(CHUNKED_UPLOAD_API.getPath(), chunkedUploadApiHandler::showStatus,
+                opt -> opt.operationId("chunkedUpload").build())
+            .build())
+        .and(route()
+            .DELETE(CHUNKED_UPLOAD_API.getPath(), chunkedUploadApiHandler::abortUpload,
+                opt -> opt.operationId("chunkedUpload").build())
+            .build())
+        .and(route()
+            .POST(CHUNKED_UPLOAD_COMPLETE_API.getPath(), chunkedUploadApiHandler::completeUpload,
+                opt -> opt.operationId("chunkedUpload").build())
+            .build())
         .and(route()
             .GET(DOWNLOAD_API.getPath(), fileSystemApiHandler::downloadFile, downloadApiDoc())
             .build())
@@ -140,11 +164,23 @@ public class Router {
             .GET(LIST_BACKUP_STATUS_API.getPath(), backupRestoreApiHandler::listBackupJob,
                 listJobApiDoc())
             .build())
+        .and(route()
+            .GET(BACKUP_EVENTS_API.getPath(), backupRestoreApiHandler::watchJobs,
+                opt -> opt.operationId("backupEvents").build())
+            .build())
+        .and(route()
+            .GET(BACKUP_JOB_EVENTS_API.getPath(), backupRestoreApiHandler::watchJobs,
+                opt -> opt.operationId("backupJobEvents").build())
+            .build())
         .and(route()
             .POST(CANCEL_BACKUP_RESTORE_API.getPath(),
                 backupRestoreApiHandler::cancelJob,
                 cancelBackupRestoreApiDoc())
             .build())
+        .and(route()
+            .POST(VERIFY_BACKUP_API.getPath(), backupRestoreApiHandler::verifyBackup,
+                verifyBackupApiDoc())
+            .build())
         .and(route()
             .POST(DUMP_START_API.getPath(), dumpLoadApiHandler::requestDump,
                 dumpStartApiDoc())
@@ -162,6 +198,14 @@ public class Router {
             .GET(LIST_DUMP_LOAD_STATUS_API.getPath(), dumpLoadApiHandler::listJobs,
                 listJobApiDoc())
             .build())
+        .and(route()
+            .GET(DUMP_LOAD_EVENTS_API.getPath(), dumpLoadApiHandler::watchJobs,
+                opt -> opt.operationId("dumpLoadEvents").build())
+            .build())
+        .and(route()
+            .GET(DUMP_LOAD_JOB_EVENTS_API.getPath(), dumpLoadApiHandler::watchJobs,
+                opt -> opt.operationId("dumpLoadJobEvents").build())
+            .build())
         .and(route()
             .POST(CANCEL_DUMP_LOAD_API.getPath(),
                 dumpLoadApiHandler::cancelJob,
@@ -256,6 +300,16 @@ public class Router {
             .POST(UPDATE_ROLE_USER_MAPPING_API.getPath(),
                 roleUserMappingHandler::updateMapping,
                 opt -> opt.operationId("role").build())
+            .build())
+        .and(route()
+            .GET(SHOW_IO_THROTTLE_API.getPath(),
+                ioThrottleApiHandler::showSetting,
+                opt -> opt.operationId("iothrottle").build())
+            .build())
+        .and(route()
+            .POST(UPDATE_IO_THROTTLE_API.getPath(),
+                ioThrottleApiHandler::updateSetting,
+                opt -> opt.operationId("iothrottle").build())
             .build());
 
     if (adminPageEnabled) {
@@ -538,6 +592,25 @@ public class Router {
             .implementation(JobList.class));
   }
 
+  /**
+   * API Doc for Verify Backup API.
+   */
+  private Consumer<Builder> verifyBackupApiDoc() {
+    return ops -> ops.tag("backup_restore")
+        .operationId("verify_backup")
+        .summary("verify a backup file against its checksums.")
+        .method("POST")
+        .requestBody(requestBodyBuilder().content(
+            contentBuilder()
+                .mediaType("application/json")
+                .schema(schemaBuilder().type("object")
+                    .implementation(BackupRestoreStartRequestBody.class))))
+        .response(responseBuilder().responseCode("200").description("Return verify result.")
+            .content(contentBuilder().mediaType("application/json"))
+            .implementation(BackupVerifyResult.class))
+        .response(responseBuilder().responseCode("400").description("Invalid file path specified."));
+  }
+
   /**
    * API Doc for Cancel Backup API.
    */
@@ -12,6 +12,12 @@ public enum RouterPath {
             "/api/refresh", P_NONE),
     UPLOAD_API("/api/upload",
             "/api/upload", P_UPLOAD),
+    CHUNKED_UPLOAD_START_API("/api/upload/chunked",
+            "/api/upload/chunked", P_UPLOAD),
+    CHUNKED_UPLOAD_API("/api/upload/chunked/{uploadid}",
+            "/api/upload/chunked/*", P_UPLOAD),
+    CHUNKED_UPLOAD_COMPLETE_API("/api/upload/chunked/{uploadid}/complete",
+            "/api/upload/chunked/*/complete", P_UPLOAD),
     DOWNLOAD_API("/api/download/{filepath}",
             "/api/download/*", P_DOWNLOAD),
     DOWNLOADZIP_API("/api/downloadzip",
@@ -32,8 +38,14 @@ public enum RouterPath {
             "/api/br/status/**", P_BACKUP, P_RESTORE),
     LIST_BACKUP_STATUS_API("/api/br/list/{type}",
             "/api/br/list/*", P_BACKUP, P_RESTORE),
+    BACKUP_EVENTS_API("/api/br/events",
+            "/api/br/events", P_BACKUP, P_RESTORE),
+    BACKUP_JOB_EVENTS_API("/api/br/events/{type}/{jobid}",
+            "/api/br/events/**", P_BACKUP, P_RESTORE),
     CANCEL_BACKUP_RESTORE_API("/api/br/cancel/{type}/{jobid}",
             "/api/br/cancel/**", P_RESTORE),
+    VERIFY_BACKUP_API("/api/backup/verify",
+            "/api/backup/verify", P_BACKUP, P_RESTORE),
     DUMP_START_API("/api/dump/{table}",
             "/api/dump/*", P_DUMP),
     LOAD_START_API("/api/load/{table}",
@@ -42,6 +54,10 @@ public enum RouterPath {
             "/api/dumpload/status/**", P_DUMP, P_LOAD),
     LIST_DUMP_LOAD_STATUS_API("/api/dumpload/list/{type}",
             "/api/dumpload/list/*", P_DUMP, P_LOAD),
+    DUMP_LOAD_EVENTS_API("/api/dumpload/events",
+            "/api/dumpload/events", P_DUMP, P_LOAD),
+    DUMP_LOAD_JOB_EVENTS_API("/api/dumpload/events/{type}/{jobid}",
+            "/api/dumpload/events/**", P_DUMP, P_LOAD),
     CANCEL_DUMP_LOAD_API("/api/dumpload/cancel/{type}/{jobid}",
             "/api/dumpload/cancel/**", P_DUMP, P_LOAD),
     START_TRANSACTION_API("/api/transaction/begin",
@@ -79,7 +95,11 @@ public enum RouterPath {
     SHOW_ROLE_USER_MAPPING_API("/api/show/roleuser",
             "/api/show/roleuser", P_ROLE_EDIT),
     UPDATE_ROLE_USER_MAPPING_API("/api/update/roleuser",
-            "/api/update/roleuser", P_ROLE_EDIT);
+            "/api/update/roleuser", P_ROLE_EDIT),
+    SHOW_IO_THROTTLE_API("/api/show/iothrottle",
+            "/api/show/iothrottle", P_SYSTEM_CONFIG),
+    UPDATE_IO_THROTTLE_API("/api/update/iothrottle",
+            "/api/update/iothrottle", P_SYSTEM_CONFIG);
 
     private final String path;
     private final String pathMatch;
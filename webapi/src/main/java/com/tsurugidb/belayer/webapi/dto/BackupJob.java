@@ -28,6 +28,12 @@ import lombok.ToString;
 @ToString(callSuper = true)
 public class BackupJob extends Job {
 
+    /** backup format: a zip file per backup */
+    public static final String FORMAT_ZIP = "zip";
+
+    /** backup format: a snapshot in the content-addressed backup repository */
+    public static final String FORMAT_REPOSITORY = "repository";
+
     public BackupJob() {
         super();
         setType(TYPE_BACKUP);
@@ -38,6 +44,8 @@ public class BackupJob extends Job {
     private Path workDir;
     private String destDir;
     private String zipFilePath;
+    private String format = FORMAT_ZIP;
+    private BackupManifest manifest;
 
     @JsonIgnore
     private BackupTransaction backupTransaction;
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Checksums of the files in a backup zip file.
+ */
+@Data
+@NoArgsConstructor
+public class BackupManifest {
+
+    public static final int CURRENT_VERSION = 1;
+
+    private int version = CURRENT_VERSION;
+    private List<ManifestEntry> entries = new ArrayList<>();
+
+    /**
+     * A file in the backup zip file.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class ManifestEntry {
+        /** entry name in the zip file */
+        private String path;
+        private long size;
+        /** CRC32C in hex */
+        private String crc32c;
+        /** SHA-256 in hex */
+        private String sha256;
+    }
+}
@@ -30,4 +30,6 @@ public class BackupRestoreRequestParam {
   private String dirPath;
   private String zipFilePath;
   private String jobId;
+  private String format;
+  private boolean verify;
 }
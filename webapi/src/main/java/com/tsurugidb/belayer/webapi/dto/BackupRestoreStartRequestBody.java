@@ -22,4 +22,6 @@ public class BackupRestoreStartRequestBody {
 
     private String dirPath;
     private String zipFilePath;
+    private String format;
+    private boolean verify;
 }
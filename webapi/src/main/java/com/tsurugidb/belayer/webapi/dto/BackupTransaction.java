@@ -85,6 +85,22 @@ public class BackupTransaction implements AutoCloseable {
         return list;
     }
 
+    /**
+     * return total size of files to backup.
+     *
+     * @return size in bytes, 0 if the backup is not started
+     */
+    public long getBackupFileSize() {
+        if (backup == null) {
+            return 0;
+        }
+        long fileSizeSum = 0;
+        for (Path path : backup.getFiles()) {
+            fileSizeSum += FileUtil.getFileSize(path);
+        }
+        return fileSizeSum;
+    }
+
     /**
      * release resources.
      */
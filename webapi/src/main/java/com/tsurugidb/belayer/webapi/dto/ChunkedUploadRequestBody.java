@@ -0,0 +1,29 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.dto;
+
+import lombok.Data;
+
+@Data
+public class ChunkedUploadRequestBody {
+
+    private String destDir;
+    private String fileName;
+    private long size;
+    private boolean overwrite;
+    /** SHA-256 of the whole file in hex, used on completion */
+    private String sha256;
+}
@@ -28,4 +28,10 @@ public class DownloadPathList {
 
     private List<String> fileNames;
     private String message;
+    /** cursor to get the next page, or null if this is the last page */
+    private String nextCursor;
+
+    public DownloadPathList(List<String> fileNames, String message) {
+        this(fileNames, message, null);
+    }
 }
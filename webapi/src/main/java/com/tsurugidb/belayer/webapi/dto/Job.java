@@ -19,6 +19,7 @@ import java.io.Closeable;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
+import java.util.function.Consumer;
 
 import javax.validation.constraints.NotNull;
 
@@ -30,6 +31,8 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
 
@@ -83,6 +86,12 @@ public abstract class Job implements Closeable {
   /** progress percentage (0-100) */
   private Integer progress;
 
+  /** called when the progress is changed */
+  @JsonIgnore
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private Consumer<Job> changeListener;
+
   @Override
   public void close() {
     log.debug("Job is closed. class:{} job:{}", getClass(), jobId);
@@ -97,12 +106,13 @@ public abstract class Job implements Closeable {
 
   public boolean canCancel() {
 
-    return status == JobStatus.RUNNING;
+    return status == JobStatus.RUNNING || status == JobStatus.QUEUED;
   }
 
   public synchronized void setProgress(Integer actualProgress) {
     progress = actualProgress;
     log.debug(getType() + " progress:" + this.getProgress());
+    notifyChange();
   }
 
   public synchronized Integer getProgress() {
@@ -122,14 +132,39 @@ public abstract class Job implements Closeable {
     this.progress = null;
     this.progressNumerator += additionalProgressValue;
     log.debug(getType() + " progress:" + this.getProgress());
+    notifyChange();
   }
 
   public synchronized void setProgressDenominator(long progressDenominator) {
     this.progressDenominator = progressDenominator;
   }
 
+  /**
+   * Correct the denominator when the estimated size of a part is replaced by
+   * the actual size.
+   *
+   * @param additionalProgressValue difference from the estimated size
+   */
+  public synchronized void addProgressDenominator(long additionalProgressValue) {
+    this.progress = null;
+    this.progressDenominator += additionalProgressValue;
+    notifyChange();
+  }
+
+  /**
+   * Notify the listener that the state of this job is changed.
+   */
+  public void notifyChange() {
+    var listener = changeListener;
+    if (listener != null) {
+      listener.accept(this);
+    }
+  }
+
   public static enum JobStatus {
     RUNNING,
+    /** waiting for other jobs to finish */
+    QUEUED,
     CANCELED,
     FAILED,
     COMPLETED,
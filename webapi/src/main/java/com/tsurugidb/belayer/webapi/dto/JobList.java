@@ -27,4 +27,10 @@ import lombok.NoArgsConstructor;
 public class JobList {
 
   private List<Job> jobList;
+  /** cursor to get the next page, or null if this is the last page */
+  private String nextCursor;
+
+  public JobList(List<Job> jobList) {
+    this(jobList, null);
+  }
 }
@@ -37,4 +37,6 @@ public class RestoreJob extends Job {
     private String zipFilePath;
     @JsonIgnore
     private Path workDir;
+    @JsonIgnore
+    private boolean verify;
 }
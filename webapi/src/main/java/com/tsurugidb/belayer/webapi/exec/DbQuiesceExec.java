@@ -15,12 +15,6 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -28,13 +22,9 @@ import org.springframework.stereotype.Component;
 import com.tsurugidb.belayer.webapi.dto.BackupJob;
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
 import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
-import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
-@Slf4j
 @Component
 public class DbQuiesceExec {
 
@@ -45,70 +35,28 @@ public class DbQuiesceExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
 
   /**
    * execute quiesce command to Database.
    *
    * @param job Job
+   * @return completes when the command succeeded
    */
-  public void callQuiesce(BackupJob job) {
-    FileWatcher watcher = null;
-
-    try {
-      Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + job.getJobId() + "_");
-      Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", job.getJobId()));
-      Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", job.getJobId()));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> job.setOutput("quiece:" + status.toStatusString()));
-      monitoringManager.addFileWatcher(watcher);
-
-      var label = job.getJobId();
-      var proc = runProcess(filePath, label, stdOutput, (String)job.getCredentials());
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-
-      log.debug("status:" + status);
-
-      if (status == null) {
-        throw new ProcessExecException("Process execution failed. status:unknown", null);
-      }
-      if (ExecStatus.STATUS_SUCCESS.equals(status.getStatus())) {
-        return;
-      }
-
-      throw new ProcessExecException("Process execution failed. status:" + status.toStatusString(), null);
-
-    } catch (IOException |
-
-        InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
-      }
-    }
-  }
-
-  protected Process runProcess(Path monitoringFilePath, String label, Path outFile, String token) {
-    String argsLine = String.format(cmdString, monitoringFilePath.toString(), conf, label, token);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile.toString()));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
+  public Mono<Void> callQuiesce(BackupJob job) {
+    var label = job.getJobId();
+
+    return processRunner.runWithMonitor(job.getJobId(),
+        monitoringFile -> String.format(cmdString, monitoringFile, conf, label, (String) job.getCredentials()),
+        status -> job.setOutput("quiece:" + status.toStatusString()))
+        .switchIfEmpty(Mono.error(() -> new ProcessExecException("Process execution failed. status:unknown", null)))
+        .flatMap(status -> {
+          if (ExecStatus.STATUS_SUCCESS.equals(status.getStatus())) {
+            return Mono.empty();
+          }
+          return Mono.error(
+              new ProcessExecException("Process execution failed. status:" + status.toStatusString(), null));
+        });
   }
 
 }
@@ -15,15 +15,10 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -34,12 +29,10 @@ import com.tsurugidb.belayer.webapi.dto.ExecStatus;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
 import com.tsurugidb.belayer.webapi.dto.RestoreJob;
 import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
+import com.tsurugidb.belayer.webapi.exec.ProcessRunner.DisposableProcess;
 
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -55,102 +48,52 @@ public class DbRestoreExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
 
   /**
    * execute the command to restore Database.
    *
    * @param job Job
+   * @return job, after the command ends
    */
-  public RestoreJob startRestore(RestoreJob job) {
+  public Mono<RestoreJob> startRestore(RestoreJob job) {
     log.debug("start restore:{}", job);
-    FileWatcher watcher = null;
 
     StopWatch stopWatch = new StopWatch();
-
-    try {
-      Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + job.getJobId() + "_");
-      Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", job.getJobId()));
-      Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", job.getJobId()));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        BigDecimal progress = status.getProgress();
-        synchronized (job) {
-          job.setProgress(progress.multiply(BigDecimal.valueOf(100), new MathContext(0, RoundingMode.HALF_UP)).intValue());
-          job.setOutput(status.toStatusString());
-        }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      String dirPath = job.getWorkDir().toAbsolutePath().toString();
-
-      stopWatch.start();
-
-      Process proc = runProcess(dirPath, filePath, stdOutput, (String)job.getCredentials());
-      // set process as Disposable into job.
-      job.setDisposable(new DisposableProcess(proc));
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-
-      log.debug("status:" + status);
-      if (status == null || !ExecStatus.STATUS_SUCCESS.equals(status.getStatus())) {
-        if (job.getStatus() != JobStatus.CANCELED) {
-          throw new ProcessExecException("Process execution failed. exit status:" + proc.exitValue(), null);
-        }
-      }
-
-      return job;
-
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      stopWatch.stop();
-      log.debug("{}:{}ms", "exec restore", stopWatch.getTotalTimeMillis());
-    }
-  }
-
-  protected Process runProcess(String dirPath, Path monitoringFilePath, Path outFile, String token) {
-    String argsLine = String.format(cmdString, dirPath, monitoringFilePath.toString(), conf, token);
-    String[] args = argsLine.split(" ");
-
-    List<String> argList = Arrays.asList(args);
-
-    var pb = new ProcessBuilder(argList);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile.toString()));
-    log.debug("exec cmd: {}", argList);
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-  }
-
-  public static class DisposableProcess implements Disposable {
-
-    private Process process;
-
-    public DisposableProcess(Process process) {
-      this.process = process;
-    }
-
-    @Override
-    public void dispose() {
-      if (process.isAlive()) {
-        process.destroy();
-      }
-    }
-
-    @Override
-    public boolean isDisposed() {
-      return !process.isAlive();
-    }
+    AtomicReference<Process> process = new AtomicReference<>();
+
+    String dirPath = job.getWorkDir().toAbsolutePath().toString();
+
+    return processRunner.runWithMonitor(job.getJobId(),
+        monitoringFile -> String.format(cmdString, dirPath, monitoringFile, conf, (String) job.getCredentials()),
+        status -> {
+          BigDecimal progress = status.getProgress();
+          synchronized (job) {
+            job.setProgress(
+                progress.multiply(BigDecimal.valueOf(100), new MathContext(0, RoundingMode.HALF_UP)).intValue());
+            job.setOutput(status.toStatusString());
+          }
+        },
+        proc -> {
+          stopWatch.start();
+          process.set(proc);
+          // set process as Disposable into job.
+          job.setDisposable(new DisposableProcess(proc));
+        })
+        .filter(status -> ExecStatus.STATUS_SUCCESS.equals(status.getStatus()))
+        .map(status -> job)
+        .switchIfEmpty(Mono.fromCallable(() -> {
+          if (job.getStatus() != JobStatus.CANCELED) {
+            throw new ProcessExecException("Process execution failed. exit status:" + process.get().exitValue(), null);
+          }
+          return job;
+        }))
+        .doFinally(signal -> {
+          if (stopWatch.isRunning()) {
+            stopWatch.stop();
+            log.debug("{}:{}ms", "exec restore", stopWatch.getTotalTimeMillis());
+          }
+        });
   }
 
 }
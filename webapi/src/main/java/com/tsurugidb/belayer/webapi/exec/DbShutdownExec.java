@@ -15,23 +15,14 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
-import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -44,68 +35,30 @@ public class DbShutdownExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
+
+  @Autowired
+  private DbStatusCache dbStatusCache;
 
   /**
    * execute the command to shutdown Database.
    *
    * @param jobId Job ID
    * @param token authentication token
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus shutdownDatabase(String jobId, String token) {
-
-    FileWatcher watcher = null;
-
-    try {
-      Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + jobId + "_");
-      Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", jobId));
-      Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", jobId));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        log.debug("file changed:" + status.toString());
-        if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
-          status.setFreezed(true);
-        }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      var proc = runProcess(filePath.toString(), stdOutput.toString(), token);
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-
-      log.debug("status:" + status);
-      return status;
-  
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
-      }
-    }
-  }
-
-  protected Process runProcess(String monitoringFile, String outFile, String token) {
-    String argsLine = String.format(cmdString, monitoringFile, conf, token);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-
+  public Mono<ExecStatus> shutdownDatabase(String jobId, String token) {
+
+    return processRunner.runWithMonitor(jobId,
+        monitoringFile -> String.format(cmdString, monitoringFile, conf, token),
+        status -> {
+          log.debug("file changed:" + status.toString());
+          if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
+            status.setFreezed(true);
+          }
+        })
+        // the status may have changed whether the command succeeded or not
+        .doFinally(signal -> dbStatusCache.invalidate());
   }
 
 }
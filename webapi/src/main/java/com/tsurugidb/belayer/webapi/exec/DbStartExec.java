@@ -15,23 +15,14 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
-import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -44,7 +35,10 @@ public class DbStartExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
+
+  @Autowired
+  private DbStatusCache dbStatusCache;
 
   /**
    * execute the command to start Database.
@@ -54,65 +48,31 @@ public class DbStartExec {
    * @param mode launch mode
    * @param replicateFrom grpc endpoint that replicate from
    * @param autoFetchWal if true, fetch required WAL automatically
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus startDatabse(String jobId, String token, String mode, String replicateFrom, boolean autoFetchWal) {
-
-    FileWatcher watcher = null;
-
-    try {
-      Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + jobId + "_");
-      Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", jobId));
-      Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", jobId));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        log.debug("file changed:" + status.toString());
-        if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
-          status.setFreezed(true);
-        }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      var proc = runProcess(filePath.toString(), stdOutput.toString(), token, mode, replicateFrom, autoFetchWal);
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-      log.debug("status:" + status);
-      return status;
-
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
-      }
-    }
+  public Mono<ExecStatus> startDatabse(String jobId, String token, String mode, String replicateFrom,
+      boolean autoFetchWal) {
+
+    return processRunner.runWithMonitor(jobId,
+        monitoringFile -> createArgsLine(monitoringFile, token, mode, replicateFrom, autoFetchWal),
+        status -> {
+          log.debug("file changed:" + status.toString());
+          if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
+            status.setFreezed(true);
+          }
+        })
+        // the status may have changed whether the command succeeded or not
+        .doFinally(signal -> dbStatusCache.invalidate());
   }
 
-  protected Process runProcess(String monitoringFile, String outFile, String token, String mode, String replicateFrom, boolean autoFetchWal) {
+  protected String createArgsLine(String monitoringFile, String token, String mode, String replicateFrom,
+      boolean autoFetchWal) {
     String modeAndOptions = !"replica".equals(mode) ? mode : mode + " --replicate-from " + replicateFrom;
     if ("replica".equals(mode) && autoFetchWal) {
       modeAndOptions += " --auto-fetch-wal";
     }
 
-    String argsLine = String.format(cmdString, monitoringFile, conf, token, modeAndOptions);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-
+    return String.format(cmdString, monitoringFile, conf, token, modeAndOptions);
   }
 
 }
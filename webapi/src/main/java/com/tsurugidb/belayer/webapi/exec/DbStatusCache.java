@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.exec;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.DbStatus;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Cache of the database status.
+ *
+ * A status is reused for a short time, and concurrent requests for a status
+ * share one run of the CLI commands. The cache is cleared when the database is
+ * started, stopped or its mode is changed.
+ *
+ * Only a status that could be read is shared. The CLI commands run with the
+ * token of the request, so a failure, e.g. by an expired token, is returned to
+ * the request only, and the others load the status with their own tokens.
+ * The status is not refreshed in the background for the same reason: there
+ * is no token to use once the request has ended.
+ */
+@Slf4j
+@Component
+public class DbStatusCache {
+
+  @Value("${webapi.db.status.cache.ttl_millis}")
+  private long ttlMillis;
+
+  @Autowired
+  DbStatusExec dbStatusExec;
+
+  private final Object lock = new Object();
+
+  // guarded by lock
+  private CachedStatus cached;
+
+  // guarded by lock
+  private Sinks.One<DbStatus> inflight;
+
+  // guarded by lock, incremented on invalidation
+  private long generation;
+
+  @PostConstruct
+  public void init() {
+    if (ttlMillis < 0) {
+      throw new IllegalArgumentException("db status cache ttl must be 0 or more.");
+    }
+    log.info("db status cache ttl millis:{}", ttlMillis);
+  }
+
+  /**
+   * Return the database status.
+   *
+   * The cached status is returned if it is fresh. Otherwise the status is
+   * loaded, or the load in progress is awaited.
+   *
+   * @param jobId Job ID
+   * @param token authentication token
+   * @return a copy of the status
+   */
+  public Mono<DbStatus> getStatus(String jobId, String token) {
+    return Mono.defer(() -> load(jobId, token)).map(this::copy);
+  }
+
+  /**
+   * Clear the cached status.
+   *
+   * A load in progress is not shared with later requests either, since it may
+   * have read the status before the change.
+   */
+  public void invalidate() {
+    synchronized (lock) {
+      cached = null;
+      inflight = null;
+      generation++;
+    }
+    log.debug("db status cache is invalidated.");
+  }
+
+  private Mono<DbStatus> load(String jobId, String token) {
+    Sinks.One<DbStatus> sink;
+    long loadGeneration;
+    boolean owner = false;
+    synchronized (lock) {
+      if (cached != null && cached.isFresh()) {
+        return Mono.just(cached.status);
+      }
+      if (inflight == null) {
+        inflight = Sinks.one();
+        owner = true;
+      }
+      sink = inflight;
+      loadGeneration = generation;
+    }
+
+    if (!owner) {
+      // the load of another request failed, load with this token
+      return sink.asMono()
+          .onErrorResume(ex -> Mono.empty())
+          .filter(status -> status.getStatus() != null)
+          .switchIfEmpty(Mono.defer(() -> dbStatusExec.getStatus(jobId, token)));
+    }
+
+    // not cancelled even if the request is, so that the result is shared
+    var result = dbStatusExec.getStatus(jobId, token).cache();
+    result.subscribe(
+        status -> complete(sink, loadGeneration, status),
+        ex -> {
+          release(sink);
+          sink.tryEmitError(ex);
+        },
+        () -> {
+          // no-op if a status is emitted
+          release(sink);
+          sink.tryEmitEmpty();
+        });
+    return result;
+  }
+
+  private void complete(Sinks.One<DbStatus> sink, long loadGeneration, DbStatus status) {
+    synchronized (lock) {
+      // a status that could not be read, e.g. by an invalid token, is not shared
+      if (loadGeneration == generation && status.getStatus() != null) {
+        cached = new CachedStatus(status, System.nanoTime() + ttlMillis * 1_000_000L);
+      }
+    }
+    release(sink);
+    sink.tryEmitValue(status);
+  }
+
+  private void release(Sinks.One<DbStatus> sink) {
+    synchronized (lock) {
+      if (inflight == sink) {
+        inflight = null;
+      }
+    }
+  }
+
+  private DbStatus copy(DbStatus status) {
+    return status.toBuilder().build();
+  }
+
+  private static class CachedStatus {
+    private final DbStatus status;
+    private final long expiresAt;
+
+    private CachedStatus(DbStatus status, long expiresAt) {
+      this.status = status;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isFresh() {
+      return System.nanoTime() - expiresAt < 0;
+    }
+  }
+}
@@ -16,24 +16,37 @@
 package com.tsurugidb.belayer.webapi.exec;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tsurugidb.belayer.webapi.dto.DbStatus;
+import com.tsurugidb.belayer.webapi.dto.ExecStatus;
 import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
+import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
+/**
+ * Collects the database status from the monitor output of CLI commands.
+ *
+ * Commands that do not depend on each other run at the same time, and the
+ * monitor files are parsed in this process when the commands exit.
+ */
 @Slf4j
 @Component
 public class DbStatusExec {
@@ -42,79 +55,152 @@ public class DbStatusExec {
   String conf;
 
   @Value("${webapi.cli.cmd.db-status}")
-  String cmdString;
+  String statusCmdString;
+
+  @Value("${webapi.cli.cmd.db-config}")
+  String configCmdString;
 
-  @Value("${webapi.cli.cmd.tgctl_command}")
-  String tgctl;
+  @Value("${webapi.cli.cmd.db-mode}")
+  String modeCmdString;
 
-  @Value("${webapi.cli.cmd.tgha_command}")
-  String tgha;
+  @Value("${webapi.cli.cmd.db-version}")
+  String versionCmdString;
 
   @Autowired
   private ObjectMapper mapper;
 
+  @Autowired
+  private ScratchSpaceManager scratchSpaceManager;
+
+  @Autowired
+  private ProcessRunner processRunner;
+
+  @Autowired
+  private BelayerSchedulers belayerSchedulers;
+
   /**
    * obtains database status
    * @param jobId
    * @param authToken
    * @return status
    */
-  public DbStatus getStatus(String jobId, String authToken) {
+  public Mono<DbStatus> getStatus(String jobId, String authToken) {
+
+    return Mono.using(
+        () -> scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + jobId + "_"),
+        // tgctl status, tgctl config
+        tmpDir -> Mono.zip(
+            readRecords(tmpDir, "status", statusCmdString, authToken),
+            readRecords(tmpDir, "config", configCmdString, authToken))
+            .flatMap(records -> {
+              var dbStatus = toDbStatus(records.getT1(), records.getT2());
+              if (!ExecStatus.STATUS_RUNNING.equals(dbStatus.getStatus())) {
+                return Mono.just(dbStatus);
+              }
+
+              // tgha mode show, tgha database version
+              return Mono.zip(
+                  readRecords(tmpDir, "mode", modeCmdString, authToken),
+                  readRecords(tmpDir, "version", versionCmdString, authToken))
+                  .map(haRecords -> setHaStatus(dbStatus, toKeyValues(haRecords.getT1()),
+                      toKeyValues(haRecords.getT2())));
+            }),
+        scratchSpaceManager::release)
+        .doOnNext(dbStatus -> log.debug("db status:{}", dbStatus))
+        .subscribeOn(belayerSchedulers.db());
+  }
 
-    Path filePath = null;
-    Path stdOutput = null;
-    boolean success = false;
-    try {
-      Path tmpDirPath = Path.of(System.getProperty("java.io.tmpdir") + "/belayer-db-status");
-      if (!Files.exists(tmpDirPath)) {
-        Files.createDirectory(tmpDirPath);
+  private DbStatus toDbStatus(List<JsonNode> statusRecords, List<JsonNode> configRecords) {
+    var dbStatus = new DbStatus();
+    for (JsonNode record : statusRecords) {
+      if ("status".equals(text(record, "format"))) {
+        dbStatus.setStatus(text(record, "status"));
+        break;
+      }
+    }
+    for (JsonNode record : configRecords) {
+      String section = text(record, "section");
+      String key = text(record, "key");
+      JsonNode value = record.get("value");
+      if (value == null) {
+        continue;
+      }
+      if ("system".equals(section) && "instance_id".equals(key)) {
+        dbStatus.setInstanceId(value.asText());
+      } else if ("grpc_server".equals(section) && "enabled".equals(key)) {
+        dbStatus.setGrpc_server_enabled(value.asBoolean());
+      } else if ("grpc_server".equals(section) && "endpoint".equals(key)) {
+        dbStatus.setGrpc_server_endpoint(value.asText());
       }
+    }
+    return dbStatus;
+  }
 
-      String id = RandomStringUtils.randomAlphanumeric(8);
-      filePath = tmpDirPath.resolve(String.format("monitoring-%s.log", id));
-      stdOutput = tmpDirPath.resolve(String.format("stdout-%s.log", id));
+  private DbStatus setHaStatus(DbStatus dbStatus, Map<String, String> modeValues, Map<String, String> versionValues) {
+    String mode = modeValues.getOrDefault("mode", "");
+    dbStatus.setMode(mode);
+    if (mode.equals("replica")) {
+      dbStatus.setModeStatus(modeValues.get("replica.replication_status"));
+      dbStatus.setUpstream(modeValues.get("replica.upstream"));
+    } else if (!mode.isEmpty()) {
+      dbStatus.setModeStatus(modeValues.get(mode + ".replication_status"));
+    }
+    dbStatus.setWalVersion(versionValues.get("version"));
+    return dbStatus;
+  }
 
-      var result = runProcess(filePath.toString(), stdOutput.toString(), authToken);
+  /**
+   * Run the command and return records in its monitor file.
+   */
+  private Mono<List<JsonNode>> readRecords(Path tmpDir, String name, String cmdString, String authToken) {
+    Path monitoringFile = tmpDir.resolve(String.format("monitoring-%s.log", name));
+    Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", name));
+    String argsLine = String.format(cmdString, monitoringFile.toString(), conf, authToken);
+
+    return processRunner.exec(argsLine, stdOutput)
+        .map(exitCode -> {
+          log.debug("exit code:{}, monitor:{}", exitCode, monitoringFile);
+          return parseRecords(monitoringFile);
+        });
+  }
 
-      return result;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (success) {
+  private List<JsonNode> parseRecords(Path monitoringFile) {
+    List<JsonNode> records = new ArrayList<>();
+    if (!Files.exists(monitoringFile)) {
+      return records;
+    }
+    try {
+      for (String line : Files.readAllLines(monitoringFile, StandardCharsets.UTF_8)) {
+        if (line.isBlank()) {
+          continue;
+        }
         try {
-          if (filePath != null) {
-            Files.delete(filePath);
-          }
-          if (stdOutput != null) {
-            Files.delete(stdOutput);
-          }
-        } catch (Exception ignore) {
-          log.warn("failed to delete file", ignore);
+          records.add(mapper.readTree(line));
+        } catch (JsonProcessingException ex) {
+          log.debug("skip invalid monitor record:{}", line);
         }
       }
+    } catch (IOException ex) {
+      throw new ProcessExecException("Process execution failed.", ex);
     }
+    return records;
   }
 
-  public DbStatus runProcess(String monitoringFile, String outFile, String authToken) {
-    String argsLine = String.format(cmdString, tgctl, tgha, monitoringFile, conf, authToken);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    String result = null;
-    try {
-      var proc = pb.start();
-      InputStream is = proc.getInputStream();
-      result = StreamUtils.copyToString(is, StandardCharsets.UTF_8);
-
-      return mapper.readValue(result, new TypeReference<DbStatus>() {
-      });
-
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused. out:[" + result + "]", ex);
+  private Map<String, String> toKeyValues(List<JsonNode> records) {
+    Map<String, String> values = new HashMap<>();
+    for (JsonNode record : records) {
+      String key = text(record, "key");
+      JsonNode value = record.get("value");
+      if (key != null && value != null && !value.isNull()) {
+        values.putIfAbsent(key, value.asText());
+      }
     }
+    return values;
+  }
 
+  private static String text(JsonNode record, String field) {
+    JsonNode node = record.get(field);
+    return node == null || node.isNull() ? null : node.asText();
   }
 
 }
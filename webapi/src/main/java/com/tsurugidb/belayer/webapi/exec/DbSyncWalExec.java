@@ -15,23 +15,14 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Arrays;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
-import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.Constants;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -44,7 +35,7 @@ public class DbSyncWalExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
 
   /**
    * execute the command to synchronize Database.
@@ -52,61 +43,18 @@ public class DbSyncWalExec {
    * @param jobId Job ID
    * @param token authentication token
    * @param fromHost source host for synchronization
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus synchronizeTransactionLog(String jobId, String token, String fromHost) {
-
-    FileWatcher watcher = null;
-
-    try {
-      Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + jobId + "_");
-      Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", jobId));
-      Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", jobId));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        log.debug("file changed:" + status.toString());
-        if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
-          status.setFreezed(true);
-        }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      var proc = runProcess(filePath.toString(), stdOutput.toString(), token, fromHost);
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-
-      log.debug("status:" + status);
-      return status;
-
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
-      }
-    }
-  }
-
-  protected Process runProcess(String monitoringFile, String outFile, String token, String fromHost) {
-    String argsLine = String.format(cmdString, monitoringFile, conf, token, fromHost);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-
+  public Mono<ExecStatus> synchronizeTransactionLog(String jobId, String token, String fromHost) {
+
+    return processRunner.runWithMonitor(jobId,
+        monitoringFile -> String.format(cmdString, monitoringFile, conf, token, fromHost),
+        status -> {
+          log.debug("file changed:" + status.toString());
+          if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
+            status.setFreezed(true);
+          }
+        });
   }
 
 }
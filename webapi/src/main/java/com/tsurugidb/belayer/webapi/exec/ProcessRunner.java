@@ -0,0 +1,215 @@
+/*
+ * Copyright 2023 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.exec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.ExecStatus;
+import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
+import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.FileWatcher;
+import com.tsurugidb.belayer.webapi.model.MonitoringManager;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs CLI commands without blocking the calling thread.
+ *
+ * The end of a command is notified by {@link Process#onExit()}, and lines of
+ * the monitor file are passed to the callback as the file is modified, so no
+ * thread waits for the command. Starting a command and reading its monitor
+ * file run on the DB scheduler.
+ *
+ * Cancelling the subscription does not destroy the process, since a request
+ * may be cancelled by a client disconnect while tgctl is changing the DB
+ * state. Use {@link DisposableProcess} to stop a cancelled job.
+ */
+@Slf4j
+@Component
+public class ProcessRunner {
+
+  @Autowired
+  private MonitoringManager monitoringManager;
+
+  @Autowired
+  private ScratchSpaceManager scratchSpaceManager;
+
+  @Autowired
+  private BelayerSchedulers belayerSchedulers;
+
+  /**
+   * execute the command.
+   *
+   * @param argsLine command line, arguments are separated by a space
+   * @param outFile file to write stdout and stderr
+   * @return exit code
+   */
+  public Mono<Integer> exec(String argsLine, Path outFile) {
+    return start(argsLine, outFile, null)
+        .subscribeOn(belayerSchedulers.db());
+  }
+
+  /**
+   * execute the command and read its monitor file.
+   *
+   * The directory of the monitor file is created if it does not exist.
+   *
+   * @param argsLine command line, arguments are separated by a space
+   * @param monitoringFile monitor file the command writes
+   * @param outFile file to write stdout and stderr
+   * @param callback called with each status written to the monitor file
+   * @return the last status, or empty if the command wrote no status
+   */
+  public Mono<ExecStatus> run(String argsLine, Path monitoringFile, Path outFile, Consumer<ExecStatus> callback) {
+    return watch(argsLine, monitoringFile, outFile, callback, null)
+        .subscribeOn(belayerSchedulers.db());
+  }
+
+  /**
+   * execute the command with its monitor file in a scratch directory.
+   *
+   * The directory is deleted when the command ends.
+   *
+   * @param jobId Job ID
+   * @param argsLine function to create the command line from the path of the monitor file
+   * @param callback called with each status written to the monitor file
+   * @return the last status, or empty if the command wrote no status
+   */
+  public Mono<ExecStatus> runWithMonitor(String jobId, Function<String, String> argsLine,
+      Consumer<ExecStatus> callback) {
+    return runWithMonitor(jobId, argsLine, callback, null);
+  }
+
+  /**
+   * execute the command with its monitor file in a scratch directory.
+   *
+   * The directory is deleted when the command ends.
+   *
+   * @param jobId Job ID
+   * @param argsLine function to create the command line from the path of the monitor file
+   * @param callback called with each status written to the monitor file
+   * @param onStart called with the process when it is started
+   * @return the last status, or empty if the command wrote no status
+   */
+  public Mono<ExecStatus> runWithMonitor(String jobId, Function<String, String> argsLine,
+      Consumer<ExecStatus> callback, Consumer<Process> onStart) {
+    return Mono.using(
+        () -> scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_MONITOR + jobId + "_"),
+        tmpDir -> {
+          Path filePath = tmpDir.resolve(String.format("monitoring-%s.log", jobId));
+          Path stdOutput = tmpDir.resolve(String.format("stdout-%s.log", jobId));
+          return watch(argsLine.apply(filePath.toString()), filePath, stdOutput, callback, onStart);
+        },
+        scratchSpaceManager::release)
+        .subscribeOn(belayerSchedulers.db());
+  }
+
+  private Mono<ExecStatus> watch(String argsLine, Path monitoringFile, Path outFile, Consumer<ExecStatus> callback,
+      Consumer<Process> onStart) {
+    return Mono.using(
+        () -> {
+          Files.createDirectories(monitoringFile.getParent());
+          var watcher = new FileWatcher(monitoringFile);
+          watcher.setCallback(callback);
+          monitoringManager.addFileWatcher(watcher);
+          return watcher;
+        },
+        watcher -> start(argsLine, outFile, onStart)
+            .flatMap(exitCode -> {
+              // lines written just before the exit may not be notified yet
+              watcher.readLines();
+              ExecStatus status = watcher.getExecStatus();
+              log.debug("status:{}", status);
+              return Mono.justOrEmpty(status);
+            }),
+        FileWatcher::close)
+        .onErrorMap(IOException.class, ex -> new ProcessExecException("Process execution failed.", ex));
+  }
+
+  private Mono<Integer> start(String argsLine, Path outFile, Consumer<Process> onStart) {
+    return Mono.defer(() -> {
+      Process proc = startProcess(argsLine, outFile);
+      if (onStart != null) {
+        onStart.accept(proc);
+      }
+      return Mono.fromFuture(proc.onExit());
+    })
+        // onExit() completes on a JDK internal thread
+        .publishOn(belayerSchedulers.db())
+        .map(proc -> {
+          log.debug("exit code:{}", proc.exitValue());
+          return proc.exitValue();
+        });
+  }
+
+  private Process startProcess(String argsLine, Path outFile) {
+    String[] args = argsLine.split(" ");
+
+    var pb = new ProcessBuilder(args);
+    // stderr -> stdout
+    pb.redirectErrorStream(true);
+    // stdout -> file
+    pb.redirectOutput(outFile.toFile());
+    log.debug("exec cmd: {}", Arrays.asList(args));
+    try {
+      return pb.start();
+    } catch (IOException ex) {
+      throw new ProcessExecException("Process execution error caused.", ex);
+    }
+  }
+
+  private static void destroy(Process process) {
+    if (process.isAlive()) {
+      log.debug("destroy process. pid:{}", process.pid());
+      process.destroy();
+    }
+  }
+
+  /**
+   * Disposable to destroy a running process.
+   */
+  public static class DisposableProcess implements Disposable {
+
+    private Process process;
+
+    public DisposableProcess(Process process) {
+      this.process = process;
+    }
+
+    @Override
+    public void dispose() {
+      destroy(process);
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return !process.isAlive();
+    }
+  }
+
+}
@@ -15,11 +15,8 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,10 +25,9 @@ import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
 import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -44,90 +40,46 @@ public class SessionSetVariableExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
 
   /**
    * execute the command to set the session variable.
    *
    * @param sessionId Session ID
+   * @param variableName variable name
+   * @param variableValue variable value
    * @param token authentication token
+   * @return true if succeeded
    */
-  public boolean setVariable(String sessionId, String variableName, String variableValue, String token) {
+  public Mono<Boolean> setVariable(String sessionId, String variableName, String variableValue, String token) {
 
-    FileWatcher watcher = null;
-    Path filePath = null;
-    Path stdOutput = null;
-    boolean success = false;
-    try {
-      Path tmpDirPath = Path.of(System.getProperty("java.io.tmpdir") + "/belayer-session-set");
-      if (!Files.exists(tmpDirPath)) {
-        Files.createDirectory(tmpDirPath);
-      }
-
-      String id = RandomStringUtils.randomAlphanumeric(8);
-      filePath = tmpDirPath.resolve(String.format("monitoring-%s.log", id));
-      stdOutput = tmpDirPath.resolve(String.format("stdout-%s.log", id));
-
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
-          status.setFreezed(true);
-        }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      var proc = runProcess(sessionId, variableName, variableValue, filePath.toString(), stdOutput.toString(), token);
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null && ExecStatus.KIND_FINISH.equals(s.getKind()));
-
-      if (status != null) {
-        success = ExecStatus.STATUS_SUCCESS.equals(status.getStatus());
-        return success;
-      }
+    Path tmpDirPath = Path.of(System.getProperty("java.io.tmpdir") + "/belayer-session-set");
 
-      throw new ProcessExecException("process failed. see monitor file. ["  + filePath + "]", null);
+    String id = RandomStringUtils.randomAlphanumeric(8);
+    Path filePath = tmpDirPath.resolve(String.format("monitoring-%s.log", id));
+    Path stdOutput = tmpDirPath.resolve(String.format("stdout-%s.log", id));
 
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
+    String argsLine = String.format(cmdString, sessionId, variableName, variableValue, filePath.toString(), conf,
+        token);
+    return processRunner.run(argsLine, filePath, stdOutput, status -> {
+      if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
+        status.setFreezed(true);
       }
-      if (success) {
-        try {
-          if (filePath != null) {
-            Files.delete(filePath);
-          }
-          if (stdOutput != null) {
-            Files.delete(stdOutput);
+    })
+        .map(status -> {
+          boolean success = ExecStatus.STATUS_SUCCESS.equals(status.getStatus());
+          if (success) {
+            try {
+              Files.delete(filePath);
+              Files.delete(stdOutput);
+            } catch (Exception ignore) {
+              log.warn("failed to delete file", ignore);
+            }
           }
-        } catch (Exception ignore) {
-          log.warn("failed to delete file", ignore);
-        }
-      }
-    }
-  }
-
-  protected Process runProcess(String sessionId, String variableName, String variableValue, String monitoringFile,
-      String outFile, String token) {
-    String argsLine = String.format(cmdString, sessionId, variableName, variableValue, monitoringFile, conf, token);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-
+          return success;
+        })
+        .switchIfEmpty(Mono.error(
+            () -> new ProcessExecException("process failed. see monitor file. [" + filePath + "]", null)));
   }
 
 }
@@ -15,11 +15,8 @@
  */
 package com.tsurugidb.belayer.webapi.exec;
 
-import java.io.File;
-import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,10 +25,9 @@ import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.ExecStatus;
 import com.tsurugidb.belayer.webapi.exception.ProcessExecException;
-import com.tsurugidb.belayer.webapi.model.FileWatcher;
-import com.tsurugidb.belayer.webapi.model.MonitoringManager;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
@@ -44,93 +40,46 @@ public class SessionStatusExec {
   String cmdString;
 
   @Autowired
-  private MonitoringManager monitoringManager;
+  private ProcessRunner processRunner;
 
   /**
    * execute the command to check if the session is available.
    *
    * @param sessionId Session ID
    * @param token authentication token
+   * @return true if the session is available
    */
-  public boolean existsSession(String sessionId, String token) {
+  public Mono<Boolean> existsSession(String sessionId, String token) {
 
-    FileWatcher watcher = null;
-    Path filePath = null;
-    Path stdOutput = null;
-    try {
-      Path tmpDirPath = Path.of(System.getProperty("java.io.tmpdir") + "/belayer-session-status");
-      if (!Files.exists(tmpDirPath)) {
-        Files.createDirectory(tmpDirPath);
-      }
+    Path tmpDirPath = Path.of(System.getProperty("java.io.tmpdir") + "/belayer-session-status");
 
-      String id = RandomStringUtils.randomAlphanumeric(8);
-      filePath = tmpDirPath.resolve(String.format("monitoring-%s.log", id));
-      stdOutput = tmpDirPath.resolve(String.format("stdout-%s.log", id));
+    String id = RandomStringUtils.randomAlphanumeric(8);
+    Path filePath = tmpDirPath.resolve(String.format("monitoring-%s.log", id));
+    Path stdOutput = tmpDirPath.resolve(String.format("stdout-%s.log", id));
 
-      watcher = new FileWatcher(filePath);
-      watcher.setCallback(status -> {
-        if (status != null && (ExecStatus.KIND_DATA.equals(status.getKind()))) {
-            status.setStatus(ExecStatus.STATUS_SUCCESS);
-            status.setFreezed(true);
-        }
-        if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
-          if (!status.isFreezed()) {
-            status.setStatus(ExecStatus.STATUS_FAILURE);
-            status.setFreezed(true);
-          }
+    String argsLine = String.format(cmdString, sessionId, filePath.toString(), conf, token);
+    return processRunner.run(argsLine, filePath, stdOutput, status -> {
+      if (status != null && (ExecStatus.KIND_DATA.equals(status.getKind()))) {
+          status.setStatus(ExecStatus.STATUS_SUCCESS);
+          status.setFreezed(true);
+      }
+      if (status != null && ExecStatus.KIND_FINISH.equals(status.getKind())) {
+        if (!status.isFreezed()) {
+          status.setStatus(ExecStatus.STATUS_FAILURE);
+          status.setFreezed(true);
         }
-      });
-      monitoringManager.addFileWatcher(watcher);
-
-      var proc = runProcess(sessionId, filePath.toString(), stdOutput.toString(), token);
-
-      proc.waitFor();
-
-      ExecStatus status = watcher.waitForExecStatus(s -> s != null
-          && (ExecStatus.KIND_DATA.equals(s.getKind()) || ExecStatus.KIND_FINISH.equals(s.getKind())));
-
-      if (status != null) {
-        try {
-          if (filePath != null) {
+      }
+    })
+        .map(status -> {
+          try {
             Files.delete(filePath);
-          }
-          if (stdOutput != null) {
             Files.delete(stdOutput);
+          } catch (Exception ignore) {
+            log.warn("failed to delete file", ignore);
           }
-        } catch (Exception ignore) {
-          log.warn("failed to delete file", ignore);
-        }
-        return ExecStatus.STATUS_SUCCESS.equals(status.getStatus());
-      }
-
-      throw new ProcessExecException("session status is unknown.", null);
-
-    } catch (IOException | InterruptedException ex) {
-      throw new ProcessExecException("Process execution failed.", ex);
-    } finally {
-      if (watcher != null) {
-        watcher.close();
-      }
-    }
-  }
-
-  protected Process runProcess(String sessionId, String monitoringFile, String outFile, String token) {
-    String argsLine = String.format(cmdString, sessionId, monitoringFile, conf, token);
-    String[] args = argsLine.split(" ");
-
-    var pb = new ProcessBuilder(args);
-    // stderr -> stdout
-    pb.redirectErrorStream(true);
-    // stdout -> file
-    pb.redirectOutput(new File(outFile));
-    log.debug("exec cmd: {}", Arrays.asList(args));
-    try {
-      var proc = pb.start();
-      return proc;
-    } catch (IOException ex) {
-      throw new ProcessExecException("Process execution error caused.", ex);
-    }
-
+          return ExecStatus.STATUS_SUCCESS.equals(status.getStatus());
+        })
+        .switchIfEmpty(Mono.error(() -> new ProcessExecException("session status is unknown.", null)));
   }
 
 }
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tsurugidb.belayer.webapi.dto.BackupSnapshot;
+import com.tsurugidb.belayer.webapi.dto.BackupSnapshot.SnapshotFile;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+import com.tsurugidb.belayer.webapi.util.DigestUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Content-addressed backup repository.
+ *
+ * <pre>
+ * [rootDir]/chunks/[2 hex chars]/[sha256]   deflate compressed chunk
+ * [rootDir]/snapshots/[name].json           snapshot referencing chunks
+ * </pre>
+ *
+ * Chunks are shared by all snapshots in the repository, so a backup only adds
+ * the chunks that were not stored by a previous backup.
+ *
+ * Instances are created per backup, so storing chunks and pruning are
+ * serialized by a lock shared by all instances on the same root directory.
+ * A backup is registered as running until its snapshot is written or it is
+ * closed, and chunks are not pruned while a backup is running on the root,
+ * because the chunks of the backup are not referenced by any snapshot yet.
+ */
+@Slf4j
+public class BackupRepository implements AutoCloseable {
+
+    public static final String CHUNK_DIR = "chunks";
+
+    public static final String SNAPSHOT_DIR = "snapshots";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    // read lock to store a chunk, write lock to prune
+    private static final Map<Path, ReadWriteLock> LOCKS = new ConcurrentHashMap<>();
+
+    // backups running on each root directory
+    private static final Map<Path, Set<BackupRepository>> RUNNING_BACKUPS = new ConcurrentHashMap<>();
+
+    private final Path rootDir;
+
+    private final Path normalizedRootDir;
+
+    private final ContentDefinedChunker chunker;
+
+    private final IoLimiter limiter;
+
+    private final ReadWriteLock lock;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // bytes added to the repository by this instance, negative when pruned
+    private final AtomicLong addedBytes = new AtomicLong();
+
+    public BackupRepository(Path rootDir) {
+        this(rootDir, new ContentDefinedChunker(), IoLimiter.NONE);
+    }
+
+    public BackupRepository(Path rootDir, IoLimiter limiter) {
+        this(rootDir, new ContentDefinedChunker(), limiter);
+    }
+
+    public BackupRepository(Path rootDir, ContentDefinedChunker chunker) {
+        this(rootDir, chunker, IoLimiter.NONE);
+    }
+
+    public BackupRepository(Path rootDir, ContentDefinedChunker chunker, IoLimiter limiter) {
+        this.rootDir = Objects.requireNonNull(rootDir, "rootDir");
+        this.chunker = Objects.requireNonNull(chunker, "chunker");
+        this.limiter = Objects.requireNonNull(limiter, "limiter");
+        this.normalizedRootDir = rootDir.toAbsolutePath().normalize();
+        this.lock = lockOf(rootDir);
+    }
+
+    static ReadWriteLock lockOf(Path rootDir) {
+        return LOCKS.computeIfAbsent(rootDir.toAbsolutePath().normalize(), k -> new ReentrantReadWriteLock());
+    }
+
+    private void registerBackup() {
+        RUNNING_BACKUPS.compute(normalizedRootDir, (k, backups) -> {
+            Set<BackupRepository> set = backups == null ? new HashSet<>() : backups;
+            set.add(this);
+            return set;
+        });
+    }
+
+    private boolean isBackupRunning() {
+        return RUNNING_BACKUPS.containsKey(normalizedRootDir);
+    }
+
+    /**
+     * Unregister the running backup of this instance, so that its chunks can be
+     * pruned. Called when the snapshot is written, and must be called when the
+     * backup fails or is cancelled.
+     */
+    @Override
+    public void close() {
+        RUNNING_BACKUPS.computeIfPresent(normalizedRootDir, (k, backups) -> {
+            backups.remove(this);
+            return backups.isEmpty() ? null : backups;
+        });
+    }
+
+    /**
+     * Return bytes added to the repository by this instance.
+     *
+     * @return bytes of stored chunks and snapshots minus bytes of pruned ones
+     */
+    public long getAddedBytes() {
+        return addedBytes.get();
+    }
+
+    /**
+     * Return true if the path points to a snapshot file in a backup repository.
+     *
+     * @param path file path
+     * @return true if snapshot file
+     */
+    public static boolean isSnapshotFile(Path path) {
+        Path parent = path.getParent();
+        return path.getFileName().toString().endsWith(Constants.EXT_JSON)
+                && parent != null
+                && parent.getFileName() != null
+                && SNAPSHOT_DIR.equals(parent.getFileName().toString());
+    }
+
+    /**
+     * Return the repository root of a snapshot file.
+     *
+     * @param snapshotFile snapshot file path
+     * @return repository root
+     */
+    public static Path getRepositoryRoot(Path snapshotFile) {
+        return snapshotFile.getParent().getParent();
+    }
+
+    /**
+     * Collector that stores files into the repository and writes a snapshot.
+     *
+     * @param basePath      base path to compute path names in the snapshot
+     * @param snapshotName  snapshot name
+     * @param compressLevel compress level(0-9 or -1 as default)
+     * @return path of the snapshot file
+     */
+    public Collector<String, ?, String> collectAsSnapshot(Path basePath, String snapshotName, int compressLevel) {
+
+        log.debug("basePath:{}, repository:{}, snapshot:{}", basePath, rootDir, snapshotName);
+
+        Supplier<BackupSnapshot> supplier = () -> {
+            // before storing any chunk
+            registerBackup();
+            var snapshot = new BackupSnapshot();
+            snapshot.setName(snapshotName);
+            return snapshot;
+        };
+
+        BiConsumer<BackupSnapshot, String> accumulator = (snapshot, filePath) -> {
+            SnapshotFile file = storeFile(basePath, Path.of(filePath), compressLevel);
+            synchronized (snapshot) {
+                snapshot.getFiles().add(file);
+            }
+        };
+
+        BinaryOperator<BackupSnapshot> combiner = (s1, s2) -> {
+            throw new UnsupportedOperationException("Combining multiple snapshots is not supported.");
+        };
+
+        Function<BackupSnapshot, String> finisher = snapshot -> {
+            snapshot.setCreatedAt(Instant.now().toEpochMilli());
+            try {
+                return writeSnapshot(snapshot).toString();
+            } finally {
+                close();
+            }
+        };
+
+        return Collector.of(supplier, accumulator, combiner, finisher);
+    }
+
+    /**
+     * Store a file into the chunk store.
+     *
+     * @param basePath      base path to compute path name
+     * @param filePath      file to store
+     * @param compressLevel compress level
+     * @return file entry of snapshot
+     */
+    public SnapshotFile storeFile(Path basePath, Path filePath, int compressLevel) {
+        log.debug("store file:{}", filePath);
+
+        var file = new SnapshotFile();
+        file.setPath(basePath.relativize(filePath).toString());
+
+        try (InputStream in = limiter.wrap(Files.newInputStream(filePath))) {
+            List<String> chunks = new ArrayList<>();
+            long[] size = new long[1];
+            chunker.split(in, (buffer, length) -> {
+                chunks.add(storeChunk(buffer, length, compressLevel));
+                size[0] += length;
+            });
+            file.setChunks(chunks);
+            file.setSize(size[0]);
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while storing a file to the backup repository.", ex);
+        }
+        return file;
+    }
+
+    private String storeChunk(byte[] buffer, int length, int compressLevel) throws IOException {
+        String hash = sha256(buffer, length);
+        Path chunkPath = getChunkPath(hash);
+
+        lock.readLock().lock();
+        try {
+            return storeChunk(buffer, length, compressLevel, hash, chunkPath);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String storeChunk(byte[] buffer, int length, int compressLevel, String hash, Path chunkPath)
+            throws IOException {
+        if (Files.exists(chunkPath)) {
+            // refresh mtime so that a concurrent prune does not collect a chunk being reused
+            Files.setLastModifiedTime(chunkPath, FileTime.from(Instant.now()));
+            return hash;
+        }
+
+        Files.createDirectories(chunkPath.getParent());
+        Path tempFile = Files.createTempFile(chunkPath.getParent(), hash, TEMP_FILE_SUFFIX);
+        Deflater deflater = new Deflater(compressLevel);
+        try {
+            try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(tempFile), deflater)) {
+                out.write(buffer, 0, length);
+            }
+            if (publish(tempFile, chunkPath)) {
+                addedBytes.addAndGet(Files.size(chunkPath));
+            } else {
+                // stored by another thread
+                log.debug("chunk already exists:{}", hash);
+            }
+        } finally {
+            deflater.end();
+            Files.deleteIfExists(tempFile);
+        }
+        return hash;
+    }
+
+    private Path writeSnapshot(BackupSnapshot snapshot) {
+        Path snapshotPath = getSnapshotPath(snapshot.getName());
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            Path tempFile = Files.createTempFile(snapshotPath.getParent(), snapshot.getName(), TEMP_FILE_SUFFIX);
+            try {
+                mapper.writeValue(tempFile.toFile(), snapshot);
+                // a snapshot of the same name is replaced
+                long previousSize = Files.exists(snapshotPath) ? Files.size(snapshotPath) : 0;
+                moveAtomically(tempFile, snapshotPath);
+                addedBytes.addAndGet(Files.size(snapshotPath) - previousSize);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while writing a snapshot.", ex);
+        }
+        log.debug("snapshot saved:{}, files:{}", snapshotPath, snapshot.getFiles().size());
+        return snapshotPath;
+    }
+
+    /**
+     * Read a snapshot.
+     *
+     * @param snapshotFile snapshot file path
+     * @return snapshot
+     */
+    public BackupSnapshot readSnapshot(Path snapshotFile) {
+        try {
+            return mapper.readValue(snapshotFile.toFile(), BackupSnapshot.class);
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while reading a snapshot.", ex);
+        }
+    }
+
+    /**
+     * Restore files in the snapshot into the directory.
+     *
+     * @param snapshotFile snapshot file path
+     * @param destDir      destination directory
+     */
+    public void restoreSnapshot(Path snapshotFile, Path destDir) {
+        Objects.requireNonNull(destDir, "destDir");
+        BackupSnapshot snapshot = readSnapshot(snapshotFile);
+        Path normalizedDestDir = destDir.toAbsolutePath().normalize();
+
+        for (SnapshotFile file : snapshot.getFiles()) {
+            Path target = normalizedDestDir.resolve(file.getPath()).normalize();
+            if (!target.startsWith(normalizedDestDir) || target.equals(normalizedDestDir)) {
+                throw new IORuntimeException("Entry is outside of the target dir: " + file.getPath(), null);
+            }
+
+            log.debug("restore file:{}", target);
+            try {
+                Files.createDirectories(target.getParent());
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    for (String hash : file.getChunks()) {
+                        copyChunk(hash, out);
+                    }
+                }
+            } catch (IOException ex) {
+                throw new IORuntimeException("I/O Error occurred while restoring a snapshot.", ex);
+            }
+        }
+    }
+
+    private void copyChunk(String hash, OutputStream out) throws IOException {
+        Path chunkPath = getChunkPath(hash);
+        MessageDigest digest = DigestUtil.newSha256();
+        try (InputStream in = new DigestInputStream(
+                limiter.wrap(new InflaterInputStream(Files.newInputStream(chunkPath))), digest)) {
+            in.transferTo(out);
+        } catch (NoSuchFileException ex) {
+            throw new IOException("Chunk is missing in the backup repository. chunk:" + hash, ex);
+        }
+        if (!hash.equals(DigestUtil.toHex(digest.digest()))) {
+            throw new IOException("Chunk is corrupted. chunk:" + hash);
+        }
+    }
+
+    /**
+     * Verify that all chunks referenced by the snapshot exist and match their hashes.
+     *
+     * @param snapshotFile snapshot file path
+     * @return list of errors. empty if the snapshot is valid.
+     */
+    public List<String> verifySnapshot(Path snapshotFile) {
+        BackupSnapshot snapshot = readSnapshot(snapshotFile);
+        List<String> errors = new ArrayList<>();
+        Set<String> verified = new HashSet<>();
+        for (SnapshotFile file : snapshot.getFiles()) {
+            for (String hash : file.getChunks()) {
+                if (!verified.add(hash)) {
+                    continue;
+                }
+                try {
+                    copyChunk(hash, OutputStream.nullOutputStream());
+                } catch (IOException ex) {
+                    errors.add(ex.getMessage() + " file:" + file.getPath());
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Delete old snapshots and chunks that are not referenced by any snapshot.
+     *
+     * Unreferenced chunks are kept while a backup is running on the repository,
+     * and chunks newer than the grace period are kept even if unreferenced,
+     * because they may be reused by a backup just started.
+     *
+     * @param keepSnapshots number of snapshots to keep
+     * @param gracePeriod   grace period for unreferenced chunks
+     * @return number of deleted chunks
+     */
+    public int prune(int keepSnapshots, Duration gracePeriod) {
+        lock.writeLock().lock();
+        try {
+            return doPrune(keepSnapshots, gracePeriod);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int doPrune(int keepSnapshots, Duration gracePeriod) {
+        Path snapshotDir = rootDir.resolve(SNAPSHOT_DIR);
+        Path chunkDir = rootDir.resolve(CHUNK_DIR);
+        if (!Files.isDirectory(snapshotDir) || !Files.isDirectory(chunkDir)) {
+            return 0;
+        }
+
+        try {
+            List<Path> snapshotFiles;
+            try (Stream<Path> stream = Files.list(snapshotDir)) {
+                snapshotFiles = stream
+                        .filter(p -> p.getFileName().toString().endsWith(Constants.EXT_JSON))
+                        .collect(Collectors.toList());
+            }
+
+            // newest first
+            List<BackupSnapshot> snapshots = new ArrayList<>();
+            for (Path file : snapshotFiles) {
+                snapshots.add(readSnapshot(file));
+            }
+            snapshots.sort(Comparator.comparingLong(BackupSnapshot::getCreatedAt).reversed());
+
+            Set<String> referenced = new HashSet<>();
+            for (int i = 0; i < snapshots.size(); i++) {
+                BackupSnapshot snapshot = snapshots.get(i);
+                if (keepSnapshots > 0 && i >= keepSnapshots) {
+                    log.info("delete snapshot:{}", snapshot.getName());
+                    deleteAndCount(getSnapshotPath(snapshot.getName()));
+                    continue;
+                }
+                for (SnapshotFile file : snapshot.getFiles()) {
+                    referenced.addAll(file.getChunks());
+                }
+            }
+
+            if (isBackupRunning()) {
+                log.info("backup is running on the repository, chunks are not pruned. repository:{}", rootDir);
+                return 0;
+            }
+
+            FileTime threshold = FileTime.from(Instant.now().minus(gracePeriod));
+            int deleted = 0;
+            List<Path> chunkFiles;
+            try (Stream<Path> stream = Files.walk(chunkDir, 2)) {
+                chunkFiles = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            }
+            for (Path chunk : chunkFiles) {
+                String name = chunk.getFileName().toString();
+                if (referenced.contains(name)) {
+                    continue;
+                }
+                if (Files.getLastModifiedTime(chunk).compareTo(threshold) < 0) {
+                    deleteAndCount(chunk);
+                    deleted++;
+                }
+            }
+            log.info("pruned backup repository:{}, deleted chunks:{}", rootDir, deleted);
+            return deleted;
+
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while pruning the backup repository.", ex);
+        }
+    }
+
+    private void deleteAndCount(Path path) throws IOException {
+        try {
+            long size = Files.size(path);
+            Files.delete(path);
+            addedBytes.addAndGet(-size);
+        } catch (NoSuchFileException ex) {
+            // already deleted
+        }
+    }
+
+    private Path getChunkPath(String hash) {
+        return rootDir.resolve(CHUNK_DIR).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private Path getSnapshotPath(String name) {
+        return rootDir.resolve(SNAPSHOT_DIR).resolve(name + Constants.EXT_JSON);
+    }
+
+    /**
+     * Publish the temp file as the target without replacing an existing one.
+     *
+     * @return false if the target already exists
+     */
+    private static boolean publish(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (FileAlreadyExistsException ex) {
+            return false;
+        } catch (UnsupportedOperationException | FileSystemException ex) {
+            // hard links are not supported by the file system
+            log.debug("hard link is not supported:{}", ex.getMessage());
+        }
+
+        try {
+            Files.move(source, target);
+            return true;
+        } catch (FileAlreadyExistsException ex) {
+            return false;
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256(byte[] buffer, int length) {
+        MessageDigest digest = DigestUtil.newSha256();
+        digest.update(buffer, 0, length);
+        return DigestUtil.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers for each kind of work.
+ *
+ * Blocking calls to the database, CPU-bound conversion and compression, and
+ * disk I/O run on separate thread pools, so that a burst of one kind of work
+ * does not delay the others. Each pool reports its active threads and queued
+ * tasks as "executor.*" metrics tagged with its name.
+ *
+ * Writing a zip stream blocks while waiting for the entries to be converted,
+ * so it has its own bounded elastic scheduler instead of holding the threads
+ * of the disk scheduler. Converting files to CSV for downloads has its own
+ * pool, so that the conversions of all download requests are limited by its
+ * threads and do not crowd out the conversions of dump jobs.
+ */
+@Slf4j
+@Component
+public class BelayerSchedulers implements DisposableBean {
+
+    @Value("${webapi.scheduler.db.threads}")
+    private int dbThreads;
+
+    @Value("${webapi.scheduler.cpu.threads}")
+    private int cpuThreads;
+
+    @Value("${webapi.scheduler.disk.threads}")
+    private int diskThreads;
+
+    @Value("${webapi.scheduler.zip.threads}")
+    private int zipThreads;
+
+    @Value("${webapi.download.csv.parallelism}")
+    private int csvThreads;
+
+    @Value("${webapi.scheduler.queue_capacity}")
+    private int queueCapacity;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private Scheduler db;
+
+    private Scheduler cpu;
+
+    private Scheduler disk;
+
+    private Scheduler zip;
+
+    private Scheduler csv;
+
+    @PostConstruct
+    public void init() {
+        if (dbThreads < 1 || diskThreads < 1 || zipThreads < 1 || csvThreads < 1) {
+            throw new IllegalArgumentException("threads of schedulers must be 1 or more.");
+        }
+        if (cpuThreads < 0) {
+            throw new IllegalArgumentException("cpu threads of schedulers must be 0(number of processors) or more.");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queue capacity of schedulers must be 1 or more.");
+        }
+        if (cpuThreads == 0) {
+            cpuThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        db = createScheduler("db", dbThreads);
+        cpu = createScheduler("cpu", cpuThreads);
+        disk = createScheduler("disk", diskThreads);
+        zip = Schedulers.newBoundedElastic(zipThreads, queueCapacity, "belayer-zip");
+        csv = createScheduler("csv", csvThreads);
+        log.info("scheduler threads db:{}, cpu:{}, disk:{}, zip:{}, csv:{}, queue capacity:{}", dbThreads,
+                cpuThreads, diskThreads, zipThreads, csvThreads, queueCapacity);
+    }
+
+    /**
+     * Return the scheduler for blocking calls to the database.
+     *
+     * @return scheduler
+     */
+    public Scheduler db() {
+        return db;
+    }
+
+    /**
+     * Return the scheduler for CPU-bound work, such as format conversion and
+     * compression.
+     *
+     * @return scheduler
+     */
+    public Scheduler cpu() {
+        return cpu;
+    }
+
+    /**
+     * Return the scheduler for disk I/O, such as copying and scanning files.
+     *
+     * @return scheduler
+     */
+    public Scheduler disk() {
+        return disk;
+    }
+
+    /**
+     * Return the scheduler for writing zip streams, which blocks while waiting
+     * for the entries.
+     *
+     * @return scheduler
+     */
+    public Scheduler zip() {
+        return zip;
+    }
+
+    /**
+     * Return the scheduler for converting files to CSV for downloads.
+     *
+     * @return scheduler
+     */
+    public Scheduler csv() {
+        return csv;
+    }
+
+    private Scheduler createScheduler(String name, int threads) {
+        var executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("belayer-" + name + "-"));
+        executor.allowCoreThreadTimeOut(true);
+
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "belayer-" + name,
+                Tags.empty());
+        return Schedulers.fromExecutorService(monitored, "belayer-" + name);
+    }
+
+    @Override
+    public void destroy() {
+        for (Scheduler scheduler : new Scheduler[] { db, cpu, disk, zip, csv }) {
+            if (scheduler != null) {
+                scheduler.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * State of a chunked upload.
+ *
+ * Received byte ranges are kept merged, so the client can ask which ranges
+ * are still missing after a connection is lost.
+ */
+@Getter
+public class ChunkedUpload {
+
+    private final String uploadId;
+    private final String uid;
+    private final Path targetPath;
+    private final Path partPath;
+    private final long size;
+    private final boolean overwrite;
+
+    /** quota for the size, released when the upload is finished */
+    private final StorageUsageLedger.Reservation reservation;
+
+    /** start offset -> end offset(exclusive) */
+    @Getter(AccessLevel.NONE)
+    private final TreeMap<Long, Long> receivedRanges = new TreeMap<>();
+
+    // guarded by this
+    @Getter(AccessLevel.NONE)
+    private boolean completing;
+
+    // guarded by this
+    @Getter(AccessLevel.NONE)
+    private boolean completed;
+
+    // number of chunks being written, guarded by this
+    @Getter(AccessLevel.NONE)
+    private int writing;
+
+    private volatile long lastAccessTime;
+
+    public ChunkedUpload(String uploadId, String uid, Path targetPath, Path partPath, long size, boolean overwrite,
+            StorageUsageLedger.Reservation reservation, long now) {
+        this.uploadId = uploadId;
+        this.uid = uid;
+        this.targetPath = targetPath;
+        this.partPath = partPath;
+        this.size = size;
+        this.overwrite = overwrite;
+        this.reservation = reservation;
+        this.lastAccessTime = now;
+    }
+
+    public void touch(long now) {
+        this.lastAccessTime = now;
+    }
+
+    /**
+     * Start writing a chunk.
+     *
+     * @return false if the upload is being completed or completed
+     */
+    public synchronized boolean startWriting() {
+        if (completing || completed) {
+            return false;
+        }
+        writing++;
+        return true;
+    }
+
+    /**
+     * End writing a chunk, after the part file is closed.
+     */
+    public synchronized void endWriting() {
+        writing--;
+        notifyAll();
+    }
+
+    /**
+     * Start completing the upload.
+     *
+     * No chunk is written after this.
+     *
+     * @return false if the upload is already being completed or completed
+     */
+    public synchronized boolean startCompleting() {
+        if (completing || completed) {
+            return false;
+        }
+        completing = true;
+        return true;
+    }
+
+    /**
+     * Wait for chunks being written.
+     *
+     * @param timeoutMillis timeout
+     * @return false if chunks are still being written after the timeout
+     * @throws InterruptedException interrupted
+     */
+    public synchronized boolean awaitWriting(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (writing > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    public synchronized void cancelCompleting() {
+        completing = false;
+    }
+
+    public synchronized void markCompleted() {
+        completing = false;
+        completed = true;
+    }
+
+    /**
+     * Record a received range.
+     *
+     * @param start start offset
+     * @param end   end offset(exclusive)
+     */
+    public synchronized void addRange(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        long newStart = start;
+        long newEnd = end;
+
+        // merge with the range before
+        Map.Entry<Long, Long> floor = receivedRanges.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            newStart = floor.getKey();
+            newEnd = Math.max(newEnd, floor.getValue());
+        }
+
+        // merge with the ranges after
+        Map.Entry<Long, Long> next = receivedRanges.ceilingEntry(newStart);
+        while (next != null && next.getKey() <= newEnd) {
+            newEnd = Math.max(newEnd, next.getValue());
+            receivedRanges.remove(next.getKey());
+            next = receivedRanges.ceilingEntry(newStart);
+        }
+        receivedRanges.put(newStart, newEnd);
+    }
+
+    public synchronized long getReceivedBytes() {
+        long total = 0;
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            total += range.getValue() - range.getKey();
+        }
+        return total;
+    }
+
+    public synchronized boolean isAllReceived() {
+        return size == 0 || (receivedRanges.size() == 1
+                && receivedRanges.firstKey() == 0 && receivedRanges.firstEntry().getValue() == size);
+    }
+
+    /**
+     * Return ranges not received yet.
+     *
+     * @return list of "start-end" (end is inclusive, same as HTTP Range)
+     */
+    public synchronized List<String> getMissingRanges() {
+        List<String> missing = new ArrayList<>();
+        long position = 0;
+        for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+            if (range.getKey() > position) {
+                missing.add(position + "-" + (range.getKey() - 1));
+            }
+            position = range.getValue();
+        }
+        if (position < size) {
+            missing.add(position + "-" + (size - 1));
+        }
+        return missing;
+    }
+}
@@ -29,6 +29,9 @@ public class Constants {
     /** File extension: ZIP */
     public  static final String EXT_ZIP = ".zip";
 
+    /** File extension: JSON */
+    public  static final String EXT_JSON = ".json";
+
     public static String TEMP_DIR_PREFIX_DOWNLOAD = "belayer-download-";
 
     public static String TEMP_DIR_PREFIX_DUMP = "belayer-dump-";
@@ -41,6 +44,10 @@ public class Constants {
 
     public static String TEMP_DIR_PREFIX_RESTORE = "belayer-restore-";
 
+    public static String TEMP_DIR_PREFIX_UPLOAD = "belayer-upload-";
+
+    public static String CHUNKED_UPLOAD_DIR = ".belayer-upload";
+
     public static String TEMP_DIR_PREFIX_MONITOR = "belayer-climonitor-";
 
     public static String FILE_PREFIX_MULTIPLE_DOWNLOAD_ZIP = "belayer_download_";
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Splits a stream into content-defined chunks using a gear rolling hash.
+ *
+ * Chunk boundaries depend only on the bytes preceding them, so an insertion or
+ * deletion in a file shifts only the chunks around the change and the rest of
+ * the file produces the same chunks as before.
+ */
+public class ContentDefinedChunker {
+
+    /** default minimum chunk size */
+    public static final int DEFAULT_MIN_SIZE = 256 * 1024;
+
+    /** default number of mask bits (average distance between boundaries is 2^bits) */
+    public static final int DEFAULT_MASK_BITS = 20;
+
+    /** default maximum chunk size */
+    public static final int DEFAULT_MAX_SIZE = 4 * 1024 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    // fixed seed: the gear table must never change, otherwise existing chunks are not reused.
+    private static final long GEAR_SEED = 0x62656c61796572L;
+
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(GEAR_SEED);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    private final int minSize;
+    private final int maxSize;
+    private final long mask;
+
+    /**
+     * Callback for each chunk.
+     */
+    @FunctionalInterface
+    public interface ChunkHandler {
+        /**
+         * Handle a chunk. The buffer is reused after this method returns.
+         *
+         * @param buffer chunk data
+         * @param length chunk length
+         * @throws IOException I/O Error
+         */
+        void handle(byte[] buffer, int length) throws IOException;
+    }
+
+    public ContentDefinedChunker() {
+        this(DEFAULT_MIN_SIZE, DEFAULT_MASK_BITS, DEFAULT_MAX_SIZE);
+    }
+
+    public ContentDefinedChunker(int minSize, int maskBits, int maxSize) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("invalid chunk size. min:" + minSize + ", max:" + maxSize);
+        }
+        if (maskBits <= 0 || maskBits >= 64) {
+            throw new IllegalArgumentException("maskBits must be between 1 and 63.");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        // use the upper bits, which depend on the last 64 bytes of the stream
+        this.mask = -1L << (64 - maskBits);
+    }
+
+    /**
+     * Split the stream into chunks.
+     *
+     * @param in      input stream
+     * @param handler chunk handler
+     * @throws IOException I/O Error
+     */
+    public void split(InputStream in, ChunkHandler handler) throws IOException {
+        byte[] chunk = new byte[maxSize];
+        byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+        int chunkLength = 0;
+        long hash = 0;
+
+        int read;
+        while ((read = in.read(readBuffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                byte b = readBuffer[i];
+                chunk[chunkLength++] = b;
+                hash = (hash << 1) + GEAR[b & 0xff];
+                if ((chunkLength >= minSize && (hash & mask) == 0) || chunkLength == maxSize) {
+                    handler.handle(chunk, chunkLength);
+                    chunkLength = 0;
+                    hash = 0;
+                }
+            }
+        }
+
+        // empty files produce no chunks
+        if (chunkLength > 0) {
+            handler.handle(chunk, chunkLength);
+        }
+    }
+}
@@ -0,0 +1,422 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory index of files in the user storage.
+ *
+ * Entries are kept sorted by path, so a page of a listing is read without
+ * walking the directory tree. Directories are rescanned when a watch event is
+ * received, and a listing also checks the modified time of the directories it
+ * covers, so changes whose events have not arrived yet are not missed.
+ */
+@Slf4j
+@Component
+public class DirectoryIndex {
+
+    /** max depth of a listing from the target directory */
+    public static final int MAX_DEPTH = 10;
+
+    // modified time within this period from a scan may hide a change in the same clock tick
+    private static final long RACY_MILLIS = 2000;
+
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+
+    @Value("${webapi.storage.root}")
+    private String storageRootDir;
+
+    @Autowired
+    MonitoringManager monitoringManager;
+
+    @Autowired
+    BelayerSchedulers belayerSchedulers;
+
+    private final Map<String, UserIndex> userIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * A page of a listing.
+     */
+    public static class Page {
+
+        private final List<String> paths;
+        private final String lastPath;
+        private final boolean hasMore;
+
+        Page(List<String> paths, String lastPath, boolean hasMore) {
+            this.paths = paths;
+            this.lastPath = lastPath;
+            this.hasMore = hasMore;
+        }
+
+        /**
+         * @return paths relative to the user directory. Directories end with "/".
+         */
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * @return last path in this page, to be passed to the next listing
+         */
+        public String getLastPath() {
+            return lastPath;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /**
+     * List files and directories under the directory.
+     *
+     * The directory itself is listed first, then the entries up to
+     * {@link #MAX_DEPTH} in the order of the path.
+     *
+     * @param uid       User ID
+     * @param targetDir target directory relative to the user directory ("" for
+     *                  the user directory)
+     * @param hideFile  list directories only
+     * @param hideDir   list files only
+     * @param afterPath list entries after this path, or null from the first
+     * @param limit     max number of entries
+     * @return page of the listing
+     * @throws BadRequestException if afterPath is not in the directory
+     */
+    public Page list(String uid, String targetDir, boolean hideFile, boolean hideDir, String afterPath, int limit) {
+        // a cursor from the listing of another directory
+        if (afterPath != null && !afterPath.equals(targetDir) && !afterPath.startsWith(prefixOf(targetDir))) {
+            throw new BadRequestException("Invalid cursor.",
+                    "cursor is not in the directory. dir:" + targetDir + ", cursor:" + afterPath);
+        }
+
+        UserIndex index = userIndexes.computeIfAbsent(uid, UserIndex::new);
+        synchronized (index) {
+            index.refresh(targetDir);
+            return index.list(targetDir, hideFile, hideDir, afterPath, limit);
+        }
+    }
+
+    private static String prefixOf(String dir) {
+        return dir.isEmpty() ? "" : dir + "/";
+    }
+
+    private static int depthOf(String relativePath) {
+        int depth = 1;
+        for (int i = 0; i < relativePath.length(); i++) {
+            if (relativePath.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * State of a scanned directory.
+     */
+    private static class DirState {
+        private long modifiedNanos;
+        private long scannedAtMillis;
+        private boolean dirty;
+        private Set<String> children = Collections.emptySet();
+        private WatchKey watchKey;
+
+        private boolean needsRescan(BasicFileAttributes attrs) {
+            long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            return dirty
+                    || modified != modifiedNanos
+                    || TimeUnit.NANOSECONDS.toMillis(modified) >= scannedAtMillis - RACY_MILLIS;
+        }
+    }
+
+    /**
+     * Index of a user.
+     */
+    private class UserIndex {
+
+        private final Path root;
+
+        // relative path -> true if directory
+        private final NavigableMap<String, Boolean> entries = new TreeMap<>();
+
+        // relative path of scanned directories
+        private final NavigableMap<String, DirState> dirs = new TreeMap<>();
+
+        private final AtomicBoolean rescanScheduled = new AtomicBoolean(false);
+
+        private UserIndex(String uid) {
+            this.root = Path.of(storageRootDir, uid).toAbsolutePath().normalize();
+        }
+
+        /**
+         * Bring the index of the directory and its descendants up to date.
+         */
+        private void refresh(String targetDir) {
+            long refreshStart = System.currentTimeMillis();
+            if (!dirs.containsKey(targetDir)) {
+                scan(targetDir);
+            }
+            String prefix = prefixOf(targetDir);
+            List<String> targets = new ArrayList<>();
+            targets.add(targetDir);
+            targets.addAll(dirs.subMap(prefix, true, prefix + MAX_CHAR, false).keySet());
+            for (String dir : targets) {
+                DirState state = dirs.get(dir);
+                if (state == null || (!state.dirty && state.scannedAtMillis >= refreshStart)) {
+                    // removed or scanned just now
+                    continue;
+                }
+                try {
+                    var attrs = Files.readAttributes(resolve(dir), BasicFileAttributes.class);
+                    if (!attrs.isDirectory()) {
+                        removeSubtree(dir);
+                    } else if (state.needsRescan(attrs)) {
+                        scan(dir);
+                    }
+                } catch (NoSuchFileException ex) {
+                    removeSubtree(dir);
+                } catch (IOException ex) {
+                    throw new IORuntimeException("Unreadable directory. dir:" + dir, ex);
+                }
+            }
+        }
+
+        /**
+         * Scan entries of the directory, and new sub directories recursively.
+         */
+        private void scan(String dir) {
+            Path path = resolve(dir);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException ex) {
+                removeSubtree(dir);
+                return;
+            } catch (IOException ex) {
+                throw new IORuntimeException("Unreadable directory. dir:" + dir, ex);
+            }
+
+            DirState state = dirs.get(dir);
+            if (state == null) {
+                state = new DirState();
+                state.watchKey = watch(path);
+                dirs.put(dir, state);
+            } else if (state.watchKey != null && !state.watchKey.isValid()) {
+                // the directory was removed and created again
+                state.watchKey = watch(path);
+            }
+            // clear before reading, so that an event while reading makes it dirty again
+            state.dirty = false;
+            state.scannedAtMillis = System.currentTimeMillis();
+
+            String prefix = prefixOf(dir);
+            Set<String> children = new HashSet<>();
+            List<String> newDirs = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path child : stream) {
+                    String name = child.getFileName().toString();
+                    if (dir.isEmpty() && name.equals(Constants.CHUNKED_UPLOAD_DIR)) {
+                        // part files of chunked uploads are not listed
+                        continue;
+                    }
+                    String childPath = prefix + name;
+                    children.add(name);
+
+                    var childAttrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    boolean isDir = childAttrs.isDirectory();
+                    boolean shownAsDir = isDir || (childAttrs.isSymbolicLink() && Files.isDirectory(child));
+
+                    Boolean previous = entries.put(childPath, shownAsDir);
+                    if (Boolean.TRUE.equals(previous) && !isDir) {
+                        removeDescendants(childPath);
+                    }
+                    // symbolic links are not followed, same as Files.walk
+                    if (isDir && !dirs.containsKey(childPath)) {
+                        newDirs.add(childPath);
+                    }
+                }
+            } catch (NoSuchFileException | NotDirectoryException ex) {
+                removeSubtree(dir);
+                return;
+            } catch (IOException ex) {
+                throw new IORuntimeException("Unreadable directory. dir:" + dir, ex);
+            }
+
+            for (String name : state.children) {
+                if (!children.contains(name)) {
+                    removeSubtree(prefix + name);
+                }
+            }
+            state.children = children;
+            state.modifiedNanos = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+
+            for (String newDir : newDirs) {
+                scan(newDir);
+            }
+        }
+
+        private Page list(String targetDir, boolean hideFile, boolean hideDir, String afterPath, int limit) {
+            List<String> paths = new ArrayList<>();
+            String lastPath = null;
+
+            // the directory itself comes first, same as Files.walk
+            if (!hideDir && (afterPath == null || afterPath.compareTo(targetDir) < 0)) {
+                paths.add(prefixOf(targetDir).isEmpty() ? "/" : prefixOf(targetDir));
+                lastPath = targetDir;
+            }
+
+            String prefix = prefixOf(targetDir);
+            String from = (afterPath != null && afterPath.compareTo(prefix) > 0) ? afterPath : prefix;
+            boolean inclusive = !from.equals(afterPath);
+            // only directories are needed when files are hidden
+            NavigableMap<String, ?> source = hideFile ? dirs : entries;
+            int baseDepth = targetDir.isEmpty() ? 0 : depthOf(targetDir);
+
+            for (Map.Entry<String, ?> entry : source.subMap(from, inclusive, prefix + MAX_CHAR, false).entrySet()) {
+                String path = entry.getKey();
+                if (path.equals(targetDir)) {
+                    // the user directory in dirs
+                    continue;
+                }
+                boolean isDir = hideFile || (Boolean) entry.getValue();
+                if ((hideDir && isDir) || depthOf(path) - baseDepth > MAX_DEPTH) {
+                    continue;
+                }
+                if (paths.size() == limit) {
+                    return new Page(paths, lastPath, true);
+                }
+                paths.add(isDir ? path + "/" : path);
+                lastPath = path;
+            }
+            return new Page(paths, lastPath, false);
+        }
+
+        private void removeSubtree(String dir) {
+            entries.remove(dir);
+            removeDescendants(dir);
+            DirState state = dirs.remove(dir);
+            if (state != null && state.watchKey != null) {
+                state.watchKey.cancel();
+            }
+        }
+
+        private void removeDescendants(String dir) {
+            String prefix = prefixOf(dir);
+            entries.subMap(prefix, true, prefix + MAX_CHAR, false).clear();
+            var descendants = dirs.subMap(prefix, true, prefix + MAX_CHAR, false);
+            for (DirState state : descendants.values()) {
+                if (state.watchKey != null) {
+                    state.watchKey.cancel();
+                }
+            }
+            descendants.clear();
+        }
+
+        private Path resolve(String dir) {
+            return dir.isEmpty() ? root : root.resolve(dir);
+        }
+
+        private WatchKey watch(Path path) {
+            try {
+                return monitoringManager.addDirectoryWatcher(path, (dir, event) -> onEvent(dir, event));
+            } catch (IOException ex) {
+                // e.g. too many watches. the modified time is checked on listing instead.
+                log.debug("can not watch directory. dir:" + path, ex);
+                return null;
+            }
+        }
+
+        /**
+         * Called on the monitoring thread.
+         */
+        private void onEvent(Path dir, WatchEvent<?> event) {
+            synchronized (this) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    dirs.values().forEach(state -> state.dirty = true);
+                } else {
+                    DirState state = dirs.get(root.relativize(dir).toString());
+                    if (state == null) {
+                        return;
+                    }
+                    state.dirty = true;
+                }
+            }
+            scheduleRescan();
+        }
+
+        /**
+         * Rescan dirty directories in background, so that a listing usually
+         * finds the index up to date.
+         */
+        private void scheduleRescan() {
+            if (!rescanScheduled.compareAndSet(false, true)) {
+                return;
+            }
+            belayerSchedulers.disk().schedule(() -> {
+                rescanScheduled.set(false);
+                synchronized (this) {
+                    List<String> dirtyDirs = new ArrayList<>();
+                    dirs.forEach((dir, state) -> {
+                        if (state.dirty) {
+                            dirtyDirs.add(dir);
+                        }
+                    });
+                    for (String dir : dirtyDirs) {
+                        if (dirs.containsKey(dir)) {
+                            try {
+                                scan(dir);
+                            } catch (IORuntimeException ex) {
+                                log.debug("failed to rescan directory. dir:" + dir, ex);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+    }
+}
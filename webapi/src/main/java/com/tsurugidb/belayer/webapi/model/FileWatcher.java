@@ -21,7 +21,6 @@ import java.nio.file.Path;
 import java.nio.file.WatchKey;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
-import java.util.function.Predicate;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -53,27 +52,13 @@ public class FileWatcher {
         this.targetFilePath = targetFile;
     }
 
-    public ExecStatus waitForExecStatus(Predicate<ExecStatus> p) {
-        int count = 0;
-        while (true) {
-            count++;
-            synchronized (this) {
-                if (p.test(this.execStatus) || count > 10) {
-                    return this.execStatus;
-                }
-            }
-            try {
-                Thread.sleep(500L);
-            } catch (InterruptedException ex) {
-                // ignore
-            }
+    /**
+     * Read lines not read yet, e.g. after the process writing the file exited.
+     */
+    public void readLines() {
+        if (Files.exists(targetFilePath)) {
+            consumeLines(targetFilePath);
         }
-
-    }
-
-    public ExecStatus waitForExecStatus() {
-
-        return waitForExecStatus(status -> status != null);
     }
 
     public void close() {
@@ -84,20 +69,18 @@ public class FileWatcher {
         monitoringManager.removeFileWatcher(this);
     }
 
-    private void consumeLines(Path filePath) {
-        try {
-            // note: use absolute path instead of file path.
-            Files.lines(targetFilePath)
-                    .skip(lineCounter.get())
+    // synchronized since lines are read by both the monitoring thread and readLines()
+    private synchronized void consumeLines(Path filePath) {
+        // note: use absolute path instead of file path.
+        try (var lines = Files.lines(targetFilePath)) {
+            lines.skip(lineCounter.get())
                     .forEach(line -> {
                         log.debug("monitor file line:" + line);
-                        synchronized (this) {
-                            if (this.execStatus == null || !this.execStatus.isFreezed()) {
-                                this.execStatus = parseLine(line);
-                                lineCounter.incrementAndGet();
-                                if (callback != null) {
-                                    callback.accept(execStatus);
-                                }
+                        if (this.execStatus == null || !this.execStatus.isFreezed()) {
+                            this.execStatus = parseLine(line);
+                            lineCounter.incrementAndGet();
+                            if (callback != null) {
+                                callback.accept(execStatus);
                             }
                         }
                     });
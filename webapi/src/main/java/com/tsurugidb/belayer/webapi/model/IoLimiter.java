@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Limits the I/O rate of a job.
+ */
+@FunctionalInterface
+public interface IoLimiter {
+
+    /** limiter that never waits */
+    IoLimiter NONE = bytes -> {
+    };
+
+    /**
+     * Account the bytes read or written, and wait if the rate exceeds the limit.
+     *
+     * @param bytes number of bytes
+     */
+    void acquire(long bytes);
+
+    /**
+     * Wrap the input stream so that reads are accounted by this limiter.
+     *
+     * @param in input stream
+     * @return wrapped input stream
+     */
+    default InputStream wrap(InputStream in) {
+        if (this == NONE) {
+            return in;
+        }
+
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b != -1) {
+                    acquire(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int read = super.read(b, off, len);
+                if (read > 0) {
+                    acquire(read);
+                }
+                return read;
+            }
+        };
+    }
+}
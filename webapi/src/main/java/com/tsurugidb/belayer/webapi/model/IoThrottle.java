@@ -0,0 +1,210 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.IoThrottleSetting;
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * I/O throttle for file copy and zip operations of jobs.
+ *
+ * The limit applies to all jobs (global) and to each job. Both limits can be
+ * changed at runtime and the change takes effect on running jobs.
+ */
+@Slf4j
+@Component
+public class IoThrottle {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Value("${webapi.io.throttle.global_bytes_per_sec}")
+    private volatile long globalBytesPerSec;
+
+    @Value("${webapi.io.throttle.job_bytes_per_sec}")
+    private volatile long jobBytesPerSec;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /** current time in nanoseconds */
+    private final LongSupplier nanoClock;
+
+    private final Sleeper sleeper;
+
+    private final TokenBucket globalBucket;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    // throughput of the last window
+    private long windowStartNanos;
+    private long windowBytes = 0;
+    private long lastBytesPerSec = 0;
+
+    /**
+     * Waits for the given nanoseconds.
+     */
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    public IoThrottle() {
+        this(System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    IoThrottle(LongSupplier nanoClock, Sleeper sleeper) {
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+        this.globalBucket = new TokenBucket(() -> globalBytesPerSec, nanoClock);
+        this.windowStartNanos = nanoClock.getAsLong();
+    }
+
+    @PostConstruct
+    public void init() {
+        validate(globalBytesPerSec, jobBytesPerSec);
+
+        Gauge.builder("belayer.io.throughput", this, IoThrottle::getCurrentBytesPerSec)
+                .description("I/O throughput of jobs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("belayer.io.throttle.limit", this, t -> t.globalBytesPerSec)
+                .description("I/O limit for all jobs in bytes/sec(0: unlimited)")
+                .tag("scope", "global")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("belayer.io.throttle.limit", this, t -> t.jobBytesPerSec)
+                .description("I/O limit for each job in bytes/sec(0: unlimited)")
+                .tag("scope", "job")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("belayer.io.bytes", totalBytes, AtomicLong::get)
+                .description("bytes read or written by jobs")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("belayer.io.throttle.wait", totalWaitNanos, v -> (double) v.get() / NANOS_PER_SECOND)
+                .description("time jobs waited for the I/O throttle")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        log.info("I/O throttle global:{} bytes/sec, job:{} bytes/sec", globalBytesPerSec, jobBytesPerSec);
+    }
+
+    /**
+     * Create a limiter for a job.
+     *
+     * @param jobId Job ID
+     * @return limiter
+     */
+    public IoLimiter createLimiter(String jobId) {
+        TokenBucket jobBucket = new TokenBucket(() -> jobBytesPerSec, nanoClock);
+        return bytes -> acquire(jobId, jobBucket, bytes);
+    }
+
+    private void acquire(String jobId, TokenBucket jobBucket, long bytes) {
+        record(bytes);
+
+        long waitNanos = Math.max(globalBucket.reserve(bytes), jobBucket.reserve(bytes));
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        totalWaitNanos.addAndGet(waitNanos);
+        try {
+            sleeper.sleep(waitNanos);
+        } catch (InterruptedException ex) {
+            log.debug("I/O throttle wait is interrupted. jobId:{}", jobId);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void record(long bytes) {
+        totalBytes.addAndGet(bytes);
+
+        long now = nanoClock.getAsLong();
+        long elapsed = now - windowStartNanos;
+        if (elapsed >= NANOS_PER_SECOND) {
+            lastBytesPerSec = windowBytes * NANOS_PER_SECOND / elapsed;
+            windowStartNanos = now;
+            windowBytes = 0;
+        }
+        windowBytes += bytes;
+    }
+
+    /**
+     * Return the current throughput.
+     *
+     * @return bytes/sec
+     */
+    public synchronized long getCurrentBytesPerSec() {
+        long elapsed = nanoClock.getAsLong() - windowStartNanos;
+        if (elapsed >= NANOS_PER_SECOND) {
+            // no I/O was recorded since the window ended
+            return windowBytes * NANOS_PER_SECOND / elapsed;
+        }
+        return lastBytesPerSec;
+    }
+
+    /**
+     * Return the current setting.
+     *
+     * @return setting
+     */
+    public IoThrottleSetting getSetting() {
+        return new IoThrottleSetting(globalBytesPerSec, jobBytesPerSec, getCurrentBytesPerSec());
+    }
+
+    /**
+     * Update the limits. Null values are not changed.
+     *
+     * @param setting new setting
+     * @return updated setting
+     */
+    public synchronized IoThrottleSetting updateSetting(IoThrottleSetting setting) {
+        long global = setting.getGlobalBytesPerSec() == null ? globalBytesPerSec : setting.getGlobalBytesPerSec();
+        long job = setting.getJobBytesPerSec() == null ? jobBytesPerSec : setting.getJobBytesPerSec();
+        validate(global, job);
+
+        globalBytesPerSec = global;
+        jobBytesPerSec = job;
+        log.info("I/O throttle is updated. global:{} bytes/sec, job:{} bytes/sec", global, job);
+
+        return getSetting();
+    }
+
+    private void validate(long global, long job) {
+        if (global < 0 || job < 0) {
+            var msg = "I/O limit must be 0 or more.";
+            throw new BadRequestException(msg, msg);
+        }
+    }
+}
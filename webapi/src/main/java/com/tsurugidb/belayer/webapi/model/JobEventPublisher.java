@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.Job;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Publishes changes of jobs to subscribers.
+ *
+ * Changes are coalesced per job and emitted at most once per interval, so a
+ * job that reports progress many times in the interval is emitted once with
+ * its latest state. Nothing is scheduled while no change is pending, and
+ * changes are dropped while no one subscribes.
+ *
+ * Each subscriber has its own buffer, so a slow subscriber neither loses
+ * changes nor delays the others. A subscriber that falls behind by more than
+ * the buffer is terminated with an error instead of silently missing a change.
+ */
+@Slf4j
+@Component
+public class JobEventPublisher {
+
+    @Value("${webapi.job.events.interval_millis}")
+    private long intervalMillis;
+
+    // changes buffered per subscriber
+    private static final int BUFFER_SIZE = 1024;
+
+    private long intervalNanos;
+
+    private final Sinks.Many<Job> sink = Sinks.many().multicast().directBestEffort();
+
+    // changed jobs not emitted yet
+    private final Map<String, Job> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private volatile long lastFlush;
+
+    @PostConstruct
+    public void init() {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("job event interval must be 0 or more.");
+        }
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        lastFlush = System.nanoTime() - intervalNanos;
+    }
+
+    /**
+     * Notify a change of the job.
+     *
+     * @param job changed job
+     */
+    public void publish(Job job) {
+        if (sink.currentSubscriberCount() == 0) {
+            return;
+        }
+
+        pending.put(job.getUid() + ":" + job.getJobId(), job);
+        if (scheduled.compareAndSet(false, true)) {
+            long delay = Math.max(0, lastFlush + intervalNanos - System.nanoTime());
+            Schedulers.parallel().schedule(this::flush, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Return changes of all jobs.
+     *
+     * @return changed jobs
+     */
+    public Flux<Job> getEvents() {
+        return sink.asFlux().onBackpressureBuffer(BUFFER_SIZE);
+    }
+
+    private synchronized void flush() {
+        lastFlush = System.nanoTime();
+        // changes after this point schedule the next flush
+        scheduled.set(false);
+
+        for (String key : pending.keySet()) {
+            Job job = pending.remove(key);
+            if (job == null) {
+                continue;
+            }
+            var result = sink.tryEmitNext(job);
+            if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+                log.debug("failed to emit job event. jobId:{}, result:{}", job.getJobId(), result);
+            }
+        }
+    }
+}
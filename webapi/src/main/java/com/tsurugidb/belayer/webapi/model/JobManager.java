@@ -15,17 +15,30 @@
  */
 package com.tsurugidb.belayer.webapi.model;
 
-import java.io.File;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.Period;
-import java.util.Collections;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
@@ -37,26 +50,54 @@ import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
 import com.tsurugidb.belayer.webapi.exception.NotFoundException;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+/**
+ * Holds jobs in memory and persists them.
+ *
+ * Jobs are held in concurrent maps: one by job ID, one per user and type
+ * ordered by start time for listing, and one ordered by start time for
+ * expiration. Reading jobs takes no lock.
+ *
+ * Jobs are persisted as a snapshot file and a journal file. Each state
+ * transition of a job (register, finish and cancel) is appended to the journal
+ * as one line of JSON, and the journal is merged into the snapshot by periodic
+ * compaction. Reading jobs never touches the files.
+ */
 @Slf4j
 @Component
 public class JobManager implements DisposableBean {
 
   private static final String DUMP_FILE_NAME = "belayer_jobs.json";
 
+  private static final String JOURNAL_FILE_NAME = "belayer_jobs.journal";
+
   @Value("${webapi.job.data.directory}")
   private String dumpFileDir;
 
   @Value("${webapi.job.data.expiration.days}")
   private int expirationDays;
 
-  private String jsonFilePath;
+  @Value("${webapi.job.journal.compaction_interval_minutes}")
+  private long compactionIntervalMinutes;
+
+  @Value("${webapi.list.max.jobs}")
+  private int listJobMaxSize;
+
+  private Path snapshotPath;
+
+  private Path journalPath;
 
   @Autowired
   SystemTime systemTime;
@@ -64,13 +105,119 @@ public class JobManager implements DisposableBean {
   @Autowired
   private ObjectMapper mapper;
 
-  private LinkedHashMap<String, Job> jobMap = new LinkedHashMap<>();
+  @Autowired
+  BelayerSchedulers belayerSchedulers;
+
+  @Autowired
+  JobEventPublisher jobEventPublisher;
+
+  // one job per line
+  private ObjectWriter journalWriter;
+
+  // guards the snapshot and the journal
+  private final Object fileLock = new Object();
+
+  private FileChannel journal;
+
+  // number of records in the journal
+  private long journalRecords;
+
+  // jobs by uid and job ID
+  private final Map<String, Job> jobMap = new ConcurrentHashMap<>();
+
+  // jobs of each uid and type, newest first
+  private final Map<String, ConcurrentNavigableMap<JobKey, Job>> jobIndex = new ConcurrentHashMap<>();
+
+  // all jobs, oldest first
+  private final ConcurrentNavigableMap<JobKey, Job> timeline = new ConcurrentSkipListMap<>();
+
+  private volatile boolean shutdown;
+
+  private Disposable compaction;
+
+  /**
+   * Position of a job in the order of start time.
+   */
+  private static class JobKey implements Comparable<JobKey> {
+
+    private static final Comparator<JobKey> ORDER = Comparator.comparing((JobKey key) -> key.startTime)
+        .thenComparing(key -> key.id);
+
+    private final Instant startTime;
+    private final String id;
+
+    private JobKey(Instant startTime, String id) {
+      this.startTime = startTime;
+      this.id = id;
+    }
+
+    @Override
+    public int compareTo(JobKey other) {
+      return ORDER.compare(this, other);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof JobKey && compareTo((JobKey) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return startTime.hashCode() * 31 + id.hashCode();
+    }
+  }
+
+  /**
+   * A page of a job list.
+   */
+  public static class Page {
+
+    private final List<Job> jobs;
+    private final String nextCursor;
+
+    Page(List<Job> jobs, String nextCursor) {
+      this.jobs = jobs;
+      this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return jobs, newest first
+     */
+    public List<Job> getJobs() {
+      return jobs;
+    }
+
+    /**
+     * @return cursor to get the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+      return nextCursor;
+    }
+  }
 
   @PostConstruct
   public void init() throws IOException {
-    jsonFilePath = dumpFileDir + "/" + DUMP_FILE_NAME;
-
-    readJobListFromJson();
+    if (compactionIntervalMinutes < 0) {
+      throw new IllegalArgumentException("job journal compaction interval must be 0 or more.");
+    }
+    snapshotPath = Path.of(dumpFileDir, DUMP_FILE_NAME);
+    journalPath = Path.of(dumpFileDir, JOURNAL_FILE_NAME);
+    journalWriter = mapper.writerFor(Job.class).without(SerializationFeature.INDENT_OUTPUT);
+
+    load();
+
+    if (compactionIntervalMinutes > 0) {
+      Duration interval = Duration.ofMinutes(compactionIntervalMinutes);
+      compaction = Flux.interval(interval, interval)
+          .onBackpressureDrop()
+          .concatMap(tick -> Mono.fromRunnable(this::compact)
+              .subscribeOn(belayerSchedulers.disk())
+              .onErrorResume(ex -> {
+                log.warn("failed to compact the job journal.", ex);
+                return Mono.empty();
+              }))
+          .subscribe();
+    }
   }
 
   /**
@@ -80,20 +227,19 @@ public class JobManager implements DisposableBean {
    * @return Job
    */
   public Job registerJob(Job job) {
+    if (shutdown) {
+      throw new IllegalArgumentException("Not acceptable job. Now in shutdown mode.");
+    }
+    log.debug("register job:" + job.getJobId());
 
-    synchronized (this) {
-      if (jobMap == null) {
-        throw new IllegalArgumentException("Not acceptable job. Now in shutdown mode.");
-      }
-      log.debug("register job:" + job.getJobId());
-
-      job.setStartTime(systemTime.now());
-
-      jobMap.put(getId(job.getUid(), job.getJobId()), job);
+    job.setStartTime(systemTime.now());
+    put(job);
+    // checks only the oldest jobs
+    removeExpiredJobs();
 
-      dumpJobListToJson();
-      return job;
-    }
+    appendToJournal(job);
+    job.notifyChange();
+    return job;
   }
 
   /**
@@ -123,9 +269,11 @@ public class JobManager implements DisposableBean {
         log.debug("close session:{}", job.getJobId());
         target.close();
         log.debug("session closed:{}", job.getJobId());
+
+        appendToJournal(target);
       }
     }
-    dumpJobListToJson();
+    target.notifyChange();
   }
 
   /**
@@ -161,9 +309,10 @@ public class JobManager implements DisposableBean {
       job.cancelJob();
       job.close();
 
-      dumpJobListToJson();
-      return job;
+      appendToJournal(job);
     }
+    job.notifyChange();
+    return job;
   }
 
   /**
@@ -174,10 +323,9 @@ public class JobManager implements DisposableBean {
    * @return Job
    */
   public Optional<Job> getJob(String type, String uid, String jobId) {
-    dumpJobListToJson();
     Job job = jobMap.get(getId(uid, jobId));
 
-    if (job == null || !job.getType().equals(type)) {
+    if (job == null || !job.getType().equals(type) || isExpired(job)) {
       return Optional.empty();
     }
 
@@ -185,89 +333,341 @@ public class JobManager implements DisposableBean {
   }
 
   /**
-   * Return all Jobs.
+   * Return jobs of the user and the type.
+   *
+   * @param type  job type
+   * @param uid   User ID
+   * @return jobs, newest first
+   */
+  public List<Job> getJobs(String type, String uid) {
+    return getPage(type, uid, null, Integer.MAX_VALUE).getJobs();
+  }
+
+  /**
+   * Return a page of jobs of the user and the type.
+   *
+   * @param type   job type
+   * @param uid    User ID
+   * @param cursor cursor returned with the previous page, or null for the
+   *               first page
+   * @param limit  max number of jobs, or null for the max size of a page
+   * @return jobs, newest first
+   */
+  public Page getJobs(String type, String uid, String cursor, Integer limit) {
+    if (limit == null) {
+      limit = listJobMaxSize;
+    } else if (limit < 1 || limit > listJobMaxSize) {
+      var msg = "limit must be between 1 and " + listJobMaxSize + ". limit:" + limit;
+      throw new BadRequestException(msg, msg);
+    }
+    return getPage(type, uid, cursor, limit);
+  }
+
+  /**
+   * Watch changes of jobs of the user.
    *
-   * @return list of jobs.
+   * Running jobs are emitted first, and then each job is emitted when its
+   * status or progress is changed. When a job ID is specified, only the job is
+   * watched and the flux completes when the job is finished.
+   *
+   * The current state is emitted after subscribing to the changes, so a job
+   * finished in between is not missed.
+   *
+   * @param types job types to watch
+   * @param uid   User ID
+   * @param jobId Job ID, or null to watch all jobs of the types
+   * @return changed jobs
    */
-  public List<Job> getAllJobs() {
-    dumpJobListToJson();
+  public Flux<Job> watchJobs(Collection<String> types, String uid, String jobId) {
+    Flux<Job> changes = jobEventPublisher.getEvents()
+        .filter(job -> uid.equals(job.getUid()) && types.contains(job.getType())
+            && (jobId == null || jobId.equals(job.getJobId())));
+
+    if (jobId == null) {
+      List<Job> running = types.stream()
+          .flatMap(type -> getJobs(type, uid).stream())
+          .filter(Job::canCancel)
+          .collect(Collectors.toList());
+      return Flux.merge(changes, Flux.fromIterable(running));
+    }
 
-    List<Job> values = new LinkedList<>(jobMap.values());
-    Collections.reverse(values);
-    return values;
+    var job = types.stream()
+        .map(type -> getJob(type, uid, jobId))
+        .flatMap(Optional::stream)
+        .findFirst()
+        .orElseThrow(() -> new NotFoundException("Specified job is not found. jobId:" + jobId,
+            "job is not found. jobId:" + jobId, null));
+    if (!job.canCancel()) {
+      return Flux.just(job);
+    }
+    return Flux.merge(changes, Mono.just(job)).takeUntil(changed -> !changed.canCancel());
+  }
+
+  private Page getPage(String type, String uid, String cursor, int limit) {
+    var index = jobIndex.get(getIndexId(uid, type));
+    if (index == null) {
+      return new Page(List.of(), null);
+    }
+    var jobs = cursor == null ? index : index.tailMap(decodeCursor(cursor), false);
+
+    List<Job> page = new ArrayList<>(Math.min(limit, 100));
+    JobKey last = null;
+    for (var entry : jobs.entrySet()) {
+      if (isExpired(entry.getValue())) {
+        // older jobs are also expired
+        break;
+      }
+      if (page.size() == limit) {
+        return new Page(page, encodeCursor(last));
+      }
+      page.add(entry.getValue());
+      last = entry.getKey();
+    }
+    return new Page(page, null);
   }
 
   private String getId(String uid, String jobId) {
     return uid + ":" + jobId;
   }
 
+  private String getIndexId(String uid, String type) {
+    return uid + ":" + type;
+  }
+
+  private void put(Job job) {
+    String id = getId(job.getUid(), job.getJobId());
+    job.setChangeListener(jobEventPublisher::publish);
+    var key = new JobKey(job.getStartTime(), id);
+    Job previous = jobMap.put(id, job);
+    if (previous != null && !previous.getStartTime().equals(job.getStartTime())) {
+      remove(previous);
+    }
+    timeline.put(key, job);
+    jobIndex.computeIfAbsent(getIndexId(job.getUid(), job.getType()),
+        indexId -> new ConcurrentSkipListMap<>(Comparator.reverseOrder()))
+        .put(key, job);
+  }
+
+  private void remove(Job job) {
+    String id = getId(job.getUid(), job.getJobId());
+    var key = new JobKey(job.getStartTime(), id);
+    jobMap.remove(id, job);
+    timeline.remove(key, job);
+    var index = jobIndex.get(getIndexId(job.getUid(), job.getType()));
+    if (index != null) {
+      index.remove(key, job);
+    }
+  }
+
+  /**
+   * Remove expired jobs, oldest first.
+   *
+   * @return true if any job is removed
+   */
+  private boolean removeExpiredJobs() {
+    boolean removed = false;
+    Map.Entry<JobKey, Job> oldest;
+    while ((oldest = timeline.firstEntry()) != null && isExpired(oldest.getValue())) {
+      remove(oldest.getValue());
+      removed = true;
+    }
+    return removed;
+  }
+
+  private String encodeCursor(JobKey key) {
+    String value = key.startTime + " " + key.id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private JobKey decodeCursor(String cursor) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = value.indexOf(' ');
+      return new JobKey(Instant.parse(value.substring(0, separator)), value.substring(separator + 1));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+      throw new BadRequestException("Invalid cursor.", "invalid cursor. cursor:" + cursor, ex);
+    }
+  }
+
   /**
    * Callcel all STARTED jobs before destroy component.
    */
   @Override
   public void destroy() throws Exception {
+    if (compaction != null) {
+      compaction.dispose();
+    }
 
-    synchronized (this) {
-      jobMap.values().stream()
-          .filter(job -> job.getStatus() == JobStatus.RUNNING)
-          .forEach(job -> this.cancelJob(job.getType(), job.getUid(), job.getJobId()));
+    // queued jobs first not to start them when running jobs are cancelled
+    List<Job> runningJobs = jobMap.values().stream()
+        .filter(Job::canCancel)
+        .sorted(Comparator.comparing(job -> job.getStatus() != JobStatus.QUEUED))
+        .collect(Collectors.toList());
+    for (Job job : runningJobs) {
+      try {
+        cancelJob(job.getType(), job.getUid(), job.getJobId());
+      } catch (BadRequestException ex) {
+        log.debug("job finished before cancel. jobId:{}", job.getJobId());
+      }
+    }
 
-      dumpJobListToJson();
-      jobMap = null;
+    shutdown = true;
+    synchronized (fileLock) {
+      compact();
+      closeJournal();
     }
   }
 
-  public void readJobListFromJson() {
-    synchronized (this) {
-      if (Files.exists(Path.of(jsonFilePath)) && !Files.isDirectory(Path.of(jsonFilePath))) {
-        try {
-          jobMap = mapper.readValue(new File(jsonFilePath), new TypeReference<LinkedHashMap<String, Job>>() {
-          });
-        } catch (IOException ex) {
-          try {
-            Files.delete(Path.of(jsonFilePath));
-          } catch (IOException ignore) {
-            // ignore
+  /**
+   * Read jobs from the snapshot and the journal.
+   */
+  void load() {
+    synchronized (fileLock) {
+      closeJournal();
+      jobMap.clear();
+      jobIndex.clear();
+      timeline.clear();
+      readSnapshot().values().forEach(this::put);
+
+      long records = 0;
+      boolean broken = false;
+      if (Files.isRegularFile(journalPath)) {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+          String line;
+          while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+              continue;
+            }
+            Job job;
+            try {
+              job = mapper.readValue(line, Job.class);
+            } catch (IOException ex) {
+              // the last line may be broken by a crash while writing it
+              log.warn("ignore broken records of the job journal. records read:{}", records);
+              broken = true;
+              break;
+            }
+            put(job);
+            records++;
           }
-          jobMap = new LinkedHashMap<>();
+        } catch (IOException ex) {
+          throw new IORuntimeException("Failed to read the job journal. file:" + journalPath, ex);
         }
       }
+      journalRecords = records;
+      log.info("jobs loaded:{}, journal records:{}", jobMap.size(), records);
+
+      // records appended after a broken line would not be read
+      if (broken) {
+        writeSnapshot();
+      }
+    }
+  }
+
+  private LinkedHashMap<String, Job> readSnapshot() {
+    if (!Files.isRegularFile(snapshotPath)) {
+      return new LinkedHashMap<>();
+    }
+    try {
+      return mapper.readValue(snapshotPath.toFile(), new TypeReference<LinkedHashMap<String, Job>>() {
+      });
+    } catch (IOException ex) {
+      log.warn("job snapshot is broken and ignored. file:" + snapshotPath, ex);
+      return new LinkedHashMap<>();
+    }
+  }
+
+  /**
+   * Drop expired jobs, write all jobs to the snapshot and clear the journal.
+   *
+   * Nothing is written when no job is changed after the previous compaction.
+   * The snapshot is replaced atomically, so a crash leaves the previous
+   * snapshot and the journal, or the new snapshot.
+   */
+  void compact() {
+    synchronized (fileLock) {
+      boolean removed = removeExpiredJobs();
+      // nothing to write while idle
+      if (removed || journalRecords > 0 || !Files.exists(snapshotPath)) {
+        writeSnapshot();
+      }
     }
   }
 
-  public void dumpJobListToJson() {
-    synchronized (this) {
-      cleanUpOldJobs();
+  private void writeSnapshot() {
+    synchronized (fileLock) {
+      long records = journalRecords;
+      // a job changed while writing is also appended to the new journal
+      LinkedHashMap<String, Job> jobs = new LinkedHashMap<>();
+      timeline.values().forEach(job -> jobs.put(getId(job.getUid(), job.getJobId()), job));
+      try {
+        Files.createDirectories(snapshotPath.getParent());
+        Path tmpPath = snapshotPath.resolveSibling(DUMP_FILE_NAME + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+          var buffer = ByteBuffer.wrap(mapper.writeValueAsBytes(jobs));
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+          channel.force(true);
+        }
+        Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // records in the journal are all in the snapshot now
+        closeJournal();
+        Files.deleteIfExists(journalPath);
+        journalRecords = 0;
+      } catch (IOException ex) {
+        throw new IORuntimeException("Failed to write the job snapshot. file:" + snapshotPath, ex);
+      }
+      log.debug("job snapshot written. jobs:{}, journal records:{}", jobs.size(), records);
+    }
+  }
 
+  private void appendToJournal(Job job) {
+    synchronized (fileLock) {
       try {
-        var parent = Path.of(jsonFilePath).getParent();
-        if (!Files.exists(parent)) {
-          Files.createDirectories(parent);
+        if (journal == null) {
+          Files.createDirectories(journalPath.getParent());
+          journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND);
         }
-        mapper.writeValue(new File(jsonFilePath), jobMap);
+        byte[] record = (journalWriter.writeValueAsString(job) + "\n").getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+          journal.write(buffer);
+        }
+        journalRecords++;
       } catch (IOException ex) {
-        throw new RuntimeException(ex);
+        throw new IORuntimeException("Failed to write the job journal. file:" + journalPath, ex);
       }
     }
   }
 
-  public void cleanUpOldJobs() {
-    synchronized (this) {
-      LinkedHashMap<String, Job> newJobMap = jobMap.entrySet().stream()
-          .filter(entry -> !isExpired(entry.getValue()))
-          .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> b,
-              () -> new LinkedHashMap<String, Job>()));
-      jobMap = newJobMap;
+  private void closeJournal() {
+    if (journal == null) {
+      return;
+    }
+    try {
+      journal.close();
+    } catch (IOException ex) {
+      log.debug("failed to close the job journal.", ex);
     }
+    journal = null;
+  }
 
+  /**
+   * @return number of records in the journal
+   */
+  long getJournalRecords() {
+    synchronized (fileLock) {
+      return journalRecords;
+    }
   }
 
   private boolean isExpired(Job job) {
     var expTime = systemTime.now().minus(Period.ofDays(expirationDays));
-    boolean expired = job.getStartTime().isBefore(expTime);
-    log.debug("expire:{}, jobId:{}, expdays:{}, start:{}, exp:{}",
-        expired, job.getJobId(), expirationDays, job.getStartTime(), expTime);
-    return expired;
+    return job.getStartTime().isBefore(expTime);
   }
 
 }
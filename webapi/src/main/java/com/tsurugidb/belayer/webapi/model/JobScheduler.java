@@ -0,0 +1,322 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.Job;
+import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Limits the number of jobs running at once.
+ *
+ * A job waits in the queue with QUEUED status while the number of running jobs
+ * of its type or of all types reaches the limit. When a job finishes, the next
+ * job is chosen from the queue by the priority of its type, then the user with
+ * the fewest running jobs, then the order of arrival. So a user who starts many
+ * jobs does not make the jobs of other users wait behind them.
+ */
+@Slf4j
+@Component
+public class JobScheduler {
+
+    @Value("${webapi.job.scheduler.concurrency.total}")
+    private int totalLimit;
+
+    @Value("${webapi.job.scheduler.concurrency.backup}")
+    private int backupLimit;
+
+    @Value("${webapi.job.scheduler.concurrency.restore}")
+    private int restoreLimit;
+
+    @Value("${webapi.job.scheduler.concurrency.dump}")
+    private int dumpLimit;
+
+    @Value("${webapi.job.scheduler.concurrency.load}")
+    private int loadLimit;
+
+    @Value("${webapi.job.scheduler.priority}")
+    private List<String> priority;
+
+    @Autowired
+    ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<String, Integer> typeLimits = new HashMap<>();
+
+    // guarded by this
+    private final List<Entry<?>> queue = new ArrayList<>();
+
+    // guarded by this
+    private final Map<String, Integer> runningByType = new HashMap<>();
+
+    // guarded by this
+    private final Map<String, Integer> runningByUser = new HashMap<>();
+
+    // guarded by this
+    private int running;
+
+    // guarded by this
+    private long seq;
+
+    private final Comparator<Entry<?>> order = Comparator.comparingInt((Entry<?> entry) -> entry.priority)
+            .thenComparingInt(entry -> runningByUser.getOrDefault(entry.job.getUid(), 0))
+            .thenComparingLong(entry -> entry.seq);
+
+    @PostConstruct
+    public void init() {
+        typeLimits.put(Job.TYPE_BACKUP, backupLimit);
+        typeLimits.put(Job.TYPE_RESTORE, restoreLimit);
+        typeLimits.put(Job.TYPE_DUMP, dumpLimit);
+        typeLimits.put(Job.TYPE_LOAD, loadLimit);
+        if (totalLimit < 0 || typeLimits.values().stream().anyMatch(limit -> limit < 0)) {
+            throw new IllegalArgumentException("job concurrency must be 0 or more.");
+        }
+
+        Gauge.builder("belayer.job.queued", this, JobScheduler::getQueuedCount)
+                .description("number of jobs waiting to run")
+                .register(meterRegistry);
+        Gauge.builder("belayer.job.running", this, JobScheduler::getRunningCount)
+                .description("number of jobs running")
+                .register(meterRegistry);
+
+        log.info("job concurrency total:{}, by type:{}, priority:{}", totalLimit, typeLimits, priority);
+    }
+
+    /**
+     * Run the pipeline of the job when the job is allowed to run.
+     *
+     * The job is queued on subscription. The returned Mono emits the result of
+     * the pipeline, or completes empty if the job is cancelled in the queue.
+     * Cancelling the subscription removes the job from the queue, or cancels
+     * the pipeline if it is running.
+     *
+     * @param <T>      type of the result
+     * @param job      job to run
+     * @param pipeline pipeline of the job, subscribed on the task executor
+     * @return result of the pipeline
+     */
+    public <T> Mono<T> schedule(Job job, Mono<T> pipeline) {
+        return Mono.create(sink -> {
+            var entry = new Entry<>(job, pipeline, sink);
+            sink.onCancel(entry);
+            enqueue(entry);
+        });
+    }
+
+    synchronized int getQueuedCount() {
+        return queue.size();
+    }
+
+    synchronized int getRunningCount() {
+        return running;
+    }
+
+    private void enqueue(Entry<?> entry) {
+        List<Entry<?>> started;
+        synchronized (this) {
+            int index = priority.indexOf(entry.job.getType());
+            entry.priority = index < 0 ? priority.size() : index;
+            entry.seq = seq++;
+            queue.add(entry);
+            started = dispatch();
+        }
+
+        if (!started.contains(entry)) {
+            entry.markQueued();
+        }
+        started.forEach(Entry::start);
+    }
+
+    private void release(Entry<?> entry) {
+        List<Entry<?>> started;
+        synchronized (this) {
+            running--;
+            runningByType.computeIfPresent(entry.job.getType(), (type, count) -> count > 1 ? count - 1 : null);
+            runningByUser.computeIfPresent(entry.job.getUid(), (uid, count) -> count > 1 ? count - 1 : null);
+            started = dispatch();
+        }
+        log.debug("job released. jobId:{}", entry.job.getJobId());
+        started.forEach(Entry::start);
+    }
+
+    private synchronized boolean removeFromQueue(Entry<?> entry) {
+        return queue.remove(entry);
+    }
+
+    /**
+     * Take jobs that can run from the queue. Must be called holding this lock.
+     *
+     * @return jobs to start
+     */
+    private List<Entry<?>> dispatch() {
+        List<Entry<?>> started = new ArrayList<>();
+        while (totalLimit == 0 || running < totalLimit) {
+            Entry<?> next = queue.stream()
+                    .filter(entry -> hasCapacity(entry.job.getType()))
+                    .min(order)
+                    .orElse(null);
+            if (next == null) {
+                break;
+            }
+            queue.remove(next);
+            running++;
+            runningByType.merge(next.job.getType(), 1, Integer::sum);
+            runningByUser.merge(next.job.getUid(), 1, Integer::sum);
+            started.add(next);
+        }
+        return started;
+    }
+
+    private boolean hasCapacity(String type) {
+        int limit = typeLimits.getOrDefault(type, 0);
+        return limit == 0 || runningByType.getOrDefault(type, 0) < limit;
+    }
+
+    /**
+     * A job in the queue or running.
+     */
+    private class Entry<T> implements Disposable {
+
+        private final Job job;
+        private final Mono<T> pipeline;
+        private final MonoSink<T> sink;
+        private int priority;
+        private long seq;
+
+        // guarded by this entry
+        private boolean cancelled;
+
+        // guarded by the job
+        private boolean started;
+
+        // guarded by this entry
+        private Disposable subscription;
+
+        private Entry(Job job, Mono<T> pipeline, MonoSink<T> sink) {
+            this.job = job;
+            this.pipeline = pipeline;
+            this.sink = sink;
+        }
+
+        private void markQueued() {
+            log.debug("job queued. jobId:{}", job.getJobId());
+            synchronized (job) {
+                // the job may be started by another thread before it is marked
+                if (started || job.getStatus() != JobStatus.RUNNING) {
+                    return;
+                }
+                job.setStatus(JobStatus.QUEUED);
+                if (job.getDisposable() == null) {
+                    // cancelling the job removes it from the queue
+                    job.setDisposable(this);
+                }
+            }
+            job.notifyChange();
+        }
+
+        private void start() {
+            boolean wasQueued = false;
+            boolean skip;
+            synchronized (job) {
+                started = true;
+                skip = job.getStatus() == JobStatus.CANCELED;
+                if (job.getStatus() == JobStatus.QUEUED) {
+                    job.setStatus(JobStatus.RUNNING);
+                    wasQueued = true;
+                }
+                if (job.getDisposable() == this) {
+                    job.setDisposable(null);
+                }
+            }
+            synchronized (this) {
+                skip |= cancelled;
+            }
+            if (skip) {
+                release(this);
+                sink.success();
+                return;
+            }
+            if (wasQueued) {
+                job.notifyChange();
+            }
+
+            log.debug("job started. jobId:{}", job.getJobId());
+            Disposable disp = pipeline
+                    .doFinally(signal -> release(this))
+                    .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
+                    .subscribe(sink::success, sink::error, () -> sink.success());
+
+            boolean dispose;
+            synchronized (this) {
+                subscription = disp;
+                dispose = cancelled;
+            }
+            if (dispose) {
+                disp.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+            }
+            if (removeFromQueue(this)) {
+                log.debug("queued job is cancelled. jobId:{}", job.getJobId());
+                sink.success();
+                return;
+            }
+
+            Disposable disp;
+            synchronized (this) {
+                disp = subscription;
+            }
+            if (disp != null) {
+                disp.dispose();
+            }
+        }
+
+        @Override
+        public synchronized boolean isDisposed() {
+            return cancelled;
+        }
+    }
+}
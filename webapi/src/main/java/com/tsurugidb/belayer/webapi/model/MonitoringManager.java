@@ -28,13 +28,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import lombok.extern.slf4j.Slf4j;
@@ -45,11 +44,10 @@ public class MonitoringManager {
 
     private final WatchService watchService;
 
-    @Autowired
-    ThreadPoolTaskExecutor threadPoolTaskExecutor;
-
     private Map<Path, Consumer<Path>> listeners = new ConcurrentHashMap<>();
 
+    private Map<WatchKey, BiConsumer<Path, WatchEvent<?>>> directoryListeners = new ConcurrentHashMap<>();
+
     private AtomicBoolean stopping = new AtomicBoolean(false);
 
     public MonitoringManager() throws IOException {
@@ -91,9 +89,35 @@ public class MonitoringManager {
         }
     }
 
+    /**
+     * Watch entries of a directory.
+     *
+     * The listener is called with the directory and each event, including
+     * OVERFLOW. Cancel the returned key to stop watching.
+     *
+     * @param dir      directory to watch
+     * @param listener listener for events
+     * @return watch key
+     * @throws IOException I/O Error, e.g. too many watches
+     */
+    public WatchKey addDirectoryWatcher(Path dir, BiConsumer<Path, WatchEvent<?>> listener) throws IOException {
+        Objects.requireNonNull(listener);
+
+        WatchKey key = dir.register(
+                watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        directoryListeners.put(key, listener);
+        return key;
+    }
+
     @PostConstruct
     public void lannch() {
-        threadPoolTaskExecutor.execute(() -> launchMonitoring());
+        // blocks while watching, so it has its own thread instead of a shared pool
+        Thread thread = new Thread(this::launchMonitoring, "belayer-monitor");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     void launchMonitoring() {
@@ -101,15 +125,23 @@ public class MonitoringManager {
         try {
             WatchKey key;
             while ((key = watchService.take()) != null) {
+                var directoryListener = directoryListeners.get(key);
                 for (WatchEvent<?> event : key.pollEvents()) {
                     log.debug("Event kind: {}; File affected: {}", event.kind(), event.context());
+                    if (directoryListener != null) {
+                        notifyDirectoryListener(directoryListener, (Path) key.watchable(), event);
+                        continue;
+                    }
                     var changed = (Path) event.context();
                     var listener = listeners.get(changed);
                     if (listener != null) {
                         listener.accept(changed);
                     }
                 }
-                key.reset();
+                if (!key.reset()) {
+                    // cancelled or the directory is deleted
+                    directoryListeners.remove(key);
+                }
             }
         } catch (InterruptedException ex) {
             log.info("interrupted exception for monitoring service", ex);
@@ -120,6 +152,15 @@ public class MonitoringManager {
         }
     }
 
+    private void notifyDirectoryListener(BiConsumer<Path, WatchEvent<?>> listener, Path dir, WatchEvent<?> event) {
+        try {
+            listener.accept(dir, event);
+        } catch (RuntimeException ex) {
+            // keep monitoring other files
+            log.warn("failed to handle a watch event. dir:" + dir, ex);
+        }
+    }
+
     @PreDestroy
     public void stopMonitoring() {
 
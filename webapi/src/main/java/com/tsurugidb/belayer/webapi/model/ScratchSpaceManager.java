@@ -0,0 +1,357 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Scratch space for temp directories of jobs and requests.
+ *
+ * All temp directories are created under one configurable directory. Placing
+ * it on the same file system as the storage makes moving files from a temp
+ * directory into the storage a rename. Space reserved by each directory is
+ * limited by a global budget, and directories left by a crash are deleted by
+ * the janitor.
+ *
+ * The configured directory, e.g. java.io.tmpdir, may be shared with other
+ * instances, so each instance works in its own subdirectory and holds a file
+ * lock in it while running. The janitor deletes the subdirectories of other
+ * instances only when their lock is free, i.e. the instance is not running.
+ */
+@Slf4j
+@Component
+public class ScratchSpaceManager {
+
+    // all of Constants.TEMP_DIR_PREFIX_* start with this
+    private static final String MANAGED_PREFIX = "belayer-";
+
+    // prefix of the directory of each instance
+    private static final String INSTANCE_DIR_PREFIX = "belayer-scratch-";
+
+    private static final String LOCK_FILE = ".lock";
+
+    // instance directories in this JVM, not to close their locks by checking them
+    private static final Set<Path> LOCAL_ROOTS = ConcurrentHashMap.newKeySet();
+
+    @Value("${webapi.scratch.dir}")
+    private String scratchDir;
+
+    @Value("${webapi.scratch.budget}")
+    private long budget;
+
+    @Value("${webapi.scratch.orphan_hours}")
+    private long orphanHours;
+
+    @Value("${webapi.scratch.janitor_interval_minutes}")
+    private long janitorIntervalMinutes;
+
+    @Autowired
+    BelayerSchedulers belayerSchedulers;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    private final Map<Path, Workspace> workspaces = new ConcurrentHashMap<>();
+
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    // directory configured, shared with other instances
+    private Path base;
+
+    // directory of this instance
+    private Path root;
+
+    private FileChannel lockChannel;
+
+    private Disposable janitor;
+
+    /**
+     * Temp directory in use.
+     */
+    private static class Workspace {
+        private final AtomicLong reserved = new AtomicLong();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (budget < 0) {
+            throw new IllegalArgumentException("scratch budget must be 0 or more.");
+        }
+        if (orphanHours < 1) {
+            throw new IllegalArgumentException("scratch orphan hours must be 1 or more.");
+        }
+        if (janitorIntervalMinutes < 0) {
+            throw new IllegalArgumentException("scratch janitor interval must be 0 or more.");
+        }
+
+        base = Path.of(scratchDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(base);
+            root = Files.createTempDirectory(base, INSTANCE_DIR_PREFIX);
+            lockChannel = FileChannel.open(root.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE);
+            if (lockChannel.tryLock() == null) {
+                throw new IOException("The lock is held by another process. file:" + root.resolve(LOCK_FILE));
+            }
+            LOCAL_ROOTS.add(root);
+        } catch (IOException ex) {
+            throw new IORuntimeException("Can't create the scratch directory. dir:" + base, ex);
+        }
+
+        Gauge.builder("belayer.scratch.reserved", reservedBytes, AtomicLong::get)
+                .description("bytes of scratch space reserved by jobs and requests")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("belayer.scratch.directories", workspaces, Map::size)
+                .description("temp directories in use")
+                .register(meterRegistry);
+
+        if (janitorIntervalMinutes > 0) {
+            // the first run cleans up directories left by the previous process
+            janitor = Flux.interval(Duration.ZERO, Duration.ofMinutes(janitorIntervalMinutes))
+                    .onBackpressureDrop()
+                    .concatMap(tick -> Mono.fromRunnable(this::deleteOrphans)
+                            .subscribeOn(belayerSchedulers.disk())
+                            .onErrorResume(ex -> {
+                                log.warn("failed to delete orphan temp directories.", ex);
+                                return Mono.empty();
+                            }))
+                    .subscribe();
+        }
+        log.info("scratch dir:{}, budget:{}, orphan hours:{}", root, budget, orphanHours);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (janitor != null) {
+            janitor.dispose();
+        }
+        try {
+            // releases the lock
+            lockChannel.close();
+        } catch (IOException ex) {
+            log.debug("failed to close the lock file.", ex);
+        }
+        LOCAL_ROOTS.remove(root);
+        delete(root);
+    }
+
+    /**
+     * Create a temp directory.
+     *
+     * @param prefix prefix of the directory name, one of
+     *               Constants.TEMP_DIR_PREFIX_*
+     * @return path of the created directory
+     */
+    public Path createDirectory(String prefix) {
+        Path dir;
+        try {
+            // no-op unless deleted from outside
+            Files.createDirectories(root);
+            dir = Files.createTempDirectory(root, prefix);
+        } catch (IOException ex) {
+            throw new IORuntimeException("failed to create a temp directory.", ex);
+        }
+        workspaces.put(dir, new Workspace());
+        log.debug("create temp dir:{}", dir);
+        return dir;
+    }
+
+    /**
+     * Reserve space for the temp directory.
+     *
+     * The reservation is released with the directory.
+     *
+     * @param dir   temp directory
+     * @param bytes bytes to reserve
+     * @return false if the directory is not created by this manager
+     * @throws BelayerResponseStatusException if the budget is exceeded
+     */
+    public boolean reserve(Path dir, long bytes) {
+        var workspace = workspaces.get(dir.toAbsolutePath().normalize());
+        if (workspace == null) {
+            return false;
+        }
+        acquire(bytes);
+        workspace.reserved.addAndGet(bytes);
+        return true;
+    }
+
+    /**
+     * Delete the temp directory with its contents and release its reservation.
+     *
+     * @param dir temp directory
+     * @return false if the directory is not created by this manager
+     */
+    public boolean release(Path dir) {
+        var workspace = workspaces.remove(dir.toAbsolutePath().normalize());
+        if (workspace == null) {
+            return false;
+        }
+        long reserved = workspace.reserved.getAndSet(0);
+        reservedBytes.addAndGet(-reserved);
+        long used = delete(dir);
+        log.debug("release temp dir:{}, reserved:{}, used:{}", dir, reserved, used);
+        return true;
+    }
+
+    /**
+     * @return scratch directory of this instance
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return bytes reserved by all temp directories
+     */
+    public long getReservedBytes() {
+        return reservedBytes.get();
+    }
+
+    private void acquire(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must be 0 or more.");
+        }
+        long total = reservedBytes.addAndGet(bytes);
+        if (budget > 0 && total > budget) {
+            reservedBytes.addAndGet(-bytes);
+            var msg = "Not enough scratch space. Retry later.";
+            throw new BelayerResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, msg,
+                    "scratch budget exceeded. required:" + bytes + ", reserved:" + (total - bytes) + ", budget:"
+                            + budget,
+                    null);
+        }
+    }
+
+    /**
+     * Delete temp directories not in use and not modified for a while, and
+     * the directories of instances not running.
+     */
+    void deleteOrphans() {
+        FileTime threshold = FileTime.from(Instant.now().minusMillis(TimeUnit.HOURS.toMillis(orphanHours)));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(base,
+                path -> path.getFileName().toString().startsWith(INSTANCE_DIR_PREFIX))) {
+            for (Path dir : stream) {
+                if (!dir.equals(root) && !isLocked(dir, threshold)) {
+                    long size = delete(dir);
+                    log.info("deleted scratch directory of a stopped instance:{}, size:{}", dir, size);
+                }
+            }
+        } catch (IOException ex) {
+            throw new IORuntimeException("Failed to read the scratch directory.", ex);
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root,
+                path -> path.getFileName().toString().startsWith(MANAGED_PREFIX))) {
+            for (Path dir : stream) {
+                if (workspaces.containsKey(dir) || Files.getLastModifiedTime(dir).compareTo(threshold) >= 0) {
+                    continue;
+                }
+                long size = delete(dir);
+                log.info("deleted orphan temp directory:{}, size:{}", dir, size);
+            }
+        } catch (IOException ex) {
+            throw new IORuntimeException("Failed to read the scratch directory.", ex);
+        }
+    }
+
+    /**
+     * Return true if the instance directory may be in use.
+     */
+    private static boolean isLocked(Path dir, FileTime threshold) throws IOException {
+        if (LOCAL_ROOTS.contains(dir)) {
+            return true;
+        }
+        Path lockFile = dir.resolve(LOCK_FILE);
+        if (!Files.exists(lockFile)) {
+            // the instance may be creating it
+            return Files.getLastModifiedTime(dir).compareTo(threshold) >= 0;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+            return channel.tryLock() == null;
+        } catch (OverlappingFileLockException ex) {
+            // held by another instance in this JVM
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Delete the file or directory and return the size of deleted files.
+     */
+    private static long delete(Path path) {
+        long[] size = new long[1];
+        try {
+            Files.walkFileTree(path, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    size[0] += attrs.size();
+                    Files.deleteIfExists(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException ex) throws IOException {
+                    Files.deleteIfExists(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException ex) {
+            // already deleted
+        } catch (IOException ex) {
+            log.warn("failed to delete temp directory:" + path, ex);
+        }
+        return size[0];
+    }
+}
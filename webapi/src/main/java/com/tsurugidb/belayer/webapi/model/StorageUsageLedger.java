@@ -0,0 +1,366 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Storage usage of each user.
+ *
+ * The usage of a user is computed by walking the user directory only when it
+ * is used first, and then it is updated by the write and delete paths of
+ * Belayer. Files changed by others, e.g. dump files written by Tsurugi, are
+ * reflected when the caller records them or by the periodic reconciliation.
+ */
+@Slf4j
+@Component
+public class StorageUsageLedger {
+
+    @Value("${webapi.storage.root}")
+    private String storageRootDir;
+
+    @Value("${webapi.storage.quota.per_user}")
+    private long quotaPerUser;
+
+    @Value("${webapi.storage.usage.reconcile_interval_minutes}")
+    private long reconcileIntervalMinutes;
+
+    @Autowired
+    BelayerSchedulers belayerSchedulers;
+
+    // uid -> usage
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+
+    private Path rootPath;
+
+    private Disposable reconciler;
+
+    @PostConstruct
+    public void init() {
+        if (quotaPerUser < 0) {
+            throw new IllegalArgumentException("storage quota per user must be 0 or more.");
+        }
+        if (reconcileIntervalMinutes < 0) {
+            throw new IllegalArgumentException("storage usage reconcile interval must be 0 or more.");
+        }
+        rootPath = Path.of(storageRootDir).toAbsolutePath().normalize();
+
+        if (reconcileIntervalMinutes > 0) {
+            Duration interval = Duration.ofMinutes(reconcileIntervalMinutes);
+            reconciler = Flux.interval(interval, interval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> Mono.fromRunnable(this::reconcileAll)
+                            .subscribeOn(belayerSchedulers.disk())
+                            .onErrorResume(ex -> {
+                                log.warn("failed to reconcile storage usage.", ex);
+                                return Mono.empty();
+                            }))
+                    .subscribe();
+        }
+        log.info("storage quota per user:{}, reconcile interval minutes:{}", quotaPerUser, reconcileIntervalMinutes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (reconciler != null) {
+            reconciler.dispose();
+        }
+    }
+
+    /**
+     * Return the storage usage of the user.
+     *
+     * @param uid User ID
+     * @return usage in bytes
+     */
+    public long getUsage(String uid) {
+        return usageOf(uid).used.get();
+    }
+
+    /**
+     * Return the bytes reserved for the user and not written yet.
+     *
+     * @param uid User ID
+     * @return reserved bytes
+     */
+    public long getReserved(String uid) {
+        return usageOf(uid).reserved.get();
+    }
+
+    /**
+     * Check the user can store more bytes and reserve them.
+     *
+     * The reserved bytes are counted against the quota until the reservation
+     * is released, so that concurrent writers can not exceed the quota
+     * together. Release it after the written bytes are recorded, or when the
+     * write fails. Nothing is checked when the quota is not set.
+     *
+     * This walks the user directory when the usage of the user is not loaded
+     * yet. Use {@link #reserve(String, long)} on a non-blocking thread.
+     *
+     * @param uid   User ID
+     * @param bytes bytes to store
+     * @return reservation of the bytes
+     * @throws BelayerResponseStatusException if the quota is exceeded
+     */
+    public Reservation checkQuota(String uid, long bytes) {
+        if (quotaPerUser == 0) {
+            return Reservation.NONE;
+        }
+        var usage = usageOf(uid);
+        long required = Math.max(bytes, 0);
+        synchronized (usage) {
+            long used = usage.used.get();
+            long reserved = usage.reserved.get();
+            if (used + reserved + required > quotaPerUser) {
+                var msg = "Storage quota exceeded. usage:" + used + ", reserved:" + reserved + ", required:" + bytes
+                        + ", quota:" + quotaPerUser;
+                throw new BelayerResponseStatusException(HttpStatus.INSUFFICIENT_STORAGE, msg, msg + ", uid:" + uid,
+                        null);
+            }
+            if (required == 0) {
+                return Reservation.NONE;
+            }
+            usage.reserved.addAndGet(required);
+        }
+        return new Reservation(usage.reserved, required);
+    }
+
+    /**
+     * Check the user can store more bytes into the path and reserve them.
+     *
+     * Nothing is checked when the path is not in a user directory.
+     *
+     * @param path  path to store
+     * @param bytes bytes to store
+     * @return reservation of the bytes
+     */
+    public Reservation checkQuota(Path path, long bytes) {
+        String uid = ownerOf(path);
+        if (uid == null) {
+            return Reservation.NONE;
+        }
+        return checkQuota(uid, bytes);
+    }
+
+    /**
+     * Check the user can store more bytes and reserve them, loading the usage
+     * of the user on the disk scheduler if not loaded yet.
+     *
+     * @param uid   User ID
+     * @param bytes bytes to store
+     * @return reservation of the bytes, or error if the quota is exceeded
+     * @see #checkQuota(String, long)
+     */
+    public Mono<Reservation> reserve(String uid, long bytes) {
+        var reservation = Mono.fromCallable(() -> checkQuota(uid, bytes));
+        if (quotaPerUser == 0 || usages.containsKey(uid)) {
+            return reservation;
+        }
+        return reservation.subscribeOn(belayerSchedulers.disk());
+    }
+
+    /**
+     * Add bytes to the usage of the owner of the path.
+     *
+     * @param path  file or directory in a user directory. ignored if not.
+     * @param bytes bytes added, or negative for removed bytes
+     */
+    public void add(Path path, long bytes) {
+        String uid = ownerOf(path);
+        if (uid == null || bytes == 0) {
+            return;
+        }
+        var usage = usages.get(uid);
+        if (usage == null) {
+            // not loaded yet, the walk on the first use includes the change
+            return;
+        }
+        usage.used.updateAndGet(current -> Math.max(current + bytes, 0));
+    }
+
+    /**
+     * Record a written file.
+     *
+     * @param path         written file
+     * @param previousSize size of the file before written, 0 if created
+     */
+    public void fileWritten(Path path, long previousSize) {
+        add(path, sizeOf(path) - previousSize);
+    }
+
+    /**
+     * Return size of the file, or total size of files in the directory.
+     *
+     * Call this before replacing or deleting the path to know how many bytes
+     * are released.
+     *
+     * @param path file or directory
+     * @return size in bytes, 0 if not exists
+     */
+    public long sizeOf(Path path) {
+        try {
+            var attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attrs.isDirectory()) {
+                return attrs.size();
+            }
+            return walk(path);
+        } catch (NoSuchFileException ex) {
+            return 0;
+        } catch (IOException ex) {
+            throw new IORuntimeException("Failed to read file size. path:" + path, ex);
+        }
+    }
+
+    /**
+     * Recompute the usage of the user from the user directory.
+     *
+     * @param uid User ID
+     * @return usage in bytes
+     */
+    public long reconcile(String uid) {
+        var usage = usageOf(uid);
+        long previous = usage.used.get();
+        long actual = walk(rootPath.resolve(uid));
+        // apply as a delta so that bytes added while walking are not lost.
+        // they may be counted twice until the next reconciliation.
+        long reconciled = usage.used.updateAndGet(current -> Math.max(current + actual - previous, 0));
+        if (previous != actual) {
+            log.info("storage usage reconciled. uid:{}, recorded:{}, actual:{}", uid, previous, actual);
+        }
+        return reconciled;
+    }
+
+    private void reconcileAll() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(rootPath, Files::isDirectory)) {
+            for (Path userDir : stream) {
+                reconcile(userDir.getFileName().toString());
+            }
+        } catch (NoSuchFileException ex) {
+            // no users yet
+        } catch (IOException ex) {
+            throw new IORuntimeException("Failed to read the storage root.", ex);
+        }
+    }
+
+    private Usage usageOf(String uid) {
+        var usage = usages.get(uid);
+        if (usage != null) {
+            return usage;
+        }
+        // walk outside of the map so that other users are not blocked
+        var loaded = new Usage(walk(rootPath.resolve(uid)));
+        usage = usages.putIfAbsent(uid, loaded);
+        return usage != null ? usage : loaded;
+    }
+
+    private String ownerOf(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        if (!normalized.startsWith(rootPath) || normalized.getNameCount() < rootPath.getNameCount() + 2) {
+            // not in a user directory
+            return null;
+        }
+        return normalized.getName(rootPath.getNameCount()).toString();
+    }
+
+    private static long walk(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        // part files of chunked uploads are counted as reserved
+        Path uploadDir = dir.resolve(Constants.CHUNKED_UPLOAD_DIR);
+        try (Stream<Path> stream = Files.walk(dir)) {
+            return stream.filter(path -> !path.startsWith(uploadDir)).mapToLong(path -> {
+                try {
+                    var attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                    return attrs.isRegularFile() ? attrs.size() : 0;
+                } catch (NoSuchFileException ex) {
+                    // deleted while walking
+                    return 0;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }).sum();
+        } catch (IOException | UncheckedIOException ex) {
+            throw new IORuntimeException("Failed to compute storage usage. dir:" + dir, ex);
+        }
+    }
+
+    private static class Usage {
+        // bytes stored in the user directory
+        private final AtomicLong used;
+        // bytes reserved by writers and not recorded yet
+        private final AtomicLong reserved = new AtomicLong();
+
+        private Usage(long used) {
+            this.used = new AtomicLong(used);
+        }
+    }
+
+    /**
+     * Bytes reserved against the quota of a user.
+     */
+    public static class Reservation {
+
+        /** Reservation with no bytes. */
+        public static final Reservation NONE = new Reservation(new AtomicLong(), 0);
+
+        private final AtomicLong reserved;
+        private final AtomicLong bytes;
+
+        private Reservation(AtomicLong reserved, long bytes) {
+            this.reserved = reserved;
+            this.bytes = new AtomicLong(bytes);
+        }
+
+        /**
+         * Release the reserved bytes. Calling this more than once has no effect.
+         */
+        public void release() {
+            long released = bytes.getAndSet(0);
+            if (released > 0) {
+                reserved.addAndGet(-released);
+            }
+        }
+    }
+}
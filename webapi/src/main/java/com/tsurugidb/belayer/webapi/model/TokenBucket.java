@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket with a rate that can be changed at runtime.
+ *
+ * Tokens are bytes. The bucket holds at most one second of tokens, and
+ * a reservation may go into debt so that a large request is paced instead of
+ * being rejected.
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /** rate in bytes/sec. 0 or less means unlimited. */
+    private final LongSupplier rateSupplier;
+
+    /** current time in nanoseconds */
+    private final LongSupplier nanoClock;
+
+    private double tokens = 0;
+
+    private long lastRefillNanos;
+
+    public TokenBucket(LongSupplier rateSupplier) {
+        this(rateSupplier, System::nanoTime);
+    }
+
+    /**
+     * @param rateSupplier rate in bytes/sec. 0 or less means unlimited.
+     * @param nanoClock    current time in nanoseconds, e.g. System::nanoTime
+     */
+    public TokenBucket(LongSupplier rateSupplier, LongSupplier nanoClock) {
+        this.rateSupplier = rateSupplier;
+        this.nanoClock = nanoClock;
+        this.lastRefillNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Reserve tokens.
+     *
+     * @param bytes number of bytes
+     * @return nanoseconds to wait before using the reserved tokens
+     */
+    public synchronized long reserve(long bytes) {
+        long rate = rateSupplier.getAsLong();
+        long now = nanoClock.getAsLong();
+        long elapsed = now - lastRefillNanos;
+        lastRefillNanos = now;
+
+        if (rate <= 0) {
+            tokens = 0;
+            return 0;
+        }
+
+        tokens = Math.min(rate, tokens + (double) elapsed * rate / NANOS_PER_SECOND);
+        tokens -= bytes;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens * NANOS_PER_SECOND / rate);
+    }
+}
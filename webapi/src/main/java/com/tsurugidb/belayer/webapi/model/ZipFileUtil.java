@@ -20,30 +20,92 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tsurugidb.belayer.webapi.dto.BackupManifest;
+import com.tsurugidb.belayer.webapi.dto.BackupManifest.ManifestEntry;
 import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+import com.tsurugidb.belayer.webapi.util.DigestUtil;
 
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 public class ZipFileUtil {
 
+    /** name of the manifest entry stored in backup zip files */
+    public static final String MANIFEST_ENTRY_NAME = "belayer-manifest.json";
+
+    private static final int EXTRACT_BUFFER_SIZE = 256 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     public static Collector<String, ?, String> collectAsZipFile(Path basePath, String zipFileName, int compressLevel) {
+        return collectAsZipFile(basePath, zipFileName, compressLevel, IoLimiter.NONE);
+    }
+
+    public static Collector<String, ?, String> collectAsZipFile(Path basePath, String zipFileName, int compressLevel,
+            IoLimiter limiter) {
+        return collectAsZipFile(basePath, zipFileName, compressLevel, limiter, false);
+    }
+
+    /**
+     * Collector that writes a zip file with a manifest entry.
+     *
+     * CRC32C and SHA-256 of each file are computed while the file is written
+     * into the zip file, and the manifest is stored as the last entry.
+     *
+     * @param basePath      base path to compute entry names
+     * @param zipFileName   zip file name
+     * @param compressLevel compress level(0-9 or -1 as default)
+     * @param limiter       I/O limiter
+     * @return zip file name
+     */
+    public static Collector<String, ?, String> collectAsZipFileWithManifest(Path basePath, String zipFileName,
+            int compressLevel, IoLimiter limiter) {
+        return collectAsZipFile(basePath, zipFileName, compressLevel, limiter, true);
+    }
+
+    private static Collector<String, ?, String> collectAsZipFile(Path basePath, String zipFileName, int compressLevel,
+            IoLimiter limiter, boolean withManifest) {
 
         log.debug("basePath:{}, zipFileName:{}", basePath, zipFileName);
 
-        Supplier<ZipOutputStream> supplier = () -> {
+        Supplier<ZipWriter> supplier = () -> {
             try {
                 Path parentDir = Path.of(zipFileName).getParent();
                 log.debug("parentDir:{}", parentDir);
@@ -53,7 +115,7 @@ public class ZipFileUtil {
                 FileOutputStream fos = new FileOutputStream(zipFileName);
                 ZipOutputStream zos = new ZipOutputStream(fos);
                 zos.setLevel(compressLevel);
-                return zos;
+                return new ZipWriter(zos, withManifest ? new BackupManifest() : null);
             } catch (FileNotFoundException ex) {
                 throw new IORuntimeException("Zip file path is invalid.", ex);
             } catch (IOException ex) {
@@ -61,13 +123,23 @@ public class ZipFileUtil {
             }
         };
 
-        BiConsumer<ZipOutputStream, String> accumulator = (zos, filePath) -> {
-            synchronized (zos) {
+        BiConsumer<ZipWriter, String> accumulator = (writer, filePath) -> {
+            synchronized (writer) {
                 try {
                     log.debug("zip file path:{}", filePath);
-                    ZipEntry entry = new ZipEntry(toFilePath(basePath, filePath));
+                    String entryName = toFilePath(basePath, filePath);
+                    ZipOutputStream zos = writer.zos;
+                    ZipEntry entry = new ZipEntry(entryName);
                     zos.putNextEntry(entry);
-                    zos.write(getFileContents(filePath));
+                    if (writer.manifest == null) {
+                        try (InputStream in = limiter.wrap(Files.newInputStream(Path.of(filePath)))) {
+                            in.transferTo(zos);
+                        }
+                    } else {
+                        try (InputStream in = limiter.wrap(Files.newInputStream(Path.of(filePath)))) {
+                            writer.manifest.getEntries().add(copyWithChecksum(entryName, in, zos));
+                        }
+                    }
                     zos.closeEntry();
                 } catch (IOException ex) {
                     throw new IORuntimeException("I/O Error occurred while writing a zip file.", ex);
@@ -75,13 +147,18 @@ public class ZipFileUtil {
             }
         };
 
-        BinaryOperator<ZipOutputStream> combiner = (list1, list2) -> {
+        BinaryOperator<ZipWriter> combiner = (list1, list2) -> {
             throw new UnsupportedOperationException("Combining multiple streams is not supported.");
         };
 
-        Function<ZipOutputStream, String> finisher = z -> {
+        Function<ZipWriter, String> finisher = writer -> {
             try {
-                z.close();
+                if (writer.manifest != null) {
+                    writer.zos.putNextEntry(new ZipEntry(MANIFEST_ENTRY_NAME));
+                    writer.zos.write(MAPPER.writeValueAsBytes(writer.manifest));
+                    writer.zos.closeEntry();
+                }
+                writer.zos.close();
                 return zipFileName;
             } catch (IOException ex) {
                 throw new IORuntimeException("I/O Error occurred while writing a zip file.", ex);
@@ -92,20 +169,153 @@ public class ZipFileUtil {
         return Collector.of(supplier, accumulator, combiner, finisher);
     }
 
-    private static String toFilePath(Path basePath, String filePath) {
-        log.debug("base:{}, path:{}", basePath, filePath);
-        return basePath.relativize(Path.of(filePath)).toString();
+    private static class ZipWriter {
+        private final ZipOutputStream zos;
+        private final BackupManifest manifest;
+
+        private ZipWriter(ZipOutputStream zos, BackupManifest manifest) {
+            this.zos = zos;
+            this.manifest = manifest;
+        }
     }
 
-    private static byte[] getFileContents(String filePath) {
-        try {
-            return Files.readAllBytes(Path.of(filePath));
+    private static ManifestEntry copyWithChecksum(String entryName, InputStream in, OutputStream out)
+            throws IOException {
+        CRC32C crc = new CRC32C();
+        MessageDigest sha256 = DigestUtil.newSha256();
+        byte[] buffer = new byte[EXTRACT_BUFFER_SIZE];
+        long size = 0;
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+            crc.update(buffer, 0, len);
+            sha256.update(buffer, 0, len);
+            out.write(buffer, 0, len);
+            size += len;
+        }
+
+        var entry = new ManifestEntry();
+        entry.setPath(entryName);
+        entry.setSize(size);
+        entry.setCrc32c(String.format("%08x", crc.getValue()));
+        entry.setSha256(DigestUtil.toHex(sha256.digest()));
+        return entry;
+    }
+
+    /**
+     * Read the manifest in a zip file.
+     *
+     * @param zipFilePath zip file
+     * @return manifest, or empty if the zip file has no manifest
+     */
+    public static Optional<BackupManifest> readManifest(Path zipFilePath) {
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+            return readManifest(zipFile);
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while reading a zip file.", ex);
+        }
+    }
+
+    private static Optional<BackupManifest> readManifest(ZipFile zipFile) throws IOException {
+        ZipEntry entry = zipFile.getEntry(MANIFEST_ENTRY_NAME);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            return Optional.of(MAPPER.readValue(in, BackupManifest.class));
+        }
+    }
+
+    /**
+     * Verify the entries in a zip file against its manifest with multiple threads.
+     *
+     * @param zipFilePath zip file
+     * @param parallelism max number of threads
+     * @param limiter     I/O limiter
+     * @return list of errors. empty if the zip file is valid.
+     */
+    public static List<String> verifyZipFile(Path zipFilePath, int parallelism, IoLimiter limiter) {
+        return verifyZipFile(zipFilePath, parallelism, Schedulers.boundedElastic(), limiter);
+    }
+
+    /**
+     * Verify the entries in a zip file against its manifest with multiple threads.
+     *
+     * @param zipFilePath zip file
+     * @param parallelism max number of threads, including the calling thread
+     * @param scheduler   scheduler to borrow the other threads from
+     * @param limiter     I/O limiter
+     * @return list of errors. empty if the zip file is valid.
+     */
+    public static List<String> verifyZipFile(Path zipFilePath, int parallelism, Scheduler scheduler,
+            IoLimiter limiter) {
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+            Optional<BackupManifest> manifest = readManifest(zipFile);
+            if (manifest.isEmpty()) {
+                return List.of("Manifest is not found.");
+            }
+
+            Map<String, ManifestEntry> expected = toEntryMap(manifest.get());
+            List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+            List<ZipEntry> fileEntries = zipFile.stream()
+                    .filter(entry -> !entry.isDirectory() && !MANIFEST_ENTRY_NAME.equals(entry.getName()))
+                    .collect(Collectors.toList());
+            Set<String> found = fileEntries.stream().map(ZipEntry::getName).collect(Collectors.toSet());
+            for (String name : expected.keySet()) {
+                if (!found.contains(name)) {
+                    errors.add("Entry is missing: " + name);
+                }
+            }
+
+            runInParallel(fileEntries, parallelism, scheduler, zipEntry -> {
+                try (InputStream in = zipFile.getInputStream(zipEntry)) {
+                    String error = checkEntry(expected.get(zipEntry.getName()),
+                            copyWithChecksum(zipEntry.getName(), limiter.wrap(in), OutputStream.nullOutputStream()));
+                    if (error != null) {
+                        errors.add(error);
+                    }
+                } catch (ZipException ex) {
+                    errors.add("Entry is corrupted: " + zipEntry.getName() + " (" + ex.getMessage() + ")");
+                }
+            });
+
+            Collections.sort(errors);
+            return errors;
         } catch (IOException ex) {
-            throw new IORuntimeException("I/O Error occurred while reading a file.", ex);
+            throw new IORuntimeException("I/O Error occurred while verifying a zip file.", ex);
+        }
+    }
+
+    private static Map<String, ManifestEntry> toEntryMap(BackupManifest manifest) {
+        Map<String, ManifestEntry> map = new HashMap<>();
+        for (ManifestEntry entry : manifest.getEntries()) {
+            map.put(entry.getPath(), entry);
+        }
+        return map;
+    }
+
+    private static String checkEntry(ManifestEntry expected, ManifestEntry actual) {
+        if (expected == null) {
+            return "Entry is not in the manifest: " + actual.getPath();
+        }
+        if (expected.getSize() != actual.getSize()
+                || !expected.getCrc32c().equals(actual.getCrc32c())
+                || !expected.getSha256().equals(actual.getSha256())) {
+            return "Checksum mismatch: " + actual.getPath();
         }
+        return null;
+    }
+
+    private static String toFilePath(Path basePath, String filePath) {
+        log.debug("base:{}, path:{}", basePath, filePath);
+        return basePath.relativize(Path.of(filePath)).toString();
     }
 
     public static void extractZipFile(Path destDir, Path zipFilePath) {
+        extractZipFile(destDir, zipFilePath, IoLimiter.NONE);
+    }
+
+    public static void extractZipFile(Path destDir, Path zipFilePath, IoLimiter limiter) {
         Objects.requireNonNull(destDir, "destDir");
         Objects.requireNonNull(zipFilePath, "zipFilePath");
 
@@ -115,6 +325,11 @@ public class ZipFileUtil {
 
             byte[] buffer = new byte[1024];
             while (zipEntry != null) {
+                if (MANIFEST_ENTRY_NAME.equals(zipEntry.getName())) {
+                    zis.closeEntry();
+                    zipEntry = zis.getNextEntry();
+                    continue;
+                }
                 File newFile = newFile(destDir.toFile(), zipEntry);
                 if (zipEntry.isDirectory()) {
                     if (!newFile.isDirectory() && !newFile.mkdirs()) {
@@ -132,6 +347,7 @@ public class ZipFileUtil {
                     FileOutputStream fos = new FileOutputStream(newFile);
                     int len;
                     while ((len = zis.read(buffer)) > 0) {
+                        limiter.acquire(len);
                         fos.write(buffer, 0, len);
                     }
                     fos.close();
@@ -145,6 +361,283 @@ public class ZipFileUtil {
         }
     }
 
+    /**
+     * Extract a zip file with multiple threads.
+     *
+     * Entries are read by random access through the central directory and
+     * inflated concurrently, larger entries first.
+     *
+     * @param destDir     destination directory
+     * @param zipFilePath zip file
+     * @param parallelism max number of threads
+     * @param limiter     I/O limiter
+     */
+    public static void extractZipFileParallel(Path destDir, Path zipFilePath, int parallelism, IoLimiter limiter) {
+        extractZipFileParallel(destDir, zipFilePath, parallelism, limiter, false);
+    }
+
+    /**
+     * Extract a zip file with multiple threads.
+     *
+     * Entries are read by random access through the central directory and
+     * inflated concurrently, larger entries first. If verify is true, checksums
+     * of each entry are computed while extracting and compared with the manifest.
+     *
+     * @param destDir     destination directory
+     * @param zipFilePath zip file
+     * @param parallelism max number of threads
+     * @param limiter     I/O limiter
+     * @param verify      verify entries against the manifest
+     */
+    public static void extractZipFileParallel(Path destDir, Path zipFilePath, int parallelism, IoLimiter limiter,
+            boolean verify) {
+        extractZipFileParallel(destDir, zipFilePath, parallelism, Schedulers.boundedElastic(), limiter, verify);
+    }
+
+    /**
+     * Extract a zip file with multiple threads.
+     *
+     * Entries are read by random access through the central directory and
+     * inflated concurrently, larger entries first. If verify is true, checksums
+     * of each entry are computed while extracting and compared with the manifest.
+     *
+     * @param destDir     destination directory
+     * @param zipFilePath zip file
+     * @param parallelism max number of threads, including the calling thread
+     * @param scheduler   scheduler to borrow the other threads from
+     * @param limiter     I/O limiter
+     * @param verify      verify entries against the manifest
+     */
+    public static void extractZipFileParallel(Path destDir, Path zipFilePath, int parallelism, Scheduler scheduler,
+            IoLimiter limiter, boolean verify) {
+        Objects.requireNonNull(destDir, "destDir");
+        Objects.requireNonNull(zipFilePath, "zipFilePath");
+
+        try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+
+            Map<String, ManifestEntry> expected = null;
+            if (verify) {
+                expected = toEntryMap(readManifest(zipFile)
+                        .orElseThrow(() -> new IOException("Manifest is not found in the zip file.")));
+            }
+
+            // create directories before extracting files
+            List<ZipEntry> fileEntries = new ArrayList<>();
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry zipEntry = entries.nextElement();
+                if (MANIFEST_ENTRY_NAME.equals(zipEntry.getName())) {
+                    continue;
+                }
+                File newFile = newFile(destDir.toFile(), zipEntry);
+                if (zipEntry.isDirectory()) {
+                    if (!newFile.isDirectory() && !newFile.mkdirs()) {
+                        throw new IOException("Failed to create directory " + newFile);
+                    }
+                } else {
+                    // fix for Windows-created archives
+                    File parent = newFile.getParentFile();
+                    if (!parent.isDirectory() && !parent.mkdirs()) {
+                        throw new IOException("Failed to create directory " + parent);
+                    }
+                    fileEntries.add(zipEntry);
+                }
+            }
+
+            if (verify && fileEntries.size() != expected.size()) {
+                throw new IOException("Entries in the zip file do not match the manifest.");
+            }
+
+            fileEntries.sort(Comparator.comparingLong(ZipEntry::getSize).reversed());
+            log.debug("extract zip file:{}, entries:{}, verify:{}", zipFilePath, fileEntries.size(), verify);
+
+            Map<String, ManifestEntry> expectedEntries = expected;
+            runInParallel(fileEntries, parallelism, scheduler, zipEntry -> {
+                File newFile = newFile(destDir.toFile(), zipEntry);
+                if (expectedEntries == null) {
+                    extractEntry(zipFile, zipEntry, newFile, limiter);
+                    return;
+                }
+                log.debug("extract and verify file:" + newFile);
+                try (InputStream in = limiter.wrap(zipFile.getInputStream(zipEntry));
+                        OutputStream out = new FileOutputStream(newFile)) {
+                    String error = checkEntry(expectedEntries.get(zipEntry.getName()),
+                            copyWithChecksum(zipEntry.getName(), in, out));
+                    if (error != null) {
+                        throw new IOException(error);
+                    }
+                }
+            });
+
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while extract a zip file.", ex);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryTask {
+        void run(ZipEntry zipEntry) throws IOException;
+    }
+
+    /**
+     * Run the task for each entry with at most parallelism threads.
+     *
+     * The calling thread processes entries too, and the other threads are
+     * borrowed from the scheduler, so the entries are processed even when the
+     * scheduler has no threads available, e.g. when called on the scheduler.
+     * Tasks of the scheduler not started until the calling thread runs out of
+     * entries are not waited for.
+     */
+    private static void runInParallel(List<ZipEntry> zipEntries, int parallelism, Scheduler scheduler,
+            EntryTask task) throws IOException {
+        if (zipEntries.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.max(1, Math.min(parallelism, zipEntries.size()));
+        Queue<ZipEntry> queue = new ConcurrentLinkedQueue<>(zipEntries);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch helpers = new CountDownLatch(threads - 1);
+        Runnable worker = () -> {
+            ZipEntry zipEntry;
+            while (failure.get() == null && (zipEntry = queue.poll()) != null) {
+                try {
+                    task.run(zipEntry);
+                } catch (Throwable th) {
+                    failure.compareAndSet(null, th);
+                }
+            }
+        };
+        List<AtomicBoolean> started = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            AtomicBoolean helperStarted = new AtomicBoolean();
+            started.add(helperStarted);
+            try {
+                scheduler.schedule(() -> {
+                    if (!helperStarted.compareAndSet(false, true)) {
+                        // the calling thread has processed all entries
+                        return;
+                    }
+                    try {
+                        worker.run();
+                    } finally {
+                        helpers.countDown();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                // the queue of the scheduler is full, fewer threads are used
+                log.debug("zip entries are processed with fewer threads.", ex);
+            }
+        }
+
+        worker.run();
+        for (AtomicBoolean helperStarted : started) {
+            if (helperStarted.compareAndSet(false, true)) {
+                // not started yet or rejected, no need to wait for it
+                helpers.countDown();
+            }
+        }
+        try {
+            helpers.await();
+        } catch (InterruptedException ex) {
+            // stop the other threads after their current entries
+            failure.compareAndSet(null, ex);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing a zip file.", ex);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause != null) {
+            throw new IOException("Failed to process a zip entry.", cause);
+        }
+    }
+
+    /**
+     * Open a zip file to read its entries.
+     *
+     * The caller must close the returned zip file.
+     *
+     * @param zipFilePath zip file
+     * @return opened zip file
+     */
+    public static ZipFile openZipFile(Path zipFilePath) {
+        try {
+            return new ZipFile(zipFilePath.toFile());
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while reading a zip file.", ex);
+        }
+    }
+
+    /**
+     * List file entries in a zip file.
+     *
+     * @param zipFilePath zip file
+     * @return file entries (directories are excluded)
+     */
+    public static List<ZipEntry> listFileEntries(Path zipFilePath) {
+        try (ZipFile zipFile = openZipFile(zipFilePath)) {
+            return listFileEntries(zipFile);
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while reading a zip file.", ex);
+        }
+    }
+
+    /**
+     * List file entries in a zip file.
+     *
+     * @param zipFile opened zip file
+     * @return file entries (directories are excluded)
+     */
+    public static List<ZipEntry> listFileEntries(ZipFile zipFile) {
+        return zipFile.stream()
+                .filter(entry -> !entry.isDirectory() && !MANIFEST_ENTRY_NAME.equals(entry.getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Extract a single entry of a zip file.
+     *
+     * Entries of the same zip file can be extracted concurrently.
+     *
+     * @param destDir  destination directory
+     * @param zipFile  opened zip file
+     * @param zipEntry entry to extract
+     * @param limiter  I/O limiter
+     * @return path of the extracted file
+     */
+    public static Path extractZipEntry(Path destDir, ZipFile zipFile, ZipEntry zipEntry, IoLimiter limiter) {
+        try {
+            File newFile = newFile(destDir.toFile(), zipEntry);
+            File parent = newFile.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Failed to create directory " + parent);
+            }
+            extractEntry(zipFile, zipEntry, newFile, limiter);
+
+            return newFile.toPath();
+        } catch (IOException ex) {
+            throw new IORuntimeException("I/O Error occurred while extract a zip file.", ex);
+        }
+    }
+
+    private static void extractEntry(ZipFile zipFile, ZipEntry zipEntry, File newFile, IoLimiter limiter)
+            throws IOException {
+        log.debug("extract file:" + newFile);
+
+        byte[] buffer = new byte[EXTRACT_BUFFER_SIZE];
+        try (InputStream in = zipFile.getInputStream(zipEntry);
+                OutputStream out = new FileOutputStream(newFile)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                limiter.acquire(len);
+                out.write(buffer, 0, len);
+            }
+        }
+    }
+
     private static File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
         File destFile = new File(destinationDir, zipEntry.getName());
 
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Writes a zip file chunk by chunk without creating it on disk.
+ *
+ * Each call of {@link #nextChunk()} reads files only until about one chunk of
+ * compressed data is available, so the caller decides the pace of reading.
+ */
+@Slf4j
+public class ZipStreamWriter implements Closeable {
+
+    /** default size of a chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final Stream<Map.Entry<String, Path>> entryStream;
+    private final Iterator<Map.Entry<String, Path>> entries;
+    private final int chunkSize;
+    private final ChunkBuffer out = new ChunkBuffer();
+    private final ZipOutputStream zos;
+    private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private InputStream current;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param basePath      base path to compute entry names
+     * @param filePaths     files to write into the zip
+     * @param compressLevel compress level(0-9 or -1 as default)
+     * @param chunkSize     approximate size of each chunk
+     */
+    public ZipStreamWriter(Path basePath, List<String> filePaths, int compressLevel, int chunkSize) {
+        this(toEntries(Objects.requireNonNull(basePath, "basePath"), Objects.requireNonNull(filePaths, "filePaths")),
+                compressLevel, chunkSize);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param entries       entry names and files to write into the zip, in the
+     *                      order of entries
+     * @param compressLevel compress level(0-9 or -1 as default)
+     * @param chunkSize     approximate size of each chunk
+     */
+    public ZipStreamWriter(Map<String, Path> entries, int compressLevel, int chunkSize) {
+        this(Objects.requireNonNull(entries, "entries").entrySet().stream(), compressLevel, chunkSize);
+    }
+
+    /**
+     * Constructor.
+     *
+     * The stream may block until the next entry is available, so files can be
+     * written while later files are still being created. The stream is closed
+     * with this writer.
+     *
+     * @param entries       entry names and files to write into the zip, in the
+     *                      order of entries
+     * @param compressLevel compress level(0-9 or -1 as default)
+     * @param chunkSize     approximate size of each chunk
+     */
+    public ZipStreamWriter(Stream<Map.Entry<String, Path>> entries, int compressLevel, int chunkSize) {
+        this.entryStream = Objects.requireNonNull(entries, "entries");
+        this.entries = entryStream.iterator();
+        this.chunkSize = chunkSize;
+        this.zos = new ZipOutputStream(out);
+        this.zos.setLevel(compressLevel);
+    }
+
+    /**
+     * Return the next chunk of the zip file.
+     *
+     * @return chunk, or null when the zip file is completed
+     * @throws IOException I/O Error
+     */
+    public byte[] nextChunk() throws IOException {
+        while (out.size() < chunkSize && !finished) {
+            if (current == null) {
+                if (!entries.hasNext()) {
+                    zos.finish();
+                    finished = true;
+                    break;
+                }
+                var entry = entries.next();
+                log.debug("zip entry:{}", entry.getKey());
+                zos.putNextEntry(new ZipEntry(entry.getKey()));
+                current = Files.newInputStream(entry.getValue());
+            }
+
+            int len = current.read(readBuffer);
+            if (len < 0) {
+                current.close();
+                current = null;
+                zos.closeEntry();
+                continue;
+            }
+            zos.write(readBuffer, 0, len);
+        }
+
+        if (out.size() == 0) {
+            return null;
+        }
+        return out.drain();
+    }
+
+    private static Map<String, Path> toEntries(Path basePath, List<String> filePaths) {
+        Map<String, Path> entries = new LinkedHashMap<>();
+        for (String filePath : filePaths) {
+            Path path = Path.of(filePath);
+            entries.put(basePath.relativize(path).toString(), path);
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (current != null) {
+                current.close();
+            }
+        } finally {
+            try {
+                zos.close();
+            } finally {
+                entryStream.close();
+            }
+        }
+    }
+
+    /**
+     * Stream a zip file as data buffers.
+     *
+     * A chunk is written only when the subscriber requests it, so a slow client
+     * does not make files read ahead into memory.
+     *
+     * @param writerSupplier supplier of the writer, called on subscription
+     * @param bufferFactory  data buffer factory
+     * @param scheduler      scheduler to read files
+     * @return zip file contents
+     */
+    public static Flux<DataBuffer> toFlux(Supplier<ZipStreamWriter> writerSupplier, DataBufferFactory bufferFactory,
+            Scheduler scheduler) {
+        return Flux.<DataBuffer, ZipStreamWriter>generate(writerSupplier::get, (writer, sink) -> {
+            try {
+                byte[] chunk = writer.nextChunk();
+                if (chunk == null) {
+                    sink.complete();
+                } else {
+                    sink.next(bufferFactory.wrap(chunk));
+                }
+            } catch (IOException ex) {
+                sink.error(new IORuntimeException("I/O Error occurred while writing a zip stream.", ex));
+            }
+            return writer;
+        }, writer -> {
+            try {
+                writer.close();
+            } catch (IOException ex) {
+                log.debug("failed to close zip stream.", ex);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Output buffer that is drained chunk by chunk.
+     */
+    private static class ChunkBuffer extends ByteArrayOutputStream {
+
+        private ChunkBuffer() {
+            super(DEFAULT_CHUNK_SIZE + READ_BUFFER_SIZE);
+        }
+
+        private byte[] drain() {
+            byte[] chunk = toByteArray();
+            reset();
+            return chunk;
+        }
+    }
+}
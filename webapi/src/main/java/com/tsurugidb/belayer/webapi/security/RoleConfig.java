@@ -23,6 +23,9 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import javax.annotation.PostConstruct;
 
@@ -45,6 +48,9 @@ import lombok.extern.slf4j.Slf4j;
 public class RoleConfig {
     private static final String DUMP_FILE_NAME = "belayer_role_users.json";
 
+    // max number of users whose roles are memoized in a mapping
+    private static final int MAX_MEMOIZED_USERS = 10000;
+
     @Value("${webapi.user_role.data.directory}")
     private String dumpFileDir;
 
@@ -60,12 +66,9 @@ public class RoleConfig {
     private String jsonFilePath;
 
     /**
-     * Role to User Id Matcher Map
-     * 
-     * key: role name
-     * value: Set of User ID matchers
+     * current role-user mapping, replaced as a whole when updated
      */
-    Map<String, Set<String>> roleUserMap;
+    private volatile RoleUserMapping mapping;
 
     /**
      * init role-user mapping
@@ -87,22 +90,26 @@ public class RoleConfig {
     /**
      * Return User's roles
      * 
+     * The result is kept until the mapping is updated, so it must not be
+     * modified.
+     * 
      * @param userId User ID
      * @return Set of role names
      */
-    public synchronized List<String> getRolesByUserId(String userId) {
-        List<String> roles = new ArrayList<>();
-        for (var entry : roleUserMap.entrySet()) {
-            var role = entry.getKey();
-            var userConditions = entry.getValue();
-            for (String userCondition : userConditions) {
-                // regexp match
-                if (userId.matches(userCondition)) {
-                    roles.add(role);
-                }
-            }
-        }
-        return roles;
+    public List<String> getRolesByUserId(String userId) {
+        return mapping.getRoles(userId);
+    }
+
+    /**
+     * Return the version of role-user mapping.
+     *
+     * The version changes whenever the mapping is updated, so the caller can
+     * tell whether roles computed before are still valid.
+     *
+     * @return version of role-user mapping
+     */
+    public long getVersion() {
+        return mapping.version;
     }
 
     /**
@@ -120,9 +127,9 @@ public class RoleConfig {
      * 
      * @return user-role mapping JSON string.
      */
-    public synchronized String dumpToJson() {
+    public String dumpToJson() {
         try {
-            return mapper.writeValueAsString(roleUserMap);
+            return mapper.writeValueAsString(mapping.roleUserMap);
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
@@ -156,7 +163,8 @@ public class RoleConfig {
                     throw new InvalidSettingException("Invalid Role name. role name:" + roleName);
                 }
             }
-            roleUserMap = newRoleUserMap;
+            long version = mapping == null ? 0 : mapping.version + 1;
+            mapping = new RoleUserMapping(newRoleUserMap, version);
 
             // output if success
             dumpToJsonFile();
@@ -198,4 +206,66 @@ public class RoleConfig {
         }
     }
 
+    /**
+     * Immutable role-user mapping with precompiled user ID matchers.
+     */
+    private static class RoleUserMapping {
+
+        /**
+         * Role to User Id Matcher Map
+         *
+         * key: role name
+         * value: Set of User ID matchers
+         */
+        private final Map<String, Set<String>> roleUserMap;
+
+        private final Map<String, List<Pattern>> rolePatterns;
+
+        private final long version;
+
+        // roles of users computed with this mapping
+        private final Map<String, List<String>> rolesByUser = new ConcurrentHashMap<>();
+
+        private RoleUserMapping(Map<String, Set<String>> roleUserMap, long version) throws InvalidSettingException {
+            Map<String, List<Pattern>> patterns = new LinkedHashMap<>();
+            for (var entry : roleUserMap.entrySet()) {
+                List<Pattern> list = new ArrayList<>();
+                for (String userCondition : entry.getValue()) {
+                    try {
+                        list.add(Pattern.compile(userCondition));
+                    } catch (PatternSyntaxException ex) {
+                        throw new InvalidSettingException("Invalid user condition. condition:" + userCondition, ex);
+                    }
+                }
+                patterns.put(entry.getKey(), List.copyOf(list));
+            }
+            this.roleUserMap = roleUserMap;
+            this.rolePatterns = patterns;
+            this.version = version;
+        }
+
+        private List<String> getRoles(String userId) {
+            List<String> roles = rolesByUser.get(userId);
+            if (roles != null) {
+                return roles;
+            }
+
+            List<String> matched = new ArrayList<>();
+            for (var entry : rolePatterns.entrySet()) {
+                for (Pattern pattern : entry.getValue()) {
+                    // regexp match
+                    if (pattern.matcher(userId).matches()) {
+                        matched.add(entry.getKey());
+                        break;
+                    }
+                }
+            }
+            roles = List.copyOf(matched);
+            if (rolesByUser.size() < MAX_MEMOIZED_USERS) {
+                rolesByUser.put(userId, roles);
+            }
+            return roles;
+        }
+    }
+
 }
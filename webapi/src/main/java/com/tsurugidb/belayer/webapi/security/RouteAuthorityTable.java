@@ -0,0 +1,242 @@
+/*
+ * Copyright 2023 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Lookup table from request paths to the access rules.
+ *
+ * Path patterns are compiled into a trie of path segments, so a request path is
+ * resolved by one walk of the trie instead of trying every pattern in turn.
+ * Each segment of a pattern is a literal, "*" (one segment) or "**" (the rest
+ * of the path, only at the end). When more than one pattern matches, the rule
+ * added first wins, in the same way as a chain of path matchers.
+ */
+public class RouteAuthorityTable {
+
+  private final Node root = new Node();
+
+  private final Rule fallback;
+
+  private int order;
+
+  /**
+   * Constructor.
+   *
+   * @param fallback rule for paths that match no pattern
+   */
+  public RouteAuthorityTable(Rule fallback) {
+    this.fallback = Objects.requireNonNull(fallback, "fallback");
+  }
+
+  /**
+   * Add a path pattern. Patterns added earlier take precedence.
+   *
+   * @param pathPattern path pattern
+   * @param rule        access rule for the pattern
+   * @return this table
+   */
+  public RouteAuthorityTable add(String pathPattern, Rule rule) {
+    Objects.requireNonNull(rule, "rule");
+    var entry = new Entry(order++, pathPattern, rule);
+
+    Node node = root;
+    List<String> segments = splitPattern(pathPattern);
+    for (int i = 0; i < segments.size(); i++) {
+      String segment = segments.get(i);
+      if (segment.equals("**")) {
+        if (i != segments.size() - 1) {
+          throw new IllegalArgumentException("\"**\" is allowed only at the end of a path pattern:" + pathPattern);
+        }
+        if (node.rest == null) {
+          node.rest = entry;
+        }
+        return this;
+      }
+      if (segment.contains("*") || segment.contains("{")) {
+        if (!segment.equals("*")) {
+          throw new IllegalArgumentException("Unsupported path pattern:" + pathPattern);
+        }
+        if (node.single == null) {
+          node.single = new Node();
+        }
+        node = node.single;
+      } else {
+        node = node.children.computeIfAbsent(segment, key -> new Node());
+      }
+    }
+    if (node.exact == null) {
+      node.exact = entry;
+    }
+    return this;
+  }
+
+  /**
+   * Return the access rule for a request path.
+   *
+   * @param path request path within the application
+   * @return access rule
+   */
+  public Rule lookup(PathContainer path) {
+    List<String> segments = new ArrayList<>();
+    for (var element : path.elements()) {
+      if (element instanceof PathContainer.PathSegment) {
+        segments.add(((PathContainer.PathSegment) element).valueToMatch());
+      }
+    }
+
+    Entry entry = find(root, segments, 0);
+    return entry == null ? fallback : entry.rule;
+  }
+
+  /**
+   * Return the access rule for a request path.
+   *
+   * @param path request path
+   * @return access rule
+   */
+  public Rule lookup(String path) {
+    return lookup(PathContainer.parsePath(path));
+  }
+
+  private Entry find(Node node, List<String> segments, int index) {
+    Entry found = node.rest;
+    if (index == segments.size()) {
+      return first(found, node.exact);
+    }
+
+    String segment = segments.get(index);
+    Node child = node.children.get(segment);
+    if (child != null) {
+      found = first(found, find(child, segments, index + 1));
+    }
+    if (node.single != null && !segment.isEmpty()) {
+      found = first(found, find(node.single, segments, index + 1));
+    }
+    return found;
+  }
+
+  private static Entry first(Entry e1, Entry e2) {
+    if (e1 == null) {
+      return e2;
+    }
+    if (e2 == null) {
+      return e1;
+    }
+    return e1.order <= e2.order ? e1 : e2;
+  }
+
+  private static List<String> splitPattern(String pathPattern) {
+    Objects.requireNonNull(pathPattern, "pathPattern");
+    List<String> segments = new ArrayList<>();
+    for (String segment : pathPattern.split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(segment);
+      }
+    }
+    return segments;
+  }
+
+  /**
+   * Access rule of paths.
+   */
+  public static class Rule {
+
+    /** rule that permits all requests */
+    public static final Rule PERMIT_ALL = new Rule(true, Set.of());
+
+    /** rule that denies all requests */
+    public static final Rule DENY_ALL = new Rule(false, Set.of());
+
+    private final boolean permitAll;
+
+    private final Set<String> roles;
+
+    private Rule(boolean permitAll, Set<String> roles) {
+      this.permitAll = permitAll;
+      this.roles = roles;
+    }
+
+    /**
+     * Create a rule that requires any of roles.
+     *
+     * @param roles roles
+     * @return rule
+     */
+    public static Rule hasAnyRole(Set<String> roles) {
+      return new Rule(false, Set.copyOf(roles));
+    }
+
+    /**
+     * Return true if requests are permitted without authentication.
+     *
+     * @return true if requests are permitted without authentication
+     */
+    public boolean isPermitAll() {
+      return permitAll;
+    }
+
+    /**
+     * Return true if a user with the role is permitted.
+     *
+     * @param role role name
+     * @return true if permitted
+     */
+    public boolean isGranted(String role) {
+      return permitAll || roles.contains(role);
+    }
+
+    @Override
+    public String toString() {
+      if (permitAll) {
+        return "Permit_All";
+      }
+      return roles.isEmpty() ? "Deny_All" : roles.toString();
+    }
+  }
+
+  private static class Entry {
+    private final int order;
+    private final String pathPattern;
+    private final Rule rule;
+
+    private Entry(int order, String pathPattern, Rule rule) {
+      this.order = order;
+      this.pathPattern = pathPattern;
+      this.rule = rule;
+    }
+
+    @Override
+    public String toString() {
+      return pathPattern + ":" + rule;
+    }
+  }
+
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private Node single;
+    private Entry exact;
+    private Entry rest;
+  }
+}
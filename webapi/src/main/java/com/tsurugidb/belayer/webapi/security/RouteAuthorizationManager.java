@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.security;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.tsurugidb.belayer.webapi.security.RouteAuthorityTable.Rule;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Authorizes requests by the rule of the request path.
+ *
+ * The rule is looked up once per request and shared with the authentication
+ * filter, which does not parse the token of requests to public paths.
+ */
+public class RouteAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+  private static final String RULE_ATTRIBUTE = RouteAuthorizationManager.class.getName() + ".RULE";
+
+  private final RouteAuthorityTable table;
+
+  /**
+   * Constructor.
+   *
+   * @param table lookup table of access rules
+   */
+  public RouteAuthorizationManager(RouteAuthorityTable table) {
+    this.table = table;
+  }
+
+  /**
+   * Return the access rule for the request.
+   *
+   * @param exchange exchange
+   * @return access rule
+   */
+  public Rule resolve(ServerWebExchange exchange) {
+    Rule rule = exchange.getAttribute(RULE_ATTRIBUTE);
+    if (rule == null) {
+      if (exchange.getRequest().getMethod() == HttpMethod.OPTIONS) {
+        rule = Rule.PERMIT_ALL;
+      } else {
+        rule = table.lookup(exchange.getRequest().getPath().pathWithinApplication());
+      }
+      exchange.getAttributes().put(RULE_ATTRIBUTE, rule);
+    }
+    return rule;
+  }
+
+  /**
+   * Return the matcher of requests that need authentication.
+   *
+   * @return matcher
+   */
+  public ServerWebExchangeMatcher requiresAuthenticationMatcher() {
+    return exchange -> resolve(exchange).isPermitAll() ? MatchResult.notMatch() : MatchResult.match();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+    Rule rule = resolve(context.getExchange());
+    if (rule.isPermitAll()) {
+      return Mono.just(new AuthorizationDecision(true));
+    }
+
+    return authentication
+        .filter(Authentication::isAuthenticated)
+        .flatMapIterable(Authentication::getAuthorities)
+        .map(GrantedAuthority::getAuthority)
+        .any(rule::isGranted)
+        .map(AuthorizationDecision::new)
+        .defaultIfEmpty(new AuthorizationDecision(false));
+  }
+}
@@ -24,7 +24,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
@@ -32,12 +31,12 @@ import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
-import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
 import com.tsurugidb.belayer.webapi.config.RouterPath;
+import com.tsurugidb.belayer.webapi.security.RouteAuthorityTable.Rule;
 import com.tsurugidb.belayer.webapi.security.handler.BelayerServerAuthenticationEntryPoint;
 import com.tsurugidb.belayer.webapi.security.handler.BelayerServerAuthenticationFailureHandler;
 
@@ -77,7 +76,8 @@ public class SecurityConfig {
    */
   @Bean
   public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http,
-      ServerHttpBearerAuthenticationConverter bearerAuthenticationConverter) {
+      ServerHttpBearerAuthenticationConverter bearerAuthenticationConverter,
+      RouteAuthorizationManager routeAuthorizationManager) {
 
     http = http.exceptionHandling()
         .authenticationEntryPoint(new BelayerServerAuthenticationEntryPoint())
@@ -92,14 +92,41 @@ public class SecurityConfig {
         .cors(cors -> {
           cors.configurationSource(corsConfigurationSource());
         })
-        .addFilterAt(bearerAuthenticationFilter(bearerAuthenticationConverter), SecurityWebFiltersOrder.AUTHENTICATION);
+        .addFilterAt(bearerAuthenticationFilter(bearerAuthenticationConverter, routeAuthorizationManager),
+            SecurityWebFiltersOrder.AUTHENTICATION);
 
-    // pathes that should be pass the authentication.
-    var spec = http
+    // one lookup of the request path decides both authentication and authorization
+    http = http
         .authorizeExchange()
-        .pathMatchers("/favicon.ico", managementPath + "/**", adminPagePath, adminPagePath + "/**")
-        .permitAll()
-        .pathMatchers(HttpMethod.OPTIONS).permitAll();
+        .anyExchange().access(routeAuthorizationManager)
+        .and();
+
+    return http.build();
+  }
+
+  /**
+   * Authorization manager that looks up the access rule by request path.
+   *
+   * @return authorization manager
+   */
+  @Bean
+  public RouteAuthorizationManager routeAuthorizationManager() {
+    return new RouteAuthorizationManager(routeAuthorityTable());
+  }
+
+  /**
+   * Create the lookup table of access rules.
+   *
+   * @return lookup table
+   */
+  RouteAuthorityTable routeAuthorityTable() {
+    // Apply a auth filter to all /**
+    var table = new RouteAuthorityTable(Rule.hasAnyRole(Set.of(permissionConfig.getDefaultRole())));
+
+    // pathes that should be pass the authentication.
+    for (String match : List.of("/favicon.ico", managementPath + "/**", adminPagePath, adminPagePath + "/**")) {
+      table.add(match, Rule.PERMIT_ALL);
+    }
 
     // require authorities
     for (RouterPath path : RouterPath.values()) {
@@ -108,23 +135,19 @@ public class SecurityConfig {
           .flatMap(authority -> permissionConfig.getRoles(authority).stream())
           .collect(Collectors.toSet());
 
+      Rule rule;
       if (roleSet.size() == 0) {
-        log.info("---" + path.getPathMatch() + ", permission:" + List.of(path.getAuthorities()) + ", role:Permit_All");
-        spec = spec.pathMatchers(match).permitAll();
-      } else if (roleSet == PermissionConfig.NOT_ASSIGNED) {
-        log.info("---" + path.getPathMatch() + ", permission:" + List.of(path.getAuthorities()) + ", role:Deny_All");
-        spec = spec.pathMatchers(match).denyAll();
+        rule = Rule.PERMIT_ALL;
+      } else if (roleSet.equals(PermissionConfig.NOT_ASSIGNED)) {
+        rule = Rule.DENY_ALL;
       } else {
-        log.info("---" + path.getPathMatch() + ", permission:" + List.of(path.getAuthorities()) + ", role:" + roleSet);
-        spec = spec.pathMatchers(match).hasAnyAuthority(roleSet.toArray(new String[0]));
+        rule = Rule.hasAnyRole(roleSet);
       }
+      log.info("---" + match + ", permission:" + List.of(path.getAuthorities()) + ", role:" + rule);
+      table.add(match, rule);
     }
 
-    // Apply a auth filter to all /**
-    http = spec.pathMatchers("/**")
-        .hasAuthority(permissionConfig.getDefaultRole()).and();
-
-    return http.build();
+    return table;
   }
 
   private CorsConfigurationSource corsConfigurationSource() {
@@ -156,14 +179,17 @@ public class SecurityConfig {
    * AuthenticationFilter for this app.
    *
    * @param bearerAuthenticationConverter converter for authentication
+   * @param routeAuthorizationManager     manager to tell public paths
    * @return AuthenticationFilter
    */
-  private AuthenticationWebFilter bearerAuthenticationFilter(ServerHttpBearerAuthenticationConverter bearerConverter) {
+  private AuthenticationWebFilter bearerAuthenticationFilter(ServerHttpBearerAuthenticationConverter bearerConverter,
+      RouteAuthorizationManager routeAuthorizationManager) {
 
     ReactiveAuthenticationManager authManager = new BearerTokenReactiveAuthenticationManager();
     AuthenticationWebFilter authWebFilter = new AuthenticationWebFilter(authManager);
     authWebFilter.setServerAuthenticationConverter(bearerConverter);
-    authWebFilter.setRequiresAuthenticationMatcher(ServerWebExchangeMatchers.pathMatchers("/**"));
+    // tokens for public paths are not parsed
+    authWebFilter.setRequiresAuthenticationMatcher(routeAuthorizationManager.requiresAuthenticationMatcher());
     authWebFilter.setAuthenticationFailureHandler(new BelayerServerAuthenticationFailureHandler());
 
     return authWebFilter;
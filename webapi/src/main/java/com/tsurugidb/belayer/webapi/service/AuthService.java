@@ -16,13 +16,16 @@
 package com.tsurugidb.belayer.webapi.service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -41,6 +44,7 @@ import com.tsurugidb.belayer.webapi.exception.UnauthenticatedException;
 import com.tsurugidb.belayer.webapi.security.PermissionConfig;
 import com.tsurugidb.belayer.webapi.security.RoleConfig;
 import com.tsurugidb.belayer.webapi.security.UserTokenAuthentication;
+import com.tsurugidb.belayer.webapi.util.DigestUtil;
 import com.tsurugidb.tsubakuro.auth.Ticket;
 import com.tsurugidb.tsubakuro.auth.TicketProvider;
 import com.tsurugidb.tsubakuro.auth.TokenKind;
@@ -75,6 +79,12 @@ public class AuthService {
   @Value("${webapi.auth.at.expiration.min}")
   private int accessKeyExpirationMin;
 
+  @Value("${webapi.auth.token_cache.size}")
+  private int tokenCacheSize;
+
+  // verified access tokens. key: SHA-256 of the token
+  private final Map<String, CachedAuthentication> tokenCache = new ConcurrentHashMap<>();
+
   /**
    * verify user password credential and return access token.
    * 
@@ -171,6 +181,36 @@ public class AuthService {
 
     Objects.requireNonNull(token);
 
+    if (tokenCacheSize <= 0) {
+      return createAuthentication(token);
+    }
+
+    // read the version before computing roles, so that a mapping changed meanwhile
+    // makes the entry stale
+    long roleVersion = roleConfig.getVersion();
+    Instant now = Instant.now();
+    String key = DigestUtil.toHex(DigestUtil.newSha256().digest(token.getBytes(StandardCharsets.UTF_8)));
+    CachedAuthentication cached = tokenCache.get(key);
+    if (cached != null) {
+      if (cached.isValid(roleVersion, now)) {
+        return cached.authentication;
+      }
+      tokenCache.remove(key, cached);
+    }
+
+    UserTokenAuthentication auth = createAuthentication(token);
+    Instant expirationTime = auth.getTokenExpirationTime().orElse(null);
+    if (expirationTime != null && expirationTime.isAfter(now)) {
+      if (tokenCache.size() >= tokenCacheSize) {
+        evictTokenCache(now);
+      }
+      tokenCache.put(key, new CachedAuthentication(auth, expirationTime, roleVersion));
+    }
+    return auth;
+  }
+
+  private UserTokenAuthentication createAuthentication(String token) {
+
     Ticket ticket = null;
     try {
       ticket = ticketProvider.restore(token);
@@ -188,12 +228,47 @@ public class AuthService {
     }
     authorities.add(new SimpleGrantedAuthority(permissionConfig.getDefaultRole()));
 
-    for (SimpleGrantedAuthority authority : authorities) {
-      log.debug("role:{}, authz:{}", authority.getAuthority(),
-          permissionConfig.getAuthoritiesByRole(authority.getAuthority()));
+    if (log.isDebugEnabled()) {
+      for (SimpleGrantedAuthority authority : authorities) {
+        log.debug("role:{}, authz:{}", authority.getAuthority(),
+            permissionConfig.getAuthoritiesByRole(authority.getAuthority()));
+      }
     }
 
     return new UserTokenAuthentication(ticket.getUserId(), token, accessExpirationTime, true, authorities);
   }
 
+  private void evictTokenCache(Instant now) {
+    tokenCache.values().removeIf(entry -> !entry.expirationTime.isAfter(now));
+
+    // drop the entry expiring first if still full
+    while (tokenCache.size() >= tokenCacheSize) {
+      var first = tokenCache.entrySet().stream()
+          .min((e1, e2) -> e1.getValue().expirationTime.compareTo(e2.getValue().expirationTime));
+      if (first.isEmpty()) {
+        break;
+      }
+      tokenCache.remove(first.get().getKey());
+    }
+  }
+
+  /**
+   * Verified authentication held until the access token expires.
+   */
+  private static class CachedAuthentication {
+    private final UserTokenAuthentication authentication;
+    private final Instant expirationTime;
+    private final long roleVersion;
+
+    private CachedAuthentication(UserTokenAuthentication authentication, Instant expirationTime, long roleVersion) {
+      this.authentication = authentication;
+      this.expirationTime = expirationTime;
+      this.roleVersion = roleVersion;
+    }
+
+    private boolean isValid(long currentRoleVersion, Instant now) {
+      return roleVersion == currentRoleVersion && expirationTime.isAfter(now);
+    }
+  }
+
 }
@@ -19,20 +19,26 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.BackupJob;
 import com.tsurugidb.belayer.webapi.dto.BackupRestoreRequestParam;
+import com.tsurugidb.belayer.webapi.dto.BackupSnapshot.SnapshotFile;
+import com.tsurugidb.belayer.webapi.dto.BackupVerifyResult;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+import com.tsurugidb.belayer.webapi.dto.JobList;
 import com.tsurugidb.belayer.webapi.dto.RestoreJob;
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
 import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
@@ -41,8 +47,14 @@ import com.tsurugidb.belayer.webapi.exception.NotFoundException;
 import com.tsurugidb.belayer.webapi.exec.DbQuiesceExec;
 import com.tsurugidb.belayer.webapi.exec.DbRestoreExec;
 import com.tsurugidb.belayer.webapi.exec.OfflineBackupExec;
+import com.tsurugidb.belayer.webapi.model.BackupRepository;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
 import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.IoLimiter;
+import com.tsurugidb.belayer.webapi.model.IoThrottle;
 import com.tsurugidb.belayer.webapi.model.JobManager;
+import com.tsurugidb.belayer.webapi.model.JobScheduler;
+import com.tsurugidb.belayer.webapi.model.StorageUsageLedger;
 import com.tsurugidb.belayer.webapi.model.ZipFileUtil;
 import com.tsurugidb.belayer.webapi.util.FileUtil;
 import com.tsurugidb.tsubakuro.common.Session;
@@ -52,7 +64,6 @@ import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Component
@@ -62,7 +73,10 @@ public class BackupRestoreService {
   private JobManager jobManager;
 
   @Autowired
-  ThreadPoolTaskExecutor threadPoolTaskExecutor;
+  JobScheduler jobScheduler;
+
+  @Autowired
+  BelayerSchedulers belayerSchedulers;
 
   @Autowired
   TsubakuroService tsubakuroService;
@@ -82,17 +96,41 @@ public class BackupRestoreService {
   @Autowired
   DbRestoreExec dbRestoreExec;
 
+  @Autowired
+  IoThrottle ioThrottle;
+
+  @Autowired
+  StorageUsageLedger storageUsageLedger;
+
   @Value("${webapi.tsurugi.session_timeout}")
   private long sessionTimeout;
 
   @Value("${webapi.backup.zipcompresslevel}")
   private int zipCompressLevel;
 
+  @Value("${webapi.zip.extract.parallelism}")
+  private int zipExtractParallelism;
+
+  @Value("${webapi.backup.repository.retention}")
+  private int repositoryRetention;
+
+  @Value("${webapi.backup.repository.gc_grace_hours}")
+  private int repositoryGcGraceHours;
+
   @PostConstruct
   public void validateProperties() {
     if (zipCompressLevel < -1 || zipCompressLevel > 9) {
       throw new IllegalArgumentException("zipCompressLevel must be between 0 and 9 or -1.");
     }
+    if (zipExtractParallelism < 1) {
+      throw new IllegalArgumentException("zip extract parallelism must be 1 or more.");
+    }
+    if (repositoryRetention < 0) {
+      throw new IllegalArgumentException("repository retention must be 0 or more.");
+    }
+    if (repositoryGcGraceHours < 1) {
+      throw new IllegalArgumentException("repository gc grace hours must be 1 or more.");
+    }
   }
 
   /**
@@ -104,14 +142,16 @@ public class BackupRestoreService {
   public Mono<BackupJob> startBackup(BackupRestoreRequestParam param) {
 
     // determine online or offline and call each service
-    boolean isOnline = dbControlService.isOnline(param.getJobId(), (String)param.getCredentials());
-    log.debug("online? :" + isOnline);
-    if (isOnline) {
-      return backupOnline(param);
-    }
-
-    return backupOffline(param);
+    return storageUsageLedger.reserve(param.getUid(), 0)
+        .then(dbControlService.isOnline(param.getJobId(), (String)param.getCredentials()))
+        .flatMap(isOnline -> {
+          log.debug("online? :" + isOnline);
+          if (isOnline) {
+            return backupOnline(param);
+          }
 
+          return backupOffline(param);
+        });
   }
 
   private Mono<BackupJob> backupOnline(BackupRestoreRequestParam param) {
@@ -123,14 +163,23 @@ public class BackupRestoreService {
 
     log.debug("backupOnline start :" + job.toString());
 
-    Disposable disp = Mono.just(job)
+    IoLimiter limiter = ioThrottle.createLimiter(job.getJobId());
+    var reservation = new AtomicReference<>(StorageUsageLedger.Reservation.NONE);
+    BackupRepository repository = createBackupRepository(job, limiter);
+    Mono<Job> pipeline = Mono.just(job)
         .map(tsubakuroService::createBackupTransaction)
+        .map(j -> checkBackupQuota(j, j.getBackupTransaction().getBackupFileSize(), reservation))
+        // backup files are copied to the work directory before archived
+        .map(j -> {
+          fileSystemService.reserveTempSpace(j.getWorkDir(), j.getBackupTransaction().getBackupFileSize());
+          return j;
+        })
         .flatMapMany(tsubakuroService::backupOnline)
         .parallel()
-        .runOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
+        .runOn(belayerSchedulers.disk())
         .map(ctx -> {
           var targetPath = ctx.getTargetFilePath();
-          String downloadPath = fileSystemService.copyTo(targetPath, job.getWorkDir());
+          String downloadPath = fileSystemService.copyTo(targetPath, job.getWorkDir(), limiter);
           // calculate progress
           var fileSize = FileUtil.getFileSize(targetPath);
           log.debug("file size(completed):{}", fileSize);
@@ -150,19 +199,21 @@ public class BackupRestoreService {
           return downloadPath;
         })
         .sequential()
-        .collect(ZipFileUtil.collectAsZipFile(job.getWorkDir(),
-            fileSystemService.convertToAbsolutePath(job.getUid(),
-                job.getDestDir() + String.format("/backup-%s.zip", job.getJobId())).toString(),
-            zipCompressLevel))
+        .collect(createBackupCollector(job, repository, limiter))
         .flatMap(result -> setBackupResult(param.getUid(), param.getJobId(), result))
         .flatMap(this::registerCompletedResult)
-        .map(j -> {
-          fileSystemService.deleteDirectoryWithContent(((BackupJob)j).getWorkDir());
-          return j;
-        })
+        .map(this::pruneRepositoryIfNecessary)
         .onErrorResume(ex -> registerFailedResult(job, ex))
-        .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-        .subscribe();
+        // delete the work directory also on error or cancel
+        .doFinally(signal -> {
+          reservation.get().release();
+          if (repository != null) {
+            // chunks of a failed backup can be pruned
+            repository.close();
+          }
+          fileSystemService.deleteDirectoryWithContent(job.getWorkDir());
+        });
+    Disposable disp = jobScheduler.schedule(job, pipeline).subscribe();
 
     log.debug("set disposable:" + param.toString());
     job.setDisposable(disp);
@@ -172,7 +223,14 @@ public class BackupRestoreService {
 
   private BackupJob createBackupJob(BackupRestoreRequestParam param) {
 
+    String format = param.getFormat() == null ? BackupJob.FORMAT_ZIP : param.getFormat();
+    if (!(BackupJob.FORMAT_ZIP.equals(format) || BackupJob.FORMAT_REPOSITORY.equals(format))) {
+      throw new BadRequestException("Invalid format. format:" + format,
+          "Invalid format. format:" + format, null);
+    }
+
     var job = new BackupJob();
+    job.setFormat(format);
     job.setType(Job.TYPE_BACKUP);
     job.setUid(param.getUid());
     job.setCredentials(param.getCredentials());
@@ -185,6 +243,76 @@ public class BackupRestoreService {
     return job;
   }
 
+  /**
+   * Check the quota before copying backup files.
+   *
+   * The zip size is at most about the size of backup files. A repository only
+   * stores chunks not stored yet, so only the current usage is checked. The
+   * reserved bytes are released when the job is finished.
+   */
+  private BackupJob checkBackupQuota(BackupJob job, long backupFileSize,
+      AtomicReference<StorageUsageLedger.Reservation> reservation) {
+    if (BackupJob.FORMAT_REPOSITORY.equals(job.getFormat())) {
+      storageUsageLedger.checkQuota(job.getUid(), 0);
+    } else {
+      reservation.set(storageUsageLedger.checkQuota(job.getUid(), backupFileSize));
+    }
+    return job;
+  }
+
+  private BackupRepository createBackupRepository(BackupJob job, IoLimiter limiter) {
+    if (!BackupJob.FORMAT_REPOSITORY.equals(job.getFormat())) {
+      return null;
+    }
+    Path repositoryRoot = fileSystemService.convertToAbsolutePath(job.getUid(), job.getDestDir());
+    return new BackupRepository(repositoryRoot, limiter);
+  }
+
+  private Collector<String, ?, String> createBackupCollector(BackupJob job, BackupRepository repository,
+      IoLimiter limiter) {
+    if (repository != null) {
+      Path repositoryRoot = fileSystemService.convertToAbsolutePath(job.getUid(), job.getDestDir());
+      return Collectors.collectingAndThen(
+          repository.collectAsSnapshot(job.getWorkDir(), String.format("backup-%s", job.getJobId()),
+              zipCompressLevel),
+          snapshotPath -> {
+            storageUsageLedger.add(repositoryRoot, repository.getAddedBytes());
+            return snapshotPath;
+          });
+    }
+
+    return Collectors.collectingAndThen(
+        ZipFileUtil.collectAsZipFileWithManifest(job.getWorkDir(),
+            fileSystemService.convertToAbsolutePath(job.getUid(),
+                job.getDestDir() + String.format("/backup-%s.zip", job.getJobId())).toString(),
+            zipCompressLevel, limiter),
+        zipFilePath -> {
+          storageUsageLedger.fileWritten(Path.of(zipFilePath), 0);
+          return zipFilePath;
+        });
+  }
+
+  private Job pruneRepositoryIfNecessary(Job job) {
+    var backupJob = (BackupJob) job;
+    if (!BackupJob.FORMAT_REPOSITORY.equals(backupJob.getFormat())) {
+      return job;
+    }
+
+    // pruning failure does not affect the result of the backup itself
+    try {
+      Path repositoryRoot = fileSystemService.convertToAbsolutePath(backupJob.getUid(), backupJob.getDestDir());
+      var repository = new BackupRepository(repositoryRoot);
+      try {
+        repository.prune(repositoryRetention, Duration.ofHours(repositoryGcGraceHours));
+      } finally {
+        storageUsageLedger.add(repositoryRoot, repository.getAddedBytes());
+      }
+    } catch (RuntimeException ex) {
+      log.warn("failed to prune backup repository. jobId:" + job.getJobId(), ex);
+    }
+    return job;
+  }
+
   private Mono<BackupJob> backupOffline(BackupRestoreRequestParam param) {
     log.debug("register job :" + param.toString());
 
@@ -193,22 +321,27 @@ public class BackupRestoreService {
 
     log.debug("backupOffline start :" + param.toString());
 
-    Mono.just(job)
-        .map(this::startBackupInOffline)
-        .flatMapMany(this::getBackupFilePaths)
-        .collect(ZipFileUtil.collectAsZipFile(job.getWorkDir(),
-            fileSystemService.convertToAbsolutePath(job.getUid(),
-                job.getDestDir() + String.format("/backup-%s.zip", job.getJobId())).toString(),
-            zipCompressLevel))
+    IoLimiter limiter = ioThrottle.createLimiter(job.getJobId());
+    var reservation = new AtomicReference<>(StorageUsageLedger.Reservation.NONE);
+    BackupRepository repository = createBackupRepository(job, limiter);
+    Mono<Job> pipeline = Mono.just(job)
+        .flatMap(this::startBackupInOffline)
+        .flatMapMany(j -> getBackupFilePaths(j, reservation))
+        .collect(createBackupCollector(job, repository, limiter))
         .flatMap(result -> setBackupResult(param.getUid(), param.getJobId(), result))
         .flatMap(this::registerCompletedResult)
-        .map(j -> {
-          fileSystemService.deleteDirectoryWithContent(((BackupJob) j).getWorkDir());
-          return j;
-        })
+        .map(this::pruneRepositoryIfNecessary)
         .onErrorResume(ex -> registerFailedResult(job, ex))
-        .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-        .subscribe();
+        // delete the work directory also on error
+        .doFinally(signal -> {
+          reservation.get().release();
+          if (repository != null) {
+            // chunks of a failed backup can be pruned
+            repository.close();
+          }
+          fileSystemService.deleteDirectoryWithContent(job.getWorkDir());
+        });
+    jobScheduler.schedule(job, pipeline).subscribe();
 
     return Mono.just(job);
   }
@@ -219,25 +352,29 @@ public class BackupRestoreService {
    * @param job Job
    * @return job
    */
-  private BackupJob startBackupInOffline(BackupJob job) {
-
-    // call "oltp quiesce"
-    dbQuiesceExec.callQuiesce(job);
-
-    // call "oltp backup"
-    job = offlineBackupExec.backupOffline(job);
+  private Mono<BackupJob> startBackupInOffline(BackupJob job) {
 
-    return job;
+    // call "oltp quiesce", then "oltp backup"
+    return dbQuiesceExec.callQuiesce(job)
+        .then(Mono.defer(() -> offlineBackupExec.backupOffline(job)));
   }
 
-  private Flux<String> getBackupFilePaths(BackupJob job) {
+  private Flux<String> getBackupFilePaths(BackupJob job,
+      AtomicReference<StorageUsageLedger.Reservation> reservation) {
 
-    try {
-      var stream = Files.walk(job.getWorkDir())
+    try (var stream = Files.walk(job.getWorkDir())) {
+      List<String> filePaths = stream
           .filter(p -> !Files.isDirectory(p))
-          .map(p -> p.toString());
+          .map(p -> p.toString())
+          .collect(Collectors.toList());
+
+      long backupFileSize = 0;
+      for (String filePath : filePaths) {
+        backupFileSize += FileUtil.getFileSize(Path.of(filePath));
+      }
+      checkBackupQuota(job, backupFileSize, reservation);
 
-      return Flux.fromStream(stream);
+      return Flux.fromIterable(filePaths);
 
     } catch (IOException ex) {
       throw new IORuntimeException("I/O Error while collect backup files.", ex);
@@ -254,27 +391,34 @@ public class BackupRestoreService {
     log.debug("register job :" + param.toString());
 
     // determine online or offline and call each service
-    if (dbControlService.isOnline(param.getJobId(), (String)param.getCredentials())) {
-      var msg = "DB is online.";
-      throw new BadRequestException(msg, msg);
-    }
+    return dbControlService.isOnline(param.getJobId(), (String)param.getCredentials())
+        .flatMap(isOnline -> {
+          if (isOnline) {
+            var msg = "DB is online.";
+            return Mono.error(new BadRequestException(msg, msg));
+          }
+          return restoreOffline(param);
+        });
+  }
 
+  private Mono<RestoreJob> restoreOffline(BackupRestoreRequestParam param) {
     var job = createRestoreJob(param);
     jobManager.registerJob(job);
 
     log.debug("restore start :" + job.toString());
 
-    Mono.just(job)
+    Mono<Job> pipeline = Mono.just(job)
         .map(this::expandZipFile)
-        .map(dbRestoreExec::startRestore)
+        .flatMap(dbRestoreExec::startRestore)
         .flatMap(this::registerCompletedResult)
-        .map(j -> {
-          fileSystemService.deleteDirectoryWithContent(((RestoreJob) job).getWorkDir());
-          return j;
-        })
         .onErrorResume(ex -> registerFailedResult(job, ex))
-        .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-        .subscribe();
+        // delete the work directory also on error
+        .doFinally(signal -> {
+          if (job.getWorkDir() != null) {
+            fileSystemService.deleteDirectoryWithContent(job.getWorkDir());
+          }
+        });
+    jobScheduler.schedule(job, pipeline).subscribe();
 
     return Mono.just(job);
   }
@@ -287,6 +431,7 @@ public class BackupRestoreService {
     job.setCredentials(param.getCredentials());
     job.setJobId(param.getJobId());
     job.setZipFilePath(param.getZipFilePath());
+    job.setVerify(param.isVerify());
     job.setStatus(JobStatus.RUNNING);
 
     return job;
@@ -294,12 +439,57 @@ public class BackupRestoreService {
 
   private RestoreJob expandZipFile(RestoreJob job) {
     Path workDir = fileSystemService.createTempDirectory(Constants.TEMP_DIR_PREFIX_RESTORE + job.getJobId());
-    Path zipFilePath = fileSystemService.convertToAbsolutePath(job.getUid(), job.getZipFilePath());
-    ZipFileUtil.extractZipFile(workDir, zipFilePath);
     job.setWorkDir(workDir);
+    Path zipFilePath = fileSystemService.convertToAbsolutePath(job.getUid(), job.getZipFilePath());
+    IoLimiter limiter = ioThrottle.createLimiter(job.getJobId());
+    if (BackupRepository.isSnapshotFile(zipFilePath)) {
+      var repository = new BackupRepository(BackupRepository.getRepositoryRoot(zipFilePath), limiter);
+      long size = repository.readSnapshot(zipFilePath).getFiles().stream()
+          .mapToLong(SnapshotFile::getSize)
+          .sum();
+      fileSystemService.reserveTempSpace(workDir, size);
+      repository.restoreSnapshot(zipFilePath, workDir);
+    } else {
+      long size = ZipFileUtil.listFileEntries(zipFilePath).stream()
+          .mapToLong(entry -> Math.max(entry.getSize(), 0))
+          .sum();
+      fileSystemService.reserveTempSpace(workDir, size);
+      ZipFileUtil.extractZipFileParallel(workDir, zipFilePath, zipExtractParallelism, belayerSchedulers.disk(),
+          limiter, job.isVerify());
+    }
     return job;
   }
 
+  /**
+   * Verify a backup file against its checksums.
+   *
+   * @param uid         User ID
+   * @param zipFilePath backup zip file or snapshot file
+   * @return verify result
+   */
+  public Mono<BackupVerifyResult> verifyBackup(String uid, String zipFilePath) {
+    return Mono.fromCallable(() -> {
+      Path path = fileSystemService.convertToAbsolutePath(uid, zipFilePath);
+      IoLimiter limiter = ioThrottle.createLimiter(null);
+
+      var result = new BackupVerifyResult();
+      result.setZipFilePath(zipFilePath);
+      if (BackupRepository.isSnapshotFile(path)) {
+        var repository = new BackupRepository(BackupRepository.getRepositoryRoot(path), limiter);
+        result.setEntryCount(repository.readSnapshot(path).getFiles().size());
+        result.setErrors(repository.verifySnapshot(path));
+      } else {
+        result.setEntryCount(ZipFileUtil.readManifest(path)
+            .map(manifest -> manifest.getEntries().size())
+            .orElse(0));
+        result.setErrors(ZipFileUtil.verifyZipFile(path, zipExtractParallelism, belayerSchedulers.disk(), limiter));
+      }
+      result.setValid(result.getErrors().isEmpty());
+      log.debug("verify result:{}", result);
+      return result;
+    }).subscribeOn(belayerSchedulers.disk());
+  }
+
   /**
    * Return job.
    *
@@ -336,11 +526,50 @@ public class BackupRestoreService {
           "Invalid type. type:" + type, null);
     }
 
-    List<Job> jobList = jobManager.getAllJobs();
+    return Flux.fromIterable(jobManager.getJobs(type, uid));
+  }
+
+  /**
+   * Return a page of jobs.
+   *
+   * @param type   backup or restore
+   * @param uid    User ID
+   * @param cursor cursor returned with the previous page, or null for the
+   *               first page
+   * @param limit  max number of jobs, or null for the max size of a page
+   * @return jobs, newest first
+   */
+  public Mono<JobList> getJobPage(String type, String uid, String cursor, Integer limit) {
 
-    return Flux.fromIterable(jobList)
-        .filter(job -> job.getUid().equals(uid))
-        .filter(job -> job.getType().equals(type));
+    if (!(Job.TYPE_BACKUP.equals(type) || Job.TYPE_RESTORE.equals(type))) {
+      throw new BadRequestException("Invalid type. type:" + type,
+          "Invalid type. type:" + type, null);
+    }
+
+    var page = jobManager.getJobs(type, uid, cursor, limit);
+    return Mono.just(new JobList(page.getJobs(), page.getNextCursor()));
+  }
+
+  /**
+   * Watch changes of jobs.
+   *
+   * @param type  backup or restore, or null for both types
+   * @param uid   User ID
+   * @param jobId Job ID, or null to watch all jobs
+   * @return changed jobs
+   */
+  public Flux<Job> watchJobs(String type, String uid, String jobId) {
+    List<String> types;
+    if (type == null) {
+      types = List.of(Job.TYPE_BACKUP, Job.TYPE_RESTORE);
+    } else if (Job.TYPE_BACKUP.equals(type) || Job.TYPE_RESTORE.equals(type)) {
+      types = List.of(type);
+    } else {
+      throw new BadRequestException("Invalid type. type:" + type,
+          "Invalid type. type:" + type, null);
+    }
+
+    return jobManager.watchJobs(types, uid, jobId);
   }
 
   /**
@@ -373,6 +602,9 @@ public class BackupRestoreService {
     var targetJob = (BackupJob) jobOp.get();
     Path downloadPath = fileSystemService.convertToDownloadPath(uid, savedFile);
     targetJob.setZipFilePath(downloadPath.toString());
+    if (BackupJob.FORMAT_ZIP.equals(targetJob.getFormat())) {
+      targetJob.setManifest(ZipFileUtil.readManifest(Path.of(savedFile)).orElse(null));
+    }
     return Mono.just(targetJob);
   }
 
@@ -384,7 +616,8 @@ public class BackupRestoreService {
 
   private Mono<Job> registerFailedResult(Job job, Throwable th) {
     log.error("error occured. jobId:" + job.getJobId(), th);
-    if (Job.TYPE_BACKUP.equals(job.getType())) {
+    // chunks of a failed snapshot are collected by the next prune
+    if (Job.TYPE_BACKUP.equals(job.getType()) && BackupJob.FORMAT_ZIP.equals(((BackupJob) job).getFormat())) {
       var zipFileName = ((BackupJob) job).getDestDir() + String.format("/backup-%s.zip", job.getJobId());
       new File(zipFileName).delete();
     }
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadRequestBody;
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadStatus;
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+import com.tsurugidb.belayer.webapi.exception.InterruptedRuntimeException;
+import com.tsurugidb.belayer.webapi.exception.NotFoundException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
+import com.tsurugidb.belayer.webapi.model.ChunkedUpload;
+import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.StorageUsageLedger;
+import com.tsurugidb.belayer.webapi.util.DigestUtil;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Chunked upload.
+ *
+ * Chunks are written directly into a part file by positioned writes, so chunks
+ * can be sent in any order and in parallel. The part file is created in a
+ * hidden directory of the user storage, which is not listed to users, so it is
+ * renamed to the target file on the same file system when the upload is
+ * completed. The size of the file is reserved against the quota of the user
+ * until then.
+ */
+@Slf4j
+@Component
+public class ChunkedUploadService {
+
+  private static final String PART_FILE_SUFFIX = ".part";
+
+  // how long completing waits for chunks being written
+  private static final long WRITING_TIMEOUT_MILLIS = 30_000L;
+
+  @Autowired
+  FileSystemService fileSystemService;
+
+  @Autowired
+  BelayerSchedulers belayerSchedulers;
+
+  @Autowired
+  StorageUsageLedger storageUsageLedger;
+
+  @Value("${webapi.storage.root}")
+  private String storageRootDir;
+
+  @Value("${webapi.upload.chunked.expiration.hours}")
+  private int expirationHours;
+
+  private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  public void init() {
+    if (expirationHours < 1) {
+      throw new IllegalArgumentException("chunked upload expiration hours must be 1 or more.");
+    }
+    // uploads are not kept over a restart
+    deleteExpiredPartFiles();
+  }
+
+  /**
+   * Start a chunked upload.
+   *
+   * @param uid  User ID
+   * @param body request
+   * @return upload status
+   */
+  public ChunkedUploadStatus initiate(String uid, ChunkedUploadRequestBody body) {
+    removeExpiredUploads();
+
+    if (body.getFileName() == null || body.getFileName().isEmpty()) {
+      throw new BadRequestException("fileName must be specified.", "fileName must be specified.");
+    }
+    if (body.getSize() < 0) {
+      throw new BadRequestException("Invalid size. size:" + body.getSize(), "Invalid size. size:" + body.getSize());
+    }
+
+    // get fileName without dir path, same as multipart upload.
+    String filePath = body.getFileName();
+    int index = filePath.lastIndexOf("/");
+    String fileName = index > 0 ? filePath.substring(index + 1) : filePath;
+
+    Path destDir = fileSystemService.createDirectory(uid, body.getDestDir() == null ? "" : body.getDestDir());
+    Path targetPath = destDir.resolve(fileName).toAbsolutePath().normalize();
+    if (!destDir.equals(targetPath.getParent())) {
+      throw new BadRequestException("Invalid file name. fileName:" + body.getFileName(),
+          "Invalid file name. fileName:" + body.getFileName());
+    }
+    checkTarget(targetPath, body.isOverwrite());
+    // the whole size is counted until the upload is completed or aborted
+    var reservation = storageUsageLedger.checkQuota(uid, body.getSize());
+
+    String uploadId = RandomStringUtils.randomAlphanumeric(16);
+    Path partPath;
+    try {
+      partPath = createPartFile(uid, uploadId, body.getSize());
+    } catch (RuntimeException ex) {
+      reservation.release();
+      throw ex;
+    }
+
+    var upload = new ChunkedUpload(uploadId, uid, targetPath, partPath, body.getSize(), body.isOverwrite(),
+        reservation, System.currentTimeMillis());
+    uploads.put(uploadId, upload);
+    log.debug("start chunked upload. uploadId:{}, target:{}, size:{}", uploadId, targetPath, body.getSize());
+
+    return createStatus(upload, false);
+  }
+
+  /**
+   * Write a chunk.
+   *
+   * @param uid           User ID
+   * @param uploadId      upload ID
+   * @param offset        offset of the chunk in the file
+   * @param contentLength length of the chunk if known, otherwise -1
+   * @param content       chunk content
+   * @return upload status
+   */
+  public Mono<ChunkedUploadStatus> writeChunk(String uid, String uploadId, long offset, long contentLength,
+      Flux<DataBuffer> content) {
+    var upload = getUpload(uid, uploadId);
+
+    if (offset < 0 || offset > upload.getSize()
+        || (contentLength >= 0 && offset + contentLength > upload.getSize())) {
+      var msg = "Chunk is out of the file. offset:" + offset + ", length:" + contentLength;
+      throw new BadRequestException(msg, msg);
+    }
+
+    var written = new AtomicLong();
+    Flux<DataBuffer> checked = content.map(buffer -> {
+      long end = offset + written.addAndGet(buffer.readableByteCount());
+      if (end > upload.getSize()) {
+        DataBufferUtils.release(buffer);
+        var msg = "Chunk is out of the file. offset:" + offset + ", end:" + end;
+        throw new BadRequestException(msg, msg);
+      }
+      return buffer;
+    });
+
+    return Mono.defer(() -> {
+      // completing waits for the chunks started before it
+      if (!upload.startWriting()) {
+        return Mono.error(uploadCompleting(uploadId));
+      }
+      return Flux.using(
+          () -> AsynchronousFileChannel.open(upload.getPartPath(), StandardOpenOption.WRITE),
+          channel -> DataBufferUtils.write(checked, channel, offset),
+          channel -> {
+            try {
+              channel.close();
+            } catch (IOException ex) {
+              log.debug("failed to close part file.", ex);
+            }
+          })
+          .map(DataBufferUtils::release)
+          .then(Mono.fromCallable(() -> {
+            upload.addRange(offset, offset + written.get());
+            upload.touch(System.currentTimeMillis());
+            log.debug("chunk received. uploadId:{}, offset:{}, length:{}", uploadId, offset, written.get());
+            return createStatus(upload, false);
+          }))
+          // the part file is closed by now
+          .doFinally(signal -> upload.endWriting());
+    });
+  }
+
+  /**
+   * Return status of the upload.
+   *
+   * @param uid      User ID
+   * @param uploadId upload ID
+   * @return upload status
+   */
+  public ChunkedUploadStatus getStatus(String uid, String uploadId) {
+    return createStatus(getUpload(uid, uploadId), false);
+  }
+
+  /**
+   * Complete the upload.
+   *
+   * @param uid      User ID
+   * @param uploadId upload ID
+   * @param sha256   SHA-256 of the whole file in hex
+   * @return upload status
+   */
+  public Mono<ChunkedUploadStatus> complete(String uid, String uploadId, String sha256) {
+    var upload = getUpload(uid, uploadId);
+
+    if (sha256 == null || sha256.isEmpty()) {
+      throw new BadRequestException("sha256 must be specified.", "sha256 must be specified.");
+    }
+    if (!upload.isAllReceived()) {
+      var msg = "Some chunks are not uploaded. missing:" + upload.getMissingRanges();
+      throw new BadRequestException(msg, msg);
+    }
+    if (!upload.startCompleting()) {
+      throw uploadCompleting(uploadId);
+    }
+
+    return Mono.fromCallable(() -> {
+      try {
+        // chunks already started may still write into the part file
+        if (!upload.awaitWriting(WRITING_TIMEOUT_MILLIS)) {
+          var msg = "Chunks are still being written. uploadId:" + uploadId;
+          throw new BelayerResponseStatusException(HttpStatus.CONFLICT, msg, msg, null);
+        }
+
+        String actual = computeSha256(upload.getPartPath());
+        if (!actual.equalsIgnoreCase(sha256)) {
+          // keep the part file, so that the client can upload chunks again
+          var msg = "Checksum mismatch. expected:" + sha256 + ", actual:" + actual;
+          throw new BadRequestException(msg, msg);
+        }
+
+        checkTarget(upload.getTargetPath(), upload.isOverwrite());
+        long previousSize = storageUsageLedger.sizeOf(upload.getTargetPath());
+        moveAtomically(upload.getPartPath(), upload.getTargetPath());
+        storageUsageLedger.fileWritten(upload.getTargetPath(), previousSize);
+        upload.markCompleted();
+        uploads.remove(uploadId);
+        releaseUpload(upload);
+        log.debug("chunked upload completed. uploadId:{}, target:{}", uploadId, upload.getTargetPath());
+        return createStatus(upload, true);
+      } catch (RuntimeException ex) {
+        upload.cancelCompleting();
+        throw ex;
+      } catch (InterruptedException ex) {
+        upload.cancelCompleting();
+        Thread.currentThread().interrupt();
+        throw new InterruptedRuntimeException("Interrupted while waiting for chunks.", ex);
+      }
+    }).subscribeOn(belayerSchedulers.disk());
+  }
+
+  /**
+   * Abort the upload and delete the part file.
+   *
+   * @param uid      User ID
+   * @param uploadId upload ID
+   * @return upload status
+   */
+  public ChunkedUploadStatus abort(String uid, String uploadId) {
+    var upload = getUpload(uid, uploadId);
+    uploads.remove(uploadId);
+    releaseUpload(upload);
+    return createStatus(upload, false);
+  }
+
+  private ChunkedUpload getUpload(String uid, String uploadId) {
+    var upload = uploads.get(uploadId);
+    if (upload == null || !upload.getUid().equals(uid)) {
+      throw new NotFoundException("Specified upload is not found. uploadId:" + uploadId,
+          "Specified upload is not found. uploadId:" + uploadId, null);
+    }
+    return upload;
+  }
+
+  private BelayerResponseStatusException uploadCompleting(String uploadId) {
+    var msg = "Upload is being completed. uploadId:" + uploadId;
+    return new BelayerResponseStatusException(HttpStatus.CONFLICT, msg, msg, null);
+  }
+
+  private void checkTarget(Path targetPath, boolean overwrite) {
+    if (Files.isDirectory(targetPath)) {
+      throw new BadRequestException(
+          "Directory already exisits.",
+          "Directory already exisits. file:" + targetPath, null);
+    }
+    if (Files.exists(targetPath) && !overwrite) {
+      var msg = String.format("target file exists. file:%s", targetPath);
+      throw new BadRequestException(msg, msg);
+    }
+  }
+
+  private ChunkedUploadStatus createStatus(ChunkedUpload upload, boolean completed) {
+    String filePath = fileSystemService.convertToDownloadPath(upload.getUid(), upload.getTargetPath().toString())
+        .toString();
+    return new ChunkedUploadStatus(upload.getUploadId(), filePath, upload.getSize(), upload.getReceivedBytes(),
+        completed ? List.of() : upload.getMissingRanges(), completed);
+  }
+
+  private void removeExpiredUploads() {
+    long threshold = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(expirationHours);
+    for (ChunkedUpload upload : new ArrayList<>(uploads.values())) {
+      if (upload.getLastAccessTime() < threshold && uploads.remove(upload.getUploadId(), upload)) {
+        log.info("chunked upload is expired. uploadId:{}", upload.getUploadId());
+        releaseUpload(upload);
+      }
+    }
+  }
+
+  private Path createPartFile(String uid, String uploadId, long size) {
+    Path partPath = fileSystemService.convertToAbsolutePath(uid, Constants.CHUNKED_UPLOAD_DIR)
+        .resolve(uploadId + PART_FILE_SUFFIX);
+    try {
+      Files.createDirectories(partPath.getParent());
+      try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+        // sparse file on most file systems
+        file.setLength(size);
+      }
+      return partPath;
+    } catch (IOException ex) {
+      deletePartFile(partPath);
+      throw new IORuntimeException("Failed to create a part file. file:" + partPath, ex);
+    }
+  }
+
+  /**
+   * Delete the part file and release the quota.
+   */
+  private void releaseUpload(ChunkedUpload upload) {
+    deletePartFile(upload.getPartPath());
+    upload.getReservation().release();
+  }
+
+  private void deletePartFile(Path partPath) {
+    try {
+      Files.deleteIfExists(partPath);
+    } catch (IOException ex) {
+      log.warn("failed to delete part file. file:" + partPath, ex);
+    }
+  }
+
+  /**
+   * Delete part files left by a previous run. Part files accessed within the
+   * expiration period are kept, because the storage may be shared by other
+   * servers.
+   */
+  private void deleteExpiredPartFiles() {
+    Path rootDir = Path.of(storageRootDir);
+    if (!Files.isDirectory(rootDir)) {
+      return;
+    }
+    FileTime threshold = FileTime.fromMillis(
+        System.currentTimeMillis() - TimeUnit.HOURS.toMillis(expirationHours));
+    try (DirectoryStream<Path> users = Files.newDirectoryStream(rootDir, Files::isDirectory)) {
+      for (Path userDir : users) {
+        Path uploadDir = userDir.resolve(Constants.CHUNKED_UPLOAD_DIR);
+        if (!Files.isDirectory(uploadDir)) {
+          continue;
+        }
+        try (DirectoryStream<Path> partFiles = Files.newDirectoryStream(uploadDir, "*" + PART_FILE_SUFFIX)) {
+          for (Path partFile : partFiles) {
+            if (Files.getLastModifiedTime(partFile).compareTo(threshold) < 0) {
+              log.info("delete expired part file:{}", partFile);
+              deletePartFile(partFile);
+            }
+          }
+        }
+      }
+    } catch (IOException ex) {
+      log.warn("failed to delete expired part files.", ex);
+    }
+  }
+
+  private static String computeSha256(Path path) {
+    MessageDigest digest = DigestUtil.newSha256();
+    byte[] buffer = new byte[256 * 1024];
+    try (InputStream in = Files.newInputStream(path)) {
+      int len;
+      while ((len = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, len);
+      }
+    } catch (IOException ex) {
+      throw new IORuntimeException("Failed to read a part file. file:" + path, ex);
+    }
+    return DigestUtil.toHex(digest.digest());
+  }
+
+  private static void moveAtomically(Path source, Path target) {
+    try {
+      try {
+        Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException ex) {
+      throw new IORuntimeException("Failed to move an uploaded file. file:" + target, ex);
+    }
+  }
+}
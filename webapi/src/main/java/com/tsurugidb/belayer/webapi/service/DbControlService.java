@@ -24,9 +24,13 @@ import com.tsurugidb.belayer.webapi.dto.InstanceInfo;
 import com.tsurugidb.belayer.webapi.exec.DbChangeModeExec;
 import com.tsurugidb.belayer.webapi.exec.DbShutdownExec;
 import com.tsurugidb.belayer.webapi.exec.DbStartExec;
-import com.tsurugidb.belayer.webapi.exec.DbStatusExec;
+import com.tsurugidb.belayer.webapi.exec.DbStatusCache;
 import com.tsurugidb.belayer.webapi.exec.DbSyncWalExec;
 
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+@Slf4j
 @Component
 public class DbControlService {
 
@@ -43,7 +47,7 @@ public class DbControlService {
   DbSyncWalExec dbSyncWalExec;
 
   @Autowired
-  DbStatusExec dbStatusExec;
+  DbStatusCache dbStatusCache;
 
   @Autowired
   InstanceInfoService instanceInfoService;
@@ -54,10 +58,10 @@ public class DbControlService {
    * @param jobId Job ID
    * @param token authentication token
    * @param mode  launch mode
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus startDatabase(String jobId, String token, String mode, String replicaFrom, boolean autoFetchWal) {
-    return dbStartExec.startDatabse(jobId, token, mode, replicaFrom, autoFetchWal);
+  public Mono<ExecStatus> startDatabase(String jobId, String token, String mode, String replicaFrom, boolean autoFetchWal) {
+    return detach(jobId, dbStartExec.startDatabse(jobId, token, mode, replicaFrom, autoFetchWal));
   }
 
   /**
@@ -65,10 +69,10 @@ public class DbControlService {
    * 
    * @param jobId Job ID
    * @param token authentication token
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus shutdownDatabase(String jobId, String token) {
-    return dbShutdownExec.shutdownDatabase(jobId, token);
+  public Mono<ExecStatus> shutdownDatabase(String jobId, String token) {
+    return detach(jobId, dbShutdownExec.shutdownDatabase(jobId, token));
   }
 
   /**
@@ -79,10 +83,10 @@ public class DbControlService {
    * @param mode launch mode
    * @param replicateFrom target to replicate
    * @param autoFetchWal if true, fetch required WAL automatically
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus changeDatabaseMode(String jobId, String token, String mode, String replicateFrom, boolean autoFetchWal) {
-    return dbChangeModeExec.changeMode(jobId, token, mode, replicateFrom, autoFetchWal);
+  public Mono<ExecStatus> changeDatabaseMode(String jobId, String token, String mode, String replicateFrom, boolean autoFetchWal) {
+    return detach(jobId, dbChangeModeExec.changeMode(jobId, token, mode, replicateFrom, autoFetchWal));
   }
 
   /**
@@ -91,27 +95,31 @@ public class DbControlService {
    * @param jobId      Job ID
    * @param token      authentication token
    * @param sourceHost source database to syncronize log
-   * @return status
+   * @return status, or empty if unknown
    */
-  public ExecStatus synchronizeTransactionLog(String jobId, String token, String sourceHost) {
-    return  dbSyncWalExec.synchronizeTransactionLog(jobId, token, sourceHost);
+  public Mono<ExecStatus> synchronizeTransactionLog(String jobId, String token, String sourceHost) {
+    return detach(jobId, dbSyncWalExec.synchronizeTransactionLog(jobId, token, sourceHost));
   }
 
   /**
    * get staus of Tsurugi DB.
    * 
+   * The status may be shared with other requests for a short time.
+   * 
    * @param jobId Job ID
    * @return DB status
    */
-  public DbStatus getStatus(String jobId, String token) {
+  public Mono<DbStatus> getStatus(String jobId, String token) {
 
-    DbStatus dbStatus = dbStatusExec.getStatus(jobId, token);
-    InstanceInfo instanceInfo = instanceInfoService.getInstanceInfo();
+    return dbStatusCache.getStatus(jobId, token)
+        .map(dbStatus -> {
+          InstanceInfo instanceInfo = instanceInfoService.getInstanceInfo();
 
-    dbStatus.setInstanceName(instanceInfo.getInstanceName());
-    dbStatus.setTags(instanceInfo.getTags());
+          dbStatus.setInstanceName(instanceInfo.getInstanceName());
+          dbStatus.setTags(instanceInfo.getTags());
 
-    return dbStatus;
+          return dbStatus;
+        });
   }
 
   /**
@@ -121,10 +129,29 @@ public class DbControlService {
    * @param token auth token
    * @return true if Tsurugi DB is running
    */
-  public boolean isOnline(String jobId, String token) {
+  public Mono<Boolean> isOnline(String jobId, String token) {
+
+    return getStatus(jobId, token)
+        .map(status -> ExecStatus.STATUS_RUNNING.equals(status.getStatus()));
+  }
 
-    var status = getStatus(jobId, token);
-    return ExecStatus.STATUS_RUNNING.equals(status.getStatus());
+  /**
+   * run the command regardless of the request.
+   *
+   * Stopping tgctl in the middle may leave the DB in an unknown state, so the
+   * command keeps running when the request is cancelled (e.g. the client
+   * disconnects), and the result is shared with the request.
+   *
+   * @param jobId  Job ID
+   * @param result result of the command
+   * @return the shared result
+   */
+  private Mono<ExecStatus> detach(String jobId, Mono<ExecStatus> result) {
+    var shared = result.cache();
+    shared.subscribe(
+        status -> log.debug("{} finished. status:{}", jobId, status),
+        ex -> log.debug(jobId + " failed.", ex));
+    return shared;
   }
 
 }
@@ -19,15 +19,18 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.dto.DumpJob;
@@ -35,6 +38,7 @@ import com.tsurugidb.belayer.webapi.dto.DumpLoadRequestParam;
 import com.tsurugidb.belayer.webapi.dto.DumpRequestParam;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+import com.tsurugidb.belayer.webapi.dto.JobList;
 import com.tsurugidb.belayer.webapi.dto.LoadFileInfo;
 import com.tsurugidb.belayer.webapi.dto.LoadJob;
 import com.tsurugidb.belayer.webapi.dto.LoadParameter;
@@ -43,12 +47,16 @@ import com.tsurugidb.belayer.webapi.dto.LongTransactionJob;
 import com.tsurugidb.belayer.webapi.dto.TransactionalJob;
 import com.tsurugidb.belayer.webapi.dto.UploadContext;
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
-import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
 import com.tsurugidb.belayer.webapi.exception.InternalServerErrorException;
 import com.tsurugidb.belayer.webapi.exception.NoDataException;
 import com.tsurugidb.belayer.webapi.exception.NotFoundException;
+import com.tsurugidb.belayer.webapi.model.BelayerSchedulers;
 import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.model.IoThrottle;
 import com.tsurugidb.belayer.webapi.model.JobManager;
+import com.tsurugidb.belayer.webapi.model.JobScheduler;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
+import com.tsurugidb.belayer.webapi.model.StorageUsageLedger;
 import com.tsurugidb.belayer.webapi.model.ZipFileUtil;
 import com.tsurugidb.belayer.webapi.util.FileUtil;
 
@@ -56,17 +64,15 @@ import lombok.extern.slf4j.Slf4j;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @Component
 public class DumpLoadService {
 
-    @Autowired
-    JobManager jobManager;
+    private static final String ZIP_EXTRACT_DIR_PREFIX = "zip-";
 
     @Autowired
-    ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    JobManager jobManager;
 
     @Autowired
     TsubakuroService tsubakuroService;
@@ -77,6 +83,21 @@ public class DumpLoadService {
     @Autowired
     ParquetService parquetService;
 
+    @Autowired
+    ScratchSpaceManager scratchSpaceManager;
+
+    @Autowired
+    IoThrottle ioThrottle;
+
+    @Autowired
+    StorageUsageLedger storageUsageLedger;
+
+    @Autowired
+    JobScheduler jobScheduler;
+
+    @Autowired
+    BelayerSchedulers belayerSchedulers;
+
     @Value("${webapi.load.progress_percentage_filesize_sum_computed}")
     private int loadProgressPercentageWhenSumComputed;
 
@@ -96,10 +117,12 @@ public class DumpLoadService {
         log.debug("dump start :" + job.toString());
 
         Mono<TransactionalJob> resultJob = Mono.just(job)
+                // size of the dump is unknown until the DB writes it
+                .flatMap(j -> storageUsageLedger.reserve(param.getUid(), 0).thenReturn(j))
                 .map(tsubakuroService::createDumpTransaction)
                 .flatMapMany(tsubakuroService::dumpTable)
                 .parallel()
-                .runOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
+                .runOn(belayerSchedulers.cpu())
                 .map(filePath -> {
                     // set progress
                     job.addProgressNumerator(FileUtil.getFileSize(filePath));
@@ -111,16 +134,15 @@ public class DumpLoadService {
                 .collectSortedList(Comparator.naturalOrder())
                 .flatMap(result -> setDumpResult(param.getUid(), param.getJobId(), result))
                 .flatMap(this::registerCompletedResult)
-                .flatMap(j -> deleteTempDir(j))
-                .onErrorResume(ex -> registerFailedResult(job, ex));
+                .onErrorResume(ex -> registerFailedResult(job, ex))
+                // also on cancel
+                .doFinally(signal -> releaseTempDir(job));
 
         if (param.isWaitUntilDone()) {
-            return resultJob;
+            return jobScheduler.schedule(job, resultJob);
         }
 
-        Disposable disp = resultJob
-                .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-                .subscribe();
+        Disposable disp = jobScheduler.schedule(job, resultJob).subscribe();
 
         log.debug("set disposable:" + param.toString());
         job.setDisposable(disp);
@@ -151,12 +173,10 @@ public class DumpLoadService {
         return job;
     }
 
-    private Mono<TransactionalJob> deleteTempDir(TransactionalJob job) {
+    private void releaseTempDir(TransactionalJob job) {
         if (job.getTempDir() != null) {
-            fileSystemService.deleteDirectoryWithContent(job.getTempDir());
+            scratchSpaceManager.release(job.getTempDir());
         }
-
-        return Mono.just(job);
     }
 
     /**
@@ -175,29 +195,36 @@ public class DumpLoadService {
         }
 
         var job = (LongTransactionJob) targetJob.get();
+        return storageUsageLedger.reserve(param.getUid(), 0)
+                .thenMany(Flux.defer(() -> dumpInTransaction(job, param)));
+    }
+
+    private Flux<String> dumpInTransaction(LongTransactionJob job, DumpRequestParam param) {
+
         synchronized (job) {
             useTransaction(job);
         }
 
         log.debug("dump start :" + job.toString());
 
-        Flux<String> result = Mono.just(job)
-                .map(j -> this.convertToDumpJob(j, param))
+        // the temp dir is set to the dump job
+        var dumpJob = convertToDumpJob(job, param);
+        Flux<String> result = Mono.just(dumpJob)
                 .flatMapMany(tsubakuroService::dumpTable)
                 .parallel()
-                .runOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
+                .runOn(belayerSchedulers.cpu())
                 .sequential()
                 .map(filePath -> this.convertParquetToCsvIfNecessary(filePath, param.getFormat(), param.getUid(),
                         param.getDirPath() + param.getJobId()))
                 .doOnComplete(() -> this.finishDumpOrLoad(job.getUid(), job.getJobId()))
-                .doOnComplete(() -> this.deleteTempDir(job))
                 .onErrorResume(th -> {
                     if (th instanceof NoDataException) {
                         return Flux.empty();
                     }
                     this.registerFailedResult(job, th);
                     throw new InternalServerErrorException(th.getMessage(), th);
-                });
+                })
+                .doFinally(signal -> releaseTempDir(dumpJob));
 
         return result;
     }
@@ -222,6 +249,8 @@ public class DumpLoadService {
     private String convertParquetToCsvIfNecessary(Path inFilePath, String format, String uid, String dirPath) {
 
         if (format.equals(DumpLoadRequestParam.FORMAT_PARQUET)) {
+            // written in the user directory by the DB
+            storageUsageLedger.fileWritten(inFilePath, 0);
             return fileSystemService.convertToDownloadPath(uid, inFilePath.toString()).toString();
         }
 
@@ -232,7 +261,14 @@ public class DumpLoadService {
         String csvFileName = fileName.substring(0, index) + ".csv";
         Path csvOutPath = Path.of(destPath.toString(), csvFileName);
 
-        parquetService.convertParquetToCsv(inFilePath.toString(), csvOutPath.toString());
+        // CSV is usually larger than parquet, so the parquet size is the least estimate
+        var reservation = storageUsageLedger.checkQuota(uid, storageUsageLedger.sizeOf(inFilePath));
+        try {
+            parquetService.convertParquetToCsv(inFilePath.toString(), csvOutPath.toString());
+            storageUsageLedger.fileWritten(csvOutPath, 0);
+        } finally {
+            reservation.release();
+        }
 
         return fileSystemService.convertToDownloadPath(uid, csvOutPath.toString()).toString();
     }
@@ -252,27 +288,34 @@ public class DumpLoadService {
 
         log.debug("load start :" + job.toString());
 
+        // zip files are opened once and shared by the load targets of their entries
+        List<ZipFile> zipFiles = new CopyOnWriteArrayList<>();
         Mono<TransactionalJob> resultJob = Mono.just(job)
                 .map(tsubakuroService::createLoadTransaction)
                 .map(j -> this.createTempDir(job))
-                .map(j -> this.expandZipIfNecessary(job))
-                .flatMapMany(this::getLoadTargetFileAbsolutePath)
+                .flatMapMany(j -> getLoadTargetFileAbsolutePath(j, zipFiles))
                 .parallel()
-                .runOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-                .flatMap(loadFileInfo -> tsubakuroService.loadFile(job, loadFileInfo))
+                .runOn(belayerSchedulers.db())
+                // zip entries are extracted and converted on the cpu scheduler
+                .flatMap(loadTarget -> loadTarget
+                        .publishOn(belayerSchedulers.db())
+                        .flatMap(loadFileInfo -> tsubakuroService.loadFile(job, loadFileInfo)
+                                .doOnSuccess(result -> deleteExtractedZipEntry(job, loadFileInfo))))
                 .collectSortedList(Comparator.naturalOrder())
                 .flatMap(result -> setLoadResult(param.getUid(), param.getJobId(), job.getFiles()))
                 .flatMap(this::registerCompletedResult)
-                .flatMap(j -> deleteTempDir(j))
-                .onErrorResume(ex -> registerFailedResult(job, ex));
+                .onErrorResume(ex -> registerFailedResult(job, ex))
+                // also on cancel
+                .doFinally(signal -> {
+                    closeZipFiles(zipFiles);
+                    releaseTempDir(job);
+                });
 
         if (param.isWaitUntilDone()) {
-            return resultJob;
+            return jobScheduler.schedule(job, resultJob);
         }
 
-        Disposable disp = resultJob
-                .subscribeOn(Schedulers.fromExecutor(threadPoolTaskExecutor))
-                .subscribe();
+        Disposable disp = jobScheduler.schedule(job, resultJob).subscribe();
 
         log.debug("set disposable:" + param.toString());
         job.setDisposable(disp);
@@ -280,6 +323,16 @@ public class DumpLoadService {
         return Mono.just(job);
     }
 
+    private void closeZipFiles(List<ZipFile> zipFiles) {
+        for (ZipFile zipFile : zipFiles) {
+            try {
+                zipFile.close();
+            } catch (IOException ex) {
+                log.warn("failed to close zip file:" + zipFile.getName(), ex);
+            }
+        }
+    }
+
     private LoadJob createLoadJob(LoadRequestParam param) {
 
         var job = new LoadJob();
@@ -298,70 +351,78 @@ public class DumpLoadService {
     }
 
     private LoadJob createTempDir(LoadJob job) {
-        Path tmpDir = fileSystemService.createTempDirectory(Constants.TEMP_DIR_PREFIX_LAOD + job.getJobId());
+        Path tmpDir = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_LAOD + job.getJobId());
         log.debug("temp dir:" + tmpDir);
         job.setTempDir(tmpDir);
 
         return job;
     }
 
-    private LoadJob expandZipIfNecessary(LoadJob job) {
-        try {
-            var format = job.getFormat();
-            var files = job.getFiles();
-            for (String inFilePath : files) {
-                if (format.equals(DumpLoadRequestParam.FORMAT_ZIP) ||
-                        (format.equals(DumpLoadRequestParam.FORMAT_DETECT_BY_EXTENSION)
-                                && inFilePath.toString().endsWith(Constants.EXT_ZIP))) {
-                    log.debug("expandZip:{}", inFilePath);
-                    // expand zip for tmp dir
-                    Path workDir = fileSystemService
-                            .createTempDirectory(Constants.TEMP_DIR_PREFIX_LAOD_ZIP + job.getJobId());
-                    Path zipFilePath = fileSystemService.convertToAbsolutePath(job.getUid(), inFilePath);
-                    ZipFileUtil.extractZipFile(workDir, zipFilePath);
-
-                    // add file path from zip contents
-                    var fileList = fileSystemService.getFileList(workDir, false, true);
-                    job.setFilesFromZip(fileList);
-                }
-            }
-            return job;
-        } catch (IOException ex) {
-            throw new IORuntimeException("Error while treating a zip file.", ex);
-        }
+    private boolean isZipFile(String format, String filePath) {
+        return format.equals(DumpLoadRequestParam.FORMAT_ZIP) ||
+                (format.equals(DumpLoadRequestParam.FORMAT_DETECT_BY_EXTENSION)
+                        && filePath.endsWith(Constants.EXT_ZIP));
     }
 
-    private Flux<LoadFileInfo> getLoadTargetFileAbsolutePath(LoadJob job) {
+    /**
+     * Return load targets.
+     *
+     * Plain files are converted before loading starts. Entries of zip files are
+     * extracted (and converted) one at a time when each load target is
+     * subscribed, and deleted after loading, so the whole zip file is never
+     * extracted at once. The progress is counted in bytes of the loaded files,
+     * and the uncompressed size of an entry is replaced with the size of the
+     * loaded file when it is extracted.
+     *
+     * @param job      load job
+     * @param zipFiles opened zip files, closed by the caller when the job ends
+     * @return load targets
+     */
+    private Flux<Mono<LoadFileInfo>> getLoadTargetFileAbsolutePath(LoadJob job, List<ZipFile> zipFiles) {
         log.debug("job:{}", job);
         var list = new ArrayList<Path>();
+        var zipList = new ArrayList<Path>();
         for (String filePath : job.getFiles()) {
-            if (!filePath.endsWith(Constants.EXT_ZIP)) {
+            if (isZipFile(job.getFormat(), filePath)) {
+                zipList.add(fileSystemService.convertToAbsolutePath(job.getUid(), filePath));
+            } else if (!filePath.endsWith(Constants.EXT_ZIP)) {
                 list.add(fileSystemService.convertToAbsolutePath(job.getUid(), filePath));
             }
         }
-        if (job.getFilesFromZip() != null) {
-            for (String filePath : job.getFilesFromZip()) {
-                list.add(Path.of(filePath));
-            }
-        }
-
-        log.debug("pathList:{}", list);
-        if (list.size() == 0) {
-            throw new IllegalArgumentException("no files to load.");
-        }
 
         // calcurate filesize sum
         long fileSizeSum = 0;
-        var parquetPathList = new ArrayList<LoadFileInfo>();
+        var loadTargets = new ArrayList<Mono<LoadFileInfo>>();
         for (var path : list) {
             LoadFileInfo info = convertCsvToParquetIfNecessary(path, job.getUid(), job.getFormat(),job.getTempDir());
             var parquetPath= info.getFilePath();
-            parquetPathList.add(info);
+            loadTargets.add(Mono.just(info));
             long fileSize = FileUtil.getFileSize(parquetPath);
             log.debug("file size:" + fileSize);
 
             fileSizeSum += fileSize;
         }
+
+        for (int i = 0; i < zipList.size(); i++) {
+            Path zipFilePath = zipList.get(i);
+            Path extractDir = job.getTempDir().resolve(ZIP_EXTRACT_DIR_PREFIX + i);
+            log.debug("load zip:{}, extract dir:{}", zipFilePath, extractDir);
+
+            ZipFile zipFile = ZipFileUtil.openZipFile(zipFilePath);
+            zipFiles.add(zipFile);
+            for (ZipEntry entry : ZipFileUtil.listFileEntries(zipFile)) {
+                loadTargets.add(Mono.fromCallable(() -> extractZipEntry(job, zipFile, entry, extractDir))
+                        .subscribeOn(belayerSchedulers.cpu()));
+                // uncompressed size is used until the entry is extracted and converted
+                fileSizeSum += Math.max(entry.getSize(), 0);
+            }
+        }
+
+        log.debug("load targets:{}", loadTargets.size());
+        if (loadTargets.size() == 0) {
+            throw new IllegalArgumentException("no files to load.");
+        }
+
         // save progress
         int rate = loadProgressPercentageWhenSumComputed;
 
@@ -375,7 +436,39 @@ public class DumpLoadService {
         job.setProgressDenominator(denominator);
         job.addProgressNumerator(numerator);
 
-        return Flux.fromIterable(parquetPathList);
+        return Flux.fromIterable(loadTargets);
+    }
+
+    private LoadFileInfo extractZipEntry(LoadJob job, ZipFile zipFile, ZipEntry entry, Path extractDir)
+            throws IOException {
+        Files.createDirectories(extractDir);
+        Path entryPath = ZipFileUtil.extractZipEntry(extractDir, zipFile, entry,
+                ioThrottle.createLimiter(job.getJobId()));
+        log.debug("extracted zip entry:{}", entryPath);
+
+        // converted file is placed next to the entry to avoid name conflicts between entries
+        LoadFileInfo info = convertCsvToParquetIfNecessary(entryPath, job.getUid(), job.getFormat(),
+                entryPath.getParent());
+
+        // the numerator is counted with the size of the loaded file
+        job.addProgressDenominator(FileUtil.getFileSize(info.getFilePath()) - Math.max(entry.getSize(), 0));
+        return info;
+    }
+
+    private void deleteExtractedZipEntry(LoadJob job, LoadFileInfo loadFileInfo) {
+        Path original = loadFileInfo.getOriginalFilePath();
+        if (!original.startsWith(job.getTempDir())) {
+            // not extracted from a zip file
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(loadFileInfo.getFilePath());
+            Files.deleteIfExists(original);
+        } catch (IOException ex) {
+            // deleted with the temp dir later
+            log.warn("failed to delete extracted zip entry:" + original, ex);
+        }
     }
 
     private LoadFileInfo convertCsvToParquetIfNecessary(Path inFilePath, String uid, String format, Path tmpDir) {
@@ -432,19 +525,19 @@ public class DumpLoadService {
      *
      * @param param        Load paremeter.
      * @param dumpFilePath absolute full path of dump file.
-     * @return path of the uploaded file.
+     * @return path of the loaded file relative to the user directory.
      */
     public Mono<String> loadDumpFile(LoadParameter param, Path dumpFilePath) {
         var job = param.getTransactionJob();
         log.debug("load dump file start :{}[{}]", param.getJobId(), dumpFilePath);
 
-        LoadFileInfo loadFileInfo = this.convertCsvToParquetIfNecessary(dumpFilePath, param.getUid(),
-                param.getFormat(), param.getTempDir());
-
-        Mono<String> downloadPath = Mono.just(job)
-                .map(j -> this.convertToLoadJob(j, param))
-                .flatMap(j -> tsubakuroService.loadFile(j, loadFileInfo))
-                .map(parquetFilePath -> fileSystemService.convertToDownloadPath(param.getUid(), dumpFilePath.toString())
+        // convert on the cpu scheduler, and load on the db scheduler
+        Mono<String> downloadPath = Mono.fromCallable(() -> this.convertCsvToParquetIfNecessary(dumpFilePath,
+                param.getUid(), param.getFormat(), param.getTempDir()))
+                .subscribeOn(belayerSchedulers.cpu())
+                .publishOn(belayerSchedulers.db())
+                .flatMap(loadFileInfo -> tsubakuroService.loadFile(this.convertToLoadJob(job, param), loadFileInfo))
+                .map(parquetFilePath -> Path.of(param.getDestDirPath(), dumpFilePath.getFileName().toString())
                         .toString());
 
         return downloadPath;
@@ -526,11 +619,50 @@ public class DumpLoadService {
                     "Invalid type. type:" + type, null);
         }
 
-        List<Job> jobList = jobManager.getAllJobs();
+        return Flux.fromIterable(jobManager.getJobs(type, uid));
+    }
+
+    /**
+     * Return a page of jobs.
+     *
+     * @param type   dump or load
+     * @param uid    User ID
+     * @param cursor cursor returned with the previous page, or null for the
+     *               first page
+     * @param limit  max number of jobs, or null for the max size of a page
+     * @return jobs, newest first
+     */
+    public Mono<JobList> getJobPage(String type, String uid, String cursor, Integer limit) {
+
+        if (!(Job.TYPE_LOAD.equals(type) || Job.TYPE_DUMP.equals(type))) {
+            throw new BadRequestException("Invalid type. type:" + type,
+                    "Invalid type. type:" + type, null);
+        }
+
+        var page = jobManager.getJobs(type, uid, cursor, limit);
+        return Mono.just(new JobList(page.getJobs(), page.getNextCursor()));
+    }
+
+    /**
+     * Watch changes of jobs.
+     *
+     * @param type  dump or load, or null for both types
+     * @param uid   User ID
+     * @param jobId Job ID, or null to watch all jobs
+     * @return changed jobs
+     */
+    public Flux<Job> watchJobs(String type, String uid, String jobId) {
+        List<String> types;
+        if (type == null) {
+            types = List.of(Job.TYPE_DUMP, Job.TYPE_LOAD);
+        } else if (Job.TYPE_DUMP.equals(type) || Job.TYPE_LOAD.equals(type)) {
+            types = List.of(type);
+        } else {
+            throw new BadRequestException("Invalid type. type:" + type,
+                    "Invalid type. type:" + type, null);
+        }
 
-        return Flux.fromIterable(jobList)
-                .filter(job -> job.getUid().equals(uid))
-                .filter(job -> job.getType().equals(type));
+        return jobManager.watchJobs(types, uid, jobId);
     }
 
     private Mono<TransactionalJob> setDumpResult(String uid, String jobId, List<String> savedFile) {
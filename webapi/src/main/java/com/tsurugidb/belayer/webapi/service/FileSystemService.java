@@ -18,19 +18,22 @@ package com.tsurugidb.belayer.webapi.service;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Comparator;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.StringUtil;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.tsurugidb.belayer.webapi.exception.BadRequestException;
 import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
 import com.tsurugidb.belayer.webapi.exception.InternalServerErrorException;
+import com.tsurugidb.belayer.webapi.model.IoLimiter;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,7 +47,8 @@ public class FileSystemService {
   @Value("${webapi.storage.root}")
   private String storageRootDir;
 
-  private static final int MAX_DEPTH = 10;
+  @Autowired
+  ScratchSpaceManager scratchSpaceManager;
 
   /**
    * Copy file.
@@ -55,6 +59,19 @@ public class FileSystemService {
    * @throws IORuntimeException I/O Error
    */
   public String copyTo(Path realFilePath, Path toDir) throws IORuntimeException {
+    return copyTo(realFilePath, toDir, IoLimiter.NONE);
+  }
+
+  /**
+   * Copy file with I/O rate limit.
+   * 
+   * @param realFilePath target file path
+   * @param toDir        destination directory path
+   * @param limiter      I/O limiter
+   * @return real path of copied file
+   * @throws IORuntimeException I/O Error
+   */
+  public String copyTo(Path realFilePath, Path toDir, IoLimiter limiter) throws IORuntimeException {
 
     String fileName = realFilePath.getFileName().toString();
 
@@ -63,8 +80,9 @@ public class FileSystemService {
 
     log.debug("start copy:" + realFilePath + "->" + distPath);
 
-    try {
-      Files.copy(realFilePath, new FileOutputStream(distPath.toString()));
+    try (InputStream in = limiter.wrap(Files.newInputStream(realFilePath));
+        OutputStream out = new FileOutputStream(distPath.toString())) {
+      in.transferTo(out);
       log.debug("end copy:" + realFilePath + "->" + distPath);
     } catch (IOException ex) {
       throw new IORuntimeException("I/O error.", ex);
@@ -113,11 +131,25 @@ public class FileSystemService {
     }
   }
 
+  /**
+   * Create a temp directory in the scratch space.
+   *
+   * @param prefix prefix of the directory name
+   * @return path of created directory.
+   */
   public Path createTempDirectory(String prefix) {
-    try {
-      return Files.createTempDirectory(prefix);
-    } catch (IOException ex) {
-      throw new IORuntimeException("failed to create a temp directory.", ex);
+    return scratchSpaceManager.createDirectory(prefix);
+  }
+
+  /**
+   * Reserve scratch space for the temp directory.
+   *
+   * @param tempDir temp directory created by createTempDirectory
+   * @param bytes   bytes to reserve
+   */
+  public void reserveTempSpace(Path tempDir, long bytes) {
+    if (!scratchSpaceManager.reserve(tempDir, bytes)) {
+      log.debug("not a temp directory in the scratch space. dir:{}", tempDir);
     }
   }
 
@@ -214,30 +246,6 @@ public class FileSystemService {
     return downloadRootPath.relativize(path);
   }
 
-  public List<String> getFileList(Path targetDir, boolean hideFile, boolean hideDir) throws IOException {
-
-    List<String> fileList = Files.walk(targetDir, MAX_DEPTH)
-        .filter(path -> {
-          if (hideFile) {
-            // show dir only
-            return Files.isDirectory(path);
-          } else if (hideDir) {
-            // show file only
-            return !Files.isDirectory(path) && Files.exists(path);
-          } else {
-            // show both file and dir
-            return true;
-          }
-        })
-        .map(path -> {
-          return path.normalize().toString();
-        })
-        .sorted(Comparator.naturalOrder())
-        .collect(Collectors.toList());
-    return fileList;
-
-  }
-
   /**
    * Delete file in user storage.
    */
@@ -257,6 +265,9 @@ public class FileSystemService {
    * @param path ditrectory path to delete.
    */
   public void deleteDirectoryWithContent(Path path) {
+    if (scratchSpaceManager.release(path)) {
+      return;
+    }
     try {
       Files.walk(path)
           .sorted(Comparator.reverseOrder())
@@ -23,6 +23,8 @@ import com.tsurugidb.belayer.webapi.exec.SessionKillExec;
 import com.tsurugidb.belayer.webapi.exec.SessionSetVariableExec;
 import com.tsurugidb.belayer.webapi.exec.SessionStatusExec;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Session Control Service
  */
@@ -45,7 +47,7 @@ public class SessionControlService {
    * @param token authentication token
    * @return kill succeeded
    */
-  public boolean killSession(String sessionId, String token) {
+  public Mono<Boolean> killSession(String sessionId, String token) {
     return sessionKillExec.killSession(sessionId, token);
   }
 
@@ -56,7 +58,7 @@ public class SessionControlService {
    * @param token authentication token
    * @return true if availavle.
    */
-  public boolean isAvailable(String sessionId, String token) {
+  public Mono<Boolean> isAvailable(String sessionId, String token) {
 
     return sessionStatusExec.existsSession(sessionId, token);
   }
@@ -67,7 +69,7 @@ public class SessionControlService {
    * @param param Session variables
    * @return true if succeeded.
    */
-  public boolean setVariable(SessionVariable param) {
+  public Mono<Boolean> setVariable(SessionVariable param) {
 
     return sessionSetVariableExec.setVariable(param.getSessionId(), param.getVarName(), param.getVarValue(), param.getToken());
   }
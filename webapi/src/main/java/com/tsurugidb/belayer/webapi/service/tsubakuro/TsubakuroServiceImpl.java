@@ -54,6 +54,7 @@ import com.tsurugidb.belayer.webapi.exception.NoDataException;
 import com.tsurugidb.belayer.webapi.exception.TimeoutRuntimeException;
 import com.tsurugidb.belayer.webapi.model.Constants;
 import com.tsurugidb.belayer.webapi.model.LoadStatement;
+import com.tsurugidb.belayer.webapi.model.ScratchSpaceManager;
 import com.tsurugidb.belayer.webapi.service.FileSystemService;
 import com.tsurugidb.belayer.webapi.service.ParquetService;
 import com.tsurugidb.belayer.webapi.service.TsubakuroService;
@@ -94,6 +95,9 @@ public class TsubakuroServiceImpl implements TsubakuroService {
   @Autowired
   ParquetService parquetService;
 
+  @Autowired
+  ScratchSpaceManager scratchSpaceManager;
+
   @Value("${webapi.application.name}")
   private String applicationName;
 
@@ -363,14 +367,10 @@ public class TsubakuroServiceImpl implements TsubakuroService {
     // in parallel.
     Path outDir;
     if (job.isOutputTempDir()) {
-      try {
-        Path tmpDir = Files.createTempDirectory(Constants.TEMP_DIR_PREFIX_DUMP + job.getJobId());
-        job.setTempDir(tmpDir);
-        outDir = tmpDir;
-
-      } catch (IOException ex) {
-        throw new IORuntimeException("Can't create temp directory", ex);
-      }
+      // released by DumpLoadService when the dump ends
+      Path tmpDir = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DUMP + job.getJobId());
+      job.setTempDir(tmpDir);
+      outDir = tmpDir;
     } else {
       outDir = destDir;
     }
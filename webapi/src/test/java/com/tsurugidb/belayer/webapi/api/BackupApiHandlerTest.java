@@ -15,6 +15,8 @@
  */
 package com.tsurugidb.belayer.webapi.api;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
@@ -32,6 +34,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -116,6 +119,35 @@ public class BackupApiHandlerTest {
         .isEqualTo(new JobResult(jobId, TEST_USER, "backup"));
   }
 
+  @Test
+  @WithMockUser(username = TEST_USER)
+  public void testWatchJob() {
+
+    String jobId = "TESTJOBID";
+    var job = new BackupJob();
+    job.setJobId(jobId);
+    job.setUid(TEST_USER);
+    job.setType("backup");
+
+    when(backupService.watchJobs("backup", TEST_USER, jobId)).thenReturn(Flux.just(job));
+
+    String url = RouterPath.BACKUP_JOB_EVENTS_API.getPath();
+
+    // the stream ends after the last event of the job
+    var body = client.get().uri(url, "backup", jobId)
+        .accept(MediaType.TEXT_EVENT_STREAM)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    assertNotNull(body);
+    assertTrue(body.startsWith("event:job\n"));
+    assertTrue(body.contains("\"jobId\":\"" + jobId + "\""));
+  }
+
   @Test
   @WithMockUser(username = TEST_USER)
   public void testShowBackupJobDetail() {
@@ -42,6 +42,8 @@ import com.tsurugidb.belayer.webapi.dto.TableNames;
 import com.tsurugidb.belayer.webapi.service.DbControlService;
 import com.tsurugidb.belayer.webapi.service.TsubakuroService;
 
+import reactor.core.publisher.Mono;
+
 @ActiveProfiles({"common", "ut"})
 @AutoConfigureWebTestClient
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "webapi.db.mock.tablenames=demo,foo,bar")
@@ -77,7 +79,7 @@ public class DbControlApiHandlerTest {
     var mockReturn = new ExecStatus();
     mockReturn.setStatus("success");
 
-    when(dbControlService.startDatabase(any(), any(), any(), any(), anyBoolean())).thenReturn(mockReturn);
+    when(dbControlService.startDatabase(any(), any(), any(), any(), anyBoolean())).thenReturn(Mono.just(mockReturn));
     client.post()
         .uri("/api/db/start")
         .exchange()
@@ -89,7 +91,7 @@ public class DbControlApiHandlerTest {
   @WithMockUser(username = TEST_USER)
   public void shutdown() {
 
-    when(dbControlService.shutdownDatabase(anyString(), anyString())).thenReturn(new ExecStatus());
+    when(dbControlService.shutdownDatabase(anyString(), anyString())).thenReturn(Mono.just(new ExecStatus()));
     client.post()
         .uri("/api/db/shutdown")
         .exchange()
@@ -101,7 +103,7 @@ public class DbControlApiHandlerTest {
   @WithMockUser(username = TEST_USER)
   public void getStatus() {
 
-    when(dbControlService.getStatus(anyString(), anyString())).thenReturn(DbStatus.builder().status(ExecStatus.STATUS_RUNNING).build());
+    when(dbControlService.getStatus(anyString(), anyString())).thenReturn(Mono.just(DbStatus.builder().status(ExecStatus.STATUS_RUNNING).build()));
 
     var expect = DbStatus.builder().status("running").build();
     client.get()
@@ -16,6 +16,7 @@
 package com.tsurugidb.belayer.webapi.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.springSecurity;
 
 import java.io.ByteArrayInputStream;
@@ -31,6 +32,7 @@ import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
@@ -47,6 +49,8 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -136,6 +140,36 @@ public class FileSystemApiHandlerTest {
         .isEqualTo(new DownloadPathList(Arrays.asList(expectFileNames), null));
   }
 
+  @Test
+  @WithMockUser(username = TEST_USER)
+  public void testUploadFiles_fieldsFirst() throws IOException {
+
+    String destDir = "dir_for_test";
+    String fileName1 = "test-file1.txt";
+    String fileName2 = "test-file2.txt";
+
+    // written directly to destDir as the fields are received before the files
+    MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
+    bodyBuilder.part("destDir", destDir.getBytes(StandardCharsets.US_ASCII)).header("Content-Disposition",
+        "form-data; name=destDir");
+    bodyBuilder.part("file", "abcd".getBytes(StandardCharsets.US_ASCII)).header("Content-Disposition",
+        "form-data; name=file; filename=" + fileName1);
+    bodyBuilder.part("file", "efgh".getBytes(StandardCharsets.US_ASCII)).header("Content-Disposition",
+        "form-data; name=file; filename=" + fileName2);
+
+    String[] expectFileNames = { destDir + "/" + fileName1, destDir + "/" + fileName2 };
+
+    client.post().uri(RouterPath.UPLOAD_API.getPath())
+        .contentType(MediaType.MULTIPART_FORM_DATA)
+        .body(BodyInserters.fromMultipartData(bodyBuilder.build()))
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(DownloadPathList.class)
+        .isEqualTo(new DownloadPathList(Arrays.asList(expectFileNames), null));
+
+    assertEquals("efgh", Files.readString(Path.of(storageRootDir, TEST_USER, destDir, fileName2)));
+  }
+
   @Test
   @WithMockUser(username = TEST_USER)
   public void testDownloadFile_invalid_dir() throws IOException {
@@ -187,6 +221,50 @@ public class FileSystemApiHandlerTest {
         .isEqualTo(fileContents);
   }
 
+  @Test
+  @WithMockUser(username = TEST_USER)
+  public void testDownloadFile_range() throws IOException {
+
+    String destDir = "dir_for_test";
+    String fileName = "test-file-to-download.txt";
+    String filePath = destDir + "/" + fileName;
+    String contents = "this is test file";
+
+    Path dir = Path.of(storageRootDir, TEST_USER, destDir);
+    Files.createDirectories(dir);
+    Files.write(Path.of(dir.toString(), fileName), contents.getBytes(StandardCharsets.US_ASCII));
+
+    String etag = client.get().uri("/api/download/{path}", filePath)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().valueEquals(HttpHeaders.ACCEPT_RANGES, "bytes")
+        .returnResult(byte[].class)
+        .getResponseHeaders().getETag();
+
+    // partial content
+    client.get().uri("/api/download/{path}", filePath)
+        .header(HttpHeaders.RANGE, "bytes=5-11")
+        .header(HttpHeaders.IF_RANGE, etag)
+        .exchange()
+        .expectStatus().isEqualTo(HttpStatus.PARTIAL_CONTENT)
+        .expectBody(byte[].class)
+        .isEqualTo("is test".getBytes(StandardCharsets.US_ASCII));
+
+    // whole content when the entity tag does not match
+    client.get().uri("/api/download/{path}", filePath)
+        .header(HttpHeaders.RANGE, "bytes=5-11")
+        .header(HttpHeaders.IF_RANGE, "\"changed\"")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(byte[].class)
+        .isEqualTo(contents.getBytes(StandardCharsets.US_ASCII));
+
+    client.get().uri("/api/download/{path}", filePath)
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .exchange()
+        .expectStatus().isNotModified();
+  }
+
   @Test
   @WithMockUser(username = TEST_USER)
   public void testDownloadFile_dir_as_zip() throws IOException {
@@ -692,13 +770,66 @@ public class FileSystemApiHandlerTest {
     Function<UriBuilder, URI> uriBuilder = (builder -> builder.path(url).queryParam("hide_dir", "true")
         .build(destDir));
 
-    var message = "List size is over limit. size=" + testSize;
+    var message = "List size is over limit. Use nextCursor to get the rest.";
+    var nextCursor = Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(fileList.get(fileList.size() - 1).getBytes(StandardCharsets.UTF_8));
 
     client.get().uri(uriBuilder)
         .exchange()
         .expectStatus().isOk()
         .expectBody(DownloadPathList.class)
-        .isEqualTo(new DownloadPathList(fileList, message));
+        .isEqualTo(new DownloadPathList(fileList, message, nextCursor));
+  }
+
+  @Test
+  @WithMockUser(username = TEST_USER)
+  public void testListFiles_cursor() throws IOException {
+
+    String destDir = "dir_for_test";
+    byte[] contents = "this is test file".getBytes(StandardCharsets.US_ASCII);
+
+    Path dir = Path.of(storageRootDir, TEST_USER, destDir);
+    Files.createDirectories(dir.resolve("sub"));
+    Files.write(dir.resolve("a.txt"), contents);
+    Files.write(dir.resolve("sub/b.txt"), contents);
+    Files.write(dir.resolve("z.txt"), contents);
+
+    String url = RouterPath.LIST_FILES_API.getPath();
+    List<String> result = new ArrayList<>();
+    String cursor = null;
+    do {
+      final String current = cursor;
+      Function<UriBuilder, URI> uriBuilder = (builder -> {
+        builder.path(url).queryParam("limit", "2");
+        if (current != null) {
+          builder.queryParam("cursor", current);
+        }
+        return builder.build(destDir);
+      });
+      DownloadPathList page = client.get().uri(uriBuilder)
+          .exchange()
+          .expectStatus().isOk()
+          .expectBody(DownloadPathList.class)
+          .returnResult().getResponseBody();
+      assertNull(page.getMessage());
+      result.addAll(page.getFileNames());
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+
+    assertEquals(List.of(destDir + "/", destDir + "/a.txt", destDir + "/sub/", destDir + "/sub/b.txt",
+        destDir + "/z.txt"), result);
+
+    Function<UriBuilder, URI> invalidCursor = (builder -> builder.path(url).queryParam("cursor", "!!")
+        .build(destDir));
+    client.get().uri(invalidCursor)
+        .exchange()
+        .expectStatus().isBadRequest();
+
+    Function<UriBuilder, URI> invalidLimit = (builder -> builder.path(url).queryParam("limit", "0")
+        .build(destDir));
+    client.get().uri(invalidLimit)
+        .exchange()
+        .expectStatus().isBadRequest();
   }
 
   @Test
@@ -36,8 +36,10 @@ import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWeb
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers;
 import org.springframework.test.context.ActiveProfiles;
@@ -175,7 +177,9 @@ public class StatefulApiHandlerTest {
         loadResult.setDumpFiles(List.of(jobId + "/" + fileName));
 
         when(tsubakuroService.loadFile(any(), any())).thenReturn(Mono.just(jobId + "/" + fileName));
-        when(uploadHelper.saveFile(anyString(), any(), any())).thenReturn(Mono.just(jobId + "/" + fileName));
+        // parts are streamed, so the content must be consumed
+        when(uploadHelper.saveFile(anyString(), any(), any())).thenAnswer(inv -> inv.<FilePart>getArgument(2)
+                .content().doOnNext(DataBufferUtils::release).then(Mono.just(jobId + "/" + fileName)));
         when(fileSystemService.convertToAbsolutePath(any(), any())).thenReturn(Path.of("./test_tmp/TESTJOBID"));
         when(fileSystemService.convertToDownloadPath(any(), any())).thenReturn(Path.of("TESTJOBID/test-file.parquet"));
         doNothing().when(fileSystemService).deleteFile(anyString(), anyString());
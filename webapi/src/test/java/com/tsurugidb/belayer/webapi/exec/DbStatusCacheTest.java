@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.exec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import com.tsurugidb.belayer.webapi.dto.DbStatus;
+import com.tsurugidb.belayer.webapi.dto.ExecStatus;
+
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "webapi.db.status.cache.ttl_millis=60000")
+public class DbStatusCacheTest {
+
+    @Autowired
+    DbStatusCache dbStatusCache;
+
+    @MockBean
+    DbStatusExec dbStatusExec;
+
+    @Test
+    public void test_getStatus() throws Exception {
+        var status = DbStatus.builder().status(ExecStatus.STATUS_RUNNING).instanceId("ins1").build();
+        // long enough for the other requests to wait for this load
+        when(dbStatusExec.getStatus(anyString(), anyString()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(300)).thenReturn(status));
+        dbStatusCache.invalidate();
+
+        // concurrent requests share one load
+        List<CompletableFuture<DbStatus>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> dbStatusCache.getStatus("status", "token").block()));
+        }
+        for (var result : results) {
+            assertEquals(status, result.get());
+        }
+        verify(dbStatusExec, times(1)).getStatus(anyString(), anyString());
+
+        // cached
+        assertEquals(status, dbStatusCache.getStatus("status", "token").block());
+        verify(dbStatusExec, times(1)).getStatus(anyString(), anyString());
+
+        // loaded again after invalidation
+        dbStatusCache.invalidate();
+        assertEquals(status, dbStatusCache.getStatus("status", "token").block());
+        verify(dbStatusExec, times(2)).getStatus(anyString(), anyString());
+    }
+
+    @Test
+    public void test_getStatus_notShareFailure() throws Exception {
+        var running = DbStatus.builder().status(ExecStatus.STATUS_RUNNING).instanceId("ins1").build();
+        // e.g. the token is expired
+        var unknown = DbStatus.builder().build();
+        when(dbStatusExec.getStatus(anyString(), eq("expired")))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(300)).thenReturn(unknown));
+        when(dbStatusExec.getStatus(anyString(), eq("valid"))).thenReturn(Mono.just(running));
+        dbStatusCache.invalidate();
+
+        var failed = dbStatusCache.getStatus("status", "expired").toFuture();
+        // waits for the load with the expired token, and then loads with its own token
+        assertEquals(running, dbStatusCache.getStatus("status", "valid").block());
+        assertNull(failed.get().getStatus());
+        verify(dbStatusExec, times(1)).getStatus(anyString(), eq("valid"));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.exec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// each command copies a prepared monitor file to the monitor file path
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "webapi.cli.cmd.db-status=cp ./test_tmp/monitor/status.log %s",
+        "webapi.cli.cmd.db-config=cp ./test_tmp/monitor/config.log %s",
+        "webapi.cli.cmd.db-mode=cp ./test_tmp/monitor/mode.log %s",
+        "webapi.cli.cmd.db-version=cp ./test_tmp/monitor/version.log %s" })
+public class DbStatusExecTest {
+
+    private static final Path MONITOR_DIR = Path.of("./test_tmp/monitor");
+
+    @Autowired
+    DbStatusExec dbStatusExec;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(MONITOR_DIR);
+        Files.write(MONITOR_DIR.resolve("config.log"), List.of(
+                "{\"timestamp\":1,\"kind\":\"start\"}",
+                "{\"kind\":\"data\",\"section\":\"system\",\"key\":\"instance_id\",\"value\":\"tsurugidb_t3\"}",
+                "{\"kind\":\"data\",\"section\":\"grpc_server\",\"key\":\"enabled\",\"value\":true}",
+                "{\"kind\":\"data\",\"section\":\"grpc_server\",\"key\":\"endpoint\",\"value\":\"dns:///tsurugidb:50051\"}",
+                "{\"timestamp\":2,\"kind\":\"finish\",\"status\":\"success\"}"));
+        Files.write(MONITOR_DIR.resolve("mode.log"), List.of(
+                "{\"kind\":\"data\",\"key\":\"mode\",\"value\":\"replica\"}",
+                "{\"kind\":\"data\",\"key\":\"replica.replication_status\",\"value\":\"ok\"}",
+                "{\"kind\":\"data\",\"key\":\"replica.upstream\",\"value\":\"dns:///master:50051\"}"));
+        Files.write(MONITOR_DIR.resolve("version.log"), List.of(
+                "{\"kind\":\"data\",\"key\":\"version\",\"value\":\"XXXXXXXX\"}"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // delete dir for test
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void test_getStatus_running() throws Exception {
+        Files.write(MONITOR_DIR.resolve("status.log"), List.of(
+                "{\"timestamp\":1,\"kind\":\"start\"}",
+                "not a json line",
+                "{\"kind\":\"data\",\"format\":\"status\",\"status\":\"running\"}"));
+
+        var status = dbStatusExec.getStatus("status", "token").block();
+
+        assertEquals("running", status.getStatus());
+        assertEquals("tsurugidb_t3", status.getInstanceId());
+        assertTrue(status.isGrpc_server_enabled());
+        assertEquals("dns:///tsurugidb:50051", status.getGrpc_server_endpoint());
+        assertEquals("replica", status.getMode());
+        assertEquals("ok", status.getModeStatus());
+        assertEquals("dns:///master:50051", status.getUpstream());
+        assertEquals("XXXXXXXX", status.getWalVersion());
+    }
+
+    @Test
+    public void test_getStatus_stopped() throws Exception {
+        Files.write(MONITOR_DIR.resolve("status.log"), List.of(
+                "{\"kind\":\"data\",\"format\":\"status\",\"status\":\"stop\"}"));
+
+        var status = dbStatusExec.getStatus("status", "token").block();
+
+        assertEquals("stop", status.getStatus());
+        assertEquals("tsurugidb_t3", status.getInstanceId());
+        assertNull(status.getMode());
+        assertNull(status.getWalVersion());
+    }
+}
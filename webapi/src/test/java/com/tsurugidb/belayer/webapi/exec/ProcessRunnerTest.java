@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.exec;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tsurugidb.belayer.webapi.dto.ExecStatus;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+public class ProcessRunnerTest {
+
+    private static final Path MONITOR_DIR = Path.of("./test_tmp/monitor");
+
+    @Autowired
+    ProcessRunner processRunner;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(MONITOR_DIR);
+        Files.write(MONITOR_DIR.resolve("backup.log"), List.of(
+                "{\"timestamp\":1,\"kind\":\"start\"}",
+                "{\"timestamp\":2,\"kind\":\"progress\",\"progress\":0.5}",
+                "{\"timestamp\":3,\"kind\":\"finish\",\"status\":\"success\"}"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // delete dir for test
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void test_runWithMonitor() throws Exception {
+        List<String> kinds = new CopyOnWriteArrayList<>();
+
+        var status = processRunner.runWithMonitor("runner",
+                monitoringFile -> "cp ./test_tmp/monitor/backup.log " + monitoringFile,
+                s -> kinds.add(s.getKind()))
+                .block();
+
+        assertNotNull(status);
+        assertEquals(ExecStatus.KIND_FINISH, status.getKind());
+        assertEquals(ExecStatus.STATUS_SUCCESS, status.getStatus());
+        // every line is passed to the callback once
+        assertEquals(List.of(ExecStatus.KIND_START, ExecStatus.KIND_PROGRESS, ExecStatus.KIND_FINISH), kinds);
+    }
+
+    @Test
+    public void test_run_without_status() throws Exception {
+        Path monitoringFile = MONITOR_DIR.resolve("none/monitoring.log");
+
+        var status = processRunner.run("true", monitoringFile, MONITOR_DIR.resolve("none/stdout.log"), null)
+                .block();
+
+        assertNull(status);
+    }
+
+    @Test
+    public void test_cancel() throws Exception {
+        AtomicReference<Process> process = new AtomicReference<>();
+
+        var disposable = processRunner.runWithMonitor("runner", monitoringFile -> "sleep 30", null, process::set)
+                .subscribe();
+        for (int i = 0; i < 50 && process.get() == null; i++) {
+            Thread.sleep(100);
+        }
+        assertNotNull(process.get());
+
+        // cancelling the subscription does not destroy the process
+        disposable.dispose();
+        Thread.sleep(200);
+        assertTrue(process.get().isAlive());
+
+        // cancelling the job does
+        new ProcessRunner.DisposableProcess(process.get()).dispose();
+        process.get().onExit().get(10, TimeUnit.SECONDS);
+        assertFalse(process.get().isAlive());
+    }
+}
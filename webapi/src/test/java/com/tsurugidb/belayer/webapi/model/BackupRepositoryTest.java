@@ -0,0 +1,214 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tsurugidb.belayer.webapi.dto.BackupSnapshot.SnapshotFile;
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+public class BackupRepositoryTest {
+
+    String workDir = "./test_tmp/backup/";
+
+    String repoDir = "./test_tmp/repo/";
+
+    // small chunks to exercise chunking with small test files
+    ContentDefinedChunker chunker = new ContentDefinedChunker(1024, 12, 16 * 1024);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(Path.of(workDir, "foo"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // delete dir for test
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testSnapshotAndRestore() throws Exception {
+
+        byte[] contents1 = randomBytes(1, 200 * 1024);
+        byte[] contents2 = randomBytes(2, 100 * 1024);
+        Files.write(Path.of(workDir, "foo/file1.dat"), contents1);
+        Files.write(Path.of(workDir, "foo/file2.dat"), contents2);
+        List<String> list = List.of(workDir + "foo/file1.dat", workDir + "foo/file2.dat");
+
+        var repository = new BackupRepository(Path.of(repoDir), chunker);
+        String snapshot1 = list.stream()
+                .collect(repository.collectAsSnapshot(Path.of(workDir), "backup-1", -1));
+        long chunkCount = countChunks();
+
+        // same contents are not stored twice
+        String snapshot2 = list.stream()
+                .collect(repository.collectAsSnapshot(Path.of(workDir), "backup-2", -1));
+        assertEquals(chunkCount, countChunks());
+        assertTrue(BackupRepository.isSnapshotFile(Path.of(snapshot2)));
+
+        Path restoreDir = Path.of("./test_tmp/restore");
+        repository.restoreSnapshot(Path.of(snapshot1), restoreDir);
+        assertArrayEquals(contents1, Files.readAllBytes(restoreDir.resolve("foo/file1.dat")));
+        assertArrayEquals(contents2, Files.readAllBytes(restoreDir.resolve("foo/file2.dat")));
+    }
+
+    @Test
+    public void testPrune() throws Exception {
+
+        Path file = Path.of(workDir, "foo/file1.dat");
+        List<String> list = List.of(file.toString());
+        var repository = new BackupRepository(Path.of(repoDir), chunker);
+
+        Files.write(file, randomBytes(1, 100 * 1024));
+        String snapshot1 = list.stream()
+                .collect(repository.collectAsSnapshot(Path.of(workDir), "backup-1", -1));
+        long chunkCount = countChunks();
+
+        Thread.sleep(10);
+        Files.write(file, randomBytes(2, 100 * 1024));
+        String snapshot2 = list.stream()
+                .collect(repository.collectAsSnapshot(Path.of(workDir), "backup-2", -1));
+
+        int deleted = repository.prune(1, Duration.ZERO);
+
+        assertEquals(chunkCount, deleted);
+        assertFalse(Files.exists(Path.of(snapshot1)));
+        assertTrue(Files.exists(Path.of(snapshot2)));
+    }
+
+    @Test
+    public void testLockSharedByInstances() throws Exception {
+
+        Path file = Path.of(workDir, "foo/file1.dat");
+        Files.write(file, randomBytes(1, 10 * 1024));
+        var repository = new BackupRepository(Path.of(repoDir), chunker);
+
+        // a prune on another instance of the same root
+        var lock = BackupRepository.lockOf(Path.of(repoDir).resolve("."));
+        lock.writeLock().lock();
+        CompletableFuture<SnapshotFile> stored;
+        try {
+            stored = CompletableFuture.supplyAsync(() -> repository.storeFile(Path.of(workDir), file, -1));
+            Thread.sleep(200);
+            assertFalse(stored.isDone());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        assertEquals(10 * 1024, stored.get(10, TimeUnit.SECONDS).getSize());
+    }
+
+    @Test
+    public void testPruneWhileBackupRunning() throws Exception {
+
+        Path file = Path.of(workDir, "foo/file1.dat");
+        var repository = new BackupRepository(Path.of(repoDir), chunker);
+        Files.write(file, randomBytes(3, 100 * 1024));
+        Stream.of(file.toString()).collect(repository.collectAsSnapshot(Path.of(workDir), "backup-0", -1));
+        Files.write(file, randomBytes(1, 100 * 1024));
+
+        // chunks are stored, but the snapshot is not written yet
+        var collector = repository.collectAsSnapshot(Path.of(workDir), "backup-1", -1);
+        String snapshot = collectPartially(collector, file.toString(), () -> {
+            long chunkCount = countChunks();
+            int deleted = new BackupRepository(Path.of(repoDir), chunker).prune(0, Duration.ZERO);
+            assertEquals(0, deleted);
+            assertEquals(chunkCount, countChunks());
+            return null;
+        });
+
+        // referenced by the snapshot
+        assertEquals(0, new BackupRepository(Path.of(repoDir), chunker).prune(0, Duration.ZERO));
+        assertTrue(repository.verifySnapshot(Path.of(snapshot)).isEmpty());
+
+        // chunks of a failed backup are pruned after it is closed
+        var failed = new BackupRepository(Path.of(repoDir), chunker);
+        Files.write(file, randomBytes(2, 100 * 1024));
+        assertThrows(IORuntimeException.class, () -> Stream.of(file.toString(), workDir + "foo/missing.dat")
+                .collect(failed.collectAsSnapshot(Path.of(workDir), "backup-2", -1)));
+        assertEquals(0, new BackupRepository(Path.of(repoDir), chunker).prune(0, Duration.ZERO));
+        failed.close();
+        assertTrue(new BackupRepository(Path.of(repoDir), chunker).prune(0, Duration.ZERO) > 0);
+    }
+
+    @Test
+    public void testAddedBytesCountedOnce() throws Exception {
+
+        Path file = Path.of(workDir, "foo/file1.dat");
+        Files.write(file, randomBytes(1, 200 * 1024));
+        var repository1 = new BackupRepository(Path.of(repoDir), chunker);
+        var repository2 = new BackupRepository(Path.of(repoDir), chunker);
+
+        // the same chunks are stored at the same time
+        var stored1 = CompletableFuture.supplyAsync(() -> repository1.storeFile(Path.of(workDir), file, -1));
+        var stored2 = CompletableFuture.supplyAsync(() -> repository2.storeFile(Path.of(workDir), file, -1));
+        stored1.get(10, TimeUnit.SECONDS);
+        stored2.get(10, TimeUnit.SECONDS);
+
+        assertEquals(sizeOfChunks(), repository1.getAddedBytes() + repository2.getAddedBytes());
+    }
+
+    private <A> String collectPartially(Collector<String, A, String> collector, String filePath,
+            Callable<Void> beforeFinish) throws Exception {
+        A container = collector.supplier().get();
+        collector.accumulator().accept(container, filePath);
+        beforeFinish.call();
+        return collector.finisher().apply(container);
+    }
+
+    private byte[] randomBytes(long seed, int size) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private long sizeOfChunks() throws IOException {
+        try (Stream<Path> stream = Files.walk(Path.of(repoDir, BackupRepository.CHUNK_DIR))) {
+            return stream.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+
+    private long countChunks() throws IOException {
+        try (Stream<Path> stream = Files.walk(Path.of(repoDir, BackupRepository.CHUNK_DIR))) {
+            return stream.filter(Files::isRegularFile).count();
+        }
+    }
+}
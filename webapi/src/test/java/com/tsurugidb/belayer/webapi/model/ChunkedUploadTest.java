@@ -0,0 +1,89 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ChunkedUploadTest {
+
+    @Test
+    public void testAddRange() {
+        var upload = new ChunkedUpload("id", "user", Path.of("target"), Path.of("part"), 100, false,
+                StorageUsageLedger.Reservation.NONE, 0);
+
+        assertFalse(upload.isAllReceived());
+        assertEquals(List.of("0-99"), upload.getMissingRanges());
+
+        // out of order
+        upload.addRange(50, 70);
+        upload.addRange(10, 20);
+        assertEquals(30, upload.getReceivedBytes());
+        assertEquals(List.of("0-9", "20-49", "70-99"), upload.getMissingRanges());
+
+        // overlapped and adjacent ranges are merged
+        upload.addRange(15, 55);
+        upload.addRange(80, 100);
+        assertEquals(List.of("0-9", "70-79"), upload.getMissingRanges());
+
+        // sent again
+        upload.addRange(50, 60);
+        assertEquals(80, upload.getReceivedBytes());
+
+        upload.addRange(0, 10);
+        upload.addRange(70, 80);
+        assertTrue(upload.isAllReceived());
+        assertEquals(100, upload.getReceivedBytes());
+        assertEquals(List.of(), upload.getMissingRanges());
+    }
+
+    @Test
+    public void testCompleting() {
+        var upload = new ChunkedUpload("id", "user", Path.of("target"), Path.of("part"), 0, false,
+                StorageUsageLedger.Reservation.NONE, 0);
+
+        assertTrue(upload.isAllReceived());
+        assertTrue(upload.startCompleting());
+        assertFalse(upload.startCompleting());
+        upload.cancelCompleting();
+        assertTrue(upload.startCompleting());
+    }
+
+    @Test
+    public void testWriting() throws Exception {
+        var upload = new ChunkedUpload("id", "user", Path.of("target"), Path.of("part"), 0, false,
+                StorageUsageLedger.Reservation.NONE, 0);
+
+        assertTrue(upload.startWriting());
+        assertTrue(upload.startCompleting());
+        // no chunk is accepted while completing
+        assertFalse(upload.startWriting());
+        assertFalse(upload.awaitWriting(10));
+
+        upload.endWriting();
+        assertTrue(upload.awaitWriting(10));
+
+        upload.markCompleted();
+        assertFalse(upload.startWriting());
+        assertFalse(upload.startCompleting());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "webapi.storage.root=./test_tmp")
+public class DirectoryIndexTest {
+
+    private static final String TEST_USER = "test_user";
+
+    @Autowired
+    DirectoryIndex directoryIndex;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Path userDir = Path.of("./test_tmp", TEST_USER);
+        Files.createDirectories(userDir.resolve("a"));
+        Files.createDirectories(userDir.resolve("b"));
+        Files.write(userDir.resolve("a/x.txt"), new byte[1]);
+        Files.write(userDir.resolve("b/y.txt"), new byte[1]);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testListWithCursor() throws Exception {
+        var page = directoryIndex.list(TEST_USER, "a", false, false, null, 1);
+        assertEquals(List.of("a/"), page.getPaths());
+
+        page = directoryIndex.list(TEST_USER, "a", false, false, page.getLastPath(), 1);
+        assertEquals(List.of("a/x.txt"), page.getPaths());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void testChunkedUploadDirNotListed() throws Exception {
+        Path uploadDir = Path.of("./test_tmp", TEST_USER, Constants.CHUNKED_UPLOAD_DIR);
+        Files.createDirectories(uploadDir);
+        Files.write(uploadDir.resolve("id.part"), new byte[1]);
+
+        var page = directoryIndex.list(TEST_USER, "", false, false, null, 10);
+        assertEquals(List.of("/", "a/", "a/x.txt", "b/", "b/y.txt"), page.getPaths());
+    }
+
+    @Test
+    public void testListWithCursorOfOtherDirectory() throws Exception {
+        var page = directoryIndex.list(TEST_USER, "b", true, false, null, 1);
+        assertEquals("b", page.getLastPath());
+
+        // "b" sorts after all paths in "a"
+        assertThrows(BadRequestException.class,
+                () -> directoryIndex.list(TEST_USER, "a", false, false, "b/y.txt", 10));
+        assertThrows(BadRequestException.class,
+                () -> directoryIndex.list(TEST_USER, "a", false, false, page.getLastPath(), 10));
+    }
+}
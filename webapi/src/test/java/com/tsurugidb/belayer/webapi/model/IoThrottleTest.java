@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.tsurugidb.belayer.webapi.dto.IoThrottleSetting;
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+
+public class IoThrottleTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<Long> sleeps = new CopyOnWriteArrayList<>();
+
+    @Test
+    public void testLimitsUpdated() {
+        var throttle = new IoThrottle(clock::get, sleeps::add);
+        throttle.updateSetting(new IoThrottleSetting(1000L, 500L, null));
+        IoLimiter limiter = throttle.createLimiter("job1");
+
+        // waits for the stricter limit
+        limiter.acquire(250);
+        assertEquals(List.of(millis(500)), sleeps);
+        clock.addAndGet(millis(500));
+
+        // the job limit is removed on the running limiter
+        throttle.updateSetting(new IoThrottleSetting(null, 0L, null));
+        limiter.acquire(250);
+        assertEquals(1, sleeps.size());
+
+        // unlimited
+        throttle.updateSetting(new IoThrottleSetting(0L, null, null));
+        clock.addAndGet(millis(500));
+        limiter.acquire(1_000_000);
+        assertEquals(1, sleeps.size());
+
+        // 500 bytes in the first second
+        assertEquals(500, throttle.getCurrentBytesPerSec());
+    }
+
+    @Test
+    public void testInvalidLimit() {
+        var throttle = new IoThrottle(clock::get, sleeps::add);
+        throttle.updateSetting(new IoThrottleSetting(1000L, 500L, null));
+
+        assertThrows(BadRequestException.class,
+                () -> throttle.updateSetting(new IoThrottleSetting(-1L, null, null)));
+
+        // not changed
+        var setting = throttle.getSetting();
+        assertEquals(1000L, setting.getGlobalBytesPerSec());
+        assertEquals(500L, setting.getJobBytesPerSec());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tsurugidb.belayer.webapi.dto.DumpJob;
+import com.tsurugidb.belayer.webapi.dto.Job;
+import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+import com.tsurugidb.belayer.webapi.exception.BadRequestException;
+
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "webapi.job.data.directory=./test_tmp/jobs",
+        "webapi.job.journal.compaction_interval_minutes=0",
+        "webapi.job.events.interval_millis=0" })
+public class JobManagerTest {
+
+    @Value("${webapi.job.data.directory}")
+    private String jobDataDir;
+
+    @Autowired
+    JobManager jobManager;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testJournalAndCompaction() throws Exception {
+        Path journal = Path.of(jobDataDir, "belayer_jobs.journal");
+        Path snapshot = Path.of(jobDataDir, "belayer_jobs.json");
+
+        var job = new DumpJob();
+        job.setUid("journal_user");
+        job.setJobId("journal-job-1");
+        job.setStatus(JobStatus.RUNNING);
+        jobManager.registerJob(job);
+        jobManager.updateJobStatus(job, JobStatus.COMPLETED, null);
+
+        // reading jobs does not write anything
+        long records = jobManager.getJournalRecords();
+        jobManager.getJob(Job.TYPE_DUMP, "journal_user", "journal-job-1");
+        jobManager.getJobs(Job.TYPE_DUMP, "journal_user");
+        assertEquals(records, jobManager.getJournalRecords());
+        assertTrue(Files.exists(journal));
+
+        // a line broken by a crash is ignored
+        Files.write(journal, "{\"type\":\"dump\",\"jobId\"".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        jobManager.load();
+        var loaded = jobManager.getJob(Job.TYPE_DUMP, "journal_user", "journal-job-1");
+        assertEquals(JobStatus.COMPLETED, loaded.get().getStatus());
+        assertFalse(Files.exists(journal));
+
+        var job2 = new DumpJob();
+        job2.setUid("journal_user");
+        job2.setJobId("journal-job-2");
+        job2.setStatus(JobStatus.RUNNING);
+        jobManager.registerJob(job2);
+        assertEquals(1, jobManager.getJournalRecords());
+
+        jobManager.compact();
+        assertFalse(Files.exists(journal));
+        assertTrue(Files.exists(snapshot));
+        assertEquals(0, jobManager.getJournalRecords());
+
+        jobManager.load();
+        assertEquals(JobStatus.RUNNING,
+                jobManager.getJob(Job.TYPE_DUMP, "journal_user", "journal-job-2").get().getStatus());
+        assertEquals(JobStatus.COMPLETED,
+                jobManager.getJob(Job.TYPE_DUMP, "journal_user", "journal-job-1").get().getStatus());
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            var job = new DumpJob();
+            job.setUid("paging_user");
+            job.setJobId("paging-job-" + i);
+            job.setStatus(JobStatus.RUNNING);
+            jobManager.registerJob(job);
+        }
+
+        var page1 = jobManager.getJobs(Job.TYPE_DUMP, "paging_user", null, 2);
+        assertEquals(2, page1.getJobs().size());
+        assertTrue(page1.getNextCursor() != null);
+
+        var page2 = jobManager.getJobs(Job.TYPE_DUMP, "paging_user", page1.getNextCursor(), 2);
+        assertEquals(1, page2.getJobs().size());
+        assertNull(page2.getNextCursor());
+
+        Set<String> jobIds = new HashSet<>();
+        page1.getJobs().forEach(job -> jobIds.add(job.getJobId()));
+        page2.getJobs().forEach(job -> jobIds.add(job.getJobId()));
+        assertEquals(3, jobIds.size());
+
+        // other types are not listed
+        assertEquals(0, jobManager.getJobs(Job.TYPE_LOAD, "paging_user").size());
+
+        assertThrows(BadRequestException.class,
+                () -> jobManager.getJobs(Job.TYPE_DUMP, "paging_user", null, 0));
+        assertThrows(BadRequestException.class,
+                () -> jobManager.getJobs(Job.TYPE_DUMP, "paging_user", "invalid", 2));
+    }
+
+    @Test
+    public void testWatchJob() throws Exception {
+        var job = new DumpJob();
+        job.setUid("watch_user");
+        job.setJobId("watch-job-1");
+        job.setStatus(JobStatus.RUNNING);
+        jobManager.registerJob(job);
+
+        StepVerifier.create(jobManager.watchJobs(List.of(Job.TYPE_DUMP), "watch_user", "watch-job-1"))
+                .assertNext(watched -> assertEquals(JobStatus.RUNNING, watched.getStatus()))
+                .then(() -> jobManager.updateJobStatus(job, JobStatus.COMPLETED, null))
+                .assertNext(watched -> assertEquals(JobStatus.COMPLETED, watched.getStatus()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+    }
+
+    @Test
+    public void testWatchJobsWithoutDemand() throws Exception {
+        var job = new DumpJob();
+        job.setUid("slow_user");
+        job.setJobId("slow-job-1");
+        job.setStatus(JobStatus.RUNNING);
+        jobManager.registerJob(job);
+
+        // a slow subscriber does not lose the change
+        StepVerifier.create(jobManager.watchJobs(List.of(Job.TYPE_DUMP), "slow_user", null), 0)
+                .then(() -> jobManager.updateJobStatus(job, JobStatus.COMPLETED, null))
+                .thenAwait(Duration.ofMillis(200))
+                .thenRequest(2)
+                .assertNext(watched -> assertEquals("slow-job-1", watched.getJobId()))
+                .assertNext(watched -> assertEquals(JobStatus.COMPLETED, watched.getStatus()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+    }
+}
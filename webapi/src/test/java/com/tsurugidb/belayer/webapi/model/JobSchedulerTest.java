@@ -0,0 +1,146 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+
+import com.tsurugidb.belayer.webapi.dto.DumpJob;
+import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "webapi.job.scheduler.concurrency.total=0",
+        "webapi.job.scheduler.concurrency.dump=2" })
+public class JobSchedulerTest {
+
+    @Autowired
+    JobScheduler jobScheduler;
+
+    @Test
+    public void testFairQueueing() throws Exception {
+        Sinks.One<String> finishA = Sinks.one();
+        Sinks.One<String> finishB = Sinks.one();
+        var jobA = createJob("user1", "job-a");
+        var jobB = createJob("user1", "job-b");
+        var jobC = createJob("user1", "job-c");
+        var jobD = createJob("user2", "job-d");
+
+        jobScheduler.schedule(jobA, finishA.asMono()).subscribe();
+        jobScheduler.schedule(jobB, finishB.asMono()).subscribe();
+        Disposable c = jobScheduler.schedule(jobC, Sinks.<String>one().asMono()).subscribe();
+        jobScheduler.schedule(jobD, Sinks.<String>one().asMono()).subscribe();
+
+        assertEquals(JobStatus.RUNNING, jobA.getStatus());
+        assertEquals(JobStatus.RUNNING, jobB.getStatus());
+        assertEquals(JobStatus.QUEUED, jobC.getStatus());
+        assertEquals(JobStatus.QUEUED, jobD.getStatus());
+        assertEquals(2, jobScheduler.getQueuedCount());
+
+        // user2 has no running job, so the job of user2 starts first
+        finishA.tryEmitValue("a");
+        waitUntilQueued(1);
+        assertEquals(JobStatus.QUEUED, jobC.getStatus());
+        assertEquals(JobStatus.RUNNING, jobD.getStatus());
+
+        // cancelled job is removed from the queue
+        c.dispose();
+        assertEquals(0, jobScheduler.getQueuedCount());
+        finishB.tryEmitValue("b");
+        waitUntilRunning(1);
+        assertEquals(JobStatus.QUEUED, jobC.getStatus());
+    }
+
+    @Test
+    // a job of the other test may be left running
+    @DirtiesContext(methodMode = MethodMode.BEFORE_METHOD)
+    public void testStartedWhileQueueing() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Sinks.One<String> finishA = Sinks.one();
+            Sinks.One<String> finishB = Sinks.one();
+            Sinks.One<String> finishC = Sinks.one();
+            var jobA = createJob("user1", "job-a" + i);
+            var jobB = createJob("user1", "job-b" + i);
+            var jobC = createJob("user2", "job-c" + i);
+
+            jobScheduler.schedule(jobA, finishA.asMono()).subscribe();
+            jobScheduler.schedule(jobB, finishB.asMono()).subscribe();
+
+            // job C is queued while job A is finishing
+            var barrier = new CyclicBarrier(2);
+            var thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                } catch (Exception ex) {
+                    throw new RuntimeException(ex);
+                }
+                finishA.tryEmitValue("a");
+            });
+            thread.start();
+            barrier.await();
+            jobScheduler.schedule(jobC, finishC.asMono()).subscribe();
+            thread.join();
+
+            waitUntilStatus(jobC, JobStatus.RUNNING);
+
+            finishB.tryEmitValue("b");
+            finishC.tryEmitValue("c");
+            waitUntilRunning(0);
+        }
+    }
+
+    private DumpJob createJob(String uid, String jobId) {
+        var job = new DumpJob();
+        job.setUid(uid);
+        job.setJobId(jobId);
+        job.setStatus(JobStatus.RUNNING);
+        return job;
+    }
+
+    private void waitUntilQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (jobScheduler.getQueuedCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, jobScheduler.getQueuedCount());
+    }
+
+    private void waitUntilStatus(DumpJob job, JobStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (job.getStatus() != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, job.getStatus());
+    }
+
+    private void waitUntilRunning(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (jobScheduler.getRunningCount() != count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, jobScheduler.getRunningCount());
+    }
+}
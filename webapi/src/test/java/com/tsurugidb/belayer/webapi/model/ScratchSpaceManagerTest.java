@@ -0,0 +1,121 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "webapi.scratch.dir=./test_tmp/scratch",
+        "webapi.scratch.budget=100",
+        "webapi.scratch.janitor_interval_minutes=0" })
+public class ScratchSpaceManagerTest {
+
+    @Autowired
+    ScratchSpaceManager scratchSpaceManager;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testReserveAndRelease() throws Exception {
+        Path dir1 = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
+        Path dir2 = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DOWNLOAD);
+        Files.write(dir1.resolve("file1"), new byte[10]);
+
+        assertTrue(scratchSpaceManager.reserve(dir1, 60));
+        var ex = assertThrows(BelayerResponseStatusException.class, () -> scratchSpaceManager.reserve(dir2, 50));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatus());
+        assertEquals(60, scratchSpaceManager.getReservedBytes());
+
+        assertTrue(scratchSpaceManager.release(dir1));
+        assertFalse(Files.exists(dir1));
+        assertEquals(0, scratchSpaceManager.getReservedBytes());
+        assertTrue(scratchSpaceManager.reserve(dir2, 50));
+
+        assertTrue(scratchSpaceManager.release(dir2));
+        assertFalse(scratchSpaceManager.release(dir2));
+        assertFalse(scratchSpaceManager.reserve(dir2, 10));
+    }
+
+    @Test
+    public void testDeleteOrphans() throws Exception {
+        Path inUse = scratchSpaceManager.createDirectory(Constants.TEMP_DIR_PREFIX_DUMP);
+        Path orphan = Files.createDirectories(scratchSpaceManager.getRoot().resolve(Constants.TEMP_DIR_PREFIX_DUMP + "1"));
+        Path recent = Files.createDirectories(scratchSpaceManager.getRoot().resolve(Constants.TEMP_DIR_PREFIX_DUMP + "2"));
+        Path other = Files.createDirectories(scratchSpaceManager.getRoot().resolve("other"));
+        FileTime old = FileTime.from(Instant.now().minus(2, ChronoUnit.DAYS));
+        for (Path dir : new Path[] { inUse, orphan, other }) {
+            Files.setLastModifiedTime(dir, old);
+        }
+
+        scratchSpaceManager.deleteOrphans();
+
+        assertTrue(Files.exists(inUse));
+        assertFalse(Files.exists(orphan));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(other));
+
+        scratchSpaceManager.release(inUse);
+    }
+
+    @Test
+    public void testDeleteStoppedInstances() throws Exception {
+        Path base = scratchSpaceManager.getRoot().getParent();
+        Path stopped = Files.createDirectories(base.resolve("belayer-scratch-stopped"));
+        Files.write(stopped.resolve(".lock"), new byte[0]);
+        Path running = Files.createDirectories(base.resolve("belayer-scratch-running"));
+        Path work = Files.createDirectories(running.resolve(Constants.TEMP_DIR_PREFIX_DUMP + "1"));
+        // not created by belayer
+        Path other = Files.createDirectories(base.resolve("other"));
+
+        try (FileChannel channel = FileChannel.open(running.resolve(".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE)) {
+            channel.lock();
+            scratchSpaceManager.deleteOrphans();
+        }
+
+        assertFalse(Files.exists(stopped));
+        assertTrue(Files.exists(work));
+        assertTrue(Files.exists(other));
+    }
+}
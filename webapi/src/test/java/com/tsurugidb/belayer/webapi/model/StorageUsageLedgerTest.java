@@ -0,0 +1,157 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "webapi.storage.root=./test_tmp",
+        "webapi.storage.quota.per_user=100",
+        "webapi.storage.usage.reconcile_interval_minutes=0" })
+public class StorageUsageLedgerTest {
+
+    private static final String TEST_USER = "ledger_user";
+
+    private static final String OTHER_USER = "ledger_user_other";
+
+    @Value("${webapi.storage.root}")
+    private String storageRootDir;
+
+    @Autowired
+    StorageUsageLedger ledger;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(Path.of(storageRootDir, TEST_USER, "dir"));
+        Files.write(Path.of(storageRootDir, TEST_USER, "dir", "file1"), new byte[30]);
+        ledger.reconcile(TEST_USER);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.walk(Path.of(storageRootDir))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testWriteAndDelete() throws Exception {
+        assertEquals(30, ledger.getUsage(TEST_USER));
+
+        Path file2 = Path.of(storageRootDir, TEST_USER, "dir", "file2");
+        Files.write(file2, new byte[50]);
+        ledger.fileWritten(file2, 0);
+        assertEquals(80, ledger.getUsage(TEST_USER));
+
+        // overwrite
+        long previousSize = ledger.sizeOf(file2);
+        Files.write(file2, new byte[20]);
+        ledger.fileWritten(file2, previousSize);
+        assertEquals(50, ledger.getUsage(TEST_USER));
+
+        Path dir = Path.of(storageRootDir, TEST_USER, "dir");
+        long size = ledger.sizeOf(dir);
+        Files.delete(file2);
+        Files.delete(dir.resolve("file1"));
+        ledger.add(dir, -size);
+        assertEquals(0, ledger.getUsage(TEST_USER));
+    }
+
+    @Test
+    public void testCheckQuota() throws Exception {
+        ledger.checkQuota(TEST_USER, 70).release();
+
+        var ex = assertThrows(BelayerResponseStatusException.class, () -> ledger.checkQuota(TEST_USER, 71));
+        assertEquals(HttpStatus.INSUFFICIENT_STORAGE, ex.getStatus());
+
+        // files outside user directories are not counted
+        ledger.checkQuota(Path.of(storageRootDir, "belayer_jobs.json"), 1000);
+    }
+
+    @Test
+    public void testReservation() throws Exception {
+        var reservation = ledger.checkQuota(TEST_USER, 60);
+        assertEquals(60, ledger.getReserved(TEST_USER));
+
+        // reserved bytes are counted until released
+        var ex = assertThrows(BelayerResponseStatusException.class, () -> ledger.checkQuota(TEST_USER, 20));
+        assertEquals(HttpStatus.INSUFFICIENT_STORAGE, ex.getStatus());
+
+        reservation.release();
+        reservation.release();
+        assertEquals(0, ledger.getReserved(TEST_USER));
+
+        ledger.checkQuota(TEST_USER, 20).release();
+        assertEquals(0, ledger.getReserved(TEST_USER));
+    }
+
+    @Test
+    public void testReserve() throws Exception {
+        // usage is not loaded yet
+        Files.createDirectories(Path.of(storageRootDir, OTHER_USER));
+        Files.write(Path.of(storageRootDir, OTHER_USER, "file1"), new byte[50]);
+
+        StepVerifier.create(ledger.reserve(OTHER_USER, 51))
+                .expectErrorMatches(ex -> ex instanceof BelayerResponseStatusException
+                        && ((BelayerResponseStatusException) ex).getStatus() == HttpStatus.INSUFFICIENT_STORAGE)
+                .verify();
+
+        StepVerifier.create(ledger.reserve(OTHER_USER, 50))
+                .assertNext(reservation -> {
+                    assertEquals(50, ledger.getReserved(OTHER_USER));
+                    reservation.release();
+                })
+                .verifyComplete();
+        assertEquals(0, ledger.getReserved(OTHER_USER));
+    }
+
+    @Test
+    public void testReconcile() throws Exception {
+        // written by others
+        Files.write(Path.of(storageRootDir, TEST_USER, "file3"), new byte[40]);
+        assertEquals(30, ledger.getUsage(TEST_USER));
+
+        assertEquals(70, ledger.reconcile(TEST_USER));
+        assertEquals(70, ledger.getUsage(TEST_USER));
+
+        // recorded changes are kept
+        Path file4 = Path.of(storageRootDir, TEST_USER, "file4");
+        Files.write(file4, new byte[10]);
+        ledger.fileWritten(file4, 0);
+        assertEquals(80, ledger.reconcile(TEST_USER));
+        assertEquals(80, ledger.getUsage(TEST_USER));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+
+    private static final long RATE = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void testRefill() {
+        var bucket = new TokenBucket(() -> RATE, clock::get);
+
+        // empty at first
+        assertEquals(millis(500), bucket.reserve(500));
+
+        // refilled at the rate, after paying the debt
+        clock.addAndGet(millis(1000));
+        assertEquals(0, bucket.reserve(500));
+        assertEquals(millis(100), bucket.reserve(100));
+    }
+
+    @Test
+    public void testBurst() {
+        var bucket = new TokenBucket(() -> RATE, clock::get);
+
+        // holds at most one second of tokens
+        clock.addAndGet(millis(10_000));
+        assertEquals(0, bucket.reserve(RATE));
+
+        // a large request goes into debt instead of being rejected
+        assertEquals(millis(1000), bucket.reserve(RATE));
+    }
+
+    @Test
+    public void testRateUpdated() {
+        var rate = new AtomicLong(RATE);
+        var bucket = new TokenBucket(rate::get, clock::get);
+
+        // unlimited
+        clock.addAndGet(millis(1000));
+        rate.set(0);
+        assertEquals(0, bucket.reserve(5000));
+
+        // tokens are not saved while unlimited
+        rate.set(2000);
+        clock.addAndGet(millis(500));
+        assertEquals(millis(1000), bucket.reserve(3000));
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -16,18 +16,31 @@
 package com.tsurugidb.belayer.webapi.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.tsurugidb.belayer.webapi.exception.IORuntimeException;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
 public class ZipFileUtilTest {
 
     String saveDir = "./test_tmp/aaa/";
@@ -64,4 +77,116 @@ public class ZipFileUtilTest {
 
         assertEquals(true, Files.exists(Path.of(distPath)) && !Files.isDirectory(Path.of(distPath)));
     }
+
+    @Test
+    public void testExtractZipParallel() throws Exception {
+
+        List<String> list = List.of(saveDir + "foo/foo1.txt",
+                saveDir + "foo/foo2.txt",
+                saveDir + "foo/foo3.txt");
+
+        for (String path : list) {
+            Files.write(Path.of(path), ("test file:" + path).getBytes());
+        }
+
+        String distPath = saveDir + "test.zip";
+        list.stream().collect(ZipFileUtil.collectAsZipFile(Path.of(saveDir), distPath, -1));
+
+        Path extractDir = Path.of("./test_tmp/extract");
+        Files.createDirectories(extractDir);
+        ZipFileUtil.extractZipFileParallel(extractDir, Path.of(distPath), 2, IoLimiter.NONE);
+
+        for (String path : list) {
+            Path extracted = extractDir.resolve(Path.of(saveDir).relativize(Path.of(path)));
+            assertEquals("test file:" + path, Files.readString(extracted));
+        }
+    }
+
+    @Test
+    public void testExtractZipParallelOnBusyScheduler() throws Exception {
+
+        List<String> list = List.of(saveDir + "foo/foo1.txt",
+                saveDir + "foo/foo2.txt",
+                saveDir + "foo/foo3.txt");
+
+        for (String path : list) {
+            Files.write(Path.of(path), ("test file:" + path).getBytes());
+        }
+
+        String distPath = saveDir + "test.zip";
+        list.stream().collect(ZipFileUtil.collectAsZipFile(Path.of(saveDir), distPath, -1));
+
+        // the only thread of the scheduler is busy, so the calling thread extracts all entries
+        Scheduler scheduler = Schedulers.newSingle("zip-test");
+        CountDownLatch busy = new CountDownLatch(1);
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    busy.await();
+                } catch (InterruptedException ignore) {
+                    // finish
+                }
+            });
+
+            Path extractDir = Path.of("./test_tmp/extract");
+            Files.createDirectories(extractDir);
+            ZipFileUtil.extractZipFileParallel(extractDir, Path.of(distPath), 2, scheduler, IoLimiter.NONE, false);
+
+            for (String path : list) {
+                Path extracted = extractDir.resolve(Path.of(saveDir).relativize(Path.of(path)));
+                assertEquals("test file:" + path, Files.readString(extracted));
+            }
+        } finally {
+            busy.countDown();
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    public void testVerifyZip() throws Exception {
+
+        List<String> list = List.of(saveDir + "foo/foo1.txt",
+                saveDir + "foo/foo2.txt");
+
+        for (String path : list) {
+            Files.write(Path.of(path), ("test file:" + path).getBytes());
+        }
+
+        String distPath = saveDir + "test.zip";
+        list.stream().collect(ZipFileUtil.collectAsZipFileWithManifest(Path.of(saveDir), distPath, -1,
+                IoLimiter.NONE));
+
+        assertEquals(2, ZipFileUtil.readManifest(Path.of(distPath)).get().getEntries().size());
+        assertTrue(ZipFileUtil.verifyZipFile(Path.of(distPath), 2, IoLimiter.NONE).isEmpty());
+
+        // manifest is not extracted
+        Path extractDir = Path.of("./test_tmp/extract");
+        Files.createDirectories(extractDir);
+        ZipFileUtil.extractZipFileParallel(extractDir, Path.of(distPath), 2, IoLimiter.NONE, true);
+        assertFalse(Files.exists(extractDir.resolve(ZipFileUtil.MANIFEST_ENTRY_NAME)));
+
+        // same manifest with modified contents
+        Path tampered = Path.of(saveDir, "tampered.zip");
+        try (ZipFile zipFile = new ZipFile(distPath);
+                ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(tampered))) {
+            for (ZipEntry entry : Collections.list(zipFile.entries())) {
+                zos.putNextEntry(new ZipEntry(entry.getName()));
+                if (entry.getName().endsWith("foo1.txt")) {
+                    zos.write("modified".getBytes());
+                } else {
+                    zipFile.getInputStream(entry).transferTo(zos);
+                }
+                zos.closeEntry();
+            }
+        }
+
+        List<String> errors = ZipFileUtil.verifyZipFile(tampered, 2, IoLimiter.NONE);
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).contains("foo1.txt"));
+
+        Path extractDir2 = Path.of("./test_tmp/extract2");
+        Files.createDirectories(extractDir2);
+        assertThrows(IORuntimeException.class,
+                () -> ZipFileUtil.extractZipFileParallel(extractDir2, tampered, 2, IoLimiter.NONE, true));
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+
+public class ZipStreamWriterTest {
+
+    String saveDir = "./test_tmp/stream/";
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.createDirectories(Path.of(saveDir, "foo"));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // delete dir for test
+        Files.walk(Path.of("./test_tmp"))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testNextChunk() throws Exception {
+
+        byte[] contents1 = new byte[300 * 1024];
+        new Random(1).nextBytes(contents1);
+        byte[] contents2 = "test file".getBytes();
+        Files.write(Path.of(saveDir, "foo/file1.dat"), contents1);
+        Files.write(Path.of(saveDir, "foo/file2.txt"), contents2);
+        List<String> list = List.of(saveDir + "foo/file1.dat", saveDir + "foo/file2.txt");
+
+        int chunkSize = 64 * 1024;
+        var zip = new ByteArrayOutputStream();
+        int chunks = 0;
+        try (var writer = new ZipStreamWriter(Path.of(saveDir), list, 0, chunkSize)) {
+            byte[] chunk;
+            while ((chunk = writer.nextChunk()) != null) {
+                zip.write(chunk);
+                chunks++;
+            }
+            assertNull(writer.nextChunk());
+        }
+        assertTrue(chunks > 1);
+
+        try (var in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            ZipEntry entry = in.getNextEntry();
+            assertEquals("foo/file1.dat", entry.getName());
+            assertArrayEquals(contents1, in.readAllBytes());
+            entry = in.getNextEntry();
+            assertEquals("foo/file2.txt", entry.getName());
+            assertArrayEquals(contents2, in.readAllBytes());
+            assertNull(in.getNextEntry());
+        }
+    }
+
+    @Test
+    public void testEntriesArrivingLater() throws Exception {
+
+        Files.write(Path.of(saveDir, "foo/file1.txt"), "file1".getBytes());
+        Files.write(Path.of(saveDir, "foo/file2.txt"), "file2".getBytes());
+        AtomicBoolean canceled = new AtomicBoolean();
+
+        // the second entry is available after the first one is written
+        Flux<Map.Entry<String, Path>> entries = Flux.just("file1.txt", "file2.txt")
+                .delayElements(Duration.ofMillis(100))
+                .map(name -> Map.entry("renamed_" + name, Path.of(saveDir, "foo", name)))
+                .doOnCancel(() -> canceled.set(true));
+
+        var zip = new ByteArrayOutputStream();
+        try (var writer = new ZipStreamWriter(entries.toStream(), 0, 1024)) {
+            byte[] chunk;
+            while ((chunk = writer.nextChunk()) != null) {
+                zip.write(chunk);
+            }
+        }
+
+        try (var in = new ZipInputStream(new ByteArrayInputStream(zip.toByteArray()))) {
+            assertEquals("renamed_file1.txt", in.getNextEntry().getName());
+            assertArrayEquals("file1".getBytes(), in.readAllBytes());
+            assertEquals("renamed_file2.txt", in.getNextEntry().getName());
+            assertArrayEquals("file2".getBytes(), in.readAllBytes());
+            assertNull(in.getNextEntry());
+        }
+
+        // closing the writer before the end cancels the entries
+        try (var writer = new ZipStreamWriter(entries.toStream(), 0, 1)) {
+            writer.nextChunk();
+        }
+        assertTrue(canceled.get());
+    }
+}
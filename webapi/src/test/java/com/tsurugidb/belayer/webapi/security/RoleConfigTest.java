@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.tsurugidb.belayer.webapi.exception.InvalidSettingException;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "webapi.storage.root=./test_tmp")
+public class RoleConfigTest {
+
+    @Value("${webapi.storage.root}")
+    private String storageRootDir;
+
+    @Value("${webapi.user_role.default.mapping}")
+    private String defaultMapping;
+
+    @Autowired
+    RoleConfig roleConfig;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        roleConfig.applyConfByJson(defaultMapping);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        Path root = Path.of(storageRootDir);
+        if (!Files.exists(root)) {
+            return;
+        }
+        Files.walk(root)
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void testInvalidUserCondition() throws Exception {
+        long version = roleConfig.getVersion();
+
+        assertThrows(InvalidSettingException.class,
+                () -> roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"[\"]}"));
+
+        // the mapping is not changed
+        assertEquals(version, roleConfig.getVersion());
+        assertEquals(List.of("ROLE_ADMIN"), roleConfig.getRolesByUserId("user1"));
+    }
+
+    @Test
+    public void testVersionUpdated() throws Exception {
+        long version = roleConfig.getVersion();
+
+        roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"admin\"]}");
+        assertEquals(version + 1, roleConfig.getVersion());
+
+        roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"admin\"]}");
+        assertEquals(version + 2, roleConfig.getVersion());
+    }
+
+    @Test
+    public void testMemoizedRolesDroppedOnUpdate() throws Exception {
+        roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"admin\"]}");
+        assertEquals(List.of(), roleConfig.getRolesByUserId("user1"));
+
+        roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"user.*\"]}");
+        assertEquals(List.of("ROLE_ADMIN"), roleConfig.getRolesByUserId("user1"));
+    }
+
+    @Test
+    public void testRoleListedOnce() throws Exception {
+        roleConfig.applyConfByJson("{\"ROLE_ADMIN\": [\"user1\", \"user.*\"], \"ROLE_USER\": [\".*\"]}");
+
+        assertEquals(List.of("ROLE_ADMIN", "ROLE_USER"), roleConfig.getRolesByUserId("user1"));
+        assertEquals(List.of("ROLE_USER"), roleConfig.getRolesByUserId("admin"));
+    }
+}
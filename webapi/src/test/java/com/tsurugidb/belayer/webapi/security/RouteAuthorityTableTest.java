@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import com.tsurugidb.belayer.webapi.config.RouterPath;
+import com.tsurugidb.belayer.webapi.security.RouteAuthorityTable.Rule;
+
+public class RouteAuthorityTableTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteAuthorityTableTest.class);
+
+    private static final Rule DEFAULT_RULE = Rule.hasAnyRole(Set.of("ROLE_DEFAULT"));
+
+    @Test
+    public void testLookup() {
+        var table = new RouteAuthorityTable(DEFAULT_RULE);
+        Map<String, Rule> rules = createRules();
+        rules.forEach(table::add);
+
+        for (String path : samplePaths()) {
+            assertSame(lookupInOrder(rules, path), table.lookup(path), path);
+        }
+
+        assertTrue(table.lookup("/admin/js/app.js").isPermitAll());
+        assertTrue(table.lookup("/api/hello").isPermitAll());
+        assertTrue(table.lookup("/api/br/status/backup/123").isGranted("P_RESTORE"));
+        assertFalse(table.lookup("/api/br/cancel/backup/123").isGranted("P_BACKUP"));
+        assertSame(DEFAULT_RULE, table.lookup("/api/unknown"));
+    }
+
+    @Test
+    public void testFirstPatternWins() {
+        var table = new RouteAuthorityTable(DEFAULT_RULE)
+                .add("/api/transaction/**", Rule.hasAnyRole(Set.of("ROLE_A")))
+                .add("/api/transaction/status/*", Rule.DENY_ALL);
+
+        assertTrue(table.lookup("/api/transaction/status/tx1").isGranted("ROLE_A"));
+        assertEquals(DEFAULT_RULE, table.lookup("/api/other"));
+    }
+
+    /**
+     * Compare the per-request overhead of matching paths in turn and of the
+     * table lookup. Run by {@code ./gradlew benchmark}.
+     */
+    @Test
+    @Tag("benchmark")
+    public void testLookupOverhead() {
+        var table = new RouteAuthorityTable(DEFAULT_RULE);
+        Map<String, Rule> rules = createRules();
+        rules.forEach(table::add);
+
+        List<ServerWebExchangeMatcher> matchers = rules.keySet().stream()
+                .map(ServerWebExchangeMatchers::pathMatchers)
+                .collect(Collectors.toList());
+        List<MockServerWebExchange> exchanges = samplePaths().stream()
+                .map(path -> MockServerWebExchange.from(MockServerHttpRequest.get(path)))
+                .collect(Collectors.toList());
+
+        int iterations = 2000;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long start = System.nanoTime();
+            int matched = 0;
+            for (int i = 0; i < iterations; i++) {
+                for (var exchange : exchanges) {
+                    for (var matcher : matchers) {
+                        if (matcher.matches(exchange).block().isMatch()) {
+                            matched++;
+                            break;
+                        }
+                    }
+                }
+            }
+            long matcherNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < iterations; i++) {
+                for (var exchange : exchanges) {
+                    if (table.lookup(exchange.getRequest().getPath().pathWithinApplication()) != DEFAULT_RULE) {
+                        found++;
+                    }
+                }
+            }
+            long tableNanos = System.nanoTime() - start;
+
+            assertEquals(matched, found);
+            long requests = (long) iterations * exchanges.size();
+            log.info("path matchers:{}ns/request, route table:{}ns/request", matcherNanos / requests,
+                    tableNanos / requests);
+        }
+    }
+
+    private Map<String, Rule> createRules() {
+        Map<String, Rule> rules = new LinkedHashMap<>();
+        rules.put("/favicon.ico", Rule.PERMIT_ALL);
+        rules.put("/management/**", Rule.PERMIT_ALL);
+        rules.put("/admin", Rule.PERMIT_ALL);
+        rules.put("/admin/**", Rule.PERMIT_ALL);
+        for (RouterPath path : RouterPath.values()) {
+            Set<String> permissions = Stream.of(path.getAuthorities())
+                    .map(Enum::name)
+                    .collect(Collectors.toSet());
+            rules.putIfAbsent(path.getPathMatch(),
+                    permissions.equals(Set.of("P_NONE")) ? Rule.PERMIT_ALL : Rule.hasAnyRole(permissions));
+        }
+        return rules;
+    }
+
+    private Rule lookupInOrder(Map<String, Rule> rules, String path) {
+        var container = PathContainer.parsePath(path);
+        for (var entry : rules.entrySet()) {
+            if (PathPatternParser.defaultInstance.parse(entry.getKey()).matches(container)) {
+                return entry.getValue();
+            }
+        }
+        return DEFAULT_RULE;
+    }
+
+    private List<String> samplePaths() {
+        List<String> paths = new ArrayList<>();
+        for (RouterPath path : RouterPath.values()) {
+            paths.add(path.getPath().replaceAll("\\{[^}]+\\}", "x1"));
+        }
+        paths.add("/admin");
+        paths.add("/admin/index.html");
+        paths.add("/management/health");
+        paths.add("/favicon.ico");
+        paths.add("/api/backup/");
+        paths.add("/api/download/dir%2Ffile.csv");
+        paths.add("/api/unknown/path");
+        paths.add("/");
+        return paths;
+    }
+}
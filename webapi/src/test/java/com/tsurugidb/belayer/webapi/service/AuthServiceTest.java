@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import com.tsurugidb.belayer.webapi.security.RoleConfig;
+import com.tsurugidb.tsubakuro.auth.Ticket;
+import com.tsurugidb.tsubakuro.auth.TicketProvider;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+public class AuthServiceTest {
+
+    @Autowired
+    AuthService authService;
+
+    @MockBean
+    TicketProvider ticketProvider;
+
+    @MockBean
+    RoleConfig roleConfig;
+
+    @Test
+    public void test_checkAndCreateAuthentication_cached() throws Exception {
+        Ticket ticket = mock(Ticket.class);
+        when(ticket.getUserId()).thenReturn("user1");
+        when(ticket.getAccessExpirationTime()).thenReturn(Optional.of(Instant.now().plusSeconds(600)));
+        when(ticketProvider.restore("token1")).thenReturn(ticket);
+        when(roleConfig.getRolesByUserId(anyString())).thenReturn(List.of("ROLE_ADMIN"));
+        when(roleConfig.getVersion()).thenReturn(1L);
+
+        var auth1 = authService.checkAndCreateAuthentication("Bearer token1").block();
+        var auth2 = authService.checkAndCreateAuthentication("Bearer token1").block();
+
+        assertEquals("user1", auth2.getPrincipal());
+        assertEquals(auth1.getAuthorities(), auth2.getAuthorities());
+        verify(ticketProvider, times(1)).restore("token1");
+
+        // verified again after the role-user mapping is changed
+        when(roleConfig.getVersion()).thenReturn(2L);
+        authService.checkAndCreateAuthentication("Bearer token1").block();
+
+        verify(ticketProvider, times(2)).restore("token1");
+    }
+
+    @Test
+    public void test_checkAndCreateAuthentication_expired() throws Exception {
+        Ticket ticket = mock(Ticket.class);
+        when(ticket.getUserId()).thenReturn("user2");
+        when(ticket.getAccessExpirationTime()).thenReturn(Optional.of(Instant.now().minusSeconds(1)));
+        when(ticketProvider.restore("token2")).thenReturn(ticket);
+        when(roleConfig.getRolesByUserId(anyString())).thenReturn(List.of());
+
+        authService.checkAndCreateAuthentication("Bearer token2").block();
+        authService.checkAndCreateAuthentication("Bearer token2").block();
+
+        verify(ticketProvider, times(2)).restore("token2");
+    }
+}
@@ -18,7 +18,6 @@ package com.tsurugidb.belayer.webapi.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
@@ -44,6 +43,8 @@ import org.springframework.boot.test.mock.mockito.SpyBean;
 
 import com.tsurugidb.belayer.webapi.dto.BackupContext;
 import com.tsurugidb.belayer.webapi.dto.BackupJob;
+import com.tsurugidb.belayer.webapi.dto.BackupManifest;
+import com.tsurugidb.belayer.webapi.dto.BackupManifest.ManifestEntry;
 import com.tsurugidb.belayer.webapi.dto.BackupRestoreRequestParam;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
@@ -142,8 +143,16 @@ public class BackupRestoreServiceTest {
         expectJob.setZipFilePath("bk1/backup-" + jobId + ".zip");
         expectJob.setProgress(100);
         expectJob.setProgressNumerator(4);
-
-        when(dbControlService.isOnline(any(), any())).thenReturn(true);
+        var manifestEntry = new ManifestEntry();
+        manifestEntry.setPath("file1.txt");
+        manifestEntry.setSize(4);
+        manifestEntry.setCrc32c("86a072c0");
+        manifestEntry.setSha256("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        var manifest = new BackupManifest();
+        manifest.getEntries().add(manifestEntry);
+        expectJob.setManifest(manifest);
+
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(true));
         for (BackupContext backupCtx : backupFiles) {
             Files.write(backupCtx.getTargetFilePath(), "test".getBytes());
         }
@@ -187,7 +196,7 @@ public class BackupRestoreServiceTest {
 
         var errorMessage = "test error";
 
-        when(dbControlService.isOnline(any(), any())).thenReturn(true);
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(true));
 
         var pathList = new ArrayList<Path>();
         pathList.add(Path.of("./src/test/files/backup_restore/file1.txt"));
@@ -242,9 +251,9 @@ public class BackupRestoreServiceTest {
     @Test
     public void test_startBackup_offline() throws Exception {
 
-        when(dbControlService.isOnline(any(), any())).thenReturn(false);
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(false));
 
-        doNothing().when(dbQuiesceExec).callQuiesce(any());
+        when(dbQuiesceExec.callQuiesce(any())).thenReturn(Mono.empty());
 
         var now = Instant.parse("2022-06-30T12:00:00.000Z");
         Mockito.when(systemTime.now()).thenReturn(now);
@@ -263,6 +272,7 @@ public class BackupRestoreServiceTest {
         expectJob.setWorkDir(Path.of(testDir, Constants.TEMP_DIR_PREFIX_BACKUP + jobId));
         expectJob.setZipFilePath(dirPath + "/backup-" + jobId + ".zip");
         expectJob.setProgress(100);
+        expectJob.setManifest(new BackupManifest());
 
         when(fileSystemService.createTempDirectory(any())).thenAnswer(new Answer<Path>() {
             @Override
@@ -278,7 +288,7 @@ public class BackupRestoreServiceTest {
             }
         });
 
-        when(offlineBackupExec.backupOffline(any())).thenReturn(expectJob);
+        when(offlineBackupExec.backupOffline(any())).thenReturn(Mono.just(expectJob));
 
         var param = new BackupRestoreRequestParam();
         param.setJobId(jobId);
@@ -309,7 +319,7 @@ public class BackupRestoreServiceTest {
         job.setJobId(jobId);
         job.setUid(uid);
 
-        when(dbControlService.isOnline(any(), any())).thenReturn(false);
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(false));
 
         when(fileSystemService.createTempDirectory(any())).thenAnswer(new Answer<Path>() {
             @Override
@@ -325,7 +335,7 @@ public class BackupRestoreServiceTest {
             }
         });
 
-        when(dbRestoreExec.startRestore(any())).thenReturn(job);
+        when(dbRestoreExec.startRestore(any())).thenReturn(Mono.just(job));
 
         var now = Instant.parse("2022-06-30T12:00:00.000Z");
         Mockito.when(systemTime.now()).thenReturn(now);
@@ -357,7 +367,7 @@ public class BackupRestoreServiceTest {
     @Test
     public void test_startRestore_in_online() throws Exception {
 
-        when(dbControlService.isOnline(any(), any())).thenReturn(true);
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(true));
 
         var uid = "test_user";
         var zipFilePath = "bk1/backup.zip";
@@ -367,7 +377,7 @@ public class BackupRestoreServiceTest {
         param.setZipFilePath(zipFilePath);
 
         try {
-            backupRestoreService.startRestore(param);
+            backupRestoreService.startRestore(param).block();
             fail("not thrown");
         } catch (BadRequestException ex) {
             assertEquals("DB is online.", ex.getDisplayMessage());
@@ -404,7 +414,7 @@ public class BackupRestoreServiceTest {
         var uid = "test_user";
         var dirPath = "bk1";
 
-        when(dbControlService.isOnline(any(), any())).thenReturn(true);
+        when(dbControlService.isOnline(any(), any())).thenReturn(Mono.just(true));
 
         var pathList = new ArrayList<Path>();
         pathList.add(Path.of("./src/test/files/backup_restore/file1.txt"));
@@ -438,7 +448,7 @@ public class BackupRestoreServiceTest {
         param.setUid(uid);
         param.setDirPath(dirPath);
 
-        backupRestoreService.startBackup(param);
+        backupRestoreService.startBackup(param).block();
         Mono<Job> actualResult = backupRestoreService.cancelBackupRestoreJob(Job.TYPE_BACKUP,
                 uid,
                 jobId);
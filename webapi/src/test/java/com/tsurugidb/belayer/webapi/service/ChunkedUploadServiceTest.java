@@ -0,0 +1,174 @@
+/*
+ * Copyright 2025 tsurugi project.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tsurugidb.belayer.webapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadRequestBody;
+import com.tsurugidb.belayer.webapi.dto.ChunkedUploadStatus;
+import com.tsurugidb.belayer.webapi.exception.BelayerResponseStatusException;
+import com.tsurugidb.belayer.webapi.exception.NotFoundException;
+import com.tsurugidb.belayer.webapi.model.Constants;
+import com.tsurugidb.belayer.webapi.util.DigestUtil;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = "webapi.storage.root=./test_tmp")
+public class ChunkedUploadServiceTest {
+
+    @Value("${webapi.storage.root}")
+    private String storageRootDir;
+
+    @Autowired
+    ChunkedUploadService chunkedUploadService;
+
+    private static final String TEST_USER = "test_user";
+
+    private static final byte[] FIRST = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] SECOND = "abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        // create dir for test
+        Files.createDirectories(Path.of(storageRootDir, TEST_USER));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        // delete dir for test
+        Files.walk(Path.of(storageRootDir))
+                .sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+    }
+
+    @Test
+    public void test_complete_waitsForChunk() throws Exception {
+        var upload = initiate(FIRST.length + SECOND.length);
+        String uploadId = upload.getUploadId();
+
+        chunkedUploadService.writeChunk(TEST_USER, uploadId, 0, FIRST.length, toFlux(FIRST)).block();
+
+        // the second chunk is still being received
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        var writing = chunkedUploadService.writeChunk(TEST_USER, uploadId, FIRST.length, SECOND.length,
+                body.asFlux()).toFuture();
+        body.tryEmitNext(toBuffer(SECOND));
+
+        var completing = chunkedUploadService.complete(TEST_USER, uploadId, sha256(FIRST, SECOND)).toFuture();
+
+        // chunks are rejected while completing
+        var ex = assertThrows(BelayerResponseStatusException.class,
+                () -> chunkedUploadService.writeChunk(TEST_USER, uploadId, 0, FIRST.length, toFlux(FIRST)).block());
+        assertEquals(HttpStatus.CONFLICT, ex.getStatus());
+        assertFalse(completing.isDone());
+
+        body.tryEmitComplete();
+        writing.get();
+        ChunkedUploadStatus status = completing.get();
+
+        assertTrue(status.isCompleted());
+        assertArrayEquals(concat(FIRST, SECOND), Files.readAllBytes(targetPath()));
+    }
+
+    @Test
+    public void test_writeChunk_afterComplete() throws Exception {
+        var upload = initiate(FIRST.length);
+        String uploadId = upload.getUploadId();
+
+        chunkedUploadService.writeChunk(TEST_USER, uploadId, 0, FIRST.length, toFlux(FIRST)).block();
+        chunkedUploadService.complete(TEST_USER, uploadId, sha256(FIRST)).block(Duration.ofSeconds(10));
+
+        assertThrows(NotFoundException.class,
+                () -> chunkedUploadService.writeChunk(TEST_USER, uploadId, 0, SECOND.length, toFlux(SECOND))
+                        .block());
+        assertArrayEquals(FIRST, Files.readAllBytes(targetPath()));
+    }
+
+    @Test
+    public void test_partFileInHiddenDirectory() throws Exception {
+        var upload = initiate(FIRST.length);
+        String uploadId = upload.getUploadId();
+
+        // nothing is written in the target directory until completed
+        try (var files = Files.list(targetPath().getParent())) {
+            assertEquals(0, files.count());
+        }
+        Path partPath = Path.of(storageRootDir, TEST_USER, Constants.CHUNKED_UPLOAD_DIR, uploadId + ".part");
+        assertTrue(Files.isRegularFile(partPath));
+
+        chunkedUploadService.abort(TEST_USER, uploadId);
+        assertFalse(Files.exists(partPath));
+    }
+
+    private ChunkedUploadStatus initiate(long size) {
+        var body = new ChunkedUploadRequestBody();
+        body.setDestDir("chunked");
+        body.setFileName("test.txt");
+        body.setSize(size);
+        return chunkedUploadService.initiate(TEST_USER, body);
+    }
+
+    private Path targetPath() {
+        return Path.of(storageRootDir, TEST_USER, "chunked", "test.txt");
+    }
+
+    private static Flux<DataBuffer> toFlux(byte[] bytes) {
+        return Flux.just(toBuffer(bytes));
+    }
+
+    private static DataBuffer toBuffer(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+
+    private static String sha256(byte[]... chunks) {
+        var digest = DigestUtil.newSha256();
+        for (byte[] chunk : chunks) {
+            digest.update(chunk);
+        }
+        return DigestUtil.toHex(digest.digest());
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
@@ -1,11 +1,15 @@
 package com.tsurugidb.belayer.webapi.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +23,8 @@ import com.tsurugidb.belayer.webapi.exec.DbShutdownExec;
 import com.tsurugidb.belayer.webapi.exec.DbStartExec;
 import com.tsurugidb.belayer.webapi.exec.DbStatusExec;
 
+import reactor.core.publisher.Mono;
+
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
 public class DbControlServiceTest {
 
@@ -40,27 +46,43 @@ public class DbControlServiceTest {
     @Test
     public void test_startDatabase() throws Exception {
         var expect = new ExecStatus();
-        when(dbStartExec.startDatabse(anyString(), anyString(), anyString(), anyString(), anyBoolean())).thenReturn(expect);
-        var actural = dbControlService.startDatabase("test", "xxx", "mode", "from", true);
+        when(dbStartExec.startDatabse(anyString(), anyString(), anyString(), anyString(), anyBoolean())).thenReturn(Mono.just(expect));
+        var actural = dbControlService.startDatabase("test", "xxx", "mode", "from", true).block();
         assertEquals(expect, actural);
     }
 
     @Test
     public void test_shutdownDatabase() throws Exception {
         var expect = new ExecStatus();
-        when(dbShutdownExec.shutdownDatabase(anyString(), anyString())).thenReturn(expect);
-        var actural = dbControlService.shutdownDatabase("test", "xxx");
+        when(dbShutdownExec.shutdownDatabase(anyString(), anyString())).thenReturn(Mono.just(expect));
+        var actural = dbControlService.shutdownDatabase("test", "xxx").block();
         assertEquals(expect, actural);
     }
 
+    @Test
+    public void test_shutdownDatabase_cancelled() throws Exception {
+        var expect = new ExecStatus();
+        var finished = new CountDownLatch(1);
+        when(dbShutdownExec.shutdownDatabase(anyString(), anyString())).thenReturn(
+                Mono.delay(Duration.ofMillis(200)).map(l -> expect).doOnSuccess(s -> finished.countDown()));
+
+        // the request is cancelled, e.g. the client disconnects
+        var result = dbControlService.shutdownDatabase("test", "xxx");
+        result.subscribe().dispose();
+
+        // the command keeps running
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertEquals(expect, result.block());
+    }
+
     @Test
     public void test_getStatus() throws Exception {
         InstanceInfo iInfo = new InstanceInfo("ins001", List.of("tag1", "tag2"));
         var status = DbStatus.builder().status(ExecStatus.STATUS_RUNNING).instanceName(iInfo.getInstanceName()).tags(iInfo.getTags()).build();
-        when(dbStatusExec.getStatus(anyString(), anyString())).thenReturn(status);
+        when(dbStatusExec.getStatus(anyString(), anyString())).thenReturn(Mono.just(status));
         when(instanceInfoService.getInstanceInfo()).thenReturn(iInfo);
 
-        var result = dbControlService.getStatus("test", "dummy");
+        var result = dbControlService.getStatus("test", "dummy").block();
 
         assertEquals(status, result);
     }
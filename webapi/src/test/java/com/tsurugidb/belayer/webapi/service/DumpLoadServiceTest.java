@@ -16,15 +16,22 @@
 package com.tsurugidb.belayer.webapi.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,6 +44,7 @@ import com.tsurugidb.belayer.webapi.dto.DumpLoadRequestParam;
 import com.tsurugidb.belayer.webapi.dto.DumpRequestParam;
 import com.tsurugidb.belayer.webapi.dto.Job;
 import com.tsurugidb.belayer.webapi.dto.Job.JobStatus;
+import com.tsurugidb.belayer.webapi.dto.LoadFileInfo;
 import com.tsurugidb.belayer.webapi.dto.LoadJob;
 import com.tsurugidb.belayer.webapi.dto.LoadRequestParam;
 import com.tsurugidb.belayer.webapi.dto.TransactionalJob;
@@ -312,7 +320,6 @@ public class DumpLoadServiceTest {
 
         when(fileSystemService.convertToDownloadPath(anyString(), anyString())).thenReturn(Path.of("/file1.csv"));
         when(fileSystemService.convertToAbsolutePath(anyString(), anyString())).thenReturn(path);
-        when(fileSystemService.createTempDirectory(any())).thenCallRealMethod();
 
         var param = new LoadRequestParam();
         param.setJobId(jobId);
@@ -334,6 +341,72 @@ public class DumpLoadServiceTest {
         assertEquals(expectJob, fromJobManager.block());
     }
 
+    @Test
+    public void test_startLoad_zip() throws Exception {
+
+        var jobId = "zipJobId";
+        var uid = "test_user";
+        var table = "FOO_TBL";
+        String filePath = "dump1/files.zip";
+
+        var now = Instant.parse("2022-06-30T12:00:00.000Z");
+        when(systemTime.now()).thenReturn(now);
+
+        Path parquet = Path.of("./src/test/files/parquet/test.parquet");
+        Path parquet2 = Path.of("./src/test/files/parquet/test2.parquet");
+        Path zipDir = Files.createTempDirectory("belayer-test-");
+        Path zipPath = zipDir.resolve("files.zip");
+        try (var out = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            out.putNextEntry(new ZipEntry("test.parquet"));
+            Files.copy(parquet, out);
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("dir/test2.parquet"));
+            Files.copy(parquet2, out);
+            out.closeEntry();
+        }
+
+        // extracted entries exist while loaded, the progress is counted as the real service does
+        List<Path> loaded = new CopyOnWriteArrayList<>();
+        when(tsubakuroService.createLoadTransaction(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(tsubakuroService.loadFile(any(), any())).thenAnswer(invocation -> {
+            LoadJob job = invocation.getArgument(0);
+            LoadFileInfo info = invocation.getArgument(1);
+            assertTrue(Files.exists(info.getFilePath()));
+            job.addProgressNumerator(FileUtil.getFileSize(info.getFilePath()));
+            loaded.add(info.getFilePath());
+            return Mono.just(info.getFilePath().toString());
+        });
+        when(tsubakuroService.commitTx(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        when(fileSystemService.convertToDownloadPath(anyString(), anyString())).thenReturn(Path.of("/files.zip"));
+        when(fileSystemService.convertToAbsolutePath(anyString(), anyString())).thenReturn(zipPath);
+
+        var param = new LoadRequestParam();
+        param.setJobId(jobId);
+        param.setUid(uid);
+        param.setTable(table);
+        param.setFormat(DumpLoadRequestParam.FORMAT_ZIP);
+        param.setFiles(List.of(filePath));
+        param.setWaitUntilDone(true);
+
+        try {
+            var actualJob = dumpLoadService.startLoad(param).block();
+
+            assertEquals(JobStatus.COMPLETED, actualJob.getStatus());
+            assertEquals(2, loaded.size());
+            for (Path path : loaded) {
+                // deleted after loaded
+                assertFalse(Files.exists(path));
+            }
+            long total = FileUtil.getFileSize(parquet) + FileUtil.getFileSize(parquet2);
+            assertEquals(total, actualJob.getProgressNumerator());
+            assertEquals(total, actualJob.getProgressDenominator());
+        } finally {
+            Files.delete(zipPath);
+            Files.delete(zipDir);
+        }
+    }
+
     @Test
     public void test_startLoad_fail() throws Exception {
 